@@ -1,66 +1,83 @@
 package kiko;
 
-import java.io.IOException;
-import java.util.Collections;
-
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.Background;
+import javafx.scene.layout.BackgroundFill;
+import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
 
 /**
  * Represents a dialog box consisting of an ImageView to represent the speaker's face
  * and a label containing text from the speaker.
+ * The nodes are built in code rather than loaded from FXML, and the backgrounds, colours and insets
+ * are created once and shared by every dialog box, since a long conversation creates two boxes per command.
  */
 public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
+    private static final double PICTURE_SIZE = 99.0;
+    private static final double WIDTH = 400.0;
+    private static final Insets BOX_PADDING = new Insets(15.0, 5.0, 15.0, 5.0);
+    private static final Insets BUBBLE_PADDING = new Insets(10.0);
+    private static final CornerRadii BUBBLE_RADII = new CornerRadii(10.0);
+    private static final Background USER_BUBBLE = new Background(
+            new BackgroundFill(Color.web("#007bff"), BUBBLE_RADII, Insets.EMPTY));
+    private static final Background KIKO_BUBBLE = new Background(
+            new BackgroundFill(Color.web("#555555"), BUBBLE_RADII, Insets.EMPTY));
 
-    private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private final Label dialog;
+    private final ImageView displayPicture;
+
+    private DialogBox(String text, Image img, Background bubble, boolean isPictureFirst) {
+        dialog = new Label(text);
+        dialog.setWrapText(true);
+        dialog.setMinHeight(Region.USE_PREF_SIZE);
+        dialog.setBackground(bubble);
+        dialog.setTextFill(Color.WHITE);
+        dialog.setPadding(BUBBLE_PADDING);
+        HBox.setHgrow(dialog, Priority.ALWAYS);
 
-        dialog.setText(text);
-        displayPicture.setImage(img);
-        
-        Circle clip = new Circle(displayPicture.getFitWidth() / 2, displayPicture.getFitHeight() / 2, displayPicture.getFitWidth() / 2);
-        displayPicture.setClip(clip);
+        displayPicture = new ImageView(img);
+        displayPicture.setFitWidth(PICTURE_SIZE);
+        displayPicture.setFitHeight(PICTURE_SIZE);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+        // A node can only clip one other node, so every picture needs its own circle
+        displayPicture.setClip(new Circle(PICTURE_SIZE / 2, PICTURE_SIZE / 2, PICTURE_SIZE / 2));
+
+        setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        setPrefWidth(WIDTH);
+        setPadding(BOX_PADDING);
+        if (isPictureFirst) {
+            setAlignment(Pos.TOP_LEFT);
+            getChildren().addAll(displayPicture, dialog);
+        } else {
+            setAlignment(Pos.TOP_RIGHT);
+            getChildren().addAll(dialog, displayPicture);
+        }
     }
 
     /**
-     * Flips the dialog box such that the ImageView is on the left and text on the right.
+     * Creates a dialog box for the user with the specified text and image.
+     * The text bubble is styled with a blue background and white text, with the image on the right.
+     *
+     * @param text The text to display in the dialog box.
+     * @param img The image to display for the user.
+     * @return A DialogBox containing the user's input.
      */
-    private void flip() {
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
-    }
-
     public static DialogBox getUserDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.dialog.setStyle("-fx-background-color: #007bff; -fx-text-fill: white; -fx-padding: 10; -fx-background-radius: 10;");
-        return db;
+        return new DialogBox(text, img, USER_BUBBLE, false);
     }
 
     /**
      * Creates a dialog box for Kiko (the bot) with the specified text and image.
-     * The dialog box is flipped to have the image on the left.
+     * The dialog box has the image on the left.
      * The text bubble is styled with a dark grey background and white text.
      *
      * @param text The text to display in the dialog box.
@@ -68,10 +85,7 @@ public class DialogBox extends HBox {
      * @return A DialogBox containing Kiko's response.
      */
     public static DialogBox getKikoDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.flip();
-        db.dialog.setStyle("-fx-background-color: #555555; -fx-text-fill: white; -fx-padding: 10; -fx-background-radius: 10;");
-        return db;
+        return new DialogBox(text, img, KIKO_BUBBLE, true);
     }
     //Used Gemini 3 to make the text bubble
-}
\ No newline at end of file
+}
@@ -1,15 +1,42 @@
 package kiko;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import kiko.command.Command;
+import kiko.command.CommandCompiler;
+import kiko.command.CommandResult;
+import kiko.command.ParsedCommand;
+import kiko.command.Response;
+import kiko.command.ResultRenderer;
+import kiko.command.TaskSelection;
 import kiko.task.Task;
 import kiko.tasklist.TaskList;
-import kiko.storage.Storage;
 import kiko.parser.Parser;
 import kiko.history.History;
+import kiko.history.HistoryListener;
+import kiko.metrics.CommandEvent;
+import kiko.metrics.Metrics;
+import kiko.reminder.ReminderScheduler;
+import kiko.storage.SharedTaskFile;
+import kiko.storage.TaskFileWatcher;
+import kiko.sync.SyncEngine;
+import kiko.sync.SyncStamps;
+import kiko.transfer.TaskReader;
+import kiko.transfer.TaskWriter;
+import kiko.workspace.Workspace;
+import kiko.workspace.WorkspaceManager;
 
 /**
  * Kiko is a task management chatbot that allows users to manage their tasks.
@@ -20,42 +47,146 @@ import kiko.history.History;
 public class Kiko {
     
     private Parser parser;
+    private final CommandCompiler compiler = new CommandCompiler();
+    private final EnumMap<Command, Function<ParsedCommand, CommandResult>> handlers = new EnumMap<>(Command.class);
+    // The latency metric of every command, built once so running a command builds no metric names
+    private final EnumMap<Command, String> latencyKeys = new EnumMap<>(Command.class);
+    private WorkspaceManager workspaces;
+    private Workspace workspace;
     private TaskList taskList;
     private History history;
+    private ReminderScheduler reminders;
+    private TaskFileWatcher watcher;
     
-    public static final String HELP_MESSAGE = "Try these commands:\n"
-                 + "  list - show all tasks\n"
-                 + "  todo [description] - add a todo\n"
-                 + "  deadline [description] /by [date] - add a deadline\n"
-                 + "  event [description] /from [date] /to [date] - add an event\n"
-                 + "  mark [number] - mark task as done\n"
-                 + "  unmark [number] - mark task as not done\n"
-                 + "  delete [number] - delete a task\n"
-                 + "  find [keyword] - find tasks by keyword\n"
-                 + "  undo - undo the last command\n"
-                 + "  bye - exit";
+    private static final int HISTORY_DISPLAY_LIMIT = 20;
+    
+    public static final String HELP_MESSAGE = ResultRenderer.HELP_MESSAGE;
+    private static final EnumSet<Command> VERSIONED_COMMANDS = EnumSet.of(Command.MARK, Command.UNMARK,
+            Command.DELETE, Command.TODO, Command.DEADLINE, Command.EVENT, Command.RECUR, Command.IMPORT,
+            Command.SYNC);
 
     /**
      * Constructor for Kiko.
-     * Initializes the parser and loads tasks from storage.
+     * Initializes the parser and opens the default task list.
+     *
+     * @throws UncheckedIOException If the default task list cannot be opened.
      */
     public Kiko() {
+        this(new WorkspaceManager());
+    }
+    
+    /**
+     * Constructs a Kiko over the given workspaces, which decide where task lists are stored.
+     *
+     * @param workspaces The workspaces to open lists from.
+     * @throws UncheckedIOException If the default task list cannot be opened.
+     */
+    public Kiko(WorkspaceManager workspaces) {
         this.parser = new Parser();
-        ArrayList<Task> loadedTasks = Storage.loadTasks();
-        this.taskList = new TaskList(loadedTasks);
-        this.history = new History();
-        // Save initial state
-        this.history.saveState(this.taskList);
+        this.workspaces = workspaces;
+        switchTo(workspaces.open(WorkspaceManager.DEFAULT_WORKSPACE));
+        registerGauges();
+        registerHandlers();
+    }
+    
+    private void switchTo(Workspace next) {
+        // Loading can fail, so do it before leaving the current list
+        TaskList nextTaskList = next.getTaskList();
+        if (workspace != null) {
+            // Undo and redo replace the task list, so hand the latest one back first
+            workspace.setTaskList(taskList);
+            history.setListener(null);
+        }
+        this.workspace = next;
+        this.taskList = nextTaskList;
+        this.history = next.getHistory();
+        if (reminders != null) {
+            reminders.scheduleAll(taskList.getAllTasksArrayList());
+        }
+        listenToHistory();
+        SharedTaskFile file = taskList.getStore().getSharedFile();
+        if (watcher != null && file != null) {
+            file.markStale();
+        }
     }
     
     /**
-     * Generates a response to user input for GUI interaction.
-     * This method processes the input and returns a string response
-     * suitable for display in the GUI.
+     * Points the current history's changes at the reminders, if started, and at the sync stamps that
+     * let a later sync order marks and unmarks by when they were made.
+     */
+    private void listenToHistory() {
+        HistoryListener stamps = taskList.getFilePath() == null ? null : new SyncStamps(taskList.getFilePath());
+        history.setListener(reminders == null ? stamps : reminders.andThen(stamps));
+    }
+    
+    /**
+     * Starts sending reminders before the deadlines, events and recurring tasks of the current list.
+     * The reminders follow every later change, including undo, redo and switching lists.
      *
-     * @param input The user's input command
-     * @return A string response to be displayed in the GUI
+     * @param notifier Receives each reminder message, on a background thread.
+     */
+    public void startReminders(Consumer<String> notifier) {
+        assert reminders == null : "Reminders should only be started once";
+        reminders = new ReminderScheduler(notifier);
+        reminders.scheduleAll(taskList.getAllTasksArrayList());
+        listenToHistory();
+        Metrics.registerGauge("reminders.pending", () -> reminders.getPendingCount());
+        reminders.start();
+    }
+    
+    /**
+     * Starts watching the task files for changes saved by other Kiko instances, such as a script
+     * working on the same list. Changes are also picked up before every command, watched or not.
+     *
+     * @param onChange Called on a background thread when the current list may have been changed elsewhere.
      */
+    public void startWatching(Runnable onChange) {
+        assert watcher == null : "Watching should only be started once";
+        SharedTaskFile file = taskList.getStore().getSharedFile();
+        if (file == null) {
+            // Only shared stores can be changed by other instances
+            return;
+        }
+        String filePath = taskList.getFilePath();
+        watcher = new TaskFileWatcher(Paths.get(filePath).toAbsolutePath().getParent(), changedPath -> {
+            if (SharedTaskFile.of(changedPath) == SharedTaskFile.of(workspace.getFilePath())) {
+                onChange.run();
+            }
+        });
+        file.markStale();
+        try {
+            watcher.start();
+        } catch (IOException e) {
+            // Changes are still picked up before each command
+            System.out.println(" Error watching task files: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Applies the changes other Kiko instances saved to the current list, recording them as a new version.
+     *
+     * @return A message describing the changes, or null if there were none.
+     */
+    public String syncExternalChanges() {
+        int count = applyExternalChanges();
+        return count == 0 ? null : ResultRenderer.renderExternalChanges(count);
+    }
+    
+    private int applyExternalChanges() {
+        int count = taskList.syncExternalChanges();
+        if (count > 0) {
+            history.commit(taskList, "changes from another Kiko");
+        }
+        return count;
+    }
+    
+    private void registerGauges() {
+        Metrics.registerGauge("workspaces.open", () -> workspaces.getOpenCount());
+        Metrics.registerGauge("tasklist.size", () -> taskList.getTaskCount());
+        Metrics.registerGauge("history.depth", () -> history.getDepth());
+        Metrics.registerGauge("history.bytes", () -> history.getEstimatedBytes());
+        Metrics.registerGauge("index.fuzzy.words", () -> taskList.getFuzzyIndexSize());
+    }
     
     /**
      * Generates a response to user input for GUI interaction.
@@ -66,208 +197,405 @@ public class Kiko {
      * @return A string response to be displayed in the GUI
      */
     public String getResponse(String input) {
+        return respond(input).getText();
+    }
+    
+    /**
+     * Runs a line of user input for the GUI, which shows every response, so its text is built
+     * while the command is being recorded.
+     *
+     * @param input The user's input command.
+     * @return The response, with its text ready.
+     */
+    public Response respond(String input) {
+        return run(input, true);
+    }
+    
+    /**
+     * Runs a line of user input and returns what it did without building a message,
+     * for callers such as scripts and benchmarks that read the response's fields.
+     * The message is still built if {@link Response#getText()} is called.
+     *
+     * @param input The user's input command.
+     * @return The response.
+     */
+    public Response execute(String input) {
+        return run(input, false);
+    }
+    
+    private Response run(String input, boolean isRendering) {
         if (input == null || input.trim().isEmpty()) {
-            return "Please enter a command!";
+            return new Response(CommandResult.message(Command.UNKNOWN, "Please enter a command!"),
+                    taskList.getTaskCount());
         }
         
-        Command command = Command.fromInput(input);
-        assert command != null : "Command should not be null after parsing";
-        
-        String argument = command.getArgument(input.toLowerCase());
-        
-        switch (command) {
-        case LIST:
-            assert taskList != null : "TaskList should be initialized";
-            return handleListGui();
-            
-        case MARK:
-            history.saveState(taskList);
-            return handleMarkGui(argument);
-            
-        case UNMARK:
-            history.saveState(taskList);
-            return handleUnmarkGui(argument);
-            
-        case DELETE:
-            history.saveState(taskList);
-            return handleDeleteGui(argument);
-            
-        case TODO:
-            history.saveState(taskList);
-            return handleTodoGui(argument);
-            
-        case DEADLINE:
-            history.saveState(taskList);
-            return handleDeadlineGui(argument);
-            
-        case EVENT:
-            history.saveState(taskList);
-            return handleEventGui(argument);
-            
-        case FIND:
-            return handleFindGui(argument);
-            
-        case UNDO:
-            return handleUndoGui();
-            
-        case BYE:
-            return "CLOSE_WINDOW:Goodbye! Hope to see you again soon!";
-            
-        case UNKNOWN:
-        default:
-            return "I'm sorry, but I don't know what that means. " + HELP_MESSAGE;
-        }
-    }
-    
-    private String handleListGui() {
+        long start = System.nanoTime();
+        ParsedCommand command = compiler.compile(input);
+        CommandEvent event = new CommandEvent(command.getCommand().getCommandWord());
+        event.begin();
+        Response response = new Response(run(command, input, start), taskList.getTaskCount());
+        event.setTaskCount(response.getTaskCount());
+        if (isRendering) {
+            event.setResponseLength(response.getText().length());
+        }
+        event.commit();
+        return response;
+    }
+    
+    private CommandResult run(ParsedCommand command, String input, long start) {
+        Command word = command.getCommand();
+        int externalChangeCount = applyExternalChanges();
+        CommandResult result = command instanceof ParsedCommand.Invalid
+                ? CommandResult.message(word, ((ParsedCommand.Invalid) command).getMessage())
+                : handlers.get(word).apply(command);
+        if (VERSIONED_COMMANDS.contains(word)) {
+            // Commands that changed nothing, such as ones with invalid arguments, create no version.
+            // The input is the version's label; trimming only copies it if it has surrounding spaces
+            history.commit(taskList, input.trim());
+        }
+        Metrics.recordSince(latencyKeys.get(word), start);
+        Metrics.increment("commands.total");
+        return result.withExternalChangeCount(externalChangeCount);
+    }
+    
+    /**
+     * Fills the handler table, which maps every command to the method that runs it,
+     * and the name of every command's latency metric.
+     */
+    private void registerHandlers() {
+        for (Command command : Command.values()) {
+            latencyKeys.put(command, "command." + command.getCommandWord() + ".latency");
+        }
+        handlers.put(Command.LIST, command -> command instanceof ParsedCommand.ListVersion
+                ? handleListVersion((ParsedCommand.ListVersion) command) : handleList());
+        handlers.put(Command.MARK, command -> handleStatus((ParsedCommand.Select) command, true));
+        handlers.put(Command.UNMARK, command -> handleStatus((ParsedCommand.Select) command, false));
+        handlers.put(Command.DELETE, command -> handleDelete((ParsedCommand.Select) command));
+        handlers.put(Command.TODO, command -> {
+            taskList.addTodo(((ParsedCommand.AddTodo) command).getDescription());
+            return addedResult(command);
+        });
+        handlers.put(Command.DEADLINE, command -> {
+            ParsedCommand.AddDeadline deadline = (ParsedCommand.AddDeadline) command;
+            taskList.addDeadline(deadline.getDescription(), deadline.getBy());
+            return addedResult(command);
+        });
+        handlers.put(Command.EVENT, command -> {
+            ParsedCommand.AddEvent event = (ParsedCommand.AddEvent) command;
+            taskList.addEvent(event.getDescription(), event.getFrom(), event.getTo());
+            return addedResult(command);
+        });
+        handlers.put(Command.RECUR, command -> {
+            ParsedCommand.AddRecurring recurring = (ParsedCommand.AddRecurring) command;
+            taskList.addRecurring(recurring.getDescription(), recurring.getRecurrence());
+            return addedResult(command);
+        });
+        handlers.put(Command.FIND, command -> handleFind((ParsedCommand.Search) command));
+        handlers.put(Command.FUZZY_FIND, command -> handleFind((ParsedCommand.Search) command));
+        handlers.put(Command.QUERY, command -> handleQuery((ParsedCommand.RunQuery) command));
+        handlers.put(Command.UNDO, command -> handleUndo((ParsedCommand.Steps) command));
+        handlers.put(Command.REDO, command -> handleRedo((ParsedCommand.Steps) command));
+        handlers.put(Command.HISTORY, command -> handleHistory());
+        handlers.put(Command.USE, command -> handleUse((ParsedCommand.Named) command));
+        handlers.put(Command.LISTS, command -> handleLists());
+        handlers.put(Command.IMPORT, command -> handleImport((ParsedCommand.Transfer) command));
+        handlers.put(Command.EXPORT, command -> handleExport((ParsedCommand.Transfer) command));
+        handlers.put(Command.COMPACT, command -> handleCompact());
+        handlers.put(Command.SYNC, command -> handleSync((ParsedCommand.Named) command));
+        handlers.put(Command.STATS, command -> handleStats((ParsedCommand.Stats) command));
+        handlers.put(Command.BYE, command -> new CommandResult(Command.BYE, CommandResult.Kind.GOODBYE));
+        handlers.put(Command.UNKNOWN, command -> new CommandResult(Command.UNKNOWN,
+                CommandResult.Kind.UNKNOWN_COMMAND));
+        assert handlers.size() == Command.values().length : "Every command needs a handler";
+    }
+    
+    private CommandResult handleList() {
         Task[] tasks = taskList.getAllTasks();
         if (tasks.length == 0) {
-            return "You have no tasks in your list!";
+            return new CommandResult(Command.LIST, CommandResult.Kind.LIST_EMPTY);
         }
-        
-        StringBuilder response = new StringBuilder("Here are the tasks in your list:\n");
-        for (int i = 0; i < tasks.length; i++) {
-            response.append((i + 1)).append(". ").append(tasks[i].toString()).append("\n");
+        return new CommandResult(Command.LIST, CommandResult.Kind.TASKS_LISTED).withTasks(tasks);
+    }
+    
+    private CommandResult handleListVersion(ParsedCommand.ListVersion command) {
+        int version = command.getVersion();
+        Task[] tasks = version == -1 ? null : history.getStateAt(version);
+        if (tasks == null) {
+            return new CommandResult(Command.LIST, CommandResult.Kind.VERSION_MISSING)
+                    .withSubject(command.getVersionText());
         }
-        return response.toString().trim();
+        CommandResult.Kind kind = tasks.length == 0 ? CommandResult.Kind.VERSION_EMPTY
+                : CommandResult.Kind.VERSION_LISTED;
+        return new CommandResult(Command.LIST, kind).withCount(version).withTasks(tasks);
     }
     
-    private String handleMarkGui(String argument) {
-        int taskNumber = parser.parseTaskNumber(argument);
-        if (taskNumber == -1) {
-            return "OI!! Please provide a valid task number to mark!";
+    private CommandResult handleStatus(ParsedCommand.Select command, boolean isDone) {
+        TaskSelection selection = command.getSelection();
+        if (selection.isBulk()) {
+            return handleBulkStatus(command, isDone);
         }
-        
-        if (taskList.markTask(taskNumber)) {
-            Task task = taskList.getTask(taskNumber);
-            return "Nicee! I've marked this task as done:\n  " + task.toString();
-        } else {
-            return "Task number " + taskNumber + " does not exist. You have " + taskList.getTaskCount() + " tasks.";
+        int taskNumber = resolveTaskNumber(selection);
+        boolean isChanged = isDone ? taskList.markTask(taskNumber) : taskList.unmarkTask(taskNumber);
+        if (!isChanged) {
+            return missingTaskResult(command);
         }
+        CommandResult.Kind kind = isDone ? CommandResult.Kind.MARKED : CommandResult.Kind.UNMARKED;
+        return new CommandResult(command.getCommand(), kind).withTasks(taskList.getTask(taskNumber));
     }
     
-    private String handleUnmarkGui(String argument) {
-        int taskNumber = parser.parseTaskNumber(argument);
-        if (taskNumber == -1) {
-            return "Heyy!!! Please provide a valid task number to unmark!";
+    private CommandResult handleDelete(ParsedCommand.Select command) {
+        if (command.getSelection().isBulk()) {
+            return handleBulkDelete(command);
         }
-        
-        if (taskList.unmarkTask(taskNumber)) {
-            Task task = taskList.getTask(taskNumber);
-            return "OK, I've marked this task as not done yet:\n  " + task.toString();
-        } else {
-            return "Task number " + taskNumber + " does not exist. You have " + taskList.getTaskCount() + " tasks.";
+        Task deletedTask = taskList.deleteTask(resolveTaskNumber(command.getSelection()));
+        if (deletedTask == null) {
+            return missingTaskResult(command);
         }
+        return new CommandResult(Command.DELETE, CommandResult.Kind.DELETED).withTasks(deletedTask)
+                .withTotal(taskList.getTaskCount());
+    }
+    
+    private CommandResult missingTaskResult(ParsedCommand.Select command) {
+        return new CommandResult(command.getCommand(), CommandResult.Kind.TASK_MISSING)
+                .withSubject(command.getSelection().getText()).withTotal(taskList.getTaskCount());
     }
     
-    private String handleDeleteGui(String argument) {
-        int taskNumber = parser.parseTaskNumber(argument);
-        if (taskNumber == -1) {
-            return "HEY! Please provide a valid task number to delete!";
+    /**
+     * Turns a single-task selection into a 1-based index. An unknown id gives 0, which no task has.
+     */
+    private int resolveTaskNumber(TaskSelection selection) {
+        if (selection.getKind() == TaskSelection.Kind.POSITION) {
+            return selection.getNumber();
         }
-        
-        Task deletedTask = taskList.deleteTask(taskNumber);
-        if (deletedTask != null) {
-            return "Okieee. I've removed this task:\n  " + deletedTask.toString() + "\nNow you have " + taskList.getTaskCount() + " tasks in the list.";
-        } else {
-            return "Task number " + taskNumber + " does not exist. You have " + taskList.getTaskCount() + " tasks.";
+        return Math.max(0, taskList.indexOfId(selection.getNumber()));
+    }
+    
+    /**
+     * Turns a bulk selection into 1-based indices in increasing order, or null if its ranges are out of bounds.
+     */
+    private int[] resolveTaskNumbers(TaskSelection selection) {
+        if (selection.getKind() == TaskSelection.Kind.WHERE) {
+            return taskList.query(selection.getQuery());
         }
+        return parser.parseTaskNumbers(selection.getText(), taskList.getTaskCount());
     }
     
-    private String handleTodoGui(String argument) {
-        if (argument.isEmpty()) {
-            return "OIIII!!! The description of a todo cannot be empty!";
+    private CommandResult handleBulkStatus(ParsedCommand.Select command, boolean isDone) {
+        int[] indices = resolveTaskNumbers(command.getSelection());
+        CommandResult problem = checkBulkIndices(command, indices);
+        if (problem != null) {
+            return problem;
         }
         
-        taskList.addTodo(argument);
-        return "Got it. I've added this task:\n  " + taskList.getTask(taskList.getTaskCount()).toString() + "\nNow you have " + taskList.getTaskCount() + " tasks in the list.";
+        if (isDone) {
+            boolean isMarked = taskList.markTasks(indices);
+            assert isMarked : "Resolved indices should be valid";
+            return new CommandResult(Command.MARK, CommandResult.Kind.MARKED_MANY).withCount(indices.length);
+        }
+        boolean isUnmarked = taskList.unmarkTasks(indices);
+        assert isUnmarked : "Resolved indices should be valid";
+        return new CommandResult(Command.UNMARK, CommandResult.Kind.UNMARKED_MANY).withCount(indices.length);
     }
     
-    private String handleDeadlineGui(String argument) {
-        if (argument.isEmpty()) {
-            return "Please provide a description and deadline! Usage: deadline [description] /by [date]";
+    private CommandResult handleBulkDelete(ParsedCommand.Select command) {
+        int[] indices = resolveTaskNumbers(command.getSelection());
+        CommandResult problem = checkBulkIndices(command, indices);
+        if (problem != null) {
+            return problem;
         }
         
-        String[] parsedArgs = parser.parseDeadlineArgument(argument);
-        if (parsedArgs == null) {
-            if (!argument.contains("/by ")) {
-                return "HEY!!! Please include '/by' followed by the deadline date!";
-            } else {
-                return "OIII!!!Please provide both description and deadline!";
-            }
+        Task[] deletedTasks = taskList.deleteTasks(indices);
+        assert deletedTasks != null : "Resolved indices should be valid";
+        return new CommandResult(Command.DELETE, CommandResult.Kind.DELETED_MANY).withCount(deletedTasks.length)
+                .withTotal(taskList.getTaskCount());
+    }
+    
+    private CommandResult checkBulkIndices(ParsedCommand.Select command, int[] indices) {
+        if (indices == null) {
+            return new CommandResult(command.getCommand(), CommandResult.Kind.RANGE_INVALID)
+                    .withTotal(taskList.getTaskCount());
         }
-        
-        String description = parsedArgs[0];
-        String dateString = parsedArgs[1];
-        
-        try {
-            LocalDateTime dateTime = parser.parseDateTime(dateString);
-            taskList.addDeadline(description, dateTime);
-            return "Got itz. I've added this task:\n  " + taskList.getTask(taskList.getTaskCount()).toString() + "\nNow you have " + taskList.getTaskCount() + " tasks in the list.";
-        } catch (DateTimeParseException e) {
-            return "OIII!!! Invalid date format! Please use: dd/MM/yyyy HHmm";
+        if (indices.length == 0) {
+            return CommandResult.info(command.getCommand(), "Walao!! No tasks match that!");
         }
+        return null;
+    }
+    
+    private CommandResult addedResult(ParsedCommand command) {
+        int count = taskList.getTaskCount();
+        return new CommandResult(command.getCommand(), CommandResult.Kind.ADDED).withTasks(taskList.getTask(count))
+                .withTotal(count);
     }
     
-    private String handleEventGui(String argument) {
-        if (argument.isEmpty()) {
-            return "Hey!!! Please provide a description and time range! Usage: event [description] /from [date] /to [date]";
+    private CommandResult handleUndo(ParsedCommand.Steps command) {
+        if (!history.canUndo()) {
+            return CommandResult.info(Command.UNDO, "Oh No!! Nothing to undo!");
         }
         
-        String[] parsedArgs = parser.parseEventArgument(argument);
-        if (parsedArgs == null) {
-            return "Please include both '/from' and '/to' with dates!";
+        TaskList previousState = history.undo(command.getSteps());
+        if (previousState == null) {
+            return CommandResult.info(Command.UNDO, "Nothing to undo!");
         }
         
-        String description = parsedArgs[0];
-        String fromString = parsedArgs[1];
-        String toString = parsedArgs[2];
+        this.taskList = previousState;
+        // Also save the restored state to file so it persists
+        this.taskList.save();
         
-        if (description.isEmpty() || fromString.isEmpty() || toString.isEmpty()) {
-            return "Please provide description, start time, and end time!";
+        return new CommandResult(Command.UNDO, CommandResult.Kind.UNDONE)
+                .withCount(history.getCurrentVersion().getNumber());
+    }
+    
+    private CommandResult handleRedo(ParsedCommand.Steps command) {
+        TaskList nextState = history.redo(command.getSteps());
+        if (nextState == null) {
+            return CommandResult.info(Command.REDO, "Oh No!! Nothing to redo!");
         }
         
+        this.taskList = nextState;
+        this.taskList.save();
+        
+        return new CommandResult(Command.REDO, CommandResult.Kind.REDONE)
+                .withCount(history.getCurrentVersion().getNumber());
+    }
+    
+    private CommandResult handleHistory() {
+        List<History.Version> versions = history.getVersions();
+        int first = Math.max(0, versions.size() - HISTORY_DISPLAY_LIMIT);
+        return new CommandResult(Command.HISTORY, CommandResult.Kind.HISTORY_LISTED)
+                .withVersions(versions.subList(first, versions.size()))
+                .withCount(history.getCurrentVersion().getNumber());
+    }
+
+    private CommandResult handleFind(ParsedCommand.Search command) {
+        Task[] matchingTasks = command.getCommand() == Command.FUZZY_FIND
+                ? taskList.findTasksFuzzy(command.getWords())
+                : taskList.findTasks(command.getWords());
+        CommandResult.Kind kind = matchingTasks.length == 0 ? CommandResult.Kind.NOTHING_FOUND
+                : CommandResult.Kind.FOUND;
+        return new CommandResult(command.getCommand(), kind).withTasks(matchingTasks).withSubject(command.getWords());
+    }
+
+    private CommandResult handleQuery(ParsedCommand.RunQuery command) {
+        int[] matchingIndices = taskList.query(command.getQuery());
+        if (matchingIndices.length == 0) {
+            return new CommandResult(Command.QUERY, CommandResult.Kind.NOTHING_FOUND);
+        }
+        
+        Task[] matchingTasks = new Task[matchingIndices.length];
+        for (int i = 0; i < matchingIndices.length; i++) {
+            matchingTasks[i] = taskList.getTask(matchingIndices[i]);
+        }
+        return new CommandResult(Command.QUERY, CommandResult.Kind.QUERY_MATCHED).withTasks(matchingTasks)
+                .withPositions(matchingIndices);
+    }
+
+    private CommandResult handleImport(ParsedCommand.Transfer command) {
+        String fileName = command.getFileName();
+        int countBefore = taskList.getTaskCount();
+        try (TaskReader reader = command.getFormat().openReader(Paths.get(fileName))) {
+            int imported = taskList.addAll(reader);
+            return new CommandResult(Command.IMPORT, CommandResult.Kind.IMPORTED).withCount(imported)
+                    .withNumbers(reader.getSkippedCount()).withTotal(taskList.getTaskCount());
+        } catch (NoSuchFileException e) {
+            return new CommandResult(Command.IMPORT, CommandResult.Kind.FILE_MISSING).withSubject(fileName);
+        } catch (IOException | UncheckedIOException e) {
+            return new CommandResult(Command.IMPORT, CommandResult.Kind.IMPORT_FAILED).withSubject(fileName)
+                    .withCount(taskList.getTaskCount() - countBefore).withDetail(e.getMessage());
+        }
+    }
+    
+    private CommandResult handleExport(ParsedCommand.Transfer command) {
+        String fileName = command.getFileName();
+        try (TaskWriter writer = command.getFormat().openWriter(Paths.get(fileName))) {
+            for (Task task : taskList.getAllTasksArrayList()) {
+                writer.write(task);
+            }
+        } catch (IOException e) {
+            return new CommandResult(Command.EXPORT, CommandResult.Kind.EXPORT_FAILED).withSubject(fileName)
+                    .withDetail(e.getMessage());
+        }
+        return new CommandResult(Command.EXPORT, CommandResult.Kind.EXPORTED).withCount(taskList.getTaskCount())
+                .withSubject(fileName);
+    }
+    
+    private CommandResult handleCompact() {
+        if (taskList.getFilePath() == null) {
+            return CommandResult.info(Command.COMPACT, "Nothing to compact! This list is only kept in memory.");
+        }
+        Path filePath = Paths.get(taskList.getFilePath());
         try {
-            LocalDateTime fromDateTime = parser.parseDateTime(fromString);
-            LocalDateTime toDateTime = parser.parseDateTime(toString);
-            taskList.addEvent(description, fromDateTime, toDateTime);
-            return "Got it. I've added this task:\n  " + taskList.getTask(taskList.getTaskCount()).toString() + "\nNow you have " + taskList.getTaskCount() + " tasks in the list.";
-        } catch (DateTimeParseException e) {
-            return "Invalid date format! Please use: dd/MM/yyyy HHmm";
+            long sizeBefore = Files.exists(filePath) ? Files.size(filePath) : 0;
+            taskList.compact();
+            long sizeAfter = Files.size(filePath);
+            return new CommandResult(Command.COMPACT, CommandResult.Kind.COMPACTED).withSubject(filePath.toString())
+                    .withNumbers(sizeBefore, sizeAfter);
+        } catch (IOException e) {
+            return new CommandResult(Command.COMPACT, CommandResult.Kind.COMPACT_FAILED).withDetail(e.getMessage());
         }
     }
     
-    private String handleUndoGui() {
-        if (!history.canUndo()) {
-            return "Oh No!! Nothing to undo!";
+    private CommandResult handleSync(ParsedCommand.Named command) {
+        String directory = command.getName();
+        if (taskList.getFilePath() == null) {
+            return CommandResult.info(Command.SYNC,
+                    "Oh No!! This list is only kept in memory, so there is nothing to sync.");
         }
         
-        TaskList previousState = history.undo();
-        if (previousState == null) {
-            return "Nothing to undo!";
+        Path localPath = Paths.get(taskList.getFilePath()).toAbsolutePath().normalize();
+        Path otherPath = Paths.get(directory).resolve(localPath.getFileName()).toAbsolutePath().normalize();
+        if (otherPath.equals(localPath)) {
+            return CommandResult.message(Command.SYNC,
+                    "OI! That is where this list already lives. Give me another data directory!");
         }
         
-        this.taskList = previousState;
-        // Also save the restored state to file so it persists
-        Storage.saveTasks(this.taskList.getAllTasksArrayList());
+        try {
+            Files.createDirectories(otherPath.getParent());
+            SyncEngine.Result result = SyncEngine.sync(taskList, otherPath.toString());
+            return new CommandResult(Command.SYNC, CommandResult.Kind.SYNCED).withSubject(directory)
+                    .withNumbers(result.getSentCount(), result.getReceivedCount()).withTotal(taskList.getTaskCount());
+        } catch (IOException e) {
+            return new CommandResult(Command.SYNC, CommandResult.Kind.SYNC_FAILED).withSubject(directory)
+                    .withDetail(e.getMessage());
+        }
+    }
+    
+    private CommandResult handleStats(ParsedCommand.Stats command) {
+        if (command.getFormat() == null) {
+            return new CommandResult(Command.STATS, CommandResult.Kind.STATS_SHOWN).withDetail(Metrics.summarize());
+        }
         
-        return "YAYY!!! Undo successful! Restored previous state.";
+        try {
+            Metrics.dump(command.getFormat(), command.getFilePath());
+            return new CommandResult(Command.STATS, CommandResult.Kind.STATS_WRITTEN)
+                    .withSubject(command.getFilePath());
+        } catch (IOException e) {
+            return new CommandResult(Command.STATS, CommandResult.Kind.STATS_FAILED).withDetail(e.getMessage());
+        }
     }
 
-    private String handleFindGui(String argument) {
-        if (argument.isEmpty()) {
-            return "OIII! Please provide a keyword to search for!";
+    private CommandResult handleUse(ParsedCommand.Named command) {
+        String name = command.getName();
+        if (name.equals(workspace.getName())) {
+            return new CommandResult(Command.USE, CommandResult.Kind.ALREADY_USING).withSubject(name);
         }
         
-        Task[] matchingTasks = taskList.findTasks(argument);
-        if (matchingTasks.length == 0) {
-            return "Walao!! No matching tasks found for keyword: " + argument;
+        try {
+            switchTo(workspaces.open(name));
+        } catch (UncheckedIOException e) {
+            return new CommandResult(Command.USE, CommandResult.Kind.USE_FAILED).withSubject(name)
+                    .withDetail(e.getMessage());
         }
-        
-        StringBuilder response = new StringBuilder("Here are the matching tasks in your list:\n");
-        for (int i = 0; i < matchingTasks.length; i++) {
-            response.append((i + 1)).append(". ").append(matchingTasks[i].toString()).append("\n");
+        return new CommandResult(Command.USE, CommandResult.Kind.SWITCHED).withSubject(name)
+                .withTotal(taskList.getTaskCount());
+    }
+    
+    private CommandResult handleLists() {
+        List<String> names = new ArrayList<>(workspaces.getNames());
+        BitSet openNames = new BitSet(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            openNames.set(i, workspaces.isLoaded(names.get(i)));
         }
-        return response.toString().trim();
+        return new CommandResult(Command.LISTS, CommandResult.Kind.LISTS_LISTED).withNames(names, openNames)
+                .withSubject(workspace.getName());
     }
-}
\ No newline at end of file
+}
@@ -7,6 +7,8 @@ import javafx.application.Application;
  */
 public class Launcher {
     public static void main(String[] args) {
+        // Formatters and parsing warm up while JavaFX starts, instead of on the first command
+        Warmup.start();
         Application.launch(Main.class, args);
     }
 }
\ No newline at end of file
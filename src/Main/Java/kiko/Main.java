@@ -1,22 +1,38 @@
 package kiko;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
+import kiko.metrics.Metrics;
 
 /**
  * A GUI for Kiko using FXML.
+ * With the kiko.cds.training system property set to true, the window closes as soon as it is shown,
+ * so that a run records the classes a launch loads into a class data sharing archive.
  */
 public class Main extends Application {
+    public static final String CDS_TRAINING_PROPERTY = "kiko.cds.training";
 
-    private Kiko kiko = new Kiko();
+    private Kiko kiko;
 
     @Override
     public void start(Stage stage) {
+        try {
+            kiko = new Kiko();
+        } catch (UncheckedIOException e) {
+            // Without its task file Kiko would lose every change, so say why and stop
+            new Alert(Alert.AlertType.ERROR, "Oh No!! Could not open your tasks: " + e.getMessage()).showAndWait();
+            Platform.exit();
+            return;
+        }
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource("/view/MainWindow.fxml"));
             AnchorPane ap = fxmlLoader.load();
@@ -28,6 +44,18 @@ public class Main extends Application {
             stage.setMinHeight(600.0);
             stage.setMinWidth(400.0);
             stage.show();
+            // Runs once the window is showing and ready for input
+            Platform.runLater(() -> {
+                long sinceJvmStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                Metrics.record("startup.first_interaction.latency", sinceJvmStart * 1_000_000);
+                if (Boolean.getBoolean(CDS_TRAINING_PROPERTY)) {
+                    // Read-only commands, so a training run never changes a real list
+                    for (String input : new String[] {"list", "find book", "query done:no", "stats"}) {
+                        kiko.getResponse(input);
+                    }
+                    Platform.exit();
+                }
+            });
         } catch (IOException e) {
             e.printStackTrace();
         }
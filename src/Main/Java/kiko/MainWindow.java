@@ -8,6 +8,7 @@ import javafx.scene.image.Image;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import kiko.command.Response;
 
 /**
  * Controller for the main GUI.
@@ -39,9 +40,17 @@ public class MainWindow extends AnchorPane {
         );
     }
 
-       /** Injects the Kiko instance */
+       /** Injects the Kiko instance and shows its reminders in the dialog */
     public void setKiko(Kiko k) {
         kiko = k;
+        kiko.startReminders(message -> javafx.application.Platform.runLater(() ->
+                dialogContainer.getChildren().add(DialogBox.getKikoDialog(message, kikoImage))));
+        kiko.startWatching(() -> javafx.application.Platform.runLater(() -> {
+            String message = kiko.syncExternalChanges();
+            if (message != null) {
+                dialogContainer.getChildren().add(DialogBox.getKikoDialog(message, kikoImage));
+            }
+        }));
     }
     
     /** Sets the stage for window control */
@@ -56,18 +65,14 @@ public class MainWindow extends AnchorPane {
     @FXML
     private void handleUserInput() {
         String input = userInput.getText();
-        String response = kiko.getResponse(input);
+        Response response = kiko.respond(input);
+        dialogContainer.getChildren().addAll(
+                DialogBox.getUserDialog(input, userImage),
+                DialogBox.getKikoDialog(response.getText(), kikoImage)
+        );
+        userInput.clear();
         
-        // Check if the response indicates window should close
-        if (response.startsWith("CLOSE_WINDOW:")) {
-            // Extract the actual message without the close signal
-            String actualResponse = response.substring("CLOSE_WINDOW:".length());
-            dialogContainer.getChildren().addAll(
-                    DialogBox.getUserDialog(input, userImage),
-                    DialogBox.getKikoDialog(actualResponse, kikoImage)
-            );
-            userInput.clear();
-            
+        if (response.isClosing()) {
             // Close the window after a short delay to show the farewell message
             new Thread(() -> {
                 try {
@@ -81,13 +86,6 @@ public class MainWindow extends AnchorPane {
                     e.printStackTrace();
                 }
             }).start();
-        } else {
-            // Normal response
-            dialogContainer.getChildren().addAll(
-                    DialogBox.getUserDialog(input, userImage),
-                    DialogBox.getKikoDialog(response, kikoImage)
-            );
-            userInput.clear();
         }
     }
 }
\ No newline at end of file
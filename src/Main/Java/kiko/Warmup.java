@@ -0,0 +1,75 @@
+package kiko;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+import kiko.command.CommandCompiler;
+import kiko.metrics.CommandEvent;
+import kiko.metrics.HistoryEvent;
+import kiko.metrics.Metrics;
+import kiko.metrics.StorageEvent;
+import kiko.parser.Parser;
+import kiko.storage.Storage;
+import kiko.task.Task;
+
+/**
+ * Exercises the date formatters, the parsing and storage code and the flight recorder events that the first commands need,
+ * so that their classes are loaded and their formatters compiled before the user types anything.
+ * It only touches objects it creates itself, so it can run alongside the JavaFX startup.
+ */
+public class Warmup {
+    private static final String[] DATES = {"2026-01-02 1800", "02/01/2026 1800", "13/31/2026 1800",
+        "2026/01/02 1800", "2026-01-02"};
+    private static final String[] STORED_LINES = {"1 | T | 0 | read book",
+        "2 | D | 1 | return book | 2026-01-02 1800",
+        "3 | E | 0 | project meeting | 2026-01-02 1400 | 2026-01-02 1600",
+        "4 | R | 0 | team standup | 2026-01-05 0930 | FREQ=WEEKLY;INTERVAL=1;UNTIL=20261231T0930"};
+    private static final String[] INPUTS = {"todo read book", "deadline return book /by 2026-01-02 1800",
+        "event meeting /from 2026-01-02 1400 /to 2026-01-02 1600",
+        "recur standup /every week /from 2026-01-05 0930 /times 3", "list", "mark 1", "find book"};
+
+    /**
+     * Starts the warm-up on a background thread that does not keep the JVM alive.
+     *
+     * @return The started thread.
+     */
+    public static Thread start() {
+        Thread thread = new Thread(Warmup::run, "kiko-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Runs the warm-up on the calling thread.
+     */
+    public static void run() {
+        long start = System.nanoTime();
+        Parser parser = new Parser();
+        for (String date : DATES) {
+            try {
+                parser.parseDateTime(date);
+            } catch (DateTimeParseException e) {
+                // Invalid dates are part of the warm-up, as they walk through every formatter
+            }
+        }
+        CommandCompiler compiler = new CommandCompiler();
+        for (String input : INPUTS) {
+            compiler.compile(input);
+        }
+        for (String line : STORED_LINES) {
+            Task task = Storage.parseTaskFromString(line);
+            if (task != null) {
+                Storage.taskToFileString(task);
+                task.toString();
+            }
+        }
+        // Loading the first flight recorder event class starts up the recorder's own classes
+        new CommandEvent("warmup");
+        new StorageEvent("warmup");
+        new HistoryEvent("warmup");
+        LocalDateTime.now().toString();
+        Metrics.recordSince("startup.warmup.latency", start);
+    }
+}
@@ -1,9 +1,13 @@
 package kiko.command;
+
+import kiko.metrics.Metrics;
+
 /**
  * Enumeration of all valid commands supported by the application.
  * Each command has a corresponding command word used for parsing user input.
  */
 public enum Command {
+    LISTS("lists"),
     LIST("list"),
     MARK("mark"),
     UNMARK("unmark"),
@@ -11,8 +15,19 @@ public enum Command {
     TODO("todo"),
     DEADLINE("deadline"),
     EVENT("event"),
+    RECUR("recur"),
     FIND("find"),
+    FUZZY_FIND("find~"),
+    QUERY("query"),
     UNDO("undo"),
+    REDO("redo"),
+    HISTORY("history"),
+    USE("use"),
+    IMPORT("import"),
+    EXPORT("export"),
+    COMPACT("compact"),
+    SYNC("sync"),
+    STATS("stats"),
     BYE("bye"),
     UNKNOWN("unknown");
     
@@ -44,16 +59,20 @@ public enum Command {
      * @return The corresponding Command enum value, or UNKNOWN if no match.
      */
     public static Command fromInput(String input) {
+        long start = System.nanoTime();
         String lowerInput = input.toLowerCase().trim();
+        Command match = UNKNOWN;
         
         for (Command cmd : Command.values()) {
             if (lowerInput.equals(cmd.commandWord) || 
                 lowerInput.startsWith(cmd.commandWord + " ")) {
-                return cmd;
+                match = cmd;
+                break;
             }
         }
         
-        return UNKNOWN;
+        Metrics.recordSince("command.parse.latency", start);
+        return match;
     }
     
     /**
@@ -0,0 +1,259 @@
+package kiko.command;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.regex.Pattern;
+
+import kiko.parser.Parser;
+import kiko.query.Query;
+import kiko.transfer.TaskFormat;
+import kiko.workspace.WorkspaceManager;
+
+/**
+ * Compiles a line of user input into a {@link ParsedCommand}.
+ * All parsing and validation that does not depend on the task list happens here, once per input.
+ * Task arguments are lowercased, as Kiko has always stored them, while file names, directories and
+ * stats paths keep their case.
+ */
+public class CommandCompiler {
+    // Numbers and ranges such as 1-500 or 3,7,9-20; a lone number, or one with a sign like -1, is not a list
+    private static final Pattern RANGES =
+            Pattern.compile("(?=.*[,-])\\d+(\\s*-\\s*\\d+)?(\\s*,\\s*\\d+(\\s*-\\s*\\d+)?)*");
+
+    private final Parser parser = new Parser();
+
+    /**
+     * Compiles a line of input.
+     *
+     * @param input The input, which must not be blank.
+     * @return The compiled command, an {@link ParsedCommand.Invalid} if its arguments are not valid.
+     */
+    public ParsedCommand compile(String input) {
+        assert input != null && !input.trim().isEmpty() : "Blank input has no command";
+        Command command = Command.fromInput(input);
+        String argument = command.getArgument(input.toLowerCase());
+
+        switch (command) {
+        case LIST:
+            if (argument.startsWith("@v")) {
+                String versionText = argument.substring(2);
+                return new ParsedCommand.ListVersion(versionText, parser.parseTaskNumber(versionText));
+            }
+            return new ParsedCommand.Plain(command);
+        case MARK:
+            return compileSelection(command, argument, "OI!! Please provide a valid task number to mark!");
+        case UNMARK:
+            return compileSelection(command, argument, "Heyy!!! Please provide a valid task number to unmark!");
+        case DELETE:
+            return compileSelection(command, argument, "HEY! Please provide a valid task number to delete!");
+        case TODO:
+            if (argument.isEmpty()) {
+                return new ParsedCommand.Invalid(command, "OIIII!!! The description of a todo cannot be empty!");
+            }
+            return new ParsedCommand.AddTodo(argument);
+        case DEADLINE:
+            return compileDeadline(argument);
+        case EVENT:
+            return compileEvent(argument);
+        case RECUR:
+            return compileRecurring(argument);
+        case FIND:
+            if (argument.isEmpty()) {
+                return new ParsedCommand.Invalid(command, "OIII! Please provide a keyword to search for!");
+            }
+            return new ParsedCommand.Search(command, argument);
+        case FUZZY_FIND:
+            if (argument.isEmpty()) {
+                return new ParsedCommand.Invalid(command, "OIII! Please provide some words to search for!");
+            }
+            return new ParsedCommand.Search(command, argument);
+        case QUERY:
+            return compileQuery(argument);
+        case UNDO:
+        case REDO:
+            int steps = argument.isEmpty() ? 1 : parser.parseTaskNumber(argument);
+            if (steps < 1) {
+                return new ParsedCommand.Invalid(command, "OI! Please provide a valid number of steps to "
+                        + command.getCommandWord() + "!");
+            }
+            return new ParsedCommand.Steps(command, steps);
+        case USE:
+            if (!WorkspaceManager.isValidName(argument)) {
+                return new ParsedCommand.Invalid(command,
+                        "OI! Please provide a list name made of letters, digits, '-' or '_'!");
+            }
+            return new ParsedCommand.Named(command, argument);
+        case IMPORT:
+        case EXPORT:
+            String fileName = command.getArgument(input.trim());
+            TaskFormat format = TaskFormat.forFile(fileName);
+            if (fileName.isEmpty() || format == null) {
+                return new ParsedCommand.Invalid(command, "OI! Usage: " + command.getCommandWord()
+                        + " [file.csv|file.ics]");
+            }
+            return new ParsedCommand.Transfer(command, fileName, format);
+        case SYNC:
+            String directory = command.getArgument(input.trim());
+            if (directory.isEmpty()) {
+                return new ParsedCommand.Invalid(command, "OI! Usage: sync [data directory]");
+            }
+            return new ParsedCommand.Named(command, directory);
+        case STATS:
+            return compileStats(command.getArgument(input.trim()));
+        case LISTS:
+        case HISTORY:
+        case COMPACT:
+        case BYE:
+        case UNKNOWN:
+        default:
+            return new ParsedCommand.Plain(command);
+        }
+    }
+
+    /**
+     * Compiles the argument of mark, unmark or delete. A plain number is a position, #id names a task
+     * by its stable id, and numbers with ranges or a where clause select several tasks.
+     */
+    private ParsedCommand compileSelection(Command command, String argument, String invalidMessage) {
+        if (argument.startsWith("where ")) {
+            try {
+                Query query = parseWhereClause(argument.substring("where ".length()).trim());
+                return new ParsedCommand.Select(command, TaskSelection.ofQuery(argument, query));
+            } catch (IllegalArgumentException e) {
+                return new ParsedCommand.Invalid(command, "OI! " + e.getMessage() + ".");
+            }
+        }
+        if (RANGES.matcher(argument).matches()) {
+            return new ParsedCommand.Select(command, TaskSelection.ofRanges(argument));
+        }
+        if (!argument.startsWith("#")) {
+            int position = parser.parseTaskNumber(argument);
+            if (position == -1) {
+                return new ParsedCommand.Invalid(command, invalidMessage);
+            }
+            return new ParsedCommand.Select(command, TaskSelection.ofPosition(argument, position));
+        }
+        int id = parser.parseTaskNumber(argument.substring(1));
+        if (id == -1) {
+            return new ParsedCommand.Invalid(command, invalidMessage);
+        }
+        return new ParsedCommand.Select(command, TaskSelection.ofId(argument, id));
+    }
+
+    private Query parseWhereClause(String clause) throws IllegalArgumentException {
+        // "where done" reads more naturally than the query term it stands for
+        switch (clause) {
+        case "":
+            throw new IllegalArgumentException("Please give a query after where, like where done:no type:D");
+        case "done":
+            return Query.parse("done:yes");
+        case "undone":
+        case "not done":
+            return Query.parse("done:no");
+        default:
+            return Query.parse(clause);
+        }
+    }
+
+    private ParsedCommand compileDeadline(String argument) {
+        if (argument.isEmpty()) {
+            return new ParsedCommand.Invalid(Command.DEADLINE,
+                    "Please provide a description and deadline! Usage: deadline [description] /by [date]");
+        }
+
+        String[] parsedArgs = parser.parseDeadlineArgument(argument);
+        if (parsedArgs == null) {
+            if (!argument.contains("/by ")) {
+                return new ParsedCommand.Invalid(Command.DEADLINE,
+                        "HEY!!! Please include '/by' followed by the deadline date!");
+            } else {
+                return new ParsedCommand.Invalid(Command.DEADLINE, "OIII!!!Please provide both description and deadline!");
+            }
+        }
+
+        try {
+            return new ParsedCommand.AddDeadline(parsedArgs[0], parser.parseDateTime(parsedArgs[1]));
+        } catch (DateTimeParseException e) {
+            return new ParsedCommand.Invalid(Command.DEADLINE, "OIII!!! Invalid date format! Please use: dd/MM/yyyy HHmm");
+        }
+    }
+
+    private ParsedCommand compileEvent(String argument) {
+        if (argument.isEmpty()) {
+            return new ParsedCommand.Invalid(Command.EVENT,
+                    "Hey!!! Please provide a description and time range! Usage: event [description] /from [date] /to [date]");
+        }
+
+        String[] parsedArgs = parser.parseEventArgument(argument);
+        if (parsedArgs == null) {
+            return new ParsedCommand.Invalid(Command.EVENT, "Please include both '/from' and '/to' with dates!");
+        }
+
+        try {
+            LocalDateTime fromDateTime = parser.parseDateTime(parsedArgs[1]);
+            LocalDateTime toDateTime = parser.parseDateTime(parsedArgs[2]);
+            return new ParsedCommand.AddEvent(parsedArgs[0], fromDateTime, toDateTime);
+        } catch (DateTimeParseException e) {
+            return new ParsedCommand.Invalid(Command.EVENT, "Invalid date format! Please use: dd/MM/yyyy HHmm");
+        }
+    }
+
+    private ParsedCommand compileRecurring(String argument) {
+        String[] parsedArgs = parser.parseRecurringArgument(argument);
+        if (parsedArgs == null) {
+            return new ParsedCommand.Invalid(Command.RECUR,
+                    "Hey!!! Usage: recur [description] /every [N] day|week|month|year /from [date] [/until [date] | /times N]");
+        }
+
+        try {
+            LocalDateTime start = parser.parseDateTime(parsedArgs[2]);
+            LocalDateTime until = null;
+            if (!parsedArgs[3].isEmpty()) {
+                until = parser.parseDateTime(parsedArgs[3]);
+                // A bare date means the whole of that day
+                if (!parsedArgs[3].contains(" ")) {
+                    until = until.plusDays(1).minusMinutes(1);
+                }
+            }
+            int count = 0;
+            if (!parsedArgs[4].isEmpty()) {
+                count = parser.parseTaskNumber(parsedArgs[4]);
+                if (count < 1) {
+                    return new ParsedCommand.Invalid(Command.RECUR, "OI! /times needs a positive number!");
+                }
+            }
+            return new ParsedCommand.AddRecurring(parsedArgs[0],
+                    parser.parseRecurrence(parsedArgs[1], start, until, count));
+        } catch (DateTimeParseException e) {
+            return new ParsedCommand.Invalid(Command.RECUR, "Invalid date format! Please use: dd/MM/yyyy HHmm");
+        } catch (IllegalArgumentException e) {
+            return new ParsedCommand.Invalid(Command.RECUR, "OI! " + e.getMessage() + ". Try something like /every 2 weeks");
+        }
+    }
+
+    private ParsedCommand compileQuery(String argument) {
+        if (argument.isEmpty()) {
+            return new ParsedCommand.Invalid(Command.QUERY,
+                    "OIII! Please provide some query terms, e.g. query type:D done:no text:report by<2026-10-23");
+        }
+        try {
+            return new ParsedCommand.RunQuery(Query.parse(argument));
+        } catch (IllegalArgumentException e) {
+            return new ParsedCommand.Invalid(Command.QUERY,
+                    "OI! " + e.getMessage() + ". Try terms like type:D done:no text:report by<2026-10-23");
+        }
+    }
+
+    private ParsedCommand compileStats(String argument) {
+        if (argument.isEmpty()) {
+            return new ParsedCommand.Stats(null, null);
+        }
+        String[] parts = argument.split("\\s+", 2);
+        String format = parts[0].toLowerCase();
+        if (!format.equals("json") && !format.equals("prometheus") && !format.equals("prom")) {
+            return new ParsedCommand.Invalid(Command.STATS, "OI! Usage: stats [json|prometheus] [file]");
+        }
+        String filePath = parts.length > 1 ? parts[1] : "./data/metrics." + (format.equals("json") ? "json" : "prom");
+        return new ParsedCommand.Stats(format, filePath);
+    }
+}
@@ -0,0 +1,382 @@
+package kiko.command;
+
+import java.util.BitSet;
+import java.util.List;
+
+import kiko.history.History;
+import kiko.task.Task;
+
+/**
+ * What running a command did, as data rather than text.
+ * A result holds the kind of outcome and whatever it refers to: the tasks affected, their positions,
+ * counts and names. {@link Response} wraps it for callers, and {@link ResultRenderer} turns it into the
+ * message shown to the user only when that message is asked for.
+ */
+public class CommandResult {
+    /**
+     * The outcomes a command can have. Each decides which of the result's fields are set.
+     */
+    public enum Kind {
+        /** A fixed message saying why the input could not be run, such as a usage hint, in the detail. */
+        MESSAGE,
+        /** A fixed message saying the command had nothing to do, such as nothing to undo, in the detail. */
+        INFO,
+        /** The input is not a command. */
+        UNKNOWN_COMMAND,
+        /** The tasks in the list. */
+        TASKS_LISTED,
+        /** The list is empty. */
+        LIST_EMPTY,
+        /** The tasks at the version in the count. */
+        VERSION_LISTED,
+        /** There were no tasks at the version in the count. */
+        VERSION_EMPTY,
+        /** The version in the subject is not in the history. */
+        VERSION_MISSING,
+        /** The task was marked as done. */
+        MARKED,
+        /** The task was marked as not done. */
+        UNMARKED,
+        /** The count of tasks were marked as done. */
+        MARKED_MANY,
+        /** The count of tasks were marked as not done. */
+        UNMARKED_MANY,
+        /** The task was deleted. */
+        DELETED,
+        /** The count of tasks were deleted. */
+        DELETED_MANY,
+        /** No task is at the position or has the id in the subject. */
+        TASK_MISSING,
+        /** The numbers and ranges given go beyond the total. */
+        RANGE_INVALID,
+        /** The task was added. */
+        ADDED,
+        /** The tasks matching the words in the subject. */
+        FOUND,
+        /** No task matches the words in the subject, or the query. */
+        NOTHING_FOUND,
+        /** The tasks matching a query, at their positions. */
+        QUERY_MATCHED,
+        /** Commands were undone back to the version in the count. */
+        UNDONE,
+        /** Commands were redone up to the version in the count. */
+        REDONE,
+        /** The recent versions, with the current one in the count. */
+        HISTORY_LISTED,
+        /** The list in the subject is already in use. */
+        ALREADY_USING,
+        /** Switched to the list in the subject. */
+        SWITCHED,
+        /** Opening the list in the subject failed. */
+        USE_FAILED,
+        /** The task lists, with the current one in the subject. */
+        LISTS_LISTED,
+        /** The count of tasks were imported, and the first number entries skipped. */
+        IMPORTED,
+        /** The file in the subject does not exist. */
+        FILE_MISSING,
+        /** Importing the file in the subject failed after the count of tasks. */
+        IMPORT_FAILED,
+        /** The count of tasks were exported to the file in the subject. */
+        EXPORTED,
+        /** Exporting to the file in the subject failed. */
+        EXPORT_FAILED,
+        /** The file in the subject shrank from the first number of bytes to the second. */
+        COMPACTED,
+        /** Compacting failed. */
+        COMPACT_FAILED,
+        /** Synced with the directory in the subject, sending the first number and receiving the second. */
+        SYNCED,
+        /** Syncing with the directory in the subject failed. */
+        SYNC_FAILED,
+        /** The stats summary, in the detail. */
+        STATS_SHOWN,
+        /** The stats were written to the file in the subject. */
+        STATS_WRITTEN,
+        /** Writing the stats failed. */
+        STATS_FAILED,
+        /** The user said bye. */
+        GOODBYE
+    }
+
+    private static final Task[] NO_TASKS = new Task[0];
+    private static final long[] NO_NUMBERS = new long[0];
+
+    private final Command command;
+    private final Kind kind;
+    private Task[] tasks = NO_TASKS;
+    private int[] positions;
+    private int count;
+    private int total;
+    private long[] numbers = NO_NUMBERS;
+    private String subject;
+    private String detail;
+    private List<History.Version> versions;
+    private List<String> names;
+    private BitSet openNames;
+    private int externalChangeCount;
+
+    /**
+     * Constructs a result with no fields set.
+     *
+     * @param command The command that produced it.
+     * @param kind The outcome.
+     */
+    public CommandResult(Command command, Kind kind) {
+        this.command = command;
+        this.kind = kind;
+    }
+
+    /**
+     * Creates a result holding a fixed message saying why the input could not be run.
+     *
+     * @param command The command that produced it.
+     * @param message The message.
+     * @return The result.
+     */
+    public static CommandResult message(Command command, String message) {
+        return new CommandResult(command, Kind.MESSAGE).withDetail(message);
+    }
+
+    /**
+     * Creates a result holding a fixed message for a command that ran but had nothing to do.
+     *
+     * @param command The command that produced it.
+     * @param message The message.
+     * @return The result.
+     */
+    public static CommandResult info(Command command, String message) {
+        return new CommandResult(command, Kind.INFO).withDetail(message);
+    }
+
+    /**
+     * Sets the tasks the result refers to.
+     *
+     * @param tasks The tasks.
+     * @return This result.
+     */
+    public CommandResult withTasks(Task... tasks) {
+        this.tasks = tasks;
+        return this;
+    }
+
+    /**
+     * Sets the 1-based positions in the list of the tasks the result refers to.
+     *
+     * @param positions The positions, one per task.
+     * @return This result.
+     */
+    public CommandResult withPositions(int[] positions) {
+        this.positions = positions;
+        return this;
+    }
+
+    /**
+     * Sets the count, such as the number of tasks affected or a version number.
+     *
+     * @param count The count.
+     * @return This result.
+     */
+    public CommandResult withCount(int count) {
+        this.count = count;
+        return this;
+    }
+
+    /**
+     * Sets the number of tasks in the list after the command.
+     *
+     * @param total The total.
+     * @return This result.
+     */
+    public CommandResult withTotal(int total) {
+        this.total = total;
+        return this;
+    }
+
+    /**
+     * Sets further numbers, such as file sizes or operations sent and received.
+     *
+     * @param numbers The numbers.
+     * @return This result.
+     */
+    public CommandResult withNumbers(long... numbers) {
+        this.numbers = numbers;
+        return this;
+    }
+
+    /**
+     * Sets what the result is about, such as a file, a list name or the words searched for.
+     *
+     * @param subject The subject.
+     * @return This result.
+     */
+    public CommandResult withSubject(String subject) {
+        this.subject = subject;
+        return this;
+    }
+
+    /**
+     * Sets a message, or the reason a command failed.
+     *
+     * @param detail The detail.
+     * @return This result.
+     */
+    public CommandResult withDetail(String detail) {
+        this.detail = detail;
+        return this;
+    }
+
+    /**
+     * Sets the history versions the result lists.
+     *
+     * @param versions The versions.
+     * @return This result.
+     */
+    public CommandResult withVersions(List<History.Version> versions) {
+        this.versions = versions;
+        return this;
+    }
+
+    /**
+     * Sets the task list names the result lists.
+     *
+     * @param names The names.
+     * @param openNames The indices of the names whose lists are open.
+     * @return This result.
+     */
+    public CommandResult withNames(List<String> names, BitSet openNames) {
+        this.names = names;
+        this.openNames = openNames;
+        return this;
+    }
+
+    /**
+     * Sets how many tasks another Kiko changed in the list just before the command ran.
+     *
+     * @param externalChangeCount The number of tasks.
+     * @return This result.
+     */
+    public CommandResult withExternalChangeCount(int externalChangeCount) {
+        this.externalChangeCount = externalChangeCount;
+        return this;
+    }
+
+    /**
+     * Returns the command that produced this result.
+     *
+     * @return The command.
+     */
+    public Command getCommand() {
+        return command;
+    }
+
+    /**
+     * Returns the outcome.
+     *
+     * @return The kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the tasks the result refers to.
+     *
+     * @return The tasks, empty if none.
+     */
+    public Task[] getTasks() {
+        return tasks;
+    }
+
+    /**
+     * Returns the 1-based positions of the tasks, if the result has them.
+     *
+     * @return The positions, or null.
+     */
+    public int[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * Returns the count, such as the number of tasks affected or a version number.
+     *
+     * @return The count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of tasks in the list after the command.
+     *
+     * @return The total.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns one of the further numbers.
+     *
+     * @param index The number's index.
+     * @return The number.
+     */
+    public long getNumber(int index) {
+        return numbers[index];
+    }
+
+    /**
+     * Returns what the result is about.
+     *
+     * @return The subject, or null.
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Returns the message or failure reason.
+     *
+     * @return The detail, or null.
+     */
+    public String getDetail() {
+        return detail;
+    }
+
+    /**
+     * Returns the history versions the result lists.
+     *
+     * @return The versions, or null.
+     */
+    public List<History.Version> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Returns the task list names the result lists.
+     *
+     * @return The names, or null.
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * Checks if the list with the name at the given index is open.
+     *
+     * @param index The name's index.
+     * @return true if the list is open.
+     */
+    public boolean isOpen(int index) {
+        return openNames != null && openNames.get(index);
+    }
+
+    /**
+     * Returns how many tasks another Kiko changed in the list just before the command ran.
+     *
+     * @return The number of tasks.
+     */
+    public int getExternalChangeCount() {
+        return externalChangeCount;
+    }
+}
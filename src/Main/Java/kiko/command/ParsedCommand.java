@@ -0,0 +1,389 @@
+package kiko.command;
+
+import java.time.LocalDateTime;
+
+import kiko.query.Query;
+import kiko.task.Recurrence;
+import kiko.transfer.TaskFormat;
+
+/**
+ * A line of user input compiled into a command with typed arguments, ready to run.
+ * Dates, numbers, queries and recurrence rules are parsed once by {@link CommandCompiler}, so running a command
+ * never looks at the input text again. Input that cannot be compiled becomes an {@link Invalid} command
+ * carrying the message to show.
+ */
+public abstract class ParsedCommand {
+    private final Command command;
+
+    protected ParsedCommand(Command command) {
+        this.command = command;
+    }
+
+    /**
+     * Returns which command this is.
+     *
+     * @return The command.
+     */
+    public Command getCommand() {
+        return command;
+    }
+
+    /**
+     * A command whose arguments could not be compiled.
+     */
+    public static class Invalid extends ParsedCommand {
+        private final String message;
+
+        Invalid(Command command, String message) {
+            super(command);
+            this.message = message;
+        }
+
+        /**
+         * Returns what was wrong with the input.
+         *
+         * @return The message.
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * A command that takes no arguments, such as history or bye.
+     */
+    public static class Plain extends ParsedCommand {
+        Plain(Command command) {
+            super(command);
+        }
+    }
+
+    /**
+     * Lists the tasks as they were at a past version.
+     */
+    public static class ListVersion extends ParsedCommand {
+        private final String versionText;
+        private final int version;
+
+        ListVersion(String versionText, int version) {
+            super(Command.LIST);
+            this.versionText = versionText;
+            this.version = version;
+        }
+
+        /**
+         * Returns the version as the user wrote it.
+         *
+         * @return The version text.
+         */
+        public String getVersionText() {
+            return versionText;
+        }
+
+        /**
+         * Returns the version number.
+         *
+         * @return The version, or -1 if the text is not a number.
+         */
+        public int getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Marks, unmarks or deletes the selected tasks.
+     */
+    public static class Select extends ParsedCommand {
+        private final TaskSelection selection;
+
+        Select(Command command, TaskSelection selection) {
+            super(command);
+            this.selection = selection;
+        }
+
+        /**
+         * Returns the tasks to apply the command to.
+         *
+         * @return The selection.
+         */
+        public TaskSelection getSelection() {
+            return selection;
+        }
+    }
+
+    /**
+     * Adds a todo.
+     */
+    public static class AddTodo extends ParsedCommand {
+        private final String description;
+
+        AddTodo(String description) {
+            super(Command.TODO);
+            this.description = description;
+        }
+
+        /**
+         * Returns the description of the new task.
+         *
+         * @return The description.
+         */
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * Adds a deadline.
+     */
+    public static class AddDeadline extends ParsedCommand {
+        private final String description;
+        private final LocalDateTime by;
+
+        AddDeadline(String description, LocalDateTime by) {
+            super(Command.DEADLINE);
+            this.description = description;
+            this.by = by;
+        }
+
+        /**
+         * Returns the description of the new task.
+         *
+         * @return The description.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Returns when the new task is due.
+         *
+         * @return The due date and time.
+         */
+        public LocalDateTime getBy() {
+            return by;
+        }
+    }
+
+    /**
+     * Adds an event.
+     */
+    public static class AddEvent extends ParsedCommand {
+        private final String description;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        AddEvent(String description, LocalDateTime from, LocalDateTime to) {
+            super(Command.EVENT);
+            this.description = description;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns the description of the new task.
+         *
+         * @return The description.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Returns when the new event starts.
+         *
+         * @return The start.
+         */
+        public LocalDateTime getFrom() {
+            return from;
+        }
+
+        /**
+         * Returns when the new event ends.
+         *
+         * @return The end.
+         */
+        public LocalDateTime getTo() {
+            return to;
+        }
+    }
+
+    /**
+     * Adds a recurring task.
+     */
+    public static class AddRecurring extends ParsedCommand {
+        private final String description;
+        private final Recurrence recurrence;
+
+        AddRecurring(String description, Recurrence recurrence) {
+            super(Command.RECUR);
+            this.description = description;
+            this.recurrence = recurrence;
+        }
+
+        /**
+         * Returns the description of the new task.
+         *
+         * @return The description.
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Returns when the new task recurs.
+         *
+         * @return The recurrence.
+         */
+        public Recurrence getRecurrence() {
+            return recurrence;
+        }
+    }
+
+    /**
+     * Finds tasks by keyword, or by words allowing typos.
+     */
+    public static class Search extends ParsedCommand {
+        private final String words;
+
+        Search(Command command, String words) {
+            super(command);
+            this.words = words;
+        }
+
+        /**
+         * Returns what to search for.
+         *
+         * @return The keyword or words.
+         */
+        public String getWords() {
+            return words;
+        }
+    }
+
+    /**
+     * Lists the tasks matching a query.
+     */
+    public static class RunQuery extends ParsedCommand {
+        private final Query query;
+
+        RunQuery(Query query) {
+            super(Command.QUERY);
+            this.query = query;
+        }
+
+        /**
+         * Returns the query to run.
+         *
+         * @return The query.
+         */
+        public Query getQuery() {
+            return query;
+        }
+    }
+
+    /**
+     * Undoes or redoes commands.
+     */
+    public static class Steps extends ParsedCommand {
+        private final int steps;
+
+        Steps(Command command, int steps) {
+            super(command);
+            this.steps = steps;
+        }
+
+        /**
+         * Returns how many commands to undo or redo.
+         *
+         * @return The number of steps, at least 1.
+         */
+        public int getSteps() {
+            return steps;
+        }
+    }
+
+    /**
+     * A command taking one free-form argument, such as the list name for use or the directory for sync.
+     */
+    public static class Named extends ParsedCommand {
+        private final String name;
+
+        Named(Command command, String name) {
+            super(command);
+            this.name = name;
+        }
+
+        /**
+         * Returns the argument.
+         *
+         * @return The name.
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Imports tasks from, or exports them to, a CSV or iCalendar file.
+     */
+    public static class Transfer extends ParsedCommand {
+        private final String fileName;
+        private final TaskFormat format;
+
+        Transfer(Command command, String fileName, TaskFormat format) {
+            super(command);
+            this.fileName = fileName;
+            this.format = format;
+        }
+
+        /**
+         * Returns the file to read or write.
+         *
+         * @return The file name.
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Returns the file's format, chosen by its extension.
+         *
+         * @return The format.
+         */
+        public TaskFormat getFormat() {
+            return format;
+        }
+    }
+
+    /**
+     * Shows the performance stats or dumps them to a file.
+     */
+    public static class Stats extends ParsedCommand {
+        private final String format;
+        private final String filePath;
+
+        Stats(String format, String filePath) {
+            super(Command.STATS);
+            this.format = format;
+            this.filePath = filePath;
+        }
+
+        /**
+         * Returns the format to dump the stats in.
+         *
+         * @return json or prometheus, or null to show the stats instead.
+         */
+        public String getFormat() {
+            return format;
+        }
+
+        /**
+         * Returns the file to dump the stats to.
+         *
+         * @return The file path, or null to show the stats instead.
+         */
+        public String getFilePath() {
+            return filePath;
+        }
+    }
+}
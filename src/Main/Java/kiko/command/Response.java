@@ -0,0 +1,163 @@
+package kiko.command;
+
+import kiko.task.Task;
+
+/**
+ * Kiko's reply to one line of input: whether it worked, the tasks it affected, counts, and whether
+ * the window should close. The text shown in the chat window is only built when {@link #getText()}
+ * is first called, so callers that read the fields, such as scripts and benchmarks, never pay for it.
+ * The views and text read the tasks when they are asked for, so read them before running the next command.
+ */
+public class Response {
+    /**
+     * Whether a command did what was asked.
+     */
+    public enum Status {
+        /** The command ran, even if it had nothing to do, such as nothing to undo. */
+        OK,
+        /** The input could not be run, such as a bad argument or a task that does not exist. */
+        INVALID,
+        /** The command ran but reading or writing a file failed. */
+        FAILED
+    }
+
+    private final CommandResult result;
+    private final int taskCount;
+    private TaskView[] taskViews;
+    private String text;
+
+    /**
+     * Constructs a response to a command.
+     *
+     * @param result What the command did.
+     * @param taskCount The number of tasks in the current list after the command.
+     */
+    public Response(CommandResult result, int taskCount) {
+        assert result != null : "A response needs a result";
+        this.result = result;
+        this.taskCount = taskCount;
+    }
+
+    /**
+     * Returns whether the command did what was asked.
+     *
+     * @return The status.
+     */
+    public Status getStatus() {
+        switch (result.getKind()) {
+        case MESSAGE:
+        case UNKNOWN_COMMAND:
+        case VERSION_MISSING:
+        case TASK_MISSING:
+        case RANGE_INVALID:
+        case FILE_MISSING:
+            return Status.INVALID;
+        case USE_FAILED:
+        case IMPORT_FAILED:
+        case EXPORT_FAILED:
+        case COMPACT_FAILED:
+        case SYNC_FAILED:
+        case STATS_FAILED:
+            return Status.FAILED;
+        default:
+            return Status.OK;
+        }
+    }
+
+    /**
+     * Returns the command that was run.
+     *
+     * @return The command.
+     */
+    public Command getCommand() {
+        return result.getCommand();
+    }
+
+    /**
+     * Returns the structured result, for callers that need more than the response's summary,
+     * such as history versions or file sizes.
+     *
+     * @return The result.
+     */
+    public CommandResult getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the tasks the command listed, found or changed.
+     * Tasks affected by bulk commands are not listed; {@link #getAffectedCount()} gives how many there were.
+     *
+     * @return The tasks, empty if none.
+     */
+    public TaskView[] getTasks() {
+        if (taskViews == null) {
+            Task[] tasks = result.getTasks();
+            int[] positions = result.getPositions();
+            boolean isInListOrder = result.getKind() == CommandResult.Kind.TASKS_LISTED;
+            taskViews = new TaskView[tasks.length];
+            for (int i = 0; i < tasks.length; i++) {
+                int position = positions != null ? positions[i] : isInListOrder ? i + 1 : 0;
+                taskViews[i] = new TaskView(tasks[i], position);
+            }
+        }
+        return taskViews;
+    }
+
+    /**
+     * Returns how many tasks the command listed, found, changed, imported or exported.
+     *
+     * @return The number of tasks.
+     */
+    public int getAffectedCount() {
+        switch (result.getKind()) {
+        case MARKED_MANY:
+        case UNMARKED_MANY:
+        case DELETED_MANY:
+        case IMPORTED:
+        case EXPORTED:
+            return result.getCount();
+        default:
+            return result.getTasks().length;
+        }
+    }
+
+    /**
+     * Returns the number of tasks in the current list after the command.
+     *
+     * @return The task count.
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * Checks if the user said bye, so the window should close after showing the response.
+     *
+     * @return true if Kiko is closing.
+     */
+    public boolean isClosing() {
+        return result.getKind() == CommandResult.Kind.GOODBYE;
+    }
+
+    /**
+     * Returns the message to show in the chat window, building it on the first call.
+     *
+     * @return The message.
+     */
+    public String getText() {
+        if (text == null) {
+            text = ResultRenderer.render(result);
+        }
+        return text;
+    }
+
+    /**
+     * Returns the message to show in the chat window.
+     *
+     * @return The message.
+     */
+    @Override
+    public String toString() {
+        return getText();
+    }
+}
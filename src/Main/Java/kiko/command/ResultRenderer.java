@@ -0,0 +1,208 @@
+package kiko.command;
+
+import java.util.List;
+
+import kiko.history.History;
+import kiko.task.Task;
+
+/**
+ * Turns command results into the messages Kiko shows in its chat window.
+ */
+public class ResultRenderer {
+    public static final String HELP_MESSAGE = "Try these commands:\n"
+                 + "  list - show all tasks\n"
+                 + "  todo [description] - add a todo\n"
+                 + "  deadline [description] /by [date] - add a deadline\n"
+                 + "  event [description] /from [date] /to [date] - add an event\n"
+                 + "  recur [description] /every [N] day|week|month|year /from [date] [/until [date] | /times N] - add a recurring task\n"
+                 + "  mark [number|#id|1-5,8|where QUERY] - mark tasks as done\n"
+                 + "  unmark [number|#id|1-5,8|where QUERY] - mark tasks as not done\n"
+                 + "  delete [number|#id|1-5,8|where QUERY] - delete tasks\n"
+                 + "  find [keyword] - find tasks by keyword\n"
+                 + "  find~ [words] - find tasks by words, allowing typos\n"
+                 + "  query [terms] - e.g. query type:D done:no text:report by<2026-10-23\n"
+                 + "  list @v[version] - show tasks as they were at a version\n"
+                 + "  undo [steps] - undo the last command(s)\n"
+                 + "  redo [steps] - redo undone command(s)\n"
+                 + "  history - show recent versions\n"
+                 + "  use [name] - switch to another task list\n"
+                 + "  lists - show all task lists\n"
+                 + "  import [file.csv|file.ics] - add the tasks in a CSV or iCalendar file\n"
+                 + "  export [file.csv|file.ics] - save all tasks to a CSV or iCalendar file\n"
+                 + "  compact - shrink the task file by compressing it\n"
+                 + "  sync [data directory] - exchange changes with the same list in another data directory\n"
+                 + "  stats [json|prometheus] [file] - show or dump performance metrics\n"
+                 + "  bye - exit";
+
+    /**
+     * Returns the message for a command result.
+     *
+     * @param result The result.
+     * @return The message to show.
+     */
+    public static String render(CommandResult result) {
+        String message = renderOutcome(result);
+        if (result.getExternalChangeCount() > 0 && result.getKind() != CommandResult.Kind.GOODBYE) {
+            return renderExternalChanges(result.getExternalChangeCount()) + "\n" + message;
+        }
+        return message;
+    }
+
+    /**
+     * Returns the notice shown when another Kiko changed the current list.
+     *
+     * @param count The number of tasks changed.
+     * @return The notice.
+     */
+    public static String renderExternalChanges(int count) {
+        return "Heads up! Another Kiko changed " + count + (count == 1 ? " task" : " tasks") + " in this list.";
+    }
+
+    private static String renderOutcome(CommandResult result) {
+        Task[] tasks = result.getTasks();
+        switch (result.getKind()) {
+        case MESSAGE:
+        case INFO:
+            return result.getDetail();
+        case UNKNOWN_COMMAND:
+            return "I'm sorry, but I don't know what that means. " + HELP_MESSAGE;
+        case TASKS_LISTED:
+            return renderTasks("Here are the tasks in your list:\n", tasks, null, true);
+        case LIST_EMPTY:
+            return "You have no tasks in your list!";
+        case VERSION_LISTED:
+            return renderTasks("Here are the tasks as they were at version " + result.getCount() + ":\n", tasks,
+                    null, false);
+        case VERSION_EMPTY:
+            return "You had no tasks at version " + result.getCount() + "!";
+        case VERSION_MISSING:
+            return "OI! Version " + result.getSubject() + " is not in my history. Try 'history' to see the versions.";
+        case MARKED:
+            return "Nicee! I've marked this task as done:\n  " + tasks[0].toString();
+        case UNMARKED:
+            return "OK, I've marked this task as not done yet:\n  " + tasks[0].toString();
+        case MARKED_MANY:
+            return "Nicee! I've marked " + result.getCount() + " tasks as done.";
+        case UNMARKED_MANY:
+            return "OK, I've marked " + result.getCount() + " tasks as not done yet.";
+        case DELETED:
+            return "Okieee. I've removed this task:\n  " + tasks[0].toString() + "\nNow you have " + result.getTotal()
+                    + " tasks in the list.";
+        case DELETED_MANY:
+            return "Okieee. I've removed " + result.getCount() + " tasks.\nNow you have " + result.getTotal()
+                    + " tasks in the list.";
+        case TASK_MISSING:
+            return "Task number " + result.getSubject() + " does not exist. You have " + result.getTotal() + " tasks.";
+        case RANGE_INVALID:
+            return "OI! Please give task numbers between 1 and " + result.getTotal() + ", like 1-5,8.";
+        case ADDED:
+            // Deadlines have always been added with a little extra cheer
+            String acknowledgement = result.getCommand() == Command.DEADLINE ? "Got itz." : "Got it.";
+            return acknowledgement + " I've added this task:\n  " + tasks[0].toString() + "\nNow you have "
+                    + result.getTotal() + " tasks in the list.";
+        case FOUND:
+            return renderTasks(result.getCommand() == Command.FUZZY_FIND
+                    ? "Here are the closest matching tasks in your list:\n"
+                    : "Here are the matching tasks in your list:\n", tasks, null, false);
+        case NOTHING_FOUND:
+            if (result.getCommand() == Command.QUERY) {
+                return "Walao!! No tasks match your query!";
+            }
+            return (result.getCommand() == Command.FUZZY_FIND
+                    ? "Walao!! No tasks even close to: "
+                    : "Walao!! No matching tasks found for keyword: ") + result.getSubject();
+        case QUERY_MATCHED:
+            return renderTasks("Here are the tasks matching your query:\n", tasks, result.getPositions(), false);
+        case UNDONE:
+            return "YAYY!!! Undo successful! Restored version " + result.getCount() + ".";
+        case REDONE:
+            return "YAYY!!! Redo successful! Restored version " + result.getCount() + ".";
+        case HISTORY_LISTED:
+            return renderHistory(result.getVersions(), result.getCount());
+        case ALREADY_USING:
+            return "You are already using the list " + result.getSubject() + "!";
+        case SWITCHED:
+            return "Okieee. Now using the list " + result.getSubject() + " with " + result.getTotal() + " tasks.";
+        case USE_FAILED:
+            return "Oh No!! Could not open the list " + result.getSubject() + ": " + result.getDetail();
+        case LISTS_LISTED:
+            return renderLists(result);
+        case IMPORTED:
+            String skipped = result.getNumber(0) == 0 ? ""
+                    : " (skipped " + result.getNumber(0) + " entries I couldn't read)";
+            return "Got it. I've imported " + result.getCount() + " tasks" + skipped + ".\nNow you have "
+                    + result.getTotal() + " tasks in the list.";
+        case FILE_MISSING:
+            return "Walao!! I can't find " + result.getSubject() + "!";
+        case IMPORT_FAILED:
+            return "Error importing " + result.getSubject() + " after " + result.getCount() + " tasks: "
+                    + result.getDetail();
+        case EXPORTED:
+            return "Done! I've exported " + result.getCount() + " tasks to " + result.getSubject() + ".";
+        case EXPORT_FAILED:
+            return "Error exporting to " + result.getSubject() + ": " + result.getDetail();
+        case COMPACTED:
+            return "Done! I've compacted " + result.getSubject() + " from " + result.getNumber(0) + " to "
+                    + result.getNumber(1) + " bytes.";
+        case COMPACT_FAILED:
+            return "Oh No!! Could not compact the task file: " + result.getDetail();
+        case SYNCED:
+            return "Done! Synced with " + result.getSubject() + ": sent " + result.getNumber(0) + " and received "
+                    + result.getNumber(1) + " changes.\nNow you have " + result.getTotal() + " tasks in the list.";
+        case SYNC_FAILED:
+            return "Oh No!! Could not sync with " + result.getSubject() + ": " + result.getDetail();
+        case STATS_SHOWN:
+            return "Here are my stats (latencies in microseconds):\n" + result.getDetail();
+        case STATS_WRITTEN:
+            return "Done! I've written my stats to " + result.getSubject();
+        case STATS_FAILED:
+            return "Oh No!! Could not write stats: " + result.getDetail();
+        case GOODBYE:
+            return "Goodbye! Hope to see you again soon!";
+        default:
+            throw new AssertionError("Unhandled result kind: " + result.getKind());
+        }
+    }
+
+    /**
+     * Lists tasks one per line after a heading, numbered by the given positions or else counting from 1.
+     */
+    private static String renderTasks(String heading, Task[] tasks, int[] positions, boolean isShowingIds) {
+        StringBuilder response = new StringBuilder(heading);
+        for (int i = 0; i < tasks.length; i++) {
+            response.append(positions == null ? i + 1 : positions[i]).append(". ");
+            if (isShowingIds) {
+                response.append("#").append(tasks[i].getId()).append(" ");
+            }
+            response.append(tasks[i].toString()).append("\n");
+        }
+        return response.toString().trim();
+    }
+
+    private static String renderHistory(List<History.Version> versions, int currentNumber) {
+        StringBuilder response = new StringBuilder("Here are your recent versions:\n");
+        for (History.Version version : versions) {
+            response.append("v").append(version.getNumber()).append(": ").append(version.getLabel())
+                    .append(" (").append(version.getTaskCount()).append(" tasks)");
+            if (version.getNumber() == currentNumber) {
+                response.append(" <- you are here");
+            }
+            response.append("\n");
+        }
+        return response.toString().trim();
+    }
+
+    private static String renderLists(CommandResult result) {
+        StringBuilder response = new StringBuilder("Here are your task lists:\n");
+        List<String> names = result.getNames();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            response.append(name.equals(result.getSubject()) ? "* " : "  ").append(name);
+            if (result.isOpen(i)) {
+                response.append(" (open)");
+            }
+            response.append("\n");
+        }
+        return response.toString().trim();
+    }
+}
@@ -0,0 +1,121 @@
+package kiko.command;
+
+import kiko.query.Query;
+
+/**
+ * The tasks a command such as mark or delete applies to, as written by the user.
+ * A selection is either a single task, named by its position in the list or by its #id, or several tasks,
+ * given as numbers and ranges like 1-5,8 or as a where clause. Positions and ids are only resolved
+ * against a task list when the command runs.
+ */
+public class TaskSelection {
+    /**
+     * The ways a selection can name its tasks.
+     */
+    public enum Kind {
+        POSITION,
+        ID,
+        RANGES,
+        WHERE
+    }
+
+    private final Kind kind;
+    private final String text;
+    private final int number;
+    private final Query query;
+
+    private TaskSelection(Kind kind, String text, int number, Query query) {
+        this.kind = kind;
+        this.text = text;
+        this.number = number;
+        this.query = query;
+    }
+
+    /**
+     * Creates a selection of the task at the given position.
+     *
+     * @param text The argument as written.
+     * @param position The 1-based position.
+     * @return The selection.
+     */
+    public static TaskSelection ofPosition(String text, int position) {
+        return new TaskSelection(Kind.POSITION, text, position, null);
+    }
+
+    /**
+     * Creates a selection of the task with the given id.
+     *
+     * @param text The argument as written.
+     * @param id The task id.
+     * @return The selection.
+     */
+    public static TaskSelection ofId(String text, int id) {
+        return new TaskSelection(Kind.ID, text, id, null);
+    }
+
+    /**
+     * Creates a selection of the tasks at the given numbers and ranges, such as 1-5,8.
+     *
+     * @param text The numbers and ranges.
+     * @return The selection.
+     */
+    public static TaskSelection ofRanges(String text) {
+        return new TaskSelection(Kind.RANGES, text, 0, null);
+    }
+
+    /**
+     * Creates a selection of the tasks matching a query.
+     *
+     * @param text The argument as written.
+     * @param query The query.
+     * @return The selection.
+     */
+    public static TaskSelection ofQuery(String text, Query query) {
+        return new TaskSelection(Kind.WHERE, text, 0, query);
+    }
+
+    /**
+     * Returns how the selection names its tasks.
+     *
+     * @return The kind.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Checks if the selection may name more than one task.
+     *
+     * @return true for ranges and where clauses, false for a single position or id.
+     */
+    public boolean isBulk() {
+        return kind == Kind.RANGES || kind == Kind.WHERE;
+    }
+
+    /**
+     * Returns the argument as the user wrote it.
+     *
+     * @return The text.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the position or id of a single-task selection.
+     *
+     * @return The number.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * Returns the query of a where clause.
+     *
+     * @return The query, or null for other selections.
+     */
+    public Query getQuery() {
+        return query;
+    }
+}
@@ -0,0 +1,83 @@
+package kiko.command;
+
+import kiko.task.Task;
+
+/**
+ * A read-only view of a task in a response, for callers that want a task's fields rather than its text.
+ * The view reads through to the task, so nothing is copied or formatted until a getter asks for it.
+ */
+public class TaskView {
+    private final Task task;
+    private final int position;
+
+    TaskView(Task task, int position) {
+        assert task != null : "A view needs a task";
+        this.task = task;
+        this.position = position;
+    }
+
+    /**
+     * Returns the stable id of the task.
+     *
+     * @return The id.
+     */
+    public int getId() {
+        return task.getId();
+    }
+
+    /**
+     * Returns the 1-based position of the task in the list, if the response has one.
+     *
+     * @return The position, or 0 if the response does not give positions.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the kind of task: T for a todo, D for a deadline, E for an event and R for a recurring task.
+     *
+     * @return The type icon.
+     */
+    public String getTypeIcon() {
+        return task.getTypeIcon();
+    }
+
+    /**
+     * Returns the description of the task.
+     *
+     * @return The description.
+     */
+    public String getDescription() {
+        return task.getDescription();
+    }
+
+    /**
+     * Checks if the task is done.
+     *
+     * @return true if the task is done.
+     */
+    public boolean isDone() {
+        return task.isDone();
+    }
+
+    /**
+     * Returns the dates of the task as Kiko shows them, such as " (by: Jan 02 2026, 6:00 PM)",
+     * and how a recurring task repeats.
+     *
+     * @return The details, empty for a todo.
+     */
+    public String getDetails() {
+        return task.getAdditionalInfo();
+    }
+
+    /**
+     * Returns the task as Kiko shows it in a list.
+     *
+     * @return The task's text.
+     */
+    @Override
+    public String toString() {
+        return task.toString();
+    }
+}
@@ -1,46 +1,554 @@
 package kiko.history;
 
-import java.util.Stack;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import kiko.metrics.HistoryEvent;
+import kiko.metrics.Metrics;
+import kiko.storage.Storage;
+import kiko.storage.TaskStore;
+import kiko.task.Task;
 import kiko.tasklist.TaskList;
 
 /**
- * Manages the history of TaskList states to support undo operations.
- * Implements the Memento pattern.
+ * Keeps a numbered history of TaskList versions to support multi-level undo, redo
+ * and read-only queries of past versions.
+ * Only the newest state is held in full. Every version stores the splice that turned
+ * the previous version into it, so keeping many versions costs memory proportional to
+ * the changes only. Unchanged tasks are shared between all versions.
+ * Restored TaskLists save to the same store as the TaskList the history was created for.
+ * A history can also be kept in a log file next to the task file, so undo survives restarts.
+ * Only the end of the log is read at startup; older versions are read on the first undo or history query.
  */
 public class History {
-    private Stack<TaskList> historyStack;
+    private static final int MAX_VERSIONS = 10_000;
+    // Rough per-task cost of a copied Task object and its list slot
+    private static final long TASK_OVERHEAD_BYTES = 64;
+    // The log is compacted to this many versions once it grows past MAX_LOG_BYTES
+    private static final int MAX_LOGGED_VERSIONS = 1_000;
+    private static final long MAX_LOG_BYTES = 1 << 20;
+    public static final String LOG_FILE_SUFFIX = ".history";
+
+    private final ArrayList<Version> versions = new ArrayList<>();
+    private final ArrayList<Task> currentState = new ArrayList<>();
+    private final TaskStore store;
+    private int currentIndex;
+    private int nextNumber;
+    // Restored lists keep counting ids from here, so an id is never handed out twice
+    private int nextTaskId;
+    private long totalBytes;
+    private HistoryListener listener;
+    private final HistoryLog log;
+    // False while only the current version has been read from the log
+    private boolean isLoaded = true;
+    // Order-independent hash of currentState, used to check that a log still matches its task file.
+    // Without a log it is never read, so it is not kept up to date
+    private long stateHash;
+    private long compactThreshold = MAX_LOG_BYTES;
+    // The list whose state currentState last matched; only its change bounds describe currentState
+    private TaskList lastCommitted;
+
+    /**
+     * Constructs a History whose first version is the given TaskList state, held in memory only.
+     *
+     * @param taskList The initial TaskList state.
+     */
+    public History(TaskList taskList) {
+        this(taskList, null);
+    }
+
+    /**
+     * Constructs a History for the given TaskList state, kept in the given log file.
+     * If the log ends at the same state as the TaskList, its versions can still be undone;
+     * otherwise, for example when the task file was edited by hand, the log starts over.
+     *
+     * @param taskList The current TaskList state.
+     * @param logPath The log file, or null to keep the history in memory only.
+     */
+    public History(TaskList taskList, Path logPath) {
+        this.store = taskList.getStore();
+        this.nextTaskId = taskList.getNextId();
+        for (Task task : taskList.getAllTasksArrayList()) {
+            currentState.add(task.copy());
+        }
+        track(taskList);
+        this.log = logPath == null ? null : new HistoryLog(logPath);
+        this.stateHash = log == null ? 0 : hashOf(currentState);
+        currentIndex = 0;
 
-    public History() {
-        this.historyStack = new Stack<>();
+        HistoryLog.Tail tail = log == null ? null : log.readTail();
+        if (tail != null && tail.taskCount == currentState.size() && tail.hash == stateHash) {
+            // Older versions stay on disk until an undo or a history query needs them
+            nextNumber = tail.newestNumber + 1;
+            versions.add(new Version(tail.cursorNumber, tail.label, 0, new Task[0], new Task[0], tail.taskCount));
+            isLoaded = false;
+            return;
+        }
+        versions.add(new Version(nextNumber++, "initial state", 0, new Task[0], new Task[0], currentState.size()));
+        if (log != null) {
+            log.rewrite(versions, versions.get(0), stateHash);
+        }
     }
 
     /**
-     * Saves the current state of the TaskList to the history.
-     * 
-     * @param taskList The TaskList state to save.
+     * Returns the log file that keeps the history of the given task file.
+     *
+     * @param filePath The task file.
+     * @return The log file next to it.
      */
-    public void saveState(TaskList taskList) {
-        historyStack.push(new TaskList(taskList));
+    public static Path logPathFor(String filePath) {
+        return Path.of(filePath + LOG_FILE_SUFFIX);
     }
 
     /**
-     * Restores the previous state of the TaskList.
-     * 
-     * @return The previous TaskList state, or null if no history exists.
+     * Records the TaskList as a new version if it differs from the current version.
+     * Any versions that were undone are discarded, so they can no longer be redone.
+     * When the TaskList is the one last committed or restored, only the tasks it changed since then are compared.
+     *
+     * @param taskList The TaskList state after a command ran.
+     * @param label A short description of the command that produced the state.
+     * @return The new version, or null if the state did not change.
      */
-    public TaskList undo() {
-        if (historyStack.isEmpty()) {
+    public Version commit(TaskList taskList, String label) {
+        long start = System.nanoTime();
+        HistoryEvent event = new HistoryEvent("commit");
+        event.begin();
+        nextTaskId = Math.max(nextTaskId, taskList.getNextId());
+        List<Task> tasks = taskList.asList();
+
+        int oldSize = currentState.size();
+        int newSize = tasks.size();
+        int prefix = 0;
+        int suffix = 0;
+        if (taskList == lastCommitted) {
+            prefix = Math.min(taskList.getUnchangedPrefix(), Math.min(oldSize, newSize));
+            suffix = taskList.getUnchangedSuffix();
+        }
+        track(taskList);
+        while (prefix < oldSize && prefix < newSize && currentState.get(prefix).hasSameContent(tasks.get(prefix))) {
+            prefix++;
+        }
+        suffix = Math.min(suffix, Math.min(oldSize, newSize) - prefix);
+        while (suffix < oldSize - prefix && suffix < newSize - prefix
+                && currentState.get(oldSize - 1 - suffix).hasSameContent(tasks.get(newSize - 1 - suffix))) {
+            suffix++;
+        }
+        if (prefix == oldSize && prefix == newSize) {
             return null;
         }
-        return historyStack.pop();
+
+        Task[] removed = currentState.subList(prefix, oldSize - suffix).toArray(new Task[0]);
+        Task[] added = new Task[newSize - suffix - prefix];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = tasks.get(prefix + i).copy();
+        }
+
+        int parentNumber = versions.get(currentIndex).number;
+        discardRedoVersions();
+        Version version = new Version(nextNumber++, label, prefix, removed, added, newSize);
+        versions.add(version);
+        totalBytes += version.estimatedBytes;
+        currentIndex = versions.size() - 1;
+        version.apply(currentState);
+        if (log != null) {
+            stateHash += hashOf(added) - hashOf(removed);
+            log.appendCommit(version, parentNumber, stateHash);
+            compactLogIfLarge();
+        }
+        notifyListener(removed, added);
+        trimOldVersions();
+
+        Metrics.recordSince("history.commit.latency", start);
+        event.setTaskCount(newSize);
+        event.setDepth(versions.size());
+        event.setBytes(version.estimatedBytes);
+        event.commit();
+        return version;
+    }
+
+    /**
+     * Steps back the given number of versions.
+     * Stepping back further than the oldest kept version stops at the oldest version.
+     *
+     * @param steps The number of versions to undo.
+     * @return A fresh TaskList holding the restored state, or null if nothing can be undone.
+     */
+    public TaskList undo(int steps) {
+        assert steps > 0 : "Undo steps must be positive";
+        if (!canUndo()) {
+            return null;
+        }
+        HistoryEvent event = new HistoryEvent("undo");
+        event.begin();
+        int target = Math.max(0, currentIndex - steps);
+        moveTo(currentIndex, target, currentState);
+        currentIndex = target;
+        logMove();
+        TaskList restored = copyOfCurrentState();
+        event.setTaskCount(restored.getTaskCount());
+        event.setDepth(versions.size());
+        event.commit();
+        return restored;
     }
 
     /**
-     * Checks if there are any states in the history.
-     * 
+     * Steps forward the given number of previously undone versions.
+     *
+     * @param steps The number of versions to redo.
+     * @return A fresh TaskList holding the restored state, or null if nothing can be redone.
+     */
+    public TaskList redo(int steps) {
+        assert steps > 0 : "Redo steps must be positive";
+        if (!canRedo()) {
+            return null;
+        }
+        HistoryEvent event = new HistoryEvent("redo");
+        event.begin();
+        int target = Math.min(versions.size() - 1, currentIndex + steps);
+        moveTo(currentIndex, target, currentState);
+        currentIndex = target;
+        logMove();
+        TaskList restored = copyOfCurrentState();
+        event.setTaskCount(restored.getTaskCount());
+        event.setDepth(versions.size());
+        event.commit();
+        return restored;
+    }
+
+    /**
+     * Checks if there is an earlier version to go back to.
+     *
      * @return true if undo is possible, false otherwise.
      */
     public boolean canUndo() {
-        return !historyStack.isEmpty();
+        ensureLoaded();
+        return currentIndex > 0;
+    }
+
+    /**
+     * Checks if there is an undone version to go forward to.
+     *
+     * @return true if redo is possible, false otherwise.
+     */
+    public boolean canRedo() {
+        ensureLoaded();
+        return currentIndex < versions.size() - 1;
+    }
+
+    /**
+     * Returns the tasks as they were at the given version, without changing the current version.
+     * The returned tasks are shared with the history and must not be modified.
+     *
+     * @param number The version number.
+     * @return The tasks at that version, or null if the version is not kept.
+     */
+    public Task[] getStateAt(int number) {
+        ensureLoaded();
+        int index = indexOf(number);
+        if (index == -1) {
+            return null;
+        }
+        ArrayList<Task> state = new ArrayList<>(currentState);
+        moveTo(currentIndex, index, state);
+        return state.toArray(new Task[0]);
+    }
+
+    /**
+     * Returns all kept versions, oldest first.
+     *
+     * @return An unmodifiable list of versions.
+     */
+    public List<Version> getVersions() {
+        ensureLoaded();
+        return Collections.unmodifiableList(versions);
+    }
+
+    /**
+     * Returns the current version.
+     *
+     * @return The version the TaskList is currently at.
+     */
+    public Version getCurrentVersion() {
+        return versions.get(currentIndex);
+    }
+
+    /**
+     * Returns the number of kept versions.
+     *
+     * @return The history depth.
+     */
+    public int getDepth() {
+        ensureLoaded();
+        return versions.size();
+    }
+
+    /**
+     * Returns an estimate of the heap bytes held by all version deltas.
+     *
+     * @return The estimated byte count.
+     */
+    public long getEstimatedBytes() {
+        ensureLoaded();
+        return totalBytes;
+    }
+
+    /**
+     * Sets the listener told about every change to the current state.
+     *
+     * @param listener The listener, or null to stop notifying.
+     */
+    public void setListener(HistoryListener listener) {
+        this.listener = listener;
+    }
+
+    private void moveTo(int from, int target, List<Task> state) {
+        // Only undo and redo move the current state; getStateAt works on a copy and stays silent
+        boolean isCurrent = state == currentState;
+        while (from > target) {
+            Version version = versions.get(from--);
+            version.revert(state);
+            if (isCurrent) {
+                if (log != null) {
+                    stateHash += hashOf(version.removed) - hashOf(version.added);
+                }
+                notifyListener(version.added, version.removed);
+            }
+        }
+        while (from < target) {
+            Version version = versions.get(++from);
+            version.apply(state);
+            if (isCurrent) {
+                if (log != null) {
+                    stateHash += hashOf(version.added) - hashOf(version.removed);
+                }
+                notifyListener(version.removed, version.added);
+            }
+        }
+    }
+
+    /**
+     * Reads the versions before the current one from the log, the first time they are needed.
+     * Until then the history holds the current version and any versions committed since.
+     */
+    private void ensureLoaded() {
+        if (isLoaded) {
+            return;
+        }
+        isLoaded = true;
+        int currentNumber = versions.get(currentIndex).number;
+        List<Version> chain = log.readChain(MAX_VERSIONS);
+        if (chain == null) {
+            return;
+        }
+        ArrayList<Version> loaded = new ArrayList<>(chain);
+        int loadedIndex = loaded.size() - 1;
+        while (loadedIndex >= 0 && loaded.get(loadedIndex).number != currentNumber) {
+            loadedIndex--;
+        }
+        if (loadedIndex == -1) {
+            // The log no longer reaches the current version, so keep what is in memory
+            return;
+        }
+        versions.clear();
+        versions.addAll(loaded);
+        currentIndex = loadedIndex;
+        totalBytes = 0;
+        for (Version version : versions) {
+            totalBytes += version.estimatedBytes;
+        }
+    }
+
+    private void logMove() {
+        if (log != null) {
+            log.appendMove(versions.get(currentIndex), versions.get(versions.size() - 1).number, stateHash);
+            compactLogIfLarge();
+        }
+    }
+
+    private void compactLogIfLarge() {
+        if (log.size() <= compactThreshold) {
+            return;
+        }
+        ensureLoaded();
+        int first = Math.max(0, Math.min(currentIndex, versions.size() - MAX_LOGGED_VERSIONS));
+        log.rewrite(versions.subList(first, versions.size()), versions.get(currentIndex), stateHash);
+        // Versions with large changes can keep a compacted log big, so let it double before compacting again
+        compactThreshold = Math.max(MAX_LOG_BYTES, 2 * log.size());
+    }
+
+    private void notifyListener(Task[] removed, Task[] added) {
+        if (listener != null) {
+            listener.onTasksChanged(removed, added);
+        }
+    }
+
+    private TaskList copyOfCurrentState() {
+        ArrayList<Task> tasks = new ArrayList<>(currentState.size());
+        for (Task task : currentState) {
+            tasks.add(task.copy());
+        }
+        TaskList restored = new TaskList(tasks, store, nextTaskId);
+        track(restored);
+        return restored;
+    }
+
+    /**
+     * Remembers that currentState now matches the given list, so its next commit only compares what it changes.
+     */
+    private void track(TaskList taskList) {
+        lastCommitted = taskList;
+        taskList.markUnchanged();
+    }
+
+    private void discardRedoVersions() {
+        while (versions.size() - 1 > currentIndex) {
+            totalBytes -= versions.remove(versions.size() - 1).estimatedBytes;
+        }
+    }
+
+    private void trimOldVersions() {
+        if (versions.size() <= MAX_VERSIONS) {
+            return;
+        }
+        // Drop a batch at once so trimming stays rare; the oldest kept version becomes the base
+        int excess = versions.size() - MAX_VERSIONS + MAX_VERSIONS / 10;
+        for (Version version : versions.subList(0, excess)) {
+            totalBytes -= version.estimatedBytes;
+        }
+        versions.subList(0, excess).clear();
+        currentIndex -= excess;
+    }
+
+    private int indexOf(int number) {
+        int low = 0;
+        int high = versions.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midNumber = versions.get(mid).number;
+            if (midNumber == number) {
+                return mid;
+            } else if (midNumber < number) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -1;
+    }
+
+    private static long hashOf(Task[] tasks) {
+        long hash = 0;
+        for (Task task : tasks) {
+            hash += hashOf(task);
+        }
+        return hash;
+    }
+
+    private static long hashOf(List<Task> tasks) {
+        long hash = 0;
+        for (Task task : tasks) {
+            hash += hashOf(task);
+        }
+        return hash;
+    }
+
+    private static long hashOf(Task task) {
+        String line = Storage.taskToFileString(task);
+        long taskHash = 1125899906842597L;
+        for (int i = 0; i < line.length(); i++) {
+            taskHash = 31 * taskHash + line.charAt(i);
+        }
+        // Summing makes the hash independent of order, so splices can update it incrementally
+        return taskHash ^ (taskHash >>> 29);
+    }
+
+    private static long estimateBytes(Task[] tasks) {
+        long bytes = 0;
+        for (Task task : tasks) {
+            bytes += TASK_OVERHEAD_BYTES + 2L * task.getDescription().length();
+        }
+        return bytes;
+    }
+
+    /**
+     * One numbered version in the history.
+     * Holds the splice that replaced the tasks at {@code start} to produce this version.
+     */
+    public static class Version {
+        private final int number;
+        private final String label;
+        private final int start;
+        private final Task[] removed;
+        private final Task[] added;
+        private final int taskCount;
+        private final long estimatedBytes;
+
+        Version(int number, String label, int start, Task[] removed, Task[] added, int taskCount) {
+            this.number = number;
+            this.label = label;
+            this.start = start;
+            this.removed = removed;
+            this.added = added;
+            this.taskCount = taskCount;
+            this.estimatedBytes = estimateBytes(removed) + estimateBytes(added);
+        }
+
+        /**
+         * Returns the version number. Numbers increase with every commit and are never reused.
+         *
+         * @return The version number.
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * Returns the description of the command that produced this version.
+         *
+         * @return The version label.
+         */
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Returns the number of tasks in this version.
+         *
+         * @return The task count.
+         */
+        public int getTaskCount() {
+            return taskCount;
+        }
+
+        int getStart() {
+            return start;
+        }
+
+        Task[] getRemoved() {
+            return removed;
+        }
+
+        Task[] getAdded() {
+            return added;
+        }
+
+        /**
+         * Returns a copy of this version without its changes, to start a history from.
+         */
+        Version asRoot() {
+            return new Version(number, label, 0, new Task[0], new Task[0], taskCount);
+        }
+
+        private void apply(List<Task> state) {
+            state.subList(start, start + removed.length).clear();
+            state.addAll(start, List.of(added));
+        }
+
+        private void revert(List<Task> state) {
+            state.subList(start, start + added.length).clear();
+            state.addAll(start, List.of(removed));
+        }
     }
-}
\ No newline at end of file
+}
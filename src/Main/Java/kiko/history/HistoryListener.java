@@ -0,0 +1,36 @@
+package kiko.history;
+
+import kiko.task.Task;
+
+/**
+ * Receives the task changes a History records, as they happen.
+ * Commits report their splice, while undo and redo report each step they cross,
+ * so listeners can follow the task list incrementally instead of rescanning it.
+ */
+public interface HistoryListener {
+    /**
+     * Called when tasks leave and join the current state.
+     * A changed task appears once as removed, with its old content, and once as added.
+     * The tasks are shared with the history and must not be modified.
+     *
+     * @param removed The tasks no longer in the current state.
+     * @param added The tasks now in the current state.
+     */
+    void onTasksChanged(Task[] removed, Task[] added);
+
+    /**
+     * Returns a listener that tells this listener about each change, then the next one.
+     *
+     * @param next The listener to tell second, or null for none.
+     * @return The combined listener.
+     */
+    default HistoryListener andThen(HistoryListener next) {
+        if (next == null) {
+            return this;
+        }
+        return (removed, added) -> {
+            onTasksChanged(removed, added);
+            next.onTasksChanged(removed, added);
+        };
+    }
+}
@@ -0,0 +1,374 @@
+package kiko.history;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import kiko.history.History.Version;
+import kiko.storage.Storage;
+import kiko.task.Task;
+
+/**
+ * Stores a History on disk as an append-only log of version deltas, so undo survives restarts.
+ * Every record is framed by its length on both sides, so the log can be read backwards from
+ * its end: starting up only reads the last record, and older versions are read when first needed.
+ * A commit record names the version it was made on top of, so undone branches that were
+ * replaced by a later commit are skipped when the versions are read back.
+ * Tasks are stored in the task file's line format, and large records are deflated.
+ */
+class HistoryLog {
+    private static final byte COMMIT = 1;
+    private static final byte MOVE = 2;
+    private static final byte DEFLATED = (byte) 0x80;
+    private static final int MIN_BYTES_TO_DEFLATE = 512;
+    private static final int MAX_LABEL_LENGTH = 200;
+
+    private final Path path;
+
+    /**
+     * The header every record starts with. The last record's header tells where the history
+     * stood when it was last written.
+     */
+    static class Tail {
+        final boolean isCommit;
+        final int cursorNumber;
+        final int newestNumber;
+        final int taskCount;
+        final long hash;
+        final String label;
+
+        private Tail(boolean isCommit, int cursorNumber, int newestNumber, int taskCount, long hash, String label) {
+            this.isCommit = isCommit;
+            this.cursorNumber = cursorNumber;
+            this.newestNumber = newestNumber;
+            this.taskCount = taskCount;
+            this.hash = hash;
+            this.label = label;
+        }
+    }
+
+    /**
+     * Constructs a HistoryLog backed by the given file, which need not exist yet.
+     *
+     * @param path The log file.
+     */
+    HistoryLog(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the size of the log file.
+     *
+     * @return The size in bytes, or 0 if the file does not exist.
+     */
+    long size() {
+        try {
+            return Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the last record of the log.
+     *
+     * @return The tail, or null if the log is missing, empty or damaged at its end.
+     */
+    Tail readTail() {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            long end = file.length();
+            if (end == 0) {
+                return null;
+            }
+            byte[] record = unpack(readRecordBefore(file, end));
+            return readHeader(new DataInputStream(new ByteArrayInputStream(record)));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads back the versions leading up to the newest commit, following each commit to the
+     * version it was made on, until a root, a missing version or the limit is reached.
+     *
+     * @param maxVersions The most versions to read.
+     * @return The versions, oldest first, or null if the log cannot be read.
+     */
+    List<Version> readChain(int maxVersions) {
+        ArrayList<Version> chain = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            int expected = -1;
+            for (long end = file.length(); end > 0 && chain.size() < maxVersions; ) {
+                byte[] framed = readRecordBefore(file, end);
+                end -= framed.length + 2L * Integer.BYTES;
+                byte[] record = unpack(framed);
+                DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+                Tail header = readHeader(input);
+                if (header == null) {
+                    continue;
+                }
+                if (expected == -1) {
+                    expected = header.newestNumber;
+                }
+                if (!header.isCommit) {
+                    continue;
+                }
+                if (header.cursorNumber < expected) {
+                    // The version the chain needs was dropped when the log was last compacted
+                    break;
+                }
+                if (header.cursorNumber > expected) {
+                    continue;
+                }
+                int parent = input.readInt();
+                int start = input.readInt();
+                Task[] removed = readTasks(input);
+                Task[] added = readTasks(input);
+                chain.add(new Version(header.cursorNumber, header.label, start, removed, added, header.taskCount));
+                if (parent < 0) {
+                    break;
+                }
+                expected = parent;
+            }
+        } catch (IOException e) {
+            System.out.println(" Error loading undo history: " + e.getMessage());
+            return null;
+        }
+        Collections.reverse(chain);
+        return chain.isEmpty() ? null : chain;
+    }
+
+    /**
+     * Appends a commit record.
+     *
+     * @param version The new version.
+     * @param parentNumber The number of the version it was made on, or -1 for none.
+     * @param hash The hash of the state the version produces.
+     */
+    void appendCommit(Version version, int parentNumber, long hash) {
+        append(encodeCommit(version, parentNumber, hash));
+    }
+
+    /**
+     * Appends a record noting that undo or redo moved the current version.
+     *
+     * @param current The version now current.
+     * @param newestNumber The number of the newest kept version.
+     * @param hash The hash of the current state.
+     */
+    void appendMove(Version current, int newestNumber, long hash) {
+        append(encodeMove(current, newestNumber, hash));
+    }
+
+    /**
+     * Replaces the log with just the given versions, dropping older versions and undone branches.
+     * The oldest version becomes a root whose changes are not needed.
+     *
+     * @param versions The versions to keep, oldest first.
+     * @param current The version now current, which must be among them.
+     * @param hash The hash of the current state.
+     */
+    void rewrite(List<Version> versions, Version current, long hash) {
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(createParent(temporaryPath)))) {
+            int parentNumber = -1;
+            for (Version version : versions) {
+                Version written = parentNumber == -1 ? version.asRoot() : version;
+                // Only the last record's hash is ever checked
+                writeRecord(output, encodeCommit(written, parentNumber, 0));
+                parentNumber = version.getNumber();
+            }
+            writeRecord(output, encodeMove(current, parentNumber, hash));
+        } catch (IOException e) {
+            System.out.println(" Error saving undo history: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println(" Error saving undo history: " + e.getMessage());
+        }
+    }
+
+    private void append(byte[] record) {
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(createParent(path),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND))) {
+            writeRecord(output, record);
+        } catch (IOException e) {
+            System.out.println(" Error saving undo history: " + e.getMessage());
+        }
+    }
+
+    private static Path createParent(Path file) throws IOException {
+        Path directoryPath = file.toAbsolutePath().getParent();
+        if (!Files.exists(directoryPath)) {
+            Files.createDirectories(directoryPath);
+        }
+        return file;
+    }
+
+    private static byte[] encodeCommit(Version version, int parentNumber, long hash) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            writeHeader(output, COMMIT, version, version.getNumber(), hash);
+            output.writeInt(parentNumber);
+            output.writeInt(version.getStart());
+            writeTasks(output, version.getRemoved());
+            writeTasks(output, version.getAdded());
+        } catch (IOException e) {
+            throw new AssertionError("Writing to memory cannot fail", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeMove(Version current, int newestNumber, long hash) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            writeHeader(output, MOVE, current, newestNumber, hash);
+        } catch (IOException e) {
+            throw new AssertionError("Writing to memory cannot fail", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeHeader(DataOutputStream output, byte type, Version version, int newestNumber,
+            long hash) throws IOException {
+        String label = version.getLabel();
+        output.writeByte(type);
+        output.writeInt(version.getNumber());
+        output.writeInt(newestNumber);
+        output.writeInt(version.getTaskCount());
+        output.writeLong(hash);
+        output.writeUTF(label.length() > MAX_LABEL_LENGTH ? label.substring(0, MAX_LABEL_LENGTH) : label);
+    }
+
+    /**
+     * Reads a record's header, or returns null for records of an unknown type.
+     */
+    private static Tail readHeader(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        if (type != COMMIT && type != MOVE) {
+            return null;
+        }
+        return new Tail(type == COMMIT, input.readInt(), input.readInt(), input.readInt(), input.readLong(), input.readUTF());
+    }
+
+    private static void writeTasks(DataOutputStream output, Task[] tasks) throws IOException {
+        output.writeInt(tasks.length);
+        for (Task task : tasks) {
+            byte[] line = Storage.taskToFileString(task).getBytes(StandardCharsets.UTF_8);
+            output.writeInt(line.length);
+            output.write(line);
+        }
+    }
+
+    private static Task[] readTasks(DataInputStream input) throws IOException {
+        Task[] tasks = new Task[input.readInt()];
+        for (int i = 0; i < tasks.length; i++) {
+            byte[] line = new byte[input.readInt()];
+            input.readFully(line);
+            tasks[i] = Storage.parseTaskFromString(new String(line, StandardCharsets.UTF_8));
+            if (tasks[i] == null) {
+                throw new IOException("Undo history holds an unreadable task");
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes a record framed by its length on both sides, deflating it if that makes it smaller.
+     */
+    private static void writeRecord(DataOutputStream output, byte[] record) throws IOException {
+        byte[] framed = record;
+        if (record.length >= MIN_BYTES_TO_DEFLATE) {
+            byte[] deflated = deflate(record);
+            if (deflated.length < record.length) {
+                framed = deflated;
+            }
+        }
+        output.writeInt(framed.length);
+        output.write(framed);
+        output.writeInt(framed.length);
+    }
+
+    /**
+     * Reads the record that ends at the given offset, as it was written.
+     */
+    private static byte[] readRecordBefore(RandomAccessFile file, long end) throws IOException {
+        if (end < 2L * Integer.BYTES) {
+            throw new IOException("Undo history is damaged");
+        }
+        file.seek(end - Integer.BYTES);
+        int length = file.readInt();
+        long start = end - 2L * Integer.BYTES - length;
+        if (length <= 0 || start < 0) {
+            throw new IOException("Undo history is damaged");
+        }
+        file.seek(start);
+        if (file.readInt() != length) {
+            throw new IOException("Undo history is damaged");
+        }
+        byte[] record = new byte[length];
+        file.readFully(record);
+        return record;
+    }
+
+    private static byte[] unpack(byte[] framed) throws IOException {
+        return framed[0] == DEFLATED ? inflate(framed) : framed;
+    }
+
+    private static byte[] deflate(byte[] record) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(record);
+            deflater.finish();
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(record.length / 2);
+            deflated.write(DEFLATED);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                deflated.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return deflated.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] record) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(record, 1, record.length - 1);
+            ByteArrayOutputStream inflated = new ByteArrayOutputStream(record.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Undo history is damaged");
+                }
+                inflated.write(buffer, 0, count);
+            }
+            return inflated.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Undo history is damaged", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
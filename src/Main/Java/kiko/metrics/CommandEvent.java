@@ -0,0 +1,52 @@
+package kiko.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event emitted around each command dispatched by Kiko.
+ */
+@Name("kiko.Command")
+@Label("Kiko Command")
+@Category({"Kiko", "Command"})
+@Description("Dispatching one user command")
+public class CommandEvent extends Event {
+    @Label("Command")
+    private final String command;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Response Length")
+    private int responseLength;
+
+    /**
+     * Constructs a CommandEvent for the given command word.
+     *
+     * @param command The command word, for example "list".
+     */
+    public CommandEvent(String command) {
+        this.command = command;
+    }
+
+    /**
+     * Sets the number of tasks after the command ran.
+     *
+     * @param taskCount The task count.
+     */
+    public void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    /**
+     * Sets the length of the response text.
+     *
+     * @param responseLength The response length in characters.
+     */
+    public void setResponseLength(int responseLength) {
+        this.responseLength = responseLength;
+    }
+}
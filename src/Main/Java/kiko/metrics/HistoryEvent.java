@@ -0,0 +1,66 @@
+package kiko.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event emitted around each undo history save or restore.
+ */
+@Name("kiko.History")
+@Label("Kiko History")
+@Category({"Kiko", "History"})
+@Description("Saving or restoring an undo history state")
+public class HistoryEvent extends Event {
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Depth")
+    private int depth;
+
+    @Label("Estimated Bytes")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * Constructs a HistoryEvent for the given operation.
+     *
+     * @param operation The history operation, for example "save" or "undo".
+     */
+    public HistoryEvent(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Sets the number of tasks in the saved or restored state.
+     *
+     * @param taskCount The task count.
+     */
+    public void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    /**
+     * Sets the history depth after the operation.
+     *
+     * @param depth The number of saved states.
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Sets the estimated bytes held by the saved or restored state.
+     *
+     * @param bytes The estimated byte count.
+     */
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+}
@@ -0,0 +1,228 @@
+package kiko.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A lightweight process-wide registry of counters, gauges and histograms.
+ * Latencies are recorded in nanoseconds under names ending in ".latency". The registry can be summarised for the
+ * {@code stats} command or dumped as JSON or Prometheus text to a local file.
+ */
+public class Metrics {
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    /**
+     * Adds one to the named counter.
+     *
+     * @param name The counter name.
+     */
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    /**
+     * Adds the given amount to the named counter.
+     *
+     * @param name The counter name.
+     * @param amount The amount to add.
+     */
+    public static void add(String name, long amount) {
+        COUNTERS.computeIfAbsent(name, k -> new LongAdder()).add(amount);
+    }
+
+    /**
+     * Registers a gauge whose value is read lazily whenever metrics are reported.
+     * Registering the same name again replaces the previous gauge.
+     *
+     * @param name The gauge name.
+     * @param supplier The supplier of the current value.
+     */
+    public static void registerGauge(String name, LongSupplier supplier) {
+        GAUGES.put(name, supplier);
+    }
+
+    /**
+     * Records a value into the named histogram.
+     *
+     * @param name The histogram name.
+     * @param value The value to record.
+     */
+    public static void record(String name, long value) {
+        histogram(name).record(value);
+    }
+
+    /**
+     * Records the time elapsed since the given start into the named histogram.
+     *
+     * @param name The histogram name.
+     * @param startNanos The start time from {@link System#nanoTime()}.
+     */
+    public static void recordSince(String name, long startNanos) {
+        histogram(name).record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Returns the named histogram, creating it if needed.
+     *
+     * @param name The histogram name.
+     * @return The histogram.
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    /**
+     * Returns the current value of the named counter.
+     *
+     * @param name The counter name.
+     * @return The counter value, or 0 if it does not exist.
+     */
+    public static long getCount(String name) {
+        LongAdder counter = COUNTERS.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Removes all registered metrics.
+     */
+    public static void reset() {
+        COUNTERS.clear();
+        GAUGES.clear();
+        HISTOGRAMS.clear();
+    }
+
+    /**
+     * Builds a human readable summary suitable for display in the chat window.
+     * Latency histograms are shown in microseconds.
+     *
+     * @return The summary text.
+     */
+    public static String summarize() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            Histogram histogram = entry.getValue();
+            if (isLatency(entry.getKey())) {
+                summary.append(String.format("%s: n=%d p50=%.1fus p99=%.1fus max=%.1fus%n", entry.getKey(),
+                        histogram.getCount(), histogram.getValueAtQuantile(0.5) / NANOS_PER_MICRO,
+                        histogram.getValueAtQuantile(0.99) / NANOS_PER_MICRO, histogram.getMax() / NANOS_PER_MICRO));
+            } else {
+                summary.append(String.format("%s: n=%d p50=%d p99=%d max=%d%n", entry.getKey(),
+                        histogram.getCount(), histogram.getValueAtQuantile(0.5),
+                        histogram.getValueAtQuantile(0.99), histogram.getMax()));
+            }
+        }
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            summary.append(entry.getKey()).append(": ").append(entry.getValue().sum()).append("\n");
+        }
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(GAUGES).entrySet()) {
+            summary.append(entry.getKey()).append(": ").append(entry.getValue().getAsLong()).append("\n");
+        }
+        return summary.toString().trim();
+    }
+
+    /**
+     * Renders all metrics as a JSON object.
+     *
+     * @return The JSON text.
+     */
+    public static String toJson() {
+        StringBuilder json = new StringBuilder("{\"counters\":{");
+        appendJsonValues(json, COUNTERS, LongAdder::sum);
+        json.append("},\"gauges\":{");
+        appendJsonValues(json, GAUGES, LongSupplier::getAsLong);
+        json.append("},\"histograms\":{");
+        boolean isFirst = true;
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            Histogram histogram = entry.getValue();
+            json.append(isFirst ? "" : ",").append('"').append(entry.getKey()).append("\":{")
+                    .append("\"count\":").append(histogram.getCount())
+                    .append(",\"sum\":").append(histogram.getSum())
+                    .append(",\"p50\":").append(histogram.getValueAtQuantile(0.5))
+                    .append(",\"p90\":").append(histogram.getValueAtQuantile(0.9))
+                    .append(",\"p99\":").append(histogram.getValueAtQuantile(0.99))
+                    .append(",\"max\":").append(histogram.getMax())
+                    .append('}');
+            isFirst = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format.
+     * Histograms are exposed as summaries with p50, p90 and p99 quantiles.
+     *
+     * @return The Prometheus text.
+     */
+    public static String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(COUNTERS).entrySet()) {
+            String name = prometheusName(entry.getKey());
+            text.append("# TYPE ").append(name).append(" counter\n")
+                    .append(name).append(' ').append(entry.getValue().sum()).append('\n');
+        }
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(GAUGES).entrySet()) {
+            String name = prometheusName(entry.getKey());
+            text.append("# TYPE ").append(name).append(" gauge\n")
+                    .append(name).append(' ').append(entry.getValue().getAsLong()).append('\n');
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(HISTOGRAMS).entrySet()) {
+            String name = prometheusName(entry.getKey());
+            Histogram histogram = entry.getValue();
+            text.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : new double[]{0.5, 0.9, 0.99}) {
+                text.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                        .append(histogram.getValueAtQuantile(quantile)).append('\n');
+            }
+            text.append(name).append("_sum ").append(histogram.getSum()).append('\n')
+                    .append(name).append("_count ").append(histogram.getCount()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes all metrics to the given file.
+     * The format is Prometheus text when the format is "prometheus" or "prom", and JSON otherwise.
+     *
+     * @param format The output format.
+     * @param filePath The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void dump(String format, String filePath) throws IOException {
+        String content = format.equals("prometheus") || format.equals("prom") ? toPrometheus() : toJson();
+        Path path = Paths.get(filePath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isLatency(String name) {
+        return name.endsWith(".latency");
+    }
+
+    private static String prometheusName(String name) {
+        return "kiko_" + name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    private static <T> void appendJsonValues(StringBuilder json, Map<String, T> values, ToLongFunction<T> reader) {
+        boolean isFirst = true;
+        for (Map.Entry<String, T> entry : new TreeMap<>(values).entrySet()) {
+            json.append(isFirst ? "" : ",").append('"').append(entry.getKey()).append("\":")
+                    .append(reader.applyAsLong(entry.getValue()));
+            isFirst = false;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package kiko.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event emitted around each task file load or save.
+ */
+@Name("kiko.Storage")
+@Label("Kiko Storage")
+@Category({"Kiko", "Storage"})
+@Description("Loading or saving the task file")
+public class StorageEvent extends Event {
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Task Count")
+    private int taskCount;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * Constructs a StorageEvent for the given operation.
+     *
+     * @param operation The storage operation, for example "save" or "load".
+     */
+    public StorageEvent(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Sets the number of tasks saved or loaded.
+     *
+     * @param taskCount The task count.
+     */
+    public void setTaskCount(int taskCount) {
+        this.taskCount = taskCount;
+    }
+
+    /**
+     * Sets the number of bytes written or read.
+     *
+     * @param bytes The byte count.
+     */
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+}
@@ -5,6 +5,9 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
+import java.util.BitSet;
+
+import kiko.task.Recurrence;
 
 /**
  * Handles parsing of dates and command arguments for the Kiko chatbot.
@@ -104,6 +107,66 @@ public class Parser {
         return new String[]{description, fromString, toString};
     }
     
+    /**
+     * Parses recurring task argument to extract description, repeat rule, start date and optional limit.
+     * Format: description /every [N] day|week|month|year /from date [/until date | /times N]
+     *
+     * @param argument The full argument string
+     * @return A string array where [0] is description, [1] is the repeat rule, [2] is start date,
+     *         [3] is the end date or empty and [4] is the repeat count or empty, or null if invalid
+     */
+    public String[] parseRecurringArgument(String argument) {
+        assert argument != null : "Argument string cannot be null";
+        int everyIndex = argument.indexOf("/every ");
+        int fromIndex = argument.indexOf("/from ");
+        if (everyIndex == -1 || fromIndex == -1 || fromIndex <= everyIndex) {
+            return null;
+        }
+        
+        int untilIndex = argument.indexOf("/until ", fromIndex);
+        int timesIndex = argument.indexOf("/times ", fromIndex);
+        if (untilIndex != -1 && timesIndex != -1) {
+            return null;
+        }
+        int limitIndex = Math.max(untilIndex, timesIndex);
+        
+        String description = argument.substring(0, everyIndex).trim();
+        String rule = argument.substring(everyIndex + 7, fromIndex).trim();
+        String fromString = argument.substring(fromIndex + 6, limitIndex == -1 ? argument.length() : limitIndex).trim();
+        String untilString = untilIndex == -1 ? "" : argument.substring(untilIndex + 7).trim();
+        String timesString = timesIndex == -1 ? "" : argument.substring(timesIndex + 7).trim();
+        
+        if (description.isEmpty() || rule.isEmpty() || fromString.isEmpty()) {
+            return null;
+        }
+        
+        return new String[]{description, rule, fromString, untilString, timesString};
+    }
+    
+    /**
+     * Parses a repeat rule such as "week" or "2 months" into a Recurrence.
+     *
+     * @param rule The repeat rule, an optional interval followed by a unit
+     * @param start The first occurrence
+     * @param until The last time an occurrence may fall on, or null for no limit
+     * @param count The number of occurrences, or 0 for no limit
+     * @return The Recurrence
+     * @throws IllegalArgumentException If the rule is not understood
+     */
+    public Recurrence parseRecurrence(String rule, LocalDateTime start, LocalDateTime until, int count)
+            throws IllegalArgumentException {
+        String[] words = rule.trim().split("\\s+");
+        if (words.length > 2) {
+            throw new IllegalArgumentException("Invalid repeat rule: " + rule);
+        }
+        int interval = words.length == 2 ? parseTaskNumber(words[0]) : 1;
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid repeat interval: " + words[0]);
+        }
+        Recurrence.Frequency frequency = Recurrence.Frequency.fromUnit(words[words.length - 1]);
+        return new Recurrence(frequency, interval, start, count, until);
+    }
+    
     /**
      * Parses a task number string to integer.
      *
@@ -117,4 +180,28 @@ public class Parser {
             return -1;
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Parses a list of task numbers and ranges, such as "3,7,9-20".
+     *
+     * @param argument The comma-separated numbers and inclusive ranges
+     * @param maxNumber The largest valid task number
+     * @return The distinct task numbers in increasing order, or null if the list is invalid or out of range
+     */
+    public int[] parseTaskNumbers(String argument, int maxNumber) {
+        BitSet numbers = new BitSet();
+        for (String item : argument.split(",")) {
+            String[] bounds = item.trim().split("-", -1);
+            if (bounds.length > 2) {
+                return null;
+            }
+            int first = parseTaskNumber(bounds[0].trim());
+            int last = bounds.length == 2 ? parseTaskNumber(bounds[1].trim()) : first;
+            if (first < 1 || last < first || last > maxNumber) {
+                return null;
+            }
+            numbers.set(first, last + 1);
+        }
+        return numbers.stream().toArray();
+    }
+}
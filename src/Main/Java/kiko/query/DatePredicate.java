@@ -0,0 +1,63 @@
+package kiko.query;
+
+import java.time.LocalDateTime;
+import java.util.BitSet;
+
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurring;
+import kiko.task.Task;
+
+/**
+ * Matches tasks whose date field lies in a range, answered from the sorted date indexes.
+ */
+public class DatePredicate implements QueryPredicate {
+    private final String field;
+    private final LocalDateTime lower;
+    private final LocalDateTime upper;
+
+    /**
+     * Constructs a DatePredicate.
+     *
+     * @param field One of "by", "from" or "to".
+     * @param lower The inclusive lower bound, or null for none.
+     * @param upper The exclusive upper bound, or null for none.
+     */
+    public DatePredicate(String field, LocalDateTime lower, LocalDateTime upper) {
+        this.field = field;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    @Override
+    public int estimate(TaskIndexes indexes) {
+        return indexes.countInDateRange(field, lower, upper);
+    }
+
+    @Override
+    public BitSet evaluate(TaskIndexes indexes) {
+        return indexes.inDateRange(field, lower, upper);
+    }
+
+    @Override
+    public boolean matches(Task task) {
+        if (task instanceof Recurring) {
+            return ((Recurring) task).getRecurrence().hasOccurrenceBetween(lower, upper);
+        }
+        LocalDateTime value = dateOf(task);
+        return value != null
+                && (lower == null || !value.isBefore(lower))
+                && (upper == null || value.isBefore(upper));
+    }
+
+    private LocalDateTime dateOf(Task task) {
+        if (field.equals(TaskIndexes.FIELD_BY) && task instanceof Deadline) {
+            return ((Deadline) task).getBy();
+        } else if (field.equals(TaskIndexes.FIELD_FROM) && task instanceof Event) {
+            return ((Event) task).getFrom();
+        } else if (field.equals(TaskIndexes.FIELD_TO) && task instanceof Event) {
+            return ((Event) task).getTo();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package kiko.query;
+
+import java.util.BitSet;
+
+import kiko.task.Task;
+
+/**
+ * Matches tasks by done status, answered from the done bitmap.
+ */
+public class DonePredicate implements QueryPredicate {
+    private final boolean isDone;
+
+    /**
+     * Constructs a DonePredicate.
+     *
+     * @param isDone The status to match.
+     */
+    public DonePredicate(boolean isDone) {
+        this.isDone = isDone;
+    }
+
+    @Override
+    public int estimate(TaskIndexes indexes) {
+        return indexes.countWithStatus(isDone);
+    }
+
+    @Override
+    public BitSet evaluate(TaskIndexes indexes) {
+        return indexes.withStatus(isDone);
+    }
+
+    @Override
+    public boolean matches(Task task) {
+        return task.isDone() == isDone;
+    }
+}
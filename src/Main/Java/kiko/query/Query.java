@@ -0,0 +1,198 @@
+package kiko.query;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import kiko.parser.Parser;
+import kiko.task.Task;
+import kiko.tasklist.ParallelScan;
+
+/**
+ * A compiled query over a task list: a conjunction of predicates planned once at parse time.
+ * Each predicate is answered from the cheapest matching index and the results are intersected,
+ * starting with the most selective predicate. Terms look like:
+ * type:D (or T, E, R), done:no, text:report (or a bare word), by&lt;2026-10-23, from&gt;=2026-10-01 0900, to:2026-10-23.
+ */
+public class Query {
+    // Below this ratio of candidates to predicate size, checking tasks directly beats building a bitmap
+    private static final int DIRECT_CHECK_RATIO = 8;
+    private static final ParallelScan SEQUENTIAL = new ParallelScan(Integer.MAX_VALUE, ForkJoinPool.commonPool());
+
+    private final List<QueryPredicate> predicates;
+
+    private Query(List<QueryPredicate> predicates) {
+        this.predicates = predicates;
+    }
+
+    /**
+     * Parses query text into a Query.
+     *
+     * @param text The query text.
+     * @return The parsed query.
+     * @throws IllegalArgumentException If a term is not understood.
+     */
+    public static Query parse(String text) throws IllegalArgumentException {
+        Parser parser = new Parser();
+        List<QueryPredicate> predicates = new ArrayList<>();
+        String[] terms = text.trim().isEmpty() ? new String[0] : text.trim().split("\\s+");
+        for (int i = 0; i < terms.length; i++) {
+            String term = terms[i];
+            String lowerTerm = term.toLowerCase();
+            if (lowerTerm.startsWith("type:")) {
+                predicates.add(new TypePredicate(parseType(term.substring(5))));
+            } else if (lowerTerm.startsWith("done:")) {
+                predicates.add(new DonePredicate(parseStatus(term.substring(5))));
+            } else if (lowerTerm.startsWith("text:")) {
+                predicates.add(new TextPredicate(term.substring(5)));
+            } else if (lowerTerm.matches("(by|from|to)(<=|>=|<|>|:).+")) {
+                // A following four-digit token is the time of day, as in "by<2026-10-23 1800"
+                boolean hasTime = i + 1 < terms.length && terms[i + 1].matches("\\d{4}");
+                String dateTerm = hasTime ? term + " " + terms[++i] : term;
+                predicates.add(parseDate(parser, dateTerm.toLowerCase()));
+            } else {
+                predicates.add(new TextPredicate(term));
+            }
+        }
+        return new Query(predicates);
+    }
+
+    /**
+     * Runs the query against the given indexes.
+     *
+     * @param indexes The indexes of the task list.
+     * @param tasks The tasks the indexes were built over, used to verify candidates.
+     * @return The 0-based positions of matching tasks, in list order.
+     */
+    public int[] execute(TaskIndexes indexes, List<Task> tasks) {
+        return execute(indexes, tasks, SEQUENTIAL);
+    }
+
+    /**
+     * Runs the query against the given indexes, checking the remaining candidates with the given scan.
+     *
+     * @param indexes The indexes of the task list.
+     * @param tasks The tasks the indexes were built over, used to verify candidates.
+     * @param scan The scan that checks candidates, in parallel when there are many.
+     * @return The 0-based positions of matching tasks, in list order.
+     */
+    public int[] execute(TaskIndexes indexes, List<Task> tasks, ParallelScan scan) {
+        BitSet result = indexes.live();
+
+        List<QueryPredicate> plan = new ArrayList<>(predicates);
+        plan.sort(Comparator.comparingInt(p -> p.estimate(indexes)));
+        List<QueryPredicate> toVerify = new ArrayList<>();
+        for (QueryPredicate predicate : plan) {
+            if (result.isEmpty()) {
+                break;
+            }
+            if (result.cardinality() * DIRECT_CHECK_RATIO < predicate.estimate(indexes)) {
+                toVerify.add(predicate);
+                continue;
+            }
+            result.and(predicate.evaluate(indexes));
+            if (!predicate.isExact()) {
+                toVerify.add(predicate);
+            }
+        }
+
+        if (!toVerify.isEmpty() && !result.isEmpty()) {
+            result = scan.retain(result, i -> {
+                Task task = tasks.get(i);
+                for (QueryPredicate predicate : toVerify) {
+                    if (!predicate.matches(task)) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        }
+        return result.stream().toArray();
+    }
+
+    /**
+     * Checks a single task against every predicate, without using indexes.
+     *
+     * @param task The task to check.
+     * @return true if the task satisfies the query, false otherwise.
+     */
+    public boolean matches(Task task) {
+        for (QueryPredicate predicate : predicates) {
+            if (!predicate.matches(task)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String parseType(String value) {
+        switch (value.toLowerCase()) {
+        case "t":
+        case "todo":
+            return "T";
+        case "d":
+        case "deadline":
+            return "D";
+        case "e":
+        case "event":
+            return "E";
+        case "r":
+        case "recurring":
+            return "R";
+        default:
+            throw new IllegalArgumentException("Unknown task type: " + value);
+        }
+    }
+
+    private static boolean parseStatus(String value) {
+        switch (value.toLowerCase()) {
+        case "yes":
+        case "true":
+        case "1":
+            return true;
+        case "no":
+        case "false":
+        case "0":
+            return false;
+        default:
+            throw new IllegalArgumentException("Unknown done status: " + value);
+        }
+    }
+
+    private static DatePredicate parseDate(Parser parser, String term) {
+        int operatorStart = 0;
+        while (Character.isLetter(term.charAt(operatorStart))) {
+            operatorStart++;
+        }
+        String field = term.substring(0, operatorStart);
+        int valueStart = operatorStart + 1;
+        if (term.charAt(valueStart) == '=') {
+            valueStart++;
+        }
+        String operator = term.substring(operatorStart, valueStart);
+        LocalDateTime date;
+        try {
+            date = parser.parseDateTime(term.substring(valueStart));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date in: " + term);
+        }
+
+        switch (operator) {
+        case "<":
+            return new DatePredicate(field, null, date);
+        case "<=":
+            return new DatePredicate(field, null, date.plusSeconds(1));
+        case ">":
+            return new DatePredicate(field, date.plusSeconds(1), null);
+        case ">=":
+            return new DatePredicate(field, date, null);
+        default:
+            // "by:2026-10-23" means any time on that day
+            return new DatePredicate(field, date, date.plusDays(1));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package kiko.query;
+
+import java.util.BitSet;
+
+import kiko.task.Task;
+
+/**
+ * Represents one condition of a query, evaluated against task indexes.
+ */
+public interface QueryPredicate {
+    /**
+     * Estimates how many tasks satisfy this predicate, so cheaper predicates can run first.
+     *
+     * @param indexes The indexes to estimate against.
+     * @return The estimated number of matching tasks.
+     */
+    int estimate(TaskIndexes indexes);
+
+    /**
+     * Returns the positions of tasks that may satisfy this predicate.
+     *
+     * @param indexes The indexes to evaluate against.
+     * @return A new bitmap of 0-based positions.
+     */
+    BitSet evaluate(TaskIndexes indexes);
+
+    /**
+     * Checks if {@link #evaluate(TaskIndexes)} returns exactly the matching positions.
+     * Inexact predicates return candidates that must be checked with {@link #matches(Task)}.
+     *
+     * @return true if no verification is needed, false otherwise.
+     */
+    default boolean isExact() {
+        return true;
+    }
+
+    /**
+     * Checks a single task against this predicate.
+     *
+     * @param task The task to check.
+     * @return true if the task satisfies the predicate, false otherwise.
+     */
+    boolean matches(Task task);
+}
@@ -0,0 +1,444 @@
+package kiko.query;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurring;
+import kiko.task.Task;
+
+/**
+ * Secondary indexes over the positions of a task list, used to answer queries without
+ * visiting every task. Holds a done bitmap, one bitmap per task type, a sorted index for
+ * each date field and a trigram posting list for description text. Recurring tasks have no
+ * single date to sort by, so their rules are checked directly; an occurrence is a point in time
+ * and answers by, from and to terms alike.
+ * Positions are 0-based slots. Appends, removals and status changes are applied incrementally:
+ * a removed task leaves a dead slot that is masked out of every result.
+ */
+public class TaskIndexes {
+    public static final String FIELD_BY = "by";
+    public static final String FIELD_FROM = "from";
+    public static final String FIELD_TO = "to";
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final BitSet live = new BitSet();
+    private final BitSet done = new BitSet();
+    private final Map<String, BitSet> types = new HashMap<>();
+    private final Map<String, DateIndex> dates = new HashMap<>();
+    private final Map<String, PostingList> grams = new HashMap<>();
+    private final Map<Integer, Recurring> recurring = new HashMap<>();
+    private int size;
+
+    /**
+     * Constructs indexes over the given tasks.
+     *
+     * @param tasks The tasks to index, in slot order. Null entries are indexed as dead slots.
+     */
+    public TaskIndexes(List<Task> tasks) {
+        dates.put(FIELD_BY, new DateIndex());
+        dates.put(FIELD_FROM, new DateIndex());
+        dates.put(FIELD_TO, new DateIndex());
+        for (Task task : tasks) {
+            if (task == null) {
+                size++;
+            } else {
+                add(task, false);
+            }
+        }
+        // Sorting every date once is O(n log n), where inserting them one by one into sorted order is O(n^2)
+        for (DateIndex index : dates.values()) {
+            index.mergeTail();
+        }
+    }
+
+    /**
+     * Indexes a task appended at the end of the list.
+     *
+     * @param task The appended task.
+     */
+    public void onTaskAdded(Task task) {
+        add(task, true);
+    }
+
+    private void add(Task task, boolean isMerging) {
+        int position = size++;
+        live.set(position);
+        done.set(position, task.isDone());
+        types.computeIfAbsent(task.getTypeIcon(), k -> new BitSet()).set(position);
+        if (task instanceof Deadline) {
+            addDate(FIELD_BY, ((Deadline) task).getBy(), position, isMerging);
+        } else if (task instanceof Event) {
+            addDate(FIELD_FROM, ((Event) task).getFrom(), position, isMerging);
+            addDate(FIELD_TO, ((Event) task).getTo(), position, isMerging);
+        } else if (task instanceof Recurring) {
+            recurring.put(position, (Recurring) task);
+        }
+        for (String gram : trigrams(task.getDescription().toLowerCase())) {
+            grams.computeIfAbsent(gram, k -> new PostingList()).append(position);
+        }
+    }
+
+    private void addDate(String field, LocalDateTime dateTime, int position, boolean isMerging) {
+        if (isMerging) {
+            dates.get(field).insert(dateTime, position);
+        } else {
+            dates.get(field).append(dateTime, position);
+        }
+    }
+
+    /**
+     * Updates the done bitmap after a task was marked or unmarked.
+     *
+     * @param position The 0-based position of the task.
+     * @param isDone The new status.
+     */
+    public void onStatusChanged(int position, boolean isDone) {
+        done.set(position, isDone);
+    }
+
+    /**
+     * Removes a task from the indexes. Its position stays allocated but is never returned again.
+     * Date and text entries are left in place and masked out by the caller's intersection with {@link #live()}.
+     *
+     * @param position The 0-based position of the removed task.
+     */
+    public void onTaskRemoved(int position) {
+        live.clear(position);
+        done.clear(position);
+        for (BitSet positions : types.values()) {
+            positions.clear(position);
+        }
+        recurring.remove(position);
+    }
+
+    /**
+     * Returns the number of indexed positions, including dead ones.
+     *
+     * @return The indexed position count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the positions that hold a task.
+     *
+     * @return A new bitmap of live positions.
+     */
+    public BitSet live() {
+        return (BitSet) live.clone();
+    }
+
+    /**
+     * Returns the positions of tasks with the given status.
+     *
+     * @param isDone The status to select.
+     * @return A new bitmap of matching positions.
+     */
+    public BitSet withStatus(boolean isDone) {
+        BitSet result = (BitSet) done.clone();
+        if (!isDone) {
+            result.flip(0, size);
+            result.and(live);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of tasks with the given status.
+     *
+     * @param isDone The status to count.
+     * @return The task count.
+     */
+    public int countWithStatus(boolean isDone) {
+        return isDone ? done.cardinality() : live.cardinality() - done.cardinality();
+    }
+
+    /**
+     * Returns the positions of tasks of the given type.
+     *
+     * @param typeIcon The type icon, for example "D".
+     * @return A new bitmap of matching positions.
+     */
+    public BitSet ofType(String typeIcon) {
+        BitSet positions = types.get(typeIcon);
+        return positions == null ? new BitSet() : (BitSet) positions.clone();
+    }
+
+    /**
+     * Returns the number of tasks of the given type.
+     *
+     * @param typeIcon The type icon.
+     * @return The task count.
+     */
+    public int countOfType(String typeIcon) {
+        BitSet positions = types.get(typeIcon);
+        return positions == null ? 0 : positions.cardinality();
+    }
+
+    /**
+     * Returns the positions of tasks whose date field lies in the given range.
+     *
+     * @param field One of "by", "from" or "to".
+     * @param lower The inclusive lower bound, or null for none.
+     * @param upper The exclusive upper bound, or null for none.
+     * @return A new bitmap of matching positions.
+     */
+    public BitSet inDateRange(String field, LocalDateTime lower, LocalDateTime upper) {
+        BitSet result = dates.get(field).range(lower, upper);
+        for (Map.Entry<Integer, Recurring> entry : recurring.entrySet()) {
+            if (entry.getValue().getRecurrence().hasOccurrenceBetween(lower, upper)) {
+                result.set(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of tasks whose date field lies in the given range.
+     * Every recurring task is counted, so this is an upper bound.
+     *
+     * @param field One of "by", "from" or "to".
+     * @param lower The inclusive lower bound, or null for none.
+     * @param upper The exclusive upper bound, or null for none.
+     * @return The task count.
+     */
+    public int countInDateRange(String field, LocalDateTime lower, LocalDateTime upper) {
+        return dates.get(field).count(lower, upper) + recurring.size();
+    }
+
+    /**
+     * Returns a superset of the positions whose description contains the given text.
+     * Candidates share every trigram of the text and must still be verified.
+     * Text shorter than a trigram cannot be narrowed, so every live position is returned.
+     *
+     * @param lowerText The lowercase text to look for.
+     * @return A new bitmap of candidate positions.
+     */
+    public BitSet textCandidates(String lowerText) {
+        if (lowerText.length() < GRAM_LENGTH) {
+            return live();
+        }
+        BitSet result = new BitSet();
+        PostingList[] lists = postingListsFor(lowerText);
+        if (lists == null) {
+            return result;
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        PostingList shortest = lists[0];
+        for (int i = 0; i < shortest.length; i++) {
+            result.set(shortest.positions[i]);
+        }
+        for (int i = 1; i < lists.length && !result.isEmpty(); i++) {
+            BitSet other = new BitSet();
+            for (int j = 0; j < lists[i].length; j++) {
+                other.set(lists[i].positions[j]);
+            }
+            result.and(other);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an upper bound on the number of descriptions containing the given text.
+     *
+     * @param lowerText The lowercase text to look for.
+     * @return The estimated task count.
+     */
+    public int estimateText(String lowerText) {
+        if (lowerText.length() < GRAM_LENGTH) {
+            return size;
+        }
+        PostingList[] lists = postingListsFor(lowerText);
+        if (lists == null) {
+            return 0;
+        }
+        int estimate = size;
+        for (PostingList list : lists) {
+            estimate = Math.min(estimate, list.length);
+        }
+        return estimate;
+    }
+
+    private PostingList[] postingListsFor(String lowerText) {
+        Set<String> textGrams = trigrams(lowerText);
+        PostingList[] lists = new PostingList[textGrams.size()];
+        int i = 0;
+        for (String gram : textGrams) {
+            PostingList list = grams.get(gram);
+            if (list == null) {
+                return null;
+            }
+            lists[i++] = list;
+        }
+        return lists;
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+
+    /**
+     * A growable list of positions in increasing order.
+     */
+    private static class PostingList {
+        private int[] positions = new int[4];
+        private int length;
+
+        private void append(int position) {
+            if (length == positions.length) {
+                positions = Arrays.copyOf(positions, length * 2);
+            }
+            positions[length++] = position;
+        }
+    }
+
+    /**
+     * Positions sorted by a date value, stored as parallel primitive arrays.
+     * Appended entries collect in an unsorted tail after the sorted run. The tail is sorted and merged into
+     * the run once it grows past the square root of the index, so neither a bulk build nor a long series of
+     * appends ever shifts the whole run for each entry, and a query scans at most that many tail entries.
+     */
+    private static class DateIndex {
+        private static final int MIN_TAIL = 64;
+
+        private long[] keys = new long[16];
+        private int[] positions = new int[16];
+        private int length;
+        // Entries before this index are sorted by key; the ones after it were appended since the last merge
+        private int sortedLength;
+
+        private void insert(LocalDateTime dateTime, int position) {
+            append(dateTime, position);
+            if (length - sortedLength > Math.max(MIN_TAIL, (int) Math.sqrt(length))) {
+                mergeTail();
+            }
+        }
+
+        /**
+         * Adds an entry to the unsorted tail without merging, for bulk builds that call {@link #mergeTail()} once.
+         */
+        private void append(LocalDateTime dateTime, int position) {
+            if (length == keys.length) {
+                keys = Arrays.copyOf(keys, length * 2);
+                positions = Arrays.copyOf(positions, length * 2);
+            }
+            keys[length] = toKey(dateTime);
+            positions[length] = position;
+            length++;
+        }
+
+        /**
+         * Sorts the tail with a bottom-up merge sort and merges it into the sorted run.
+         * The sort is stable, so entries with the same date stay in position order.
+         */
+        private void mergeTail() {
+            if (sortedLength == length) {
+                return;
+            }
+            long[] keyBuffer = new long[length - sortedLength];
+            int[] positionBuffer = new int[length - sortedLength];
+            for (int width = 1; width < length - sortedLength; width *= 2) {
+                for (int low = sortedLength; low < length - width; low += 2 * width) {
+                    merge(low, low + width, Math.min(low + 2 * width, length), keyBuffer, positionBuffer);
+                }
+            }
+            if (sortedLength > 0) {
+                keyBuffer = new long[length];
+                positionBuffer = new int[length];
+                merge(0, sortedLength, length, keyBuffer, positionBuffer);
+            }
+            sortedLength = length;
+        }
+
+        /**
+         * Merges the sorted ranges [low, middle) and [middle, high) through the buffers.
+         */
+        private void merge(int low, int middle, int high, long[] keyBuffer, int[] positionBuffer) {
+            if (keys[middle - 1] <= keys[middle]) {
+                return;
+            }
+            int left = low;
+            int right = middle;
+            for (int i = 0; i < high - low; i++) {
+                boolean isLeft = right == high || left < middle && keys[left] <= keys[right];
+                int from = isLeft ? left++ : right++;
+                keyBuffer[i] = keys[from];
+                positionBuffer[i] = positions[from];
+            }
+            System.arraycopy(keyBuffer, 0, keys, low, high - low);
+            System.arraycopy(positionBuffer, 0, positions, low, high - low);
+        }
+
+        private BitSet range(LocalDateTime lower, LocalDateTime upper) {
+            BitSet result = new BitSet();
+            int end = upperIndex(upper);
+            for (int i = lowerIndex(lower); i < end; i++) {
+                result.set(positions[i]);
+            }
+            for (int i = sortedLength; i < length; i++) {
+                if (isInRange(keys[i], lower, upper)) {
+                    result.set(positions[i]);
+                }
+            }
+            return result;
+        }
+
+        private int count(LocalDateTime lower, LocalDateTime upper) {
+            int count = Math.max(0, upperIndex(upper) - lowerIndex(lower));
+            for (int i = sortedLength; i < length; i++) {
+                if (isInRange(keys[i], lower, upper)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private static boolean isInRange(long key, LocalDateTime lower, LocalDateTime upper) {
+            return (lower == null || key >= toKey(lower)) && (upper == null || key < toKey(upper));
+        }
+
+        private int lowerIndex(LocalDateTime lower) {
+            return lower == null ? 0 : lowerBound(toKey(lower));
+        }
+
+        private int upperIndex(LocalDateTime upper) {
+            return upper == null ? sortedLength : lowerBound(toKey(upper));
+        }
+
+        /**
+         * Returns the first index of the sorted run whose key is at least the given one.
+         */
+        private int lowerBound(long key) {
+            int low = 0;
+            int high = sortedLength;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static long toKey(LocalDateTime dateTime) {
+            return dateTime.toEpochSecond(ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package kiko.query;
+
+import java.util.BitSet;
+
+import kiko.task.Task;
+
+/**
+ * Matches tasks whose description contains some text, ignoring case.
+ * Candidates come from the trigram index and are verified against the description.
+ */
+public class TextPredicate implements QueryPredicate {
+    private final String lowerText;
+
+    /**
+     * Constructs a TextPredicate.
+     *
+     * @param text The text to look for.
+     */
+    public TextPredicate(String text) {
+        this.lowerText = text.toLowerCase();
+    }
+
+    @Override
+    public int estimate(TaskIndexes indexes) {
+        return indexes.estimateText(lowerText);
+    }
+
+    @Override
+    public BitSet evaluate(TaskIndexes indexes) {
+        return indexes.textCandidates(lowerText);
+    }
+
+    @Override
+    public boolean isExact() {
+        return false;
+    }
+
+    @Override
+    public boolean matches(Task task) {
+        return task.getDescription().toLowerCase().contains(lowerText);
+    }
+}
@@ -0,0 +1,36 @@
+package kiko.query;
+
+import java.util.BitSet;
+
+import kiko.task.Task;
+
+/**
+ * Matches tasks by type, answered from the per-type bitmaps.
+ */
+public class TypePredicate implements QueryPredicate {
+    private final String typeIcon;
+
+    /**
+     * Constructs a TypePredicate.
+     *
+     * @param typeIcon The type icon to match, for example "D".
+     */
+    public TypePredicate(String typeIcon) {
+        this.typeIcon = typeIcon;
+    }
+
+    @Override
+    public int estimate(TaskIndexes indexes) {
+        return indexes.countOfType(typeIcon);
+    }
+
+    @Override
+    public BitSet evaluate(TaskIndexes indexes) {
+        return indexes.ofType(typeIcon);
+    }
+
+    @Override
+    public boolean matches(Task task) {
+        return task.getTypeIcon().equals(typeIcon);
+    }
+}
@@ -0,0 +1,272 @@
+package kiko.reminder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import kiko.history.HistoryListener;
+import kiko.metrics.Metrics;
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurring;
+import kiko.task.Task;
+
+/**
+ * Sends a reminder shortly before each deadline, event start and recurring occurrence of undone tasks.
+ * Pending reminders sit in a DelayQueue ordered by firing time, and a single daemon thread sleeps
+ * until the earliest one is due, so nothing runs while no reminder is due, however many are pending.
+ * The schedule follows task changes through {@link HistoryListener}, one changed task at a time.
+ * Cancelled reminders are not searched for in the queue; they are recognised and dropped when they come due,
+ * or when the queue is rebuilt from the pending reminders once cancelled ones outnumber them.
+ * The lead time can be set in minutes with the kiko.reminderLeadMinutes system property.
+ */
+public class ReminderScheduler implements HistoryListener {
+    public static final int DEFAULT_LEAD_MINUTES = 15;
+    // Cancelled reminders kept in the queue before it is worth rebuilding, on top of one per pending reminder
+    private static final int MIN_STALE_BEFORE_REBUILD = 64;
+    private static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a");
+
+    private final DelayQueue<Reminder> queue = new DelayQueue<>();
+    private final Map<Integer, Reminder> pendingByTaskId = new ConcurrentHashMap<>();
+    private final Duration leadTime;
+    private final Clock clock;
+    private final Consumer<String> notifier;
+    private Thread worker;
+
+    /**
+     * Constructs a ReminderScheduler using the configured lead time and the system clock.
+     *
+     * @param notifier Receives each reminder message, on the scheduler's thread.
+     */
+    public ReminderScheduler(Consumer<String> notifier) {
+        this(Duration.ofMinutes(Integer.getInteger("kiko.reminderLeadMinutes", DEFAULT_LEAD_MINUTES)),
+                Clock.systemDefaultZone(), notifier);
+    }
+
+    /**
+     * Constructs a ReminderScheduler.
+     *
+     * @param leadTime How long before a task's time its reminder fires.
+     * @param clock The clock that decides when reminders are due.
+     * @param notifier Receives each reminder message.
+     */
+    public ReminderScheduler(Duration leadTime, Clock clock, Consumer<String> notifier) {
+        assert !leadTime.isNegative() : "Lead time cannot be negative";
+        this.leadTime = leadTime;
+        this.clock = clock;
+        this.notifier = notifier;
+    }
+
+    /**
+     * Starts the daemon thread that fires reminders as they come due.
+     */
+    public synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::fireForever, "kiko-reminders");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the daemon thread. Pending reminders are kept.
+     */
+    public synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    /**
+     * Schedules reminders for every task in a list, replacing any already pending.
+     *
+     * @param tasks The tasks to remind about.
+     */
+    public void scheduleAll(List<Task> tasks) {
+        clear();
+        for (Task task : tasks) {
+            schedule(task);
+        }
+    }
+
+    /**
+     * Cancels every pending reminder.
+     */
+    public void clear() {
+        pendingByTaskId.clear();
+        queue.clear();
+    }
+
+    /**
+     * Cancels the reminders of removed tasks and schedules those of added tasks.
+     *
+     * @param removed The tasks no longer in the list.
+     * @param added The tasks now in the list.
+     */
+    @Override
+    public void onTasksChanged(Task[] removed, Task[] added) {
+        for (Task task : removed) {
+            cancel(task.getId());
+        }
+        for (Task task : added) {
+            schedule(task);
+        }
+    }
+
+    /**
+     * Schedules the reminder for a task, replacing its pending one.
+     * Todos, done tasks and tasks whose time has passed get no reminder.
+     *
+     * @param task The task to remind about.
+     */
+    public void schedule(Task task) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime time = timeOf(task, now);
+        if (task.isDone() || time == null || time.isBefore(now)) {
+            cancel(task.getId());
+            return;
+        }
+        enqueue(new Reminder(task, time));
+    }
+
+    /**
+     * Returns the number of reminders waiting to fire.
+     *
+     * @return The pending reminder count.
+     */
+    public int getPendingCount() {
+        return pendingByTaskId.size();
+    }
+
+    /**
+     * Returns the number of reminders in the queue, including cancelled ones not yet dropped.
+     *
+     * @return The queued reminder count.
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Fires every reminder that is due now, without waiting.
+     *
+     * @return The number of reminders fired.
+     */
+    public int fireDue() {
+        int fired = 0;
+        for (Reminder reminder = queue.poll(); reminder != null; reminder = queue.poll()) {
+            if (fire(reminder)) {
+                fired++;
+            }
+        }
+        return fired;
+    }
+
+    private void fireForever() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                fire(queue.take());
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        }
+    }
+
+    private boolean fire(Reminder reminder) {
+        // A reminder replaced or cancelled since it was queued is no longer the pending one
+        if (!pendingByTaskId.remove(reminder.task.getId(), reminder)) {
+            return false;
+        }
+        Metrics.increment("reminders.fired");
+        notifier.accept(messageFor(reminder));
+        if (reminder.task instanceof Recurring) {
+            // After a long sleep, skip straight past occurrences that were missed
+            LocalDateTime from = reminder.time.plusSeconds(1);
+            LocalDateTime now = LocalDateTime.now(clock);
+            LocalDateTime next = ((Recurring) reminder.task).getNextOccurrence(now.isAfter(from) ? now : from);
+            if (next != null) {
+                enqueue(new Reminder(reminder.task, next));
+            }
+        }
+        return true;
+    }
+
+    private void enqueue(Reminder reminder) {
+        pendingByTaskId.put(reminder.task.getId(), reminder);
+        queue.add(reminder);
+        dropStaleIfMany();
+    }
+
+    private void cancel(int taskId) {
+        if (pendingByTaskId.remove(taskId) != null) {
+            dropStaleIfMany();
+        }
+    }
+
+    /**
+     * Rebuilds the queue from the pending reminders once cancelled ones outnumber them, so a far-off
+     * reminder replaced over and over does not pile up copies until it comes due.
+     * Each rebuild follows as many cancellations as there are pending reminders, so its cost is spread
+     * over them. A reminder the worker takes meanwhile may be queued twice, and fires only once.
+     */
+    private void dropStaleIfMany() {
+        int pendingCount = pendingByTaskId.size();
+        if (queue.size() - pendingCount <= pendingCount + MIN_STALE_BEFORE_REBUILD) {
+            return;
+        }
+        queue.clear();
+        queue.addAll(pendingByTaskId.values());
+    }
+
+    private String messageFor(Reminder reminder) {
+        String verb = reminder.task instanceof Deadline ? "is due" : "starts";
+        return "Reminder! " + reminder.task.getDescription() + " " + verb + " at "
+                + reminder.time.format(DISPLAY_FORMATTER) + ".";
+    }
+
+    private static LocalDateTime timeOf(Task task, LocalDateTime now) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getBy();
+        } else if (task instanceof Event) {
+            return ((Event) task).getFrom();
+        } else if (task instanceof Recurring) {
+            return ((Recurring) task).getNextOccurrence(now);
+        }
+        return null;
+    }
+
+    /**
+     * A pending reminder for one task time, due a lead time before it.
+     */
+    private class Reminder implements Delayed {
+        private final Task task;
+        private final LocalDateTime time;
+        private final long fireAtMillis;
+
+        private Reminder(Task task, LocalDateTime time) {
+            this.task = task;
+            this.time = time;
+            this.fireAtMillis = time.atZone(clock.getZone()).toInstant().minus(leadTime).toEpochMilli();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(fireAtMillis - clock.millis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(fireAtMillis, ((Reminder) other).fireAtMillis);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package kiko.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import kiko.task.Task;
+
+/**
+ * An incrementally maintained index for typo-tolerant search over task descriptions.
+ * Descriptions are split into words; each distinct word is indexed by its padded trigrams.
+ * A query word only has its edit distance computed against vocabulary words that share
+ * enough trigrams with it, so searching does not scan every description.
+ */
+public class FuzzyIndex {
+    private static final int MAX_DISTANCE = 2;
+    private static final int PREFIX_COST = 1;
+    private static final char PAD = '$';
+
+    private final Map<String, Set<Task>> postings = new HashMap<>();
+    private final Map<String, Set<String>> wordsByTrigram = new HashMap<>();
+    private final Map<Integer, Set<String>> wordsByLength = new HashMap<>();
+    private final TreeSet<String> vocabulary = new TreeSet<>();
+    private final IdentityHashMap<Task, Long> sequence = new IdentityHashMap<>();
+    private long nextSequence;
+
+    /**
+     * Constructs a FuzzyIndex over the given tasks, in list order.
+     *
+     * @param tasks The tasks to index.
+     */
+    public FuzzyIndex(List<Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Adds a task to the index. Tasks added later rank after earlier ones on ties.
+     *
+     * @param task The task to add.
+     */
+    public void add(Task task) {
+        sequence.put(task, nextSequence++);
+        for (String word : tokenize(task.getDescription())) {
+            Set<Task> tasks = postings.get(word);
+            if (tasks == null) {
+                tasks = new HashSet<>();
+                postings.put(word, tasks);
+                addWord(word);
+            }
+            tasks.add(task);
+        }
+    }
+
+    /**
+     * Removes a task from the index.
+     *
+     * @param task The task to remove.
+     */
+    public void remove(Task task) {
+        if (sequence.remove(task) == null) {
+            return;
+        }
+        for (String word : tokenize(task.getDescription())) {
+            Set<Task> tasks = postings.get(word);
+            if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+                postings.remove(word);
+                removeWord(word);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct words in the index.
+     *
+     * @return The vocabulary size.
+     */
+    public int getWordCount() {
+        return vocabulary.size();
+    }
+
+    /**
+     * Finds tasks matching every word of the query, allowing typos.
+     * A query word matches a description word that equals it, starts with it, or is
+     * within a small edit distance of it (1 for words up to 5 letters, 2 for longer words).
+     * Results are ranked by total match cost, then by the order the tasks were added.
+     *
+     * @param query The search query.
+     * @return The matching tasks, best match first.
+     */
+    public Task[] search(String query) {
+        Set<String> queryWords = tokenize(query);
+        if (queryWords.isEmpty()) {
+            return new Task[0];
+        }
+
+        Map<Task, Integer> costs = null;
+        for (String queryWord : queryWords) {
+            Map<Task, Integer> wordCosts = new HashMap<>();
+            for (Map.Entry<String, Integer> match : matchWords(queryWord).entrySet()) {
+                for (Task task : postings.get(match.getKey())) {
+                    if (costs == null || costs.containsKey(task)) {
+                        wordCosts.merge(task, match.getValue(), Math::min);
+                    }
+                }
+            }
+            if (costs != null) {
+                for (Map.Entry<Task, Integer> entry : wordCosts.entrySet()) {
+                    entry.setValue(entry.getValue() + costs.get(entry.getKey()));
+                }
+            }
+            costs = wordCosts;
+            if (costs.isEmpty()) {
+                return new Task[0];
+            }
+        }
+
+        final Map<Task, Integer> totalCosts = costs;
+        ArrayList<Task> results = new ArrayList<>(totalCosts.keySet());
+        results.sort((a, b) -> {
+            int byCost = Integer.compare(totalCosts.get(a), totalCosts.get(b));
+            return byCost != 0 ? byCost : Long.compare(sequence.get(a), sequence.get(b));
+        });
+        return results.toArray(new Task[0]);
+    }
+
+    /**
+     * Returns the vocabulary words matching a query word, with the cost of each match.
+     */
+    private Map<String, Integer> matchWords(String queryWord) {
+        Map<String, Integer> matches = new HashMap<>();
+        int maxDistance = maxDistance(queryWord);
+
+        // Prefix matches keep the behaviour of the plain substring find for partial words
+        for (String word : vocabulary.subSet(queryWord, true, queryWord + Character.MAX_VALUE, false)) {
+            matches.put(word, word.length() == queryWord.length() ? 0 : PREFIX_COST);
+        }
+
+        for (String candidate : candidateWords(queryWord, maxDistance)) {
+            if (matches.containsKey(candidate)) {
+                continue;
+            }
+            int distance = boundedDistance(queryWord, candidate, maxDistance);
+            if (distance <= maxDistance) {
+                matches.put(candidate, distance);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns vocabulary words that could be within the edit distance of the query word.
+     * Each edit changes at most three trigrams, so a word within distance k must share at
+     * least (trigrams - 3k) trigrams with the query. When that bound is not positive the
+     * trigram filter cannot prune, and words of a similar length are checked instead.
+     */
+    private Set<String> candidateWords(String queryWord, int maxDistance) {
+        Set<String> grams = new HashSet<>(trigrams(queryWord));
+        int minShared = grams.size() - 3 * maxDistance;
+        Set<String> candidates = new HashSet<>();
+        if (minShared <= 0) {
+            for (int length = queryWord.length() - maxDistance; length <= queryWord.length() + maxDistance; length++) {
+                candidates.addAll(wordsByLength.getOrDefault(length, Set.of()));
+            }
+            return candidates;
+        }
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : grams) {
+            for (String word : wordsByTrigram.getOrDefault(gram, Set.of())) {
+                shared.merge(word, 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() >= minShared
+                    && Math.abs(entry.getKey().length() - queryWord.length()) <= maxDistance) {
+                candidates.add(entry.getKey());
+            }
+        }
+        return candidates;
+    }
+
+    private void addWord(String word) {
+        vocabulary.add(word);
+        wordsByLength.computeIfAbsent(word.length(), k -> new HashSet<>()).add(word);
+        for (String gram : trigrams(word)) {
+            wordsByTrigram.computeIfAbsent(gram, k -> new HashSet<>()).add(word);
+        }
+    }
+
+    private void removeWord(String word) {
+        vocabulary.remove(word);
+        wordsByLength.get(word.length()).remove(word);
+        for (String gram : trigrams(word)) {
+            Set<String> words = wordsByTrigram.get(gram);
+            if (words != null) {
+                words.remove(word);
+                if (words.isEmpty()) {
+                    wordsByTrigram.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static int maxDistance(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : MAX_DISTANCE;
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static List<String> trigrams(String word) {
+        String padded = PAD + word + PAD;
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Computes the Levenshtein distance between two words, giving up early once it must exceed the limit.
+     *
+     * @return The distance, or limit + 1 if the distance is larger than the limit.
+     */
+    private static int boundedDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,534 @@
+package kiko.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A copy-on-write B+tree in a {@link PageFile}, mapping keys made of two longs to byte values.
+ * Changing an entry copies the pages on the path from its leaf to the root, unless they were
+ * copied already since the last commit, so the last committed tree stays intact on disk. Leaves
+ * have no sibling links, since keeping them would mean copying the neighbours too; range scans
+ * walk down from the root instead. Values too long for a leaf are kept in a chain of overflow pages.
+ * Nodes left underfull by removals are not merged, only dropped once empty.
+ */
+class BTree {
+    /**
+     * Receives the entries of a range scan in key order.
+     */
+    interface Visitor {
+        /**
+         * Receives one entry.
+         *
+         * @param major The key's first part.
+         * @param minor The key's second part.
+         * @param value The value.
+         * @return true to continue the scan, false to stop it.
+         * @throws IOException If the scan should stop with an error.
+         */
+        boolean visit(long major, long minor, byte[] value) throws IOException;
+    }
+
+    private static final byte LEAF = 1;
+    private static final byte BRANCH = 2;
+    private static final int NODE_HEADER_BYTES = 3;
+    private static final int KEY_BYTES = 16;
+    // Longer values go to overflow pages, so every leaf holds at least a few entries
+    private static final int MAX_INLINE_VALUE = 1024;
+    private static final short OVERFLOW_MARKER = -1;
+    private static final int OVERFLOW_REFERENCE_BYTES = 12;
+    private static final int OVERFLOW_HEADER_BYTES = 12;
+    private static final int MAX_BRANCH_KEYS = (PageFile.PAGE_SIZE - NODE_HEADER_BYTES - 8) / (KEY_BYTES + 8);
+
+    private final PageFile file;
+    // The header value holding this tree's root page, 0 while the tree is empty
+    private final int rootValue;
+
+    /**
+     * Constructs a BTree whose root is kept in the given header value of the file.
+     *
+     * @param file The page file.
+     * @param rootValue The index of the header value holding the root page.
+     */
+    BTree(PageFile file, int rootValue) {
+        this.file = file;
+        this.rootValue = rootValue;
+    }
+
+    /**
+     * A node as read from its page. Leaves keep their values, or for values in overflow pages, the
+     * first page and length; branches keep count + 1 children, child i holding the keys below key i.
+     */
+    private static class Node {
+        final boolean isLeaf;
+        int count;
+        long[] majors;
+        long[] minors;
+        byte[][] values;
+        long[] overflowPages;
+        int[] overflowLengths;
+        long[] children;
+
+        Node(boolean isLeaf, int capacity) {
+            this.isLeaf = isLeaf;
+            majors = new long[capacity];
+            minors = new long[capacity];
+            if (isLeaf) {
+                values = new byte[capacity][];
+                overflowPages = new long[capacity];
+                overflowLengths = new int[capacity];
+            } else {
+                children = new long[capacity + 1];
+            }
+        }
+
+        int entryBytes(int index) {
+            if (!isLeaf) {
+                return KEY_BYTES + 8;
+            }
+            return KEY_BYTES + 2 + (values[index] == null ? OVERFLOW_REFERENCE_BYTES : values[index].length);
+        }
+
+        int byteSize() {
+            int size = NODE_HEADER_BYTES + (isLeaf ? 0 : 8);
+            for (int i = 0; i < count; i++) {
+                size += entryBytes(i);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * The outcome of inserting into a subtree: the subtree's new page, and the new right sibling if it split.
+     */
+    private static class Insertion {
+        final long page;
+        final long rightPage;
+        final long separatorMajor;
+        final long separatorMinor;
+
+        Insertion(long page, long rightPage, long separatorMajor, long separatorMinor) {
+            this.page = page;
+            this.rightPage = rightPage;
+            this.separatorMajor = separatorMajor;
+            this.separatorMinor = separatorMinor;
+        }
+    }
+
+    /**
+     * Returns the value stored under a key.
+     *
+     * @param major The key's first part.
+     * @param minor The key's second part.
+     * @return The value, or null if the key is absent.
+     * @throws IOException If a page cannot be read.
+     */
+    byte[] get(long major, long minor) throws IOException {
+        long page = file.getValue(rootValue);
+        if (page == 0) {
+            return null;
+        }
+        Node node = readNode(page);
+        while (!node.isLeaf) {
+            node = readNode(node.children[childIndex(node, major, minor)]);
+        }
+        int index = lowerBound(node, major, minor);
+        if (index < node.count && compare(node.majors[index], node.minors[index], major, minor) == 0) {
+            return valueAt(node, index);
+        }
+        return null;
+    }
+
+    /**
+     * Stores a value under a key, replacing any value already there.
+     *
+     * @param major The key's first part.
+     * @param minor The key's second part.
+     * @param value The value.
+     * @throws IOException If a page cannot be read.
+     */
+    void put(long major, long minor, byte[] value) throws IOException {
+        long root = file.getValue(rootValue);
+        if (root == 0) {
+            Node leaf = new Node(true, 1);
+            leaf.count = 1;
+            leaf.majors[0] = major;
+            leaf.minors[0] = minor;
+            setValue(leaf, 0, value);
+            file.setValue(rootValue, writeNode(0, leaf));
+            return;
+        }
+        Insertion insertion = insert(root, major, minor, value);
+        if (insertion.rightPage == 0) {
+            file.setValue(rootValue, insertion.page);
+            return;
+        }
+        Node newRoot = new Node(false, 1);
+        newRoot.count = 1;
+        newRoot.majors[0] = insertion.separatorMajor;
+        newRoot.minors[0] = insertion.separatorMinor;
+        newRoot.children[0] = insertion.page;
+        newRoot.children[1] = insertion.rightPage;
+        file.setValue(rootValue, writeNode(0, newRoot));
+    }
+
+    private Insertion insert(long page, long major, long minor, byte[] value) throws IOException {
+        Node node = readNode(page);
+        if (node.isLeaf) {
+            int index = lowerBound(node, major, minor);
+            if (index < node.count && compare(node.majors[index], node.minors[index], major, minor) == 0) {
+                freeOverflow(node, index);
+            } else {
+                node = withSlotAt(node, index);
+                node.majors[index] = major;
+                node.minors[index] = minor;
+            }
+            setValue(node, index, value);
+            return writeOrSplit(page, node, index);
+        }
+
+        int index = childIndex(node, major, minor);
+        Insertion child = insert(node.children[index], major, minor, value);
+        node.children[index] = child.page;
+        if (child.rightPage != 0) {
+            node = withSlotAt(node, index);
+            node.majors[index] = child.separatorMajor;
+            node.minors[index] = child.separatorMinor;
+            node.children[index + 1] = child.rightPage;
+        }
+        return writeOrSplit(page, node, index);
+    }
+
+    /**
+     * Writes a node changed at the given index, splitting it in two if it no longer fits in a page.
+     */
+    private Insertion writeOrSplit(long page, Node node, int changedIndex) throws IOException {
+        boolean fits = node.isLeaf ? node.byteSize() <= PageFile.PAGE_SIZE : node.count <= MAX_BRANCH_KEYS;
+        if (fits) {
+            return new Insertion(writeNode(page, node), 0, 0, 0);
+        }
+        int splitAt = node.count / 2;
+        if (changedIndex == node.count - 1) {
+            // Appending, as new task ids do: keep the left node full instead of leaving two half-empty ones
+            splitAt = node.isLeaf ? node.count - 1 : node.count - 2;
+        } else if (node.isLeaf) {
+            // Split by size rather than count, since values vary in length
+            int half = node.byteSize() / 2;
+            int size = NODE_HEADER_BYTES;
+            splitAt = 0;
+            while (splitAt < node.count - 1 && size + node.entryBytes(splitAt) <= half) {
+                size += node.entryBytes(splitAt++);
+            }
+            splitAt = Math.max(splitAt, 1);
+        }
+        Node left = slice(node, 0, splitAt);
+        Node right;
+        long separatorMajor = node.majors[splitAt];
+        long separatorMinor = node.minors[splitAt];
+        if (node.isLeaf) {
+            right = slice(node, splitAt, node.count);
+        } else {
+            // A branch's middle key moves up instead of staying in either half
+            right = slice(node, splitAt + 1, node.count);
+        }
+        long leftPage = writeNode(page, left);
+        return new Insertion(leftPage, writeNode(0, right), separatorMajor, separatorMinor);
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param major The key's first part.
+     * @param minor The key's second part.
+     * @return true if the key was present, false otherwise.
+     * @throws IOException If a page cannot be read.
+     */
+    boolean remove(long major, long minor) throws IOException {
+        if (get(major, minor) == null) {
+            return false;
+        }
+        long root = delete(file.getValue(rootValue), major, minor);
+        // A root branch left with one child is replaced by it
+        while (root != 0) {
+            Node node = readNode(root);
+            if (node.isLeaf || node.count > 0) {
+                break;
+            }
+            file.free(root);
+            root = node.children[0];
+        }
+        file.setValue(rootValue, root);
+        return true;
+    }
+
+    /**
+     * Removes a key known to be present from a subtree.
+     *
+     * @return The subtree's new page, or 0 if it is now empty.
+     */
+    private long delete(long page, long major, long minor) throws IOException {
+        Node node = readNode(page);
+        if (node.isLeaf) {
+            int index = lowerBound(node, major, minor);
+            freeOverflow(node, index);
+            node = withoutSlotAt(node, index, index);
+        } else {
+            int index = childIndex(node, major, minor);
+            long child = delete(node.children[index], major, minor);
+            if (child != 0) {
+                node.children[index] = child;
+            } else if (node.count == 0) {
+                node.count = -1;
+            } else {
+                // Drop the empty child along with the key on one side of it
+                node = withoutSlotAt(node, Math.max(index - 1, 0), index);
+            }
+        }
+        if (node.count < 0 || (node.isLeaf && node.count == 0)) {
+            file.free(page);
+            return 0;
+        }
+        return writeNode(page, node);
+    }
+
+    /**
+     * Visits the entries with keys from one key, inclusive, to another, exclusive, in key order.
+     *
+     * @param fromMajor The lower key's first part.
+     * @param fromMinor The lower key's second part.
+     * @param toMajor The upper key's first part.
+     * @param toMinor The upper key's second part.
+     * @param visitor Receives the entries.
+     * @throws IOException If a page cannot be read, or the visitor fails.
+     */
+    void scan(long fromMajor, long fromMinor, long toMajor, long toMinor, Visitor visitor) throws IOException {
+        long root = file.getValue(rootValue);
+        if (root != 0) {
+            scan(root, fromMajor, fromMinor, toMajor, toMinor, visitor);
+        }
+    }
+
+    private boolean scan(long page, long fromMajor, long fromMinor, long toMajor, long toMinor, Visitor visitor)
+            throws IOException {
+        Node node = readNode(page);
+        if (node.isLeaf) {
+            for (int i = lowerBound(node, fromMajor, fromMinor); i < node.count; i++) {
+                if (compare(node.majors[i], node.minors[i], toMajor, toMinor) >= 0
+                        || !visitor.visit(node.majors[i], node.minors[i], valueAt(node, i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int i = childIndex(node, fromMajor, fromMinor); i <= node.count; i++) {
+            if (i > 0 && compare(node.majors[i - 1], node.minors[i - 1], toMajor, toMinor) >= 0) {
+                return false;
+            }
+            if (!scan(node.children[i], fromMajor, fromMinor, toMajor, toMinor, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int compare(long majorA, long minorA, long majorB, long minorB) {
+        return majorA != majorB ? Long.compare(majorA, majorB) : Long.compare(minorA, minorB);
+    }
+
+    /**
+     * Returns the first index whose key is not below the given key.
+     */
+    private static int lowerBound(Node node, long major, long minor) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(node.majors[mid], node.minors[mid], major, minor) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the child of a branch whose keys include the given key.
+     */
+    private static int childIndex(Node node, long major, long minor) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(node.majors[mid], node.minors[mid], major, minor) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns a copy of the node with an empty slot at the given index.
+     * For a branch, the slot's key goes before child index + 1.
+     */
+    private static Node withSlotAt(Node node, int index) {
+        Node copy = new Node(node.isLeaf, node.count + 1);
+        copy.count = node.count + 1;
+        copyRange(node, 0, copy, 0, index);
+        copyRange(node, index, copy, index + 1, node.count - index);
+        if (!node.isLeaf) {
+            System.arraycopy(node.children, 0, copy.children, 0, index + 1);
+            System.arraycopy(node.children, index + 1, copy.children, index + 2, node.count - index);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a copy of the node without the key at one index and, for a branch, the child at another.
+     */
+    private static Node withoutSlotAt(Node node, int keyIndex, int childIndex) {
+        Node copy = new Node(node.isLeaf, Math.max(node.count - 1, 0));
+        copy.count = node.count - 1;
+        copyRange(node, 0, copy, 0, keyIndex);
+        copyRange(node, keyIndex + 1, copy, keyIndex, node.count - keyIndex - 1);
+        if (!node.isLeaf) {
+            System.arraycopy(node.children, 0, copy.children, 0, childIndex);
+            System.arraycopy(node.children, childIndex + 1, copy.children, childIndex, node.count - childIndex);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the keys from one index to another as a new node. A branch gets the children around them.
+     */
+    private static Node slice(Node node, int from, int to) {
+        Node part = new Node(node.isLeaf, to - from);
+        part.count = to - from;
+        copyRange(node, from, part, 0, to - from);
+        if (!node.isLeaf) {
+            System.arraycopy(node.children, from, part.children, 0, to - from + 1);
+        }
+        return part;
+    }
+
+    private static void copyRange(Node source, int from, Node target, int to, int length) {
+        System.arraycopy(source.majors, from, target.majors, to, length);
+        System.arraycopy(source.minors, from, target.minors, to, length);
+        if (source.isLeaf) {
+            System.arraycopy(source.values, from, target.values, to, length);
+            System.arraycopy(source.overflowPages, from, target.overflowPages, to, length);
+            System.arraycopy(source.overflowLengths, from, target.overflowLengths, to, length);
+        }
+    }
+
+    private void setValue(Node leaf, int index, byte[] value) {
+        if (value.length <= MAX_INLINE_VALUE) {
+            leaf.values[index] = value;
+            leaf.overflowPages[index] = 0;
+            leaf.overflowLengths[index] = 0;
+            return;
+        }
+        leaf.values[index] = null;
+        leaf.overflowLengths[index] = value.length;
+        // Written back to front, so each page knows the one after it
+        int capacity = PageFile.PAGE_SIZE - OVERFLOW_HEADER_BYTES;
+        long next = 0;
+        for (int start = (value.length - 1) / capacity * capacity; start >= 0; start -= capacity) {
+            int length = Math.min(capacity, value.length - start);
+            ByteBuffer buffer = ByteBuffer.allocate(PageFile.PAGE_SIZE);
+            buffer.putLong(next).putInt(length).put(value, start, length);
+            long page = file.allocate();
+            file.write(page, buffer.array());
+            next = page;
+        }
+        leaf.overflowPages[index] = next;
+    }
+
+    private byte[] valueAt(Node leaf, int index) throws IOException {
+        if (leaf.values[index] != null) {
+            return leaf.values[index];
+        }
+        byte[] value = new byte[leaf.overflowLengths[index]];
+        int offset = 0;
+        for (long page = leaf.overflowPages[index]; page != 0; ) {
+            ByteBuffer buffer = ByteBuffer.wrap(file.read(page));
+            page = buffer.getLong();
+            int length = buffer.getInt();
+            buffer.get(value, offset, length);
+            offset += length;
+        }
+        return value;
+    }
+
+    private void freeOverflow(Node leaf, int index) throws IOException {
+        if (leaf.values[index] != null) {
+            return;
+        }
+        for (long page = leaf.overflowPages[index]; page != 0; ) {
+            long next = ByteBuffer.wrap(file.read(page)).getLong();
+            file.free(page);
+            page = next;
+        }
+    }
+
+    private Node readNode(long page) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(file.read(page));
+        boolean isLeaf = buffer.get() == LEAF;
+        int count = buffer.getShort() & 0xFFFF;
+        Node node = new Node(isLeaf, count);
+        node.count = count;
+        if (!isLeaf) {
+            node.children[0] = buffer.getLong();
+        }
+        for (int i = 0; i < count; i++) {
+            node.majors[i] = buffer.getLong();
+            node.minors[i] = buffer.getLong();
+            if (!isLeaf) {
+                node.children[i + 1] = buffer.getLong();
+                continue;
+            }
+            short length = buffer.getShort();
+            if (length == OVERFLOW_MARKER) {
+                node.overflowPages[i] = buffer.getLong();
+                node.overflowLengths[i] = buffer.getInt();
+            } else {
+                node.values[i] = new byte[length];
+                buffer.get(node.values[i]);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Writes a node in place of the given page, copying it to a new page if it was committed.
+     *
+     * @param page The node's current page, or 0 for a new node.
+     * @return The page the node was written to.
+     */
+    private long writeNode(long page, Node node) {
+        ByteBuffer buffer = ByteBuffer.allocate(PageFile.PAGE_SIZE);
+        buffer.put(node.isLeaf ? LEAF : BRANCH).putShort((short) node.count);
+        if (!node.isLeaf) {
+            buffer.putLong(node.children[0]);
+        }
+        for (int i = 0; i < node.count; i++) {
+            buffer.putLong(node.majors[i]).putLong(node.minors[i]);
+            if (!node.isLeaf) {
+                buffer.putLong(node.children[i + 1]);
+            } else if (node.values[i] == null) {
+                buffer.putShort(OVERFLOW_MARKER).putLong(node.overflowPages[i]).putInt(node.overflowLengths[i]);
+            } else {
+                buffer.putShort((short) node.values[i].length).put(node.values[i]);
+            }
+        }
+        if (page == 0 || !file.isFresh(page)) {
+            if (page != 0) {
+                file.free(page);
+            }
+            page = file.allocate();
+        }
+        file.write(page, buffer.array());
+        return page;
+    }
+}
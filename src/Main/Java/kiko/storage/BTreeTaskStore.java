@@ -0,0 +1,365 @@
+package kiko.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+
+import kiko.metrics.Metrics;
+import kiko.metrics.StorageEvent;
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurring;
+import kiko.task.Task;
+
+/**
+ * Keeps a task list in a single page file holding B+trees, for lists too large to rewrite on every save.
+ * The main tree maps task ids to their storage lines. Two secondary trees index the tasks by due
+ * date (a deadline's due date, an event's start and a recurring task's first occurrence) and by
+ * done status, so range reads touch only the pages holding the matching tasks.
+ * A save writes only the tasks whose line changed, found by comparing a hash of every task's
+ * line with the hash stored for it, and commits them as one copy-on-write transaction.
+ * Tasks are stored in id order, which is list order since ids are handed out in increasing order.
+ */
+public class BTreeTaskStore implements TaskStore {
+    private static final int TASKS_ROOT = 0;
+    private static final int DUE_ROOT = 1;
+    private static final int DONE_ROOT = 2;
+    private static final int NEXT_ID = 3;
+    private static final byte[] NO_VALUE = new byte[0];
+
+    private final String filePath;
+    private final PageFile file;
+    private final BTree tasks;
+    private final BTree dueIndex;
+    private final BTree doneIndex;
+    // The hash of every stored task's line, filled in on first use
+    private HashMap<Integer, Long> storedHashes;
+    // The list that saved last, whose reported changes are relative to what is stored
+    private Object lastSource;
+
+    /**
+     * Opens a BTreeTaskStore, creating the file if it does not exist.
+     *
+     * @param filePath The file.
+     * @throws IOException If the file cannot be opened or is not a B+tree task file.
+     */
+    public BTreeTaskStore(String filePath) throws IOException {
+        this.filePath = filePath;
+        Path path = Paths.get(filePath).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        this.file = PageFile.open(path);
+        this.tasks = new BTree(file, TASKS_ROOT);
+        this.dueIndex = new BTree(file, DUE_ROOT);
+        this.doneIndex = new BTree(file, DONE_ROOT);
+    }
+
+    /**
+     * Opens a BTreeTaskStore, first converting a text or compressed task file at the same path.
+     * The converted file replaces the old one only once it is complete.
+     *
+     * @param filePath The file.
+     * @return The store.
+     * @throws IOException If the file cannot be converted or opened.
+     */
+    public static BTreeTaskStore open(String filePath) throws IOException {
+        if (Files.exists(Paths.get(filePath)) && !isBTreeFile(filePath)) {
+            Path convertedPath = Paths.get(filePath + ".converting");
+            Files.deleteIfExists(convertedPath);
+            ArrayList<Task> tasks = Storage.loadTasks(filePath);
+            int nextId = Storage.readNextId(filePath);
+            HashSet<Integer> ids = new HashSet<>();
+            for (Task task : tasks) {
+                nextId = Math.max(nextId, task.getId() + 1);
+            }
+            for (Task task : tasks) {
+                // Tasks are keyed by id, so files from before ids get them now, as loading them into a list would
+                if (task.getId() <= 0 || !ids.add(task.getId())) {
+                    task.setId(nextId++);
+                    ids.add(task.getId());
+                }
+            }
+            try (BTreeTaskStore converted = new BTreeTaskStore(convertedPath.toString())) {
+                converted.write(tasks, nextId);
+                // Saving reports errors instead of throwing them, so check before replacing the old file
+                if (converted.load().size() != tasks.size()) {
+                    throw new IOException("Could not convert " + filePath);
+                }
+            }
+            Files.move(convertedPath, Paths.get(filePath), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        }
+        return new BTreeTaskStore(filePath);
+    }
+
+    /**
+     * Checks if the given file is a B+tree task file.
+     *
+     * @param filePath The file to check.
+     * @return true if the file exists and is a B+tree task file, false otherwise.
+     */
+    public static boolean isBTreeFile(String filePath) {
+        return PageFile.isPageFile(Paths.get(filePath));
+    }
+
+    @Override
+    public ArrayList<Task> load() {
+        lastSource = null;
+        ArrayList<Task> loaded = new ArrayList<>();
+        HashMap<Integer, Long> hashes = new HashMap<>();
+        StorageEvent event = new StorageEvent("load");
+        event.begin();
+        try {
+            tasks.scan(Long.MIN_VALUE, 0, Long.MAX_VALUE, 0, (id, unused, value) -> {
+                String line = new String(value, StandardCharsets.UTF_8);
+                Task task = Storage.parseTaskFromString(line);
+                if (task != null) {
+                    loaded.add(task);
+                    hashes.put(task.getId(), hashOf(line));
+                }
+                return true;
+            });
+            storedHashes = hashes;
+        } catch (IOException e) {
+            System.out.println(" Error loading tasks from file: " + e.getMessage());
+        }
+        event.setTaskCount(loaded.size());
+        event.commit();
+        return loaded;
+    }
+
+    @Override
+    public int getNextId() {
+        return (int) Math.max(file.getValue(NEXT_ID), 1);
+    }
+
+    @Override
+    public void write(ArrayList<Task> taskList, int nextId) {
+        assert taskList != null : "Tasks list to save cannot be null";
+        lastSource = null;
+        save(taskList, null, nextId);
+    }
+
+    /**
+     * Saves only the tasks the list reports as changed when it is the list that saved last,
+     * so a command writes the pages of the tasks it touched without looking at the others.
+     */
+    @Override
+    public void write(TaskChanges changes, int nextId) {
+        assert changes != null : "Changes to save cannot be null";
+        if (changes.getSource() != lastSource || storedHashes == null) {
+            save(changes.getAllTasks(), null, nextId);
+        } else {
+            save(null, changes, nextId);
+        }
+        lastSource = storedHashes == null ? null : changes.getSource();
+    }
+
+    private void save(ArrayList<Task> taskList, TaskChanges changes, int nextId) {
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent("save");
+        event.begin();
+        try {
+            if (storedHashes == null) {
+                loadHashes();
+            }
+            if (taskList != null) {
+                putAll(taskList);
+            } else {
+                putChanged(changes);
+            }
+            file.setValue(NEXT_ID, nextId);
+            file.commit();
+        } catch (IOException e) {
+            System.out.println(" Error saving tasks to file: " + e.getMessage());
+            // The commit was rolled back, so what is stored is no longer known
+            storedHashes = null;
+            try {
+                file.rollback();
+            } catch (IOException rollbackError) {
+                System.out.println(" Error reopening task file: " + rollbackError.getMessage());
+            }
+        }
+        Metrics.recordSince("storage.save.latency", start);
+        event.setTaskCount(storedHashes == null ? 0 : storedHashes.size());
+        event.commit();
+    }
+
+    private void putAll(ArrayList<Task> taskList) throws IOException {
+        int storedCount = storedHashes.size();
+        int keptCount = 0;
+        for (Task task : taskList) {
+            if (storedHashes.containsKey(task.getId())) {
+                keptCount++;
+            }
+            putIfChanged(task);
+        }
+        if (keptCount < storedCount) {
+            removeMissingTasks(taskList);
+        }
+    }
+
+    private void putChanged(TaskChanges changes) throws IOException {
+        BitSet ids = changes.getChangedIds();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            Task task = changes.getTask(id);
+            if (task != null) {
+                putIfChanged(task);
+            } else if (storedHashes.remove(id) != null) {
+                removeTask(id);
+            }
+        }
+    }
+
+    private void putIfChanged(Task task) throws IOException {
+        String line = Storage.taskToFileString(task);
+        long hash = hashOf(line);
+        Long storedHash = storedHashes.put(task.getId(), hash);
+        if (storedHash == null || storedHash != hash) {
+            putTask(task, line);
+        }
+    }
+
+    private void loadHashes() throws IOException {
+        HashMap<Integer, Long> hashes = new HashMap<>();
+        tasks.scan(Long.MIN_VALUE, 0, Long.MAX_VALUE, 0, (id, unused, value) -> {
+            hashes.put((int) id, hashOf(new String(value, StandardCharsets.UTF_8)));
+            return true;
+        });
+        storedHashes = hashes;
+    }
+
+    private void removeMissingTasks(ArrayList<Task> taskList) throws IOException {
+        HashSet<Integer> ids = new HashSet<>(taskList.size() * 2);
+        for (Task task : taskList) {
+            ids.add(task.getId());
+        }
+        for (Integer id : new ArrayList<>(storedHashes.keySet())) {
+            if (!ids.contains(id)) {
+                removeTask(id);
+                storedHashes.remove(id);
+            }
+        }
+    }
+
+    private void putTask(Task task, String line) throws IOException {
+        removeFromIndexes(task.getId());
+        tasks.put(task.getId(), 0, line.getBytes(StandardCharsets.UTF_8));
+        LocalDateTime dueDate = dueDateOf(task);
+        if (dueDate != null) {
+            dueIndex.put(dueDate.toEpochSecond(ZoneOffset.UTC), task.getId(), NO_VALUE);
+        }
+        doneIndex.put(task.isDone() ? 1 : 0, task.getId(), NO_VALUE);
+    }
+
+    private void removeTask(int id) throws IOException {
+        removeFromIndexes(id);
+        tasks.remove(id, 0);
+    }
+
+    private void removeFromIndexes(int id) throws IOException {
+        Task stored = get(id);
+        if (stored == null) {
+            return;
+        }
+        LocalDateTime dueDate = dueDateOf(stored);
+        if (dueDate != null) {
+            dueIndex.remove(dueDate.toEpochSecond(ZoneOffset.UTC), id);
+        }
+        doneIndex.remove(stored.isDone() ? 1 : 0, id);
+    }
+
+    /**
+     * Returns the stored task with the given id, reading only the pages on the way to it.
+     *
+     * @param id The task id.
+     * @return The task, or null if no task with the id is stored.
+     * @throws IOException If the file cannot be read.
+     */
+    public Task get(int id) throws IOException {
+        byte[] line = tasks.get(id, 0);
+        return line == null ? null : Storage.parseTaskFromString(new String(line, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the stored tasks due from one time, inclusive, to another, exclusive, earliest first.
+     *
+     * @param from The start of the range.
+     * @param to The end of the range.
+     * @return The matching tasks.
+     * @throws IOException If the file cannot be read.
+     */
+    public ArrayList<Task> findDueBetween(LocalDateTime from, LocalDateTime to) throws IOException {
+        ArrayList<Integer> ids = new ArrayList<>();
+        dueIndex.scan(from.toEpochSecond(ZoneOffset.UTC), Long.MIN_VALUE, to.toEpochSecond(ZoneOffset.UTC),
+                Long.MIN_VALUE, (dueSecond, id, unused) -> ids.add((int) id));
+        return getAll(ids);
+    }
+
+    /**
+     * Returns the stored tasks that are done, or that are not done, in id order.
+     *
+     * @param isDone Whether to return the done tasks.
+     * @return The matching tasks.
+     * @throws IOException If the file cannot be read.
+     */
+    public ArrayList<Task> findByStatus(boolean isDone) throws IOException {
+        ArrayList<Integer> ids = new ArrayList<>();
+        int status = isDone ? 1 : 0;
+        doneIndex.scan(status, Long.MIN_VALUE, status + 1, Long.MIN_VALUE, (unused, id, value) -> ids.add((int) id));
+        return getAll(ids);
+    }
+
+    private ArrayList<Task> getAll(ArrayList<Integer> ids) throws IOException {
+        ArrayList<Task> found = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Task task = get(id);
+            if (task != null) {
+                found.add(task);
+            }
+        }
+        return found;
+    }
+
+    private static LocalDateTime dueDateOf(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getBy();
+        } else if (task instanceof Event) {
+            return ((Event) task).getFrom();
+        } else if (task instanceof Recurring) {
+            return ((Recurring) task).getRecurrence().getStart();
+        }
+        return null;
+    }
+
+    private static long hashOf(String line) {
+        // 64-bit FNV-1a, so a changed line is practically never mistaken for an unchanged one
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            hash = (hash ^ line.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    @Override
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            System.out.println(" Error closing task file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package kiko.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * Reads and writes the compressed task file format.
+ * After a header holding a magic number, the next task id and the file's generation, tasks are grouped into blocks
+ * of up to {@value #TASKS_PER_BLOCK}, each deflated on its own, so loading only ever inflates one
+ * block at a time. Inside a block, ids and timestamps are stored as variable-length deltas from the
+ * previous task, and descriptions and recurrence rules seen before are replaced by their index in a
+ * dictionary shared by the whole file.
+ */
+class CompressedTaskFile {
+    private static final byte[] MAGIC = {'K', 'I', 'K', 'Z'};
+    // Version 1 files have no generation
+    private static final int VERSION = 2;
+    private static final int TASKS_PER_BLOCK = 4096;
+    // Caps the dictionary so a file of all-distinct descriptions does not double its memory use
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    /**
+     * Checks if the given file starts with the compressed format's magic number.
+     *
+     * @param path The file to check.
+     * @return true if the file is in the compressed format, false if not or if it cannot be read.
+     */
+    static boolean isCompressed(Path path) {
+        try (InputStream input = Files.newInputStream(path)) {
+            return Arrays.equals(input.readNBytes(MAGIC.length), MAGIC);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes tasks to a file in the compressed format, replacing its contents.
+     *
+     * @param tasks The tasks to write.
+     * @param nextId The id the next new task will get.
+     * @param generation The number of times the file has been saved.
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    static void write(List<Task> tasks, int nextId, long generation, Path path) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        byte[] compressed = new byte[64 * 1024];
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.write(MAGIC);
+            output.writeByte(VERSION);
+            output.writeInt(nextId);
+            output.writeLong(generation);
+
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            for (int start = 0; start < tasks.size(); start += TASKS_PER_BLOCK) {
+                block.reset();
+                encodeBlock(tasks.subList(start, Math.min(tasks.size(), start + TASKS_PER_BLOCK)),
+                        dictionary, new DataOutputStream(block));
+                byte[] raw = block.toByteArray();
+
+                deflater.reset();
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream deflated = new ByteArrayOutputStream(raw.length / 4 + 16);
+                while (!deflater.finished()) {
+                    deflated.write(compressed, 0, deflater.deflate(compressed));
+                }
+                output.writeInt(raw.length);
+                output.writeInt(deflated.size());
+                deflated.writeTo(output);
+            }
+            // An empty block marks the end
+            output.writeInt(0);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Reads the next task id from the header of a compressed file.
+     *
+     * @param path The file to read.
+     * @return The recorded next id.
+     * @throws IOException If the file cannot be read or is not in the compressed format.
+     */
+    static int readNextId(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return readHeader(input).nextId;
+        }
+    }
+
+    /**
+     * Reads the generation from the header of a compressed file.
+     *
+     * @param path The file to read.
+     * @return The recorded generation, or 0 for files written before generations were kept.
+     * @throws IOException If the file cannot be read or is not in the compressed format.
+     */
+    static long readGeneration(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return readHeader(input).generation;
+        }
+    }
+
+    /**
+     * Reads all tasks from a compressed file, inflating one block at a time.
+     *
+     * @param path The file to read.
+     * @return The tasks, in file order.
+     * @throws IOException If the file cannot be read or is damaged.
+     */
+    static ArrayList<Task> read(Path path) throws IOException {
+        ArrayList<Task> tasks = new ArrayList<>();
+        List<String> dictionary = new ArrayList<>();
+        Inflater inflater = new Inflater();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            readHeader(input);
+            for (int rawLength = input.readInt(); rawLength > 0; rawLength = input.readInt()) {
+                byte[] deflated = new byte[input.readInt()];
+                input.readFully(deflated);
+                byte[] raw = new byte[rawLength];
+                inflater.reset();
+                inflater.setInput(deflated);
+                if (inflater.inflate(raw) != rawLength) {
+                    throw new IOException("Compressed block is shorter than recorded");
+                }
+                decodeBlock(new DataInputStream(new ByteArrayInputStream(raw)), dictionary, tasks);
+            }
+        } catch (DataFormatException | EOFException e) {
+            throw new IOException("Compressed task file is damaged", e);
+        } finally {
+            inflater.end();
+        }
+        return tasks;
+    }
+
+    private static Header readHeader(DataInputStream input) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        input.readFully(magic);
+        int version = input.readUnsignedByte();
+        if (!Arrays.equals(magic, MAGIC) || version < 1 || version > VERSION) {
+            throw new IOException("Not a compressed task file of a known version");
+        }
+        int nextId = input.readInt();
+        return new Header(nextId, version >= 2 ? input.readLong() : 0);
+    }
+
+    private static class Header {
+        private final int nextId;
+        private final long generation;
+
+        private Header(int nextId, long generation) {
+            this.nextId = nextId;
+            this.generation = generation;
+        }
+    }
+
+    private static void encodeBlock(List<Task> tasks, Map<String, Integer> dictionary, DataOutputStream output)
+            throws IOException {
+        writeVarLong(output, tasks.size());
+        long previousId = 0;
+        long previousTime = 0;
+        for (Task task : tasks) {
+            writeVarLong(output, zigZag(task.getId() - previousId));
+            previousId = task.getId();
+            output.writeByte(task.getTypeIcon().charAt(0));
+            output.writeByte(task.isDone() ? 1 : 0);
+            writeString(output, task.getDescription(), dictionary);
+
+            if (task instanceof Deadline) {
+                previousTime = writeTime(output, ((Deadline) task).getBy(), previousTime);
+            } else if (task instanceof Event) {
+                long from = writeTime(output, ((Event) task).getFrom(), previousTime);
+                // An event's end is stored relative to its own start, which is usually close by
+                writeTime(output, ((Event) task).getTo(), from);
+                previousTime = from;
+            } else if (task instanceof Recurring) {
+                Recurrence recurrence = ((Recurring) task).getRecurrence();
+                previousTime = writeTime(output, recurrence.getStart(), previousTime);
+                writeString(output, recurrence.toRule(), dictionary);
+            }
+        }
+    }
+
+    private static void decodeBlock(DataInputStream input, List<String> dictionary, List<Task> tasks)
+            throws IOException {
+        long count = readVarLong(input);
+        long previousId = 0;
+        long previousTime = 0;
+        for (long i = 0; i < count; i++) {
+            long id = previousId + unZigZag(readVarLong(input));
+            previousId = id;
+            char type = (char) input.readUnsignedByte();
+            boolean isDone = input.readUnsignedByte() == 1;
+            String description = readString(input, dictionary);
+
+            Task task;
+            switch (type) {
+            case 'T':
+                task = new Todo(description);
+                break;
+            case 'D':
+                previousTime += unZigZag(readVarLong(input));
+                task = new Deadline(description, toDateTime(previousTime));
+                break;
+            case 'E':
+                previousTime += unZigZag(readVarLong(input));
+                long to = previousTime + unZigZag(readVarLong(input));
+                task = new Event(description, toDateTime(previousTime), toDateTime(to));
+                break;
+            case 'R':
+                previousTime += unZigZag(readVarLong(input));
+                String rule = readString(input, dictionary);
+                try {
+                    task = new Recurring(description, Recurrence.parse(rule, toDateTime(previousTime)));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Invalid recurrence rule in compressed file: " + rule);
+                }
+                break;
+            default:
+                throw new IOException("Unknown task type in compressed file: " + type);
+            }
+            if (isDone) {
+                task.markAsDone();
+            }
+            if (id > 0) {
+                task.setId((int) id);
+            }
+            tasks.add(task);
+        }
+    }
+
+    private static long writeTime(DataOutputStream output, LocalDateTime dateTime, long previousTime)
+            throws IOException {
+        long time = dateTime.toEpochSecond(ZoneOffset.UTC);
+        writeVarLong(output, zigZag(time - previousTime));
+        return time;
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Writes a string as its dictionary index plus one, or as 0 followed by the string itself
+     * the first time it is seen.
+     */
+    private static void writeString(DataOutputStream output, String text, Map<String, Integer> dictionary)
+            throws IOException {
+        Integer index = dictionary.get(text);
+        if (index != null) {
+            writeVarLong(output, index + 1);
+            return;
+        }
+        writeVarLong(output, 0);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(output, bytes.length);
+        output.write(bytes);
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.put(text, dictionary.size());
+        }
+    }
+
+    private static String readString(DataInputStream input, List<String> dictionary) throws IOException {
+        long index = readVarLong(input);
+        if (index > 0) {
+            if (index > dictionary.size()) {
+                throw new IOException("Dictionary index out of range in compressed file");
+            }
+            return dictionary.get((int) index - 1);
+        }
+        byte[] bytes = new byte[(int) readVarLong(input)];
+        input.readFully(bytes);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.add(text);
+        }
+        return text;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Variable-length number is too long in compressed file");
+    }
+}
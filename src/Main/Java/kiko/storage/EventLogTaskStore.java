@@ -0,0 +1,591 @@
+package kiko.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import kiko.metrics.Metrics;
+import kiko.metrics.StorageEvent;
+import kiko.task.Task;
+
+/**
+ * Keeps a task list as an append-only log of what happened to its tasks, on top of a snapshot of the list.
+ * A save appends one event for each task added, marked, unmarked or deleted since the last save, so a
+ * command costs a few bytes instead of a rewrite, and undo appends the events that reverse it.
+ * A task whose content changed, for example one synced from elsewhere, is added again under its id.
+ * When the same list saves again, only the tasks it reports as changed are looked at, so a save costs
+ * as much as the command that caused it. Once the log holds enough events, the whole list is written to the task file, in the usual text or
+ * compressed format, and the log starts over. Loading reads that snapshot and replays the events after it;
+ * tasks added by events are only parsed if they are still there at the end.
+ * Tasks are loaded in id order, which is list order since ids are handed out in increasing order.
+ * The log, FILE.events, starts with the sequence number of its first event. A snapshot records the
+ * sequence number it was taken at as its generation, so events it already holds are never replayed twice.
+ * The log it replaces is kept as FILE.events.SEQUENCE, named after its first event, so every event ever
+ * saved can still be read. Appends, snapshots and the moves between them are forced to disk before a
+ * save returns, as {@link PageFile} commits are.
+ */
+public class EventLogTaskStore implements TaskStore {
+    public static final String LOG_SUFFIX = ".events";
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 10_000;
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final int MAGIC = 0x4B494B45; // "KIKE"
+    private static final int HEADER_BYTES = 12;
+    // Every event is a kind and a task id; an added task is followed by the length and bytes of its line
+    private static final byte TASK_ADDED = 1;
+    private static final byte TASK_MARKED = 2;
+    private static final byte TASK_UNMARKED = 3;
+    private static final byte TASK_DELETED = 4;
+    private static final byte NEXT_ID_SET = 5;
+    private static final int EVENT_BYTES = 5;
+
+    private final String filePath;
+    private final Path logPath;
+    private final int snapshotInterval;
+    private FileChannel log;
+    private long logBase;
+    private long logEventCount;
+    private long logEnd;
+    private ByteBuffer batch = ByteBuffer.allocate(4096);
+    // The tasks as of the last load or save, by id, and whether each was done then; null until loaded
+    private Task[] storedTasks;
+    private BitSet storedDone;
+    private int storedCount;
+    private int storedNextId = 1;
+    // The list that saved last, whose reported changes are relative to the stored tasks
+    private Object lastSource;
+
+    /**
+     * Constructs an EventLogTaskStore that takes a snapshot every {@value #DEFAULT_SNAPSHOT_INTERVAL} events.
+     *
+     * @param filePath The task file, which holds the snapshot.
+     */
+    public EventLogTaskStore(String filePath) {
+        this(filePath, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * Constructs an EventLogTaskStore.
+     *
+     * @param filePath The task file, which holds the snapshot.
+     * @param snapshotInterval How many events the log may hold before a snapshot is taken.
+     */
+    public EventLogTaskStore(String filePath, int snapshotInterval) {
+        assert filePath != null : "File path cannot be null";
+        assert snapshotInterval > 0 : "Snapshot interval must be positive";
+        this.filePath = filePath;
+        this.logPath = Paths.get(filePath + LOG_SUFFIX);
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Checks if the given task file has an event log, so it must be opened as an EventLogTaskStore.
+     *
+     * @param filePath The task file.
+     * @return true if the file's event log exists.
+     */
+    public static boolean hasLog(String filePath) {
+        return Files.exists(Paths.get(filePath + LOG_SUFFIX));
+    }
+
+    @Override
+    public ArrayList<Task> load() {
+        lastSource = null;
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent("load");
+        event.begin();
+        ArrayList<Task> snapshot = Storage.loadTasks(filePath);
+        long snapshotSequence = Storage.readGeneration(filePath);
+        int nextId = Storage.readNextId(filePath);
+        boolean isMissingIds = false;
+        for (Task task : snapshot) {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        for (Task task : snapshot) {
+            // Tasks are kept by id, so files from before ids get them now, as loading them into a list would
+            if (task.getId() <= 0) {
+                task.setId(nextId++);
+                isMissingIds = true;
+            }
+        }
+
+        Replay replay = new Replay(snapshot, nextId);
+        long replayedCount = 0;
+        closeLog();
+        logEventCount = 0;
+        try {
+            ByteBuffer events = Files.exists(logPath) ? ByteBuffer.wrap(Files.readAllBytes(logPath)) : null;
+            if (events != null && events.remaining() >= HEADER_BYTES && events.getInt() == MAGIC) {
+                logBase = events.getLong();
+                long skipCount = Math.max(0, snapshotSequence - logBase);
+                replayedCount = replay.apply(events, skipCount);
+                logEventCount = replay.eventCount;
+                logEnd = events.position();
+                event.setBytes(logEnd);
+                if (logEventCount < skipCount) {
+                    // The snapshot is newer than the whole log, so the log was not restarted after it
+                    startLog(snapshotSequence);
+                } else {
+                    openLog();
+                }
+            } else {
+                startLog(snapshotSequence);
+            }
+        } catch (IOException e) {
+            System.out.println(" Error loading task events from file: " + e.getMessage());
+        }
+
+        ArrayList<Task> tasks = replay.finish();
+        remember(tasks, replay.nextId);
+        if (isMissingIds) {
+            snapshot(tasks, replay.nextId, isCompressing());
+        }
+        Metrics.add("storage.events_replayed", replayedCount);
+        Metrics.recordSince("storage.load.latency", start);
+        event.setTaskCount(tasks.size());
+        event.commit();
+        return tasks;
+    }
+
+    @Override
+    public int getNextId() {
+        return storedNextId;
+    }
+
+    @Override
+    public void write(ArrayList<Task> tasks, int nextId) {
+        assert tasks != null : "Tasks list to save cannot be null";
+        lastSource = null;
+        save(tasks, null, nextId);
+    }
+
+    @Override
+    public void write(TaskChanges changes, int nextId) {
+        assert changes != null : "Changes to save cannot be null";
+        if (changes.getSource() != lastSource || storedTasks == null) {
+            save(changes.getAllTasks(), null, nextId);
+        } else {
+            save(null, changes, nextId);
+        }
+        lastSource = storedTasks == null ? null : changes.getSource();
+    }
+
+    /**
+     * Appends the events for either every task or only the changed ones, taking a snapshot if the log is full.
+     */
+    private void save(ArrayList<Task> tasks, TaskChanges changes, int nextId) {
+        if (storedTasks == null) {
+            // What the files hold is needed to tell which tasks changed
+            load();
+        }
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent("save");
+        event.begin();
+        batch.clear();
+        int eventCount = tasks != null ? appendChanges(tasks, nextId) : appendChanges(changes, nextId);
+        try {
+            if (log == null) {
+                throw new IOException("The events file " + logPath + " could not be opened");
+            }
+            if (eventCount > 0) {
+                batch.flip();
+                long bytesWritten = batch.remaining();
+                while (batch.hasRemaining()) {
+                    logEnd += log.write(batch, logEnd);
+                }
+                log.force(false);
+                logEventCount += eventCount;
+                Metrics.add("storage.bytes_written", bytesWritten);
+                Metrics.add("storage.events_written", eventCount);
+                event.setBytes(bytesWritten);
+            }
+            if (logEventCount >= snapshotInterval) {
+                snapshot(tasks != null ? tasks : changes.getAllTasks(), nextId, isCompressing());
+            }
+        } catch (IOException e) {
+            System.out.println(" Error saving tasks to file: " + e.getMessage());
+            // The log may hold only part of the events, so the next save reloads what it does hold
+            storedTasks = null;
+        }
+        Metrics.recordSince("storage.save.latency", start);
+        event.setTaskCount(storedCount);
+        event.commit();
+    }
+
+    @Override
+    public void compact(ArrayList<Task> tasks, int nextId) {
+        write(tasks, nextId);
+        snapshot(tasks, nextId, true);
+    }
+
+    /**
+     * Returns how many events the log holds since the last snapshot.
+     *
+     * @return The number of events.
+     */
+    public long getLogEventCount() {
+        return logEventCount;
+    }
+
+    /**
+     * Fills the batch with the events that turn the stored tasks into the given ones, and remembers them.
+     *
+     * @return The number of events.
+     */
+    private int appendChanges(ArrayList<Task> tasks, int nextId) {
+        int eventCount = 0;
+        int keptCount = 0;
+        for (Task task : tasks) {
+            int id = task.getId();
+            assert id > 0 : "Saved tasks must have ids";
+            if (id < storedTasks.length && storedTasks[id] != null) {
+                keptCount++;
+            }
+            eventCount += appendChange(task);
+        }
+        if (keptCount < storedCount) {
+            BitSet ids = new BitSet(storedTasks.length);
+            for (Task task : tasks) {
+                ids.set(task.getId());
+            }
+            for (int id = 1; id < storedTasks.length; id++) {
+                if (storedTasks[id] != null && !ids.get(id)) {
+                    eventCount += appendDeleted(id);
+                }
+            }
+        }
+        storedCount = tasks.size();
+        return eventCount + appendNextId(nextId);
+    }
+
+    /**
+     * Fills the batch with the events for the tasks a list reports as changed, and remembers them.
+     *
+     * @return The number of events.
+     */
+    private int appendChanges(TaskChanges changes, int nextId) {
+        int eventCount = 0;
+        BitSet ids = changes.getChangedIds();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            Task task = changes.getTask(id);
+            boolean isStored = id < storedTasks.length && storedTasks[id] != null;
+            if (task == null) {
+                if (isStored) {
+                    eventCount += appendDeleted(id);
+                    storedCount--;
+                }
+                continue;
+            }
+            if (!isStored) {
+                storedCount++;
+            }
+            eventCount += appendChange(task);
+        }
+        return eventCount + appendNextId(nextId);
+    }
+
+    private int appendChange(Task task) {
+        int id = task.getId();
+        Task stored = id < storedTasks.length ? storedTasks[id] : null;
+        int eventCount = 0;
+        // Tasks only change by being marked, unless they were replaced, as by undo or a sync
+        if (stored == null
+                || stored != task && !Storage.taskToFileString(stored).equals(Storage.taskToFileString(task))) {
+            appendAdded(task);
+            eventCount++;
+        } else if (task.isDone() != storedDone.get(id)) {
+            appendEvent(task.isDone() ? TASK_MARKED : TASK_UNMARKED, id);
+            eventCount++;
+        }
+        if (id >= storedTasks.length) {
+            storedTasks = Arrays.copyOf(storedTasks, Math.max(id + 1, storedTasks.length * 2));
+        }
+        storedTasks[id] = task;
+        storedDone.set(id, task.isDone());
+        return eventCount;
+    }
+
+    private int appendDeleted(int id) {
+        appendEvent(TASK_DELETED, id);
+        storedTasks[id] = null;
+        storedDone.clear(id);
+        return 1;
+    }
+
+    private int appendNextId(int nextId) {
+        if (nextId == storedNextId) {
+            return 0;
+        }
+        appendEvent(NEXT_ID_SET, nextId);
+        storedNextId = nextId;
+        return 1;
+    }
+
+    private void appendAdded(Task task) {
+        byte[] line = Storage.taskToFileString(task).getBytes(StandardCharsets.UTF_8);
+        reserve(EVENT_BYTES + 4 + line.length);
+        batch.put(TASK_ADDED).putInt(task.getId()).putInt(line.length).put(line);
+    }
+
+    private void appendEvent(byte kind, int id) {
+        reserve(EVENT_BYTES);
+        batch.put(kind).putInt(id);
+    }
+
+    private void reserve(int bytes) {
+        if (batch.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(batch.capacity() * 2, batch.position() + bytes));
+            batch.flip();
+            batch = larger.put(batch);
+        }
+    }
+
+    private void remember(ArrayList<Task> tasks, int nextId) {
+        int maxId = 0;
+        for (Task task : tasks) {
+            maxId = Math.max(maxId, task.getId());
+        }
+        storedTasks = new Task[maxId + 1];
+        storedDone = new BitSet(maxId + 1);
+        for (Task task : tasks) {
+            storedTasks[task.getId()] = task;
+            storedDone.set(task.getId(), task.isDone());
+        }
+        storedCount = tasks.size();
+        storedNextId = nextId;
+    }
+
+    /**
+     * Writes the whole list to the task file and starts a new log. The snapshot replaces the old file
+     * only once it is complete and on disk, and the old log is only moved aside once the replacement is
+     * on disk too, so a crash at any point leaves a snapshot and the events after it to load from.
+     */
+    private void snapshot(ArrayList<Task> tasks, int nextId, boolean isCompressed) {
+        long sequence = logBase + logEventCount;
+        Path path = Paths.get(filePath);
+        Path snapshotPath = Paths.get(filePath + SNAPSHOT_SUFFIX);
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            long bytesWritten = Storage.writeTasks(tasks, snapshotPath, nextId, isCompressed, sequence);
+            try (FileChannel snapshotFile = FileChannel.open(snapshotPath, StandardOpenOption.WRITE)) {
+                snapshotFile.force(true);
+            }
+            Files.move(snapshotPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(path.toAbsolutePath().getParent());
+            startLog(sequence);
+            Metrics.add("storage.bytes_written", bytesWritten);
+            Metrics.increment("storage.snapshots");
+        } catch (IOException e) {
+            System.out.println(" Error saving task snapshot: " + e.getMessage());
+        }
+    }
+
+    private boolean isCompressing() {
+        return Boolean.getBoolean(Storage.COMPRESS_PROPERTY) || Storage.isCompressed(filePath);
+    }
+
+    /**
+     * Starts a new, empty log, keeping the events of the current one in a segment of their own.
+     */
+    private void startLog(long base) throws IOException {
+        closeLog();
+        Path directory = logPath.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        if (logEventCount > 0 && Files.exists(logPath)) {
+            Files.move(logPath, Paths.get(filePath + LOG_SUFFIX + "." + logBase),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        log = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putLong(base);
+        header.flip();
+        while (header.hasRemaining()) {
+            log.write(header);
+        }
+        log.force(false);
+        forceDirectory(directory);
+        logBase = base;
+        logEventCount = 0;
+        logEnd = HEADER_BYTES;
+    }
+
+    /**
+     * Forces the directory entries of the files moved into a directory to disk, on platforms that allow it.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms, such as Windows, cannot open a directory; their moves are left to the file system
+        }
+    }
+
+    private void openLog() throws IOException {
+        log = FileChannel.open(logPath, StandardOpenOption.WRITE);
+        // Drop whatever a crash left half written after the last whole event
+        log.truncate(logEnd);
+    }
+
+    private void closeLog() {
+        try {
+            if (log != null) {
+                log.close();
+            }
+        } catch (IOException e) {
+            System.out.println(" Error closing task events file: " + e.getMessage());
+        }
+        log = null;
+    }
+
+    @Override
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public void close() {
+        closeLog();
+    }
+
+    /**
+     * The state of the list while events are replayed, by task id. An added task is kept as the position
+     * of its line in the log, and only parsed by {@link #finish()} if it is not deleted or replaced by then.
+     */
+    private static class Replay {
+        private static final byte NOT_DONE = 1;
+        private static final byte DONE = 2;
+
+        private Task[] tasks = new Task[16];
+        private byte[] source;
+        // Where each added task's line starts in the source, 0 if it was not added by an event
+        private int[] lineStarts = new int[16];
+        private int[] lineLengths = new int[16];
+        // Marks and unmarks of added tasks, applied to them once they are parsed
+        private byte[] doneStates = new byte[16];
+        private int nextId;
+        private long eventCount;
+
+        Replay(ArrayList<Task> snapshot, int nextId) {
+            for (Task task : snapshot) {
+                ensureCapacity(task.getId());
+                tasks[task.getId()] = task;
+            }
+            this.nextId = nextId;
+        }
+
+        /**
+         * Applies the events in the buffer, which is left after the last whole event.
+         *
+         * @return The number of events applied.
+         */
+        long apply(ByteBuffer events, long skipCount) {
+            source = events.array();
+            long appliedCount = 0;
+            while (events.remaining() >= EVENT_BYTES) {
+                int start = events.position();
+                byte kind = events.get();
+                int id = events.getInt();
+                int lineLength = 0;
+                if (kind == TASK_ADDED) {
+                    lineLength = events.remaining() >= 4 ? events.getInt() : -1;
+                    if (lineLength < 0 || lineLength > events.remaining()) {
+                        events.position(start);
+                        break;
+                    }
+                    events.position(events.position() + lineLength);
+                } else if (kind < TASK_ADDED || kind > NEXT_ID_SET || id <= 0) {
+                    events.position(start);
+                    break;
+                }
+                eventCount++;
+                if (eventCount <= skipCount) {
+                    continue;
+                }
+                appliedCount++;
+                switch (kind) {
+                case TASK_ADDED:
+                    ensureCapacity(id);
+                    tasks[id] = null;
+                    lineStarts[id] = start + EVENT_BYTES + 4;
+                    lineLengths[id] = lineLength;
+                    doneStates[id] = 0;
+                    break;
+                case TASK_MARKED:
+                case TASK_UNMARKED:
+                    setDone(id, kind == TASK_MARKED);
+                    break;
+                case TASK_DELETED:
+                    if (id < tasks.length) {
+                        tasks[id] = null;
+                        lineStarts[id] = 0;
+                    }
+                    break;
+                case NEXT_ID_SET:
+                default:
+                    nextId = id;
+                    break;
+                }
+            }
+            return appliedCount;
+        }
+
+        private void setDone(int id, boolean isDone) {
+            if (id >= tasks.length) {
+                return;
+            }
+            if (tasks[id] != null) {
+                if (isDone) {
+                    tasks[id].markAsDone();
+                } else {
+                    tasks[id].markAsNotDone();
+                }
+            } else if (lineStarts[id] != 0) {
+                doneStates[id] = isDone ? DONE : NOT_DONE;
+            }
+        }
+
+        private void ensureCapacity(int id) {
+            if (id >= tasks.length) {
+                int capacity = Math.max(id + 1, tasks.length * 2);
+                tasks = Arrays.copyOf(tasks, capacity);
+                lineStarts = Arrays.copyOf(lineStarts, capacity);
+                lineLengths = Arrays.copyOf(lineLengths, capacity);
+                doneStates = Arrays.copyOf(doneStates, capacity);
+            }
+        }
+
+        /**
+         * Returns the tasks left after the replay, in id order.
+         */
+        ArrayList<Task> finish() {
+            ArrayList<Task> result = new ArrayList<>();
+            for (int id = 1; id < tasks.length; id++) {
+                Task task = tasks[id];
+                if (task == null && lineStarts[id] != 0) {
+                    task = Storage.parseTaskFromString(new String(source, lineStarts[id], lineLengths[id],
+                            StandardCharsets.UTF_8));
+                    if (task != null && doneStates[id] != 0) {
+                        if (doneStates[id] == DONE) {
+                            task.markAsDone();
+                        } else {
+                            task.markAsNotDone();
+                        }
+                    }
+                }
+                if (task != null) {
+                    result.add(task);
+                    nextId = Math.max(nextId, id + 1);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package kiko.storage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import kiko.task.Task;
+import kiko.tasklist.OffHeapTaskList;
+
+/**
+ * Keeps a task list in memory only, for tests and benchmarks that should not touch the disk.
+ * Saves copy the tasks into an off-heap arena, so later changes to the list do not leak into the store
+ * and a large saved list costs the heap almost nothing. Nothing survives the process.
+ * This engine is the only user of {@link OffHeapTaskList}; the live task list stays on the heap.
+ */
+public class InMemoryTaskStore implements TaskStore {
+    private static final Map<String, InMemoryTaskStore> NAMED_STORES = new HashMap<>();
+
+    // Created on the first save, so stores that are never written hold no direct memory
+    private OffHeapTaskList arena;
+    private int nextId = 1;
+    private int writeCount;
+    private Object lastSource;
+
+    /**
+     * Returns the store for the given name, creating it on first use, so a list reopened under
+     * the same name in this process finds its tasks again.
+     *
+     * @param name The name, such as the path the list would otherwise be saved to.
+     * @return The store.
+     */
+    public static synchronized InMemoryTaskStore of(String name) {
+        return NAMED_STORES.computeIfAbsent(name, n -> new InMemoryTaskStore());
+    }
+
+    @Override
+    public synchronized ArrayList<Task> load() {
+        return arena == null ? new ArrayList<>() : arena.toArrayList();
+    }
+
+    @Override
+    public synchronized int getNextId() {
+        return nextId;
+    }
+
+    @Override
+    public synchronized void write(ArrayList<Task> tasks, int nextId) {
+        assert tasks != null : "Tasks list to save cannot be null";
+        if (arena == null) {
+            arena = new OffHeapTaskList();
+        }
+        arena.clear();
+        for (Task task : tasks) {
+            arena.add(task);
+        }
+        lastSource = null;
+        this.nextId = nextId;
+        writeCount++;
+    }
+
+    /**
+     * Copies only the tasks the list reports as changed when it is the list that saved last.
+     * Changed tasks keep their place in the arena and new ones go at the end, like in the list.
+     */
+    @Override
+    public synchronized void write(TaskChanges changes, int nextId) {
+        assert changes != null : "Changes to save cannot be null";
+        if (arena == null || changes.getSource() != lastSource) {
+            write(changes.getAllTasks(), nextId);
+            lastSource = changes.getSource();
+            return;
+        }
+        BitSet ids = changes.getChangedIds();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            Task task = changes.getTask(id);
+            if (task != null) {
+                arena.put(task);
+            } else {
+                arena.deleteById(id);
+            }
+        }
+        // Replaced records are left behind in the arena, so drop them once they take up half of it
+        if (arena.getGarbageBytes() > arena.getUsedBytes() / 2) {
+            arena.compact();
+        }
+        this.nextId = nextId;
+        writeCount++;
+    }
+
+    /**
+     * Returns the number of saves so far.
+     *
+     * @return The save count.
+     */
+    public synchronized int getWriteCount() {
+        return writeCount;
+    }
+
+    @Override
+    public String getFilePath() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        // Nothing is held open
+    }
+}
@@ -0,0 +1,67 @@
+package kiko.storage;
+
+import java.util.ArrayList;
+
+import kiko.task.Task;
+
+/**
+ * Keeps a task list in a text or compressed file shared with other Kiko instances through
+ * {@link SharedTaskFile}: every save is journaled, so the others catch up by reading only what changed.
+ * Saves must be made with the shared file locked and after merging its external changes, as
+ * {@link kiko.tasklist.TaskList} does.
+ */
+public class JournalTaskStore implements TaskStore {
+    private final String filePath;
+    private final SharedTaskFile file;
+
+    /**
+     * Constructs a JournalTaskStore.
+     *
+     * @param filePath The task file.
+     */
+    public JournalTaskStore(String filePath) {
+        assert filePath != null : "File path cannot be null";
+        this.filePath = filePath;
+        this.file = SharedTaskFile.of(filePath);
+    }
+
+    @Override
+    public ArrayList<Task> load() {
+        return file.load();
+    }
+
+    @Override
+    public int getNextId() {
+        return file.getNextId();
+    }
+
+    @Override
+    public void write(ArrayList<Task> tasks, int nextId) {
+        file.write(tasks, nextId, Boolean.getBoolean(Storage.COMPRESS_PROPERTY) || Storage.isCompressed(filePath));
+    }
+
+    @Override
+    public void write(TaskChanges changes, int nextId) {
+        file.write(changes, nextId, Boolean.getBoolean(Storage.COMPRESS_PROPERTY) || Storage.isCompressed(filePath));
+    }
+
+    @Override
+    public void compact(ArrayList<Task> tasks, int nextId) {
+        file.write(tasks, nextId, true);
+    }
+
+    @Override
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public SharedTaskFile getSharedFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        // The shared file stays registered for other lists on the same path
+    }
+}
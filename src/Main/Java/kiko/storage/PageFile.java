@@ -0,0 +1,355 @@
+package kiko.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import kiko.metrics.Metrics;
+
+/**
+ * A file of fixed-size pages with a page cache and copy-on-write commits.
+ * Pages 0 and 1 hold two copies of the header, written alternately. A commit writes every
+ * changed page to a page the last committed header does not use, forces them to disk, and only
+ * then writes the new header over the older copy. A crash at any point therefore leaves at least
+ * one intact header whose pages are all intact, and opening the file picks the newest of them.
+ * Pages no longer in use are kept in a free list, itself stored in pages, and reused after the
+ * commit that freed them.
+ */
+class PageFile implements AutoCloseable {
+    static final int PAGE_SIZE = 4096;
+    // Header values the file's user can set, such as tree roots
+    static final int VALUE_COUNT = 8;
+    private static final int MAGIC = 0x4B494B42; // "KIKB"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32 + VALUE_COUNT * 8;
+    private static final int FREE_IDS_PER_PAGE = (PAGE_SIZE - 12) / 8;
+    private static final int CACHE_PAGES = 2048;
+
+    private final FileChannel channel;
+    private long transaction;
+    private long pageCount;
+    private long[] values = new long[VALUE_COUNT];
+    // Pages free since the last commit, safe to overwrite now
+    private ArrayList<Long> freePages = new ArrayList<>();
+    // Pages freed since the last commit; the committed header may still use them
+    private ArrayList<Long> pendingFreePages = new ArrayList<>();
+    private ArrayList<Long> freeListPages = new ArrayList<>();
+    // Pages allocated since the last commit, which may be changed in place
+    private final HashSet<Long> freshPages = new HashSet<>();
+    private final HashMap<Long, byte[]> dirtyPages = new HashMap<>();
+    private boolean isModified;
+    private final Map<Long, byte[]> cache = new LinkedHashMap<>(CACHE_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            return size() > CACHE_PAGES;
+        }
+    };
+
+    private PageFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Opens a page file, creating it if it does not exist.
+     *
+     * @param path The file.
+     * @return The open page file.
+     * @throws IOException If the file cannot be opened or has no intact header.
+     */
+    static PageFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        PageFile file = new PageFile(channel);
+        try {
+            if (channel.size() == 0) {
+                file.pageCount = 2;
+                file.writeHeader();
+            } else {
+                file.readLatestHeader();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return file;
+    }
+
+    /**
+     * Checks if the given file starts with a page file header.
+     *
+     * @param path The file to check.
+     * @return true if the file is a page file, false if not or if it cannot be read.
+     */
+    static boolean isPageFile(Path path) {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, 0);
+            return buffer.flip().remaining() == 4 && buffer.getInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a header value as of the last change.
+     *
+     * @param index The value's index, below {@value #VALUE_COUNT}.
+     * @return The value, 0 if never set.
+     */
+    long getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Sets a header value, to be written by the next commit.
+     *
+     * @param index The value's index, below {@value #VALUE_COUNT}.
+     * @param value The value.
+     */
+    void setValue(int index, long value) {
+        if (values[index] != value) {
+            values[index] = value;
+            isModified = true;
+        }
+    }
+
+    /**
+     * Reads a page. The returned array must not be changed.
+     *
+     * @param page The page number.
+     * @return The page's bytes.
+     * @throws IOException If the page cannot be read.
+     */
+    byte[] read(long page) throws IOException {
+        assert page >= 2 && page < pageCount : "Page out of range: " + page;
+        byte[] data = dirtyPages.get(page);
+        if (data == null) {
+            data = cache.get(page);
+        }
+        if (data == null) {
+            data = new byte[PAGE_SIZE];
+            channel.read(ByteBuffer.wrap(data), page * PAGE_SIZE);
+            cache.put(page, data);
+            Metrics.increment("storage.btree.pages_read");
+        }
+        return data;
+    }
+
+    /**
+     * Allocates a page, reusing a free one if there is any.
+     *
+     * @return The page number.
+     */
+    long allocate() {
+        long page = freePages.isEmpty() ? pageCount++ : freePages.remove(freePages.size() - 1);
+        freshPages.add(page);
+        isModified = true;
+        return page;
+    }
+
+    /**
+     * Checks if a page was allocated since the last commit, so it may be written in place.
+     *
+     * @param page The page number.
+     * @return true if the page may be written, false if it must be copied first.
+     */
+    boolean isFresh(long page) {
+        return freshPages.contains(page);
+    }
+
+    /**
+     * Writes a page allocated since the last commit.
+     *
+     * @param page The page number.
+     * @param data The page's bytes, at most {@value #PAGE_SIZE} of them. The array must not be changed afterwards.
+     */
+    void write(long page, byte[] data) {
+        assert isFresh(page) : "Committed pages are never overwritten";
+        dirtyPages.put(page, data);
+    }
+
+    /**
+     * Frees a page. Pages allocated since the last commit are reusable at once, others after the next commit.
+     *
+     * @param page The page number.
+     */
+    void free(long page) {
+        if (freshPages.remove(page)) {
+            dirtyPages.remove(page);
+            freePages.add(page);
+        } else {
+            pendingFreePages.add(page);
+        }
+        cache.remove(page);
+        isModified = true;
+    }
+
+    /**
+     * Makes every change since the last commit durable.
+     *
+     * @throws IOException If the file cannot be written. The changes are then neither committed nor kept.
+     */
+    void commit() throws IOException {
+        if (!isModified) {
+            return;
+        }
+        try {
+            ArrayList<Long> nowFree = writeFreeList();
+            ArrayList<Long> pages = new ArrayList<>(dirtyPages.keySet());
+            pages.sort(null);
+            for (long page : pages) {
+                writePage(page, dirtyPages.get(page));
+            }
+            channel.force(false);
+            transaction++;
+            writeHeader();
+            channel.force(false);
+            Metrics.add("storage.btree.pages_written", pages.size() + 1);
+
+            for (long page : pages) {
+                cache.put(page, dirtyPages.get(page));
+            }
+            freePages = nowFree;
+            pendingFreePages = new ArrayList<>();
+            dirtyPages.clear();
+            freshPages.clear();
+            isModified = false;
+        } catch (IOException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the free list to fresh pages, taken from the free pages themselves where possible.
+     *
+     * @return Every page that is free once the commit completes.
+     */
+    private ArrayList<Long> writeFreeList() {
+        // The current free list pages are in use until this commit completes
+        pendingFreePages.addAll(freeListPages);
+        ArrayList<Long> listPages = new ArrayList<>();
+        while ((long) listPages.size() * FREE_IDS_PER_PAGE < freePages.size() + pendingFreePages.size()) {
+            listPages.add(allocate());
+        }
+        ArrayList<Long> nowFree = new ArrayList<>(freePages);
+        nowFree.addAll(pendingFreePages);
+        int next = 0;
+        for (int i = 0; i < listPages.size(); i++) {
+            int count = Math.min(FREE_IDS_PER_PAGE, nowFree.size() - next);
+            ByteBuffer buffer = ByteBuffer.allocate(PAGE_SIZE);
+            buffer.putLong(i + 1 < listPages.size() ? listPages.get(i + 1) : 0).putInt(count);
+            for (int j = 0; j < count; j++) {
+                buffer.putLong(nowFree.get(next++));
+            }
+            write(listPages.get(i), buffer.array());
+        }
+        freeListPages = listPages;
+        return nowFree;
+    }
+
+    /**
+     * Drops every change since the last commit.
+     *
+     * @throws IOException If the last committed header cannot be read back.
+     */
+    void rollback() throws IOException {
+        dirtyPages.clear();
+        freshPages.clear();
+        cache.clear();
+        isModified = false;
+        readLatestHeader();
+    }
+
+    private void writePage(long page, byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long position = page * PAGE_SIZE;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 8);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(transaction).putLong(pageCount)
+                .putLong(freeListPages.isEmpty() ? 0 : freeListPages.get(0));
+        for (long value : values) {
+            buffer.putLong(value);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, HEADER_BYTES);
+        buffer.putLong(crc.getValue());
+        // The copies alternate, so the previous header survives a torn write of this one
+        writePage(transaction % 2, Arrays.copyOf(buffer.array(), PAGE_SIZE));
+    }
+
+    private void readLatestHeader() throws IOException {
+        ByteBuffer latest = null;
+        for (int slot = 0; slot < 2; slot++) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 8);
+            channel.read(buffer, (long) slot * PAGE_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(buffer.array(), 0, HEADER_BYTES);
+            buffer.flip();
+            if (buffer.remaining() < HEADER_BYTES + 8 || buffer.getInt(0) != MAGIC
+                    || buffer.getLong(HEADER_BYTES) != crc.getValue()) {
+                continue;
+            }
+            if (latest == null || buffer.getLong(8) > latest.getLong(8)) {
+                latest = buffer;
+            }
+        }
+        if (latest == null) {
+            throw new IOException("No intact header in page file");
+        }
+        if (latest.getInt(4) > VERSION) {
+            throw new IOException("Page file version " + latest.getInt(4) + " is newer than this Kiko");
+        }
+        transaction = latest.getLong(8);
+        pageCount = latest.getLong(16);
+        long freeListHead = latest.getLong(24);
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values[i] = latest.getLong(32 + i * 8);
+        }
+        readFreeList(freeListHead);
+    }
+
+    private void readFreeList(long head) throws IOException {
+        freePages = new ArrayList<>();
+        pendingFreePages = new ArrayList<>();
+        freeListPages = new ArrayList<>();
+        for (long page = head; page != 0; ) {
+            freeListPages.add(page);
+            ByteBuffer buffer = ByteBuffer.wrap(read(page));
+            long next = buffer.getLong();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                freePages.add(buffer.getLong());
+            }
+            page = next;
+        }
+    }
+
+    /**
+     * Closes the file, dropping changes that were not committed.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,528 @@
+package kiko.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import kiko.task.Task;
+
+/**
+ * Coordinates Kiko instances, in this process or others, that share one task file.
+ * Saves hold an exclusive FileChannel lock on a companion .lock file. Every save bumps the
+ * generation in the task file's header and appends the tasks it changed to a journal next to
+ * the file, so another instance catches up by reading only the journal entries after its own
+ * generation instead of reloading the whole file. When the journal no longer reaches back far
+ * enough, the file itself is compared against the tasks this instance last saw.
+ */
+public class SharedTaskFile {
+    public static final String JOURNAL_SUFFIX = ".journal";
+    public static final String LOCK_SUFFIX = ".lock";
+    private static final String BASE_HEADER = "# base ";
+    private static final String UPSERT = "+";
+    private static final String DELETE = "-";
+    private static final String SEPARATOR = " | ";
+    // The journal starts over once it passes this size; instances further behind compare the whole file
+    private static final long MAX_JOURNAL_BYTES = 1 << 20;
+    private static final Map<Path, SharedTaskFile> OPEN_FILES = new HashMap<>();
+
+    private final String filePath;
+    private final Path journalPath;
+    private final Path lockPath;
+    private final ReentrantLock threadLock = new ReentrantLock();
+    // The generation and task lines this instance last loaded, saved or caught up to; -1 while unknown
+    private long generation = -1;
+    private HashMap<Integer, String> syncedLines = new HashMap<>();
+    // The list whose saves the synced lines follow, so only the tasks it reports as changed can differ from them
+    private Object lastSource;
+    private int fileNextId = 1;
+    private long journalBase = -1;
+    private long journalOffset;
+    private volatile boolean isWatched;
+    private volatile boolean isStale = true;
+
+    private SharedTaskFile(String filePath) {
+        this.filePath = filePath;
+        this.journalPath = Paths.get(filePath + JOURNAL_SUFFIX);
+        this.lockPath = Paths.get(filePath + LOCK_SUFFIX);
+    }
+
+    /**
+     * Returns the shared file for the given path, so every task list in this process that saves
+     * to the same file coordinates through the same object.
+     *
+     * @param filePath The task file.
+     * @return The shared file.
+     */
+    public static synchronized SharedTaskFile of(String filePath) {
+        return OPEN_FILES.computeIfAbsent(Paths.get(filePath).toAbsolutePath().normalize(),
+                path -> new SharedTaskFile(filePath));
+    }
+
+    /**
+     * A held lock on the task file.
+     */
+    private class Lock {
+        private final FileChannel channel;
+        private final FileLock fileLock;
+
+        private Lock(FileChannel channel, FileLock fileLock) {
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        /**
+         * Releases the lock.
+         */
+        private void release() {
+            try {
+                if (fileLock != null) {
+                    fileLock.release();
+                }
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                System.out.println(" Error unlocking task file: " + e.getMessage());
+            } finally {
+                threadLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs the given action with the task file locked against other threads and other processes,
+     * waiting until it is free. If the lock file cannot be used, only other threads of this process are locked out.
+     *
+     * @param action The action to run while holding the lock.
+     * @param <T> The type of the action's result.
+     * @return The action's result.
+     */
+    public <T> T withLock(Supplier<T> action) {
+        Lock lock = lock();
+        try {
+            return action.get();
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Runs the given action with the task file locked, as {@link #withLock(Supplier)} does.
+     *
+     * @param action The action to run while holding the lock.
+     */
+    public void withLock(Runnable action) {
+        withLock(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private Lock lock() {
+        // FileChannel locks are held by the whole process, so threads are kept apart separately
+        threadLock.lock();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(createParent(lockPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return new Lock(channel, channel.lock());
+        } catch (IOException e) {
+            System.out.println(" Error locking task file: " + e.getMessage());
+            closeQuietly(channel);
+            return new Lock(null, null);
+        }
+    }
+
+    /**
+     * Loads the tasks from the file and remembers them as the state later changes are measured from.
+     *
+     * @return The loaded tasks.
+     */
+    public ArrayList<Task> load() {
+        return withLock(() -> {
+            ArrayList<Task> tasks = Storage.loadTasks(filePath);
+            generation = Storage.readGeneration(filePath);
+            fileNextId = Storage.readNextId(filePath);
+            syncedLines = linesById(tasks);
+            lastSource = null;
+            skipToJournalEnd();
+            return tasks;
+        });
+    }
+
+    /**
+     * Returns the id the next task added to the file will get, as of the last load, save or catch-up.
+     *
+     * @return The file's next task id.
+     */
+    public int getNextId() {
+        return fileNextId;
+    }
+
+    /**
+     * Notes that the file may have been changed, for example by a file system watcher.
+     * Until this is first called, {@link #mayHaveExternalChanges()} reads the file header every time.
+     */
+    public void markStale() {
+        isWatched = true;
+        isStale = true;
+    }
+
+    /**
+     * Checks cheaply, without locking, whether another instance may have saved since this one last looked.
+     *
+     * @return true if the file should be caught up with, false otherwise.
+     */
+    public boolean mayHaveExternalChanges() {
+        if (isWatched && !isStale) {
+            return false;
+        }
+        isStale = false;
+        return Storage.readGeneration(filePath) != generation;
+    }
+
+    /**
+     * Reads the changes other instances saved since this one last loaded, saved or caught up.
+     * If the file's generation went backwards, the file was replaced, and the changes are what differs from it.
+     * Must be called with the lock held. The changes are measured from this instance's last known
+     * state, which stays in place until {@link #acceptExternalChanges(List)} is called.
+     *
+     * @return The changed and deleted tasks, oldest change first.
+     */
+    public List<Change> readExternalChanges() {
+        assert threadLock.isHeldByCurrentThread() : "The file must be locked to read changes";
+        isStale = false;
+        long fileGeneration = Storage.readGeneration(filePath);
+        if (fileGeneration == generation) {
+            return List.of();
+        }
+        List<Change> changes;
+        if (generation < 0 || !Files.exists(Paths.get(filePath))) {
+            // Nothing to compare against, or the file is gone: this instance's tasks win on its next save
+            changes = List.of();
+            syncedLines.clear();
+            lastSource = null;
+            skipToJournalEnd();
+        } else if (fileGeneration < generation) {
+            // The file was replaced, for example by a backup, so its tasks are read in full rather than overwritten
+            changes = diffAgainst(Storage.loadTasks(filePath));
+        } else {
+            changes = readJournal(generation, fileGeneration);
+            if (changes == null) {
+                changes = diffAgainst(Storage.loadTasks(filePath));
+            }
+        }
+        generation = fileGeneration;
+        fileNextId = Storage.readNextId(filePath);
+        return changes;
+    }
+
+    /**
+     * Checks if a task differs from how this instance last saved or loaded it.
+     *
+     * @param task The task to check.
+     * @return true if the task is new or changed since then, false otherwise.
+     */
+    public boolean isChangedLocally(Task task) {
+        return !Storage.taskToFileString(task).equals(syncedLines.get(task.getId()));
+    }
+
+    /**
+     * Checks if a task id was in the file when this instance last saved or loaded it.
+     *
+     * @param id The task id.
+     * @return true if the id is known, false for tasks added since.
+     */
+    public boolean isKnown(int id) {
+        return syncedLines.containsKey(id);
+    }
+
+    /**
+     * Makes changes read by {@link #readExternalChanges()} part of the state later changes are measured from,
+     * once they have been applied.
+     *
+     * @param changes The changes that were applied.
+     */
+    public void acceptExternalChanges(List<Change> changes) {
+        for (Change change : changes) {
+            if (change.isDeletion()) {
+                syncedLines.remove(change.getId());
+            } else {
+                syncedLines.put(change.getId(), Storage.taskToFileString(change.getTask()));
+            }
+        }
+    }
+
+    /**
+     * Saves tasks to the file, journaling the tasks that changed since this instance's last known state.
+     * Must be called with the lock held, after catching up with {@link #readExternalChanges()}.
+     *
+     * @param tasks The tasks to save.
+     * @param nextId The id the next new task will get.
+     * @param isCompressed Whether to write the compressed format.
+     */
+    public void write(ArrayList<Task> tasks, int nextId, boolean isCompressed) {
+        assert threadLock.isHeldByCurrentThread() : "The file must be locked to save";
+        HashMap<Integer, String> lines = new HashMap<>(tasks.size() * 2);
+        StringBuilder entries = new StringBuilder();
+        long nextGeneration = Math.max(generation, 0) + 1;
+        for (Task task : tasks) {
+            String line = Storage.taskToFileString(task);
+            lines.put(task.getId(), line);
+            if (!line.equals(syncedLines.get(task.getId()))) {
+                appendEntry(entries, nextGeneration, UPSERT, line);
+            }
+        }
+        for (Integer id : syncedLines.keySet()) {
+            if (!lines.containsKey(id)) {
+                appendEntry(entries, nextGeneration, DELETE, id.toString());
+            }
+        }
+        syncedLines = lines;
+        lastSource = null;
+        save(tasks, entries, nextId, isCompressed, nextGeneration);
+    }
+
+    /**
+     * Saves tasks to the file like {@link #write(ArrayList, int, boolean)}, but when the list that made
+     * the changes is also the one that saved last, only the tasks it reports as changed are compared and
+     * journaled. The file itself is still written in full by the encoder, which builds no strings, so a
+     * save makes strings only for the changed tasks.
+     *
+     * @param changes The list's changes since it last saved.
+     * @param nextId The id the next new task will get.
+     * @param isCompressed Whether to write the compressed format.
+     */
+    public void write(TaskChanges changes, int nextId, boolean isCompressed) {
+        assert threadLock.isHeldByCurrentThread() : "The file must be locked to save";
+        if (changes.getSource() != lastSource || generation < 0) {
+            write(changes.getAllTasks(), nextId, isCompressed);
+            lastSource = changes.getSource();
+            return;
+        }
+        StringBuilder entries = new StringBuilder();
+        long nextGeneration = generation + 1;
+        BitSet ids = changes.getChangedIds();
+        for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+            Task task = changes.getTask(id);
+            if (task == null) {
+                if (syncedLines.remove(id) != null) {
+                    appendEntry(entries, nextGeneration, DELETE, Integer.toString(id));
+                }
+            } else {
+                String line = Storage.taskToFileString(task);
+                if (!line.equals(syncedLines.put(id, line))) {
+                    appendEntry(entries, nextGeneration, UPSERT, line);
+                }
+            }
+        }
+        save(changes.getAllTasks(), entries, nextId, isCompressed, nextGeneration);
+    }
+
+    private static void appendEntry(StringBuilder entries, long generation, String kind, String value) {
+        entries.append(generation).append(SEPARATOR).append(kind).append(SEPARATOR).append(value)
+                .append(System.lineSeparator());
+    }
+
+    private void save(ArrayList<Task> tasks, StringBuilder entries, int nextId, boolean isCompressed,
+            long nextGeneration) {
+        if (entries.length() == 0 && generation >= 0) {
+            // Only the format changed, so other instances have nothing to catch up on
+            nextGeneration = generation;
+        } else {
+            appendJournal(entries, nextGeneration - 1);
+        }
+        Storage.saveTasks(tasks, filePath, nextId, isCompressed, nextGeneration);
+        generation = nextGeneration;
+        fileNextId = nextId;
+    }
+
+    private void appendJournal(CharSequence entries, long base) {
+        try {
+            boolean isFresh = !Files.exists(journalPath) || Files.size(journalPath) > MAX_JOURNAL_BYTES;
+            StandardOpenOption mode = isFresh ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+            try (BufferedWriter writer = Files.newBufferedWriter(createParent(journalPath), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+                if (isFresh) {
+                    writer.write(BASE_HEADER + base + System.lineSeparator());
+                }
+                writer.append(entries);
+            }
+            if (isFresh) {
+                journalBase = base;
+            }
+            journalOffset = Files.size(journalPath);
+        } catch (IOException e) {
+            System.out.println(" Error writing task journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the journal entries after the given generation, continuing from where the last read stopped.
+     *
+     * @return The changes, or null if the journal does not cover every generation up to the target.
+     */
+    private List<Change> readJournal(long since, long target) {
+        if (!Files.exists(journalPath)) {
+            return null;
+        }
+        ArrayList<Change> changes = new ArrayList<>();
+        long lastGeneration = since;
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            String header = reader.readLine();
+            if (header == null || !header.startsWith(BASE_HEADER)) {
+                return null;
+            }
+            long base = Long.parseLong(header.substring(BASE_HEADER.length()).trim());
+            if (base > since) {
+                return null;
+            }
+            long size = channel.size();
+            if (base == journalBase && journalOffset > 0 && journalOffset <= size) {
+                // Entries before the offset were read already; only the tail is new
+                channel.position(journalOffset);
+                reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+            }
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] parts = line.split(" \\| ", 3);
+                if (parts.length < 3 || line.startsWith("#")) {
+                    continue;
+                }
+                long entryGeneration = Long.parseLong(parts[0]);
+                if (entryGeneration <= since) {
+                    continue;
+                }
+                Change change = parts[1].equals(DELETE)
+                        ? new Change(Integer.parseInt(parts[2].trim()), null)
+                        : Change.of(Storage.parseTaskFromString(parts[2]));
+                if (change != null) {
+                    changes.add(change);
+                }
+                lastGeneration = Math.max(lastGeneration, entryGeneration);
+            }
+            journalBase = base;
+            journalOffset = size;
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+        return lastGeneration == target ? changes : null;
+    }
+
+    private List<Change> diffAgainst(ArrayList<Task> fileTasks) {
+        ArrayList<Change> changes = new ArrayList<>();
+        HashMap<Integer, String> fileLines = linesById(fileTasks);
+        for (Task task : fileTasks) {
+            if (task.getId() > 0 && !fileLines.get(task.getId()).equals(syncedLines.get(task.getId()))) {
+                changes.add(Change.of(task));
+            }
+        }
+        for (Integer id : syncedLines.keySet()) {
+            if (!fileLines.containsKey(id)) {
+                changes.add(new Change(id, null));
+            }
+        }
+        skipToJournalEnd();
+        return changes;
+    }
+
+    private void skipToJournalEnd() {
+        journalBase = -1;
+        journalOffset = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header != null && header.startsWith(BASE_HEADER)) {
+                journalBase = Long.parseLong(header.substring(BASE_HEADER.length()).trim());
+                journalOffset = Files.size(journalPath);
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Without a readable journal, the next catch-up reads from the start or compares the file
+        }
+    }
+
+    private static HashMap<Integer, String> linesById(List<Task> tasks) {
+        HashMap<Integer, String> lines = new HashMap<>(tasks.size() * 2);
+        for (Task task : tasks) {
+            if (task.getId() > 0) {
+                lines.put(task.getId(), Storage.taskToFileString(task));
+            }
+        }
+        return lines;
+    }
+
+    private static Path createParent(Path file) throws IOException {
+        Path directoryPath = file.toAbsolutePath().getParent();
+        if (!Files.exists(directoryPath)) {
+            Files.createDirectories(directoryPath);
+        }
+        return file;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            // Already failing
+        }
+    }
+
+    /**
+     * One task saved or deleted by another instance.
+     */
+    public static class Change {
+        private final int id;
+        private final Task task;
+
+        private Change(int id, Task task) {
+            this.id = id;
+            this.task = task;
+        }
+
+        private static Change of(Task task) {
+            return task == null || task.getId() <= 0 ? null : new Change(task.getId(), task);
+        }
+
+        /**
+         * Returns the id of the changed task.
+         *
+         * @return The task id.
+         */
+        public int getId() {
+            return id;
+        }
+
+        /**
+         * Returns the task as it was saved.
+         *
+         * @return The task, or null if it was deleted.
+         */
+        public Task getTask() {
+            return task;
+        }
+
+        /**
+         * Checks if the task was deleted.
+         *
+         * @return true if deleted, false if added or changed.
+         */
+        public boolean isDeletion() {
+            return task == null;
+        }
+    }
+}
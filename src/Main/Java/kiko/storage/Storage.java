@@ -1,6 +1,6 @@
 package kiko.storage;
+import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -9,10 +9,15 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import kiko.metrics.Metrics;
+import kiko.metrics.StorageEvent;
 import kiko.task.Deadline;
 import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
 import kiko.task.Task;
 import kiko.task.Todo;
 
@@ -21,76 +26,263 @@ import kiko.task.Todo;
  * Uses a relative path that works across different operating systems.
  */
 public class Storage {
-    private static final String FILE_PATH = "./data/kiko.txt";
-    private static final String DIRECTORY_PATH = "./data/";
+    public static final String DIRECTORY_PATH = "./data/";
+    public static final String FILE_PATH = DIRECTORY_PATH + "kiko.txt";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    private static final String NEXT_ID_HEADER = "# next-id ";
+    private static final String GENERATION_HEADER = "# generation ";
+    public static final String COMPRESS_PROPERTY = "kiko.storage.compress";
     
     /**
-     * Saves all tasks to the file.
+     * Saves all tasks to the default file.
      * Creates the directory and file if they don't exist.
      *
      * @param tasks The list of tasks to save.
      */
     public static void saveTasks(ArrayList<Task> tasks) {
+        saveTasks(tasks, FILE_PATH);
+    }
+    
+    /**
+     * Saves all tasks to the given file.
+     * Creates the directory and file if they don't exist.
+     *
+     * @param tasks The list of tasks to save.
+     * @param filePath The file to save to.
+     */
+    public static void saveTasks(ArrayList<Task> tasks, String filePath) {
+        int nextId = 1;
+        for (Task task : tasks) {
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        saveTasks(tasks, filePath, nextId);
+    }
+    
+    /**
+     * Saves all tasks to the given file, recording the next task id in a header line
+     * so that ids of deleted tasks are not handed out again after a restart.
+     * A file already in the compressed format stays compressed, and new files are compressed
+     * when the kiko.storage.compress system property is true.
+     * Creates the directory and file if they don't exist.
+     *
+     * @param tasks The list of tasks to save.
+     * @param filePath The file to save to.
+     * @param nextId The id the next new task will get.
+     */
+    public static void saveTasks(ArrayList<Task> tasks, String filePath, int nextId) {
+        saveTasks(tasks, filePath, nextId, Boolean.getBoolean(COMPRESS_PROPERTY) || isCompressed(filePath));
+    }
+    
+    /**
+     * Saves all tasks to the given file, either as text or in the compressed format.
+     * Creates the directory and file if they don't exist.
+     *
+     * @param tasks The list of tasks to save.
+     * @param filePath The file to save to.
+     * @param nextId The id the next new task will get.
+     * @param isCompressed Whether to write the compressed format.
+     */
+    public static void saveTasks(ArrayList<Task> tasks, String filePath, int nextId, boolean isCompressed) {
+        saveTasks(tasks, filePath, nextId, isCompressed, readGeneration(filePath) + 1);
+    }
+    
+    /**
+     * Saves all tasks to the given file with the given generation in its header.
+     * The generation counts saves, so other Kiko instances can tell that the file changed.
+     * Creates the directory and file if they don't exist.
+     *
+     * @param tasks The list of tasks to save.
+     * @param filePath The file to save to.
+     * @param nextId The id the next new task will get.
+     * @param isCompressed Whether to write the compressed format.
+     * @param generation The generation to record.
+     */
+    public static void saveTasks(ArrayList<Task> tasks, String filePath, int nextId, boolean isCompressed,
+            long generation) {
         assert tasks != null : "Tasks list to save cannot be null";
+        long start = System.nanoTime();
+        StorageEvent event = new StorageEvent("save");
+        event.begin();
         try {
             // Create directory if it doesn't exist
-            Path directoryPath = Paths.get(DIRECTORY_PATH);
+            Path directoryPath = Paths.get(filePath).toAbsolutePath().getParent();
             if (!Files.exists(directoryPath)) {
                 Files.createDirectories(directoryPath);
             }
             
             // Write tasks to file
-            FileWriter writer = new FileWriter(FILE_PATH);
-            for (Task task : tasks) {
-                writer.write(taskToFileString(task) + System.lineSeparator());
-            }
-            writer.close();
+            long bytesWritten = writeTasks(tasks, Paths.get(filePath), nextId, isCompressed, generation);
+            
+            Metrics.add("storage.bytes_written", bytesWritten);
+            Metrics.record("storage.save.bytes", bytesWritten);
+            event.setBytes(bytesWritten);
         } catch (IOException e) {
             System.out.println(" Error saving tasks to file: " + e.getMessage());
         }
+        Metrics.recordSince("storage.save.latency", start);
+        event.setTaskCount(tasks.size());
+        event.commit();
     }
     
     /**
-     * Loads tasks from the file.
+     * Writes all tasks to the given file, throwing rather than reporting errors, for stores that must
+     * know whether a save is complete before relying on it.
+     *
+     * @param tasks The tasks to write.
+     * @param path The file to write, whose directory must exist.
+     * @param nextId The id the next new task will get.
+     * @param isCompressed Whether to write the compressed format.
+     * @param generation The generation to record.
+     * @return The number of bytes written.
+     * @throws IOException If the file cannot be written.
+     */
+    static long writeTasks(ArrayList<Task> tasks, Path path, int nextId, boolean isCompressed, long generation)
+            throws IOException {
+        if (isCompressed) {
+            CompressedTaskFile.write(tasks, nextId, generation, path);
+            return Files.size(path);
+        }
+        try (TaskFileEncoder encoder = TaskFileEncoder.open(path)) {
+            encoder.writeHeader(NEXT_ID_HEADER, nextId);
+            encoder.writeHeader(GENERATION_HEADER, generation);
+            for (Task task : tasks) {
+                encoder.writeTask(task);
+            }
+            return encoder.finish();
+        }
+    }
+    
+    /**
+     * Loads tasks from the default file.
      * Returns an empty list if the file doesn't exist.
      *
      * @return List of loaded tasks.
      */
     public static ArrayList<Task> loadTasks() {
+        return loadTasks(FILE_PATH);
+    }
+    
+    /**
+     * Loads tasks from the given file, which may be in either the text or the compressed format.
+     * Returns an empty list if the file doesn't exist.
+     *
+     * @param filePath The file to load from.
+     * @return List of loaded tasks.
+     */
+    public static ArrayList<Task> loadTasks(String filePath) {
         ArrayList<Task> tasks = new ArrayList<>();
-        File file = new File(FILE_PATH);
+        File file = new File(filePath);
         
         if (!file.exists()) {
             // File doesn't exist yet - return empty list
             return tasks;
         }
         
+        StorageEvent event = new StorageEvent("load");
+        event.begin();
         try {
-            List<String> lines = Files.readAllLines(Paths.get(FILE_PATH));
-            for (String line : lines) {
-                Task task = parseTaskFromString(line);
-                if (task != null) {
-                    tasks.add(task);
+            if (isCompressed(filePath)) {
+                tasks = CompressedTaskFile.read(Paths.get(filePath));
+            } else {
+                List<String> lines = Files.readAllLines(Paths.get(filePath));
+                for (String line : lines) {
+                    if (line.startsWith("#")) {
+                        continue;
+                    }
+                    Task task = parseTaskFromString(line);
+                    if (task != null) {
+                        tasks.add(task);
+                    }
                 }
             }
+            event.setBytes(file.length());
         } catch (IOException e) {
             System.out.println(" Error loading tasks from file: " + e.getMessage());
         }
+        event.setTaskCount(tasks.size());
+        event.commit();
         
         return tasks;
     }
     
+    /**
+     * Reads the next task id recorded in the header of the given file.
+     *
+     * @param filePath The file to read.
+     * @return The recorded next id, or 1 if the file has no header or does not exist.
+     */
+    public static int readNextId(String filePath) {
+        if (isCompressed(filePath)) {
+            try {
+                return CompressedTaskFile.readNextId(Paths.get(filePath));
+            } catch (IOException e) {
+                return 1;
+            }
+        }
+        try (BufferedReader reader = Files.newBufferedReader(Paths.get(filePath))) {
+            String firstLine = reader.readLine();
+            if (firstLine != null && firstLine.startsWith(NEXT_ID_HEADER)) {
+                return Integer.parseInt(firstLine.substring(NEXT_ID_HEADER.length()).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            // A missing file or a damaged header falls back to ids derived from the tasks themselves
+        }
+        return 1;
+    }
+    
+    /**
+     * Reads the generation recorded in the header of the given file.
+     *
+     * @param filePath The file to read.
+     * @return The recorded generation, or 0 if the file has none or does not exist.
+     */
+    public static long readGeneration(String filePath) {
+        try {
+            if (isCompressed(filePath)) {
+                return CompressedTaskFile.readGeneration(Paths.get(filePath));
+            }
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(filePath))) {
+                // The generation follows the next id header
+                for (int i = 0; i < 2; i++) {
+                    String line = reader.readLine();
+                    if (line != null && line.startsWith(GENERATION_HEADER)) {
+                        return Long.parseLong(line.substring(GENERATION_HEADER.length()).trim());
+                    }
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // A missing file or a damaged header counts as never saved
+        }
+        return 0;
+    }
+    
+    /**
+     * Checks if the given file is in the compressed format.
+     *
+     * @param filePath The file to check.
+     * @return true if the file exists and is compressed, false otherwise.
+     */
+    public static boolean isCompressed(String filePath) {
+        return CompressedTaskFile.isCompressed(Paths.get(filePath));
+    }
+    
     /**
      * Converts a task to a string representation for file storage.
-     * Format: T | 1 | read book
-     *         D | 0 | return book | 2019-12-02 1800
-     *         E | 0 | project meeting | 2019-08-06 1400 | 2019-08-06 1600
+     * Tasks with an id are prefixed by it.
+     * Format: 1 | T | 1 | read book
+     *         2 | D | 0 | return book | 2019-12-02 1800
+     *         3 | E | 0 | project meeting | 2019-08-06 1400 | 2019-08-06 1600
+     *         4 | R | 0 | team standup | 2019-08-05 0930 | FREQ=WEEKLY;INTERVAL=1
      *
      * @param task The task to convert.
      * @return String representation for file storage.
      */
-    private static String taskToFileString(Task task) {
+    public static String taskToFileString(Task task) {
+        String prefix = task.getId() > 0 ? task.getId() + " | " : "";
+        return prefix + taskFieldsToFileString(task);
+    }
+    
+    private static String taskFieldsToFileString(Task task) {
         String type = task.getTypeIcon();
         String status = task.isDone() ? "1" : "0";
         String description = task.getDescription();
@@ -103,6 +295,9 @@ public class Storage {
         } else if (task instanceof Event) {
             Event event = (Event) task;
             return type + " | " + status + " | " + description + " | " + event.getFromForStorage() + " | " + event.getToForStorage();
+        } else if (task instanceof Recurring) {
+            Recurring recurring = (Recurring) task;
+            return type + " | " + status + " | " + description + " | " + recurring.getStartForStorage() + " | " + recurring.getRuleForStorage();
         }
         
         return "";
@@ -110,6 +305,7 @@ public class Storage {
     
     /**
      * Parses a task from a string representation in the file.
+     * Lines written before tasks had ids have no leading id field and still parse.
      *
      * @param line The line from the file.
      * @return The parsed Task, or null if parsing fails.
@@ -117,6 +313,11 @@ public class Storage {
     public static Task parseTaskFromString(String line) {
         try {
             String[] parts = line.split(" \\| ");
+            int id = 0;
+            if (parts.length > 0 && parts[0].trim().matches("\\d+")) {
+                id = Integer.parseInt(parts[0].trim());
+                parts = Arrays.copyOfRange(parts, 1, parts.length);
+            }
             
             if (parts.length < 3) {
                 return null;
@@ -148,11 +349,20 @@ public class Storage {
                     task = new Event(description, fromDateTime, toDateTime);
                 }
                 break;
+            case "R":
+                if (parts.length >= 5) {
+                    LocalDateTime startDateTime = LocalDateTime.parse(parts[3].trim(), DATE_FORMATTER);
+                    task = new Recurring(description, Recurrence.parse(parts[4].trim(), startDateTime));
+                }
+                break;
             }
             
             if (task != null && isDone) {
                 task.markAsDone();
             }
+            if (task != null && id > 0) {
+                task.setId(id);
+            }
             
             return task;
         } catch (DateTimeParseException e) {
@@ -0,0 +1,42 @@
+package kiko.storage;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import kiko.task.Task;
+
+/**
+ * The tasks a list added, changed or deleted since it last saved, read straight from the list.
+ * A store that keeps tasks by id can save these without looking at the rest of the list.
+ */
+public interface TaskChanges {
+    /**
+     * Returns the ids of the tasks added, changed or deleted since the list last saved.
+     *
+     * @return The changed ids. The caller must not modify them.
+     */
+    BitSet getChangedIds();
+
+    /**
+     * Returns the task with the given id as it is now.
+     *
+     * @param id The task id.
+     * @return The task, or null if it was deleted.
+     */
+    Task getTask(int id);
+
+    /**
+     * Returns every task in list order, for stores that rewrite the whole list.
+     *
+     * @return A new list of the tasks.
+     */
+    ArrayList<Task> getAllTasks();
+
+    /**
+     * Returns the list the changes were made to. The changes only describe what is stored
+     * if that list was also the last one saved to the store.
+     *
+     * @return The list.
+     */
+    Object getSource();
+}
@@ -0,0 +1,91 @@
+package kiko.storage;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.function.Consumer;
+
+/**
+ * Watches a directory of task files for saves made by other Kiko instances.
+ * Every coordinated save appends to the file's journal, so only journal changes are reported.
+ * Reported files are marked stale in {@link SharedTaskFile}; until then, checking them for
+ * changes costs nothing, not even a read of the file header.
+ */
+public class TaskFileWatcher {
+    private final Path directory;
+    private final Consumer<String> onChange;
+    private WatchService watchService;
+    private Thread worker;
+
+    /**
+     * Constructs a TaskFileWatcher.
+     *
+     * @param directory The directory holding the task files.
+     * @param onChange Receives the path of each task file that may have changed, on the watcher's thread.
+     */
+    public TaskFileWatcher(Path directory, Consumer<String> onChange) {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.onChange = onChange;
+    }
+
+    /**
+     * Starts the daemon thread that watches the directory.
+     *
+     * @throws IOException If the directory cannot be watched.
+     */
+    public synchronized void start() throws IOException {
+        if (worker != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        worker = new Thread(this::watchForever, "kiko-file-watcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops watching.
+     */
+    public synchronized void stop() {
+        if (worker == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.out.println(" Error stopping file watcher: " + e.getMessage());
+        }
+        worker = null;
+    }
+
+    private void watchForever() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    String fileName = event.context().toString();
+                    if (fileName.endsWith(SharedTaskFile.JOURNAL_SUFFIX)) {
+                        int suffixStart = fileName.length() - SharedTaskFile.JOURNAL_SUFFIX.length();
+                        String filePath = directory.resolve(fileName.substring(0, suffixStart)).toString();
+                        SharedTaskFile.of(filePath).markStale();
+                        onChange.accept(filePath);
+                    }
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package kiko.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+import kiko.task.Task;
+
+/**
+ * A place a task list is kept between runs.
+ * Implementations decide how much of the list a save has to write: a text file is rewritten
+ * whole, while a store that can find the changed tasks writes only those.
+ * The engine used for task files is chosen with the kiko.storage system property:
+ * journal (the default), file, btree, events or memory.
+ */
+public interface TaskStore extends AutoCloseable {
+    String ENGINE_PROPERTY = "kiko.storage";
+
+    /**
+     * Opens the store for a task file with the configured engine.
+     * A file already in the B+tree format is always opened as one, like compressed files stay compressed,
+     * and the btree engine converts other task files on first open. Likewise a file with an event log
+     * is always opened with it, and the events engine takes other task files as its first snapshot.
+     *
+     * @param filePath The task file.
+     * @return The store.
+     * @throws UncheckedIOException If the file cannot be opened. The list is not kept in memory
+     *     instead, since changes made to it would be lost without the user knowing.
+     */
+    static TaskStore open(String filePath) {
+        String engine = System.getProperty(ENGINE_PROPERTY, "journal");
+        if (engine.equals("btree") || BTreeTaskStore.isBTreeFile(filePath)) {
+            try {
+                return BTreeTaskStore.open(filePath);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open task file " + filePath + ": " + e.getMessage(), e);
+            }
+        }
+        if (engine.equals("events") || EventLogTaskStore.hasLog(filePath)) {
+            return new EventLogTaskStore(filePath);
+        }
+        switch (engine) {
+        case "memory":
+            return InMemoryTaskStore.of(filePath);
+        case "file":
+            return new TextTaskStore(filePath);
+        case "journal":
+        default:
+            return new JournalTaskStore(filePath);
+        }
+    }
+
+    /**
+     * Loads every task.
+     *
+     * @return The tasks in list order, or an empty list if nothing is stored yet.
+     */
+    ArrayList<Task> load();
+
+    /**
+     * Returns the id the next task added to the list will get, as of the last load or write.
+     *
+     * @return The next task id.
+     */
+    int getNextId();
+
+    /**
+     * Saves the list. Errors are reported rather than thrown, as the list in memory stays usable.
+     *
+     * @param tasks Every task, in list order.
+     * @param nextId The id the next new task will get.
+     */
+    void write(ArrayList<Task> tasks, int nextId);
+
+    /**
+     * Saves the changes a list made since it last saved. Stores that keep tasks by id write only the
+     * changed tasks when the list is the one that saved last; other stores write every task.
+     *
+     * @param changes The changes, read from the list.
+     * @param nextId The id the next new task will get.
+     */
+    default void write(TaskChanges changes, int nextId) {
+        write(changes.getAllTasks(), nextId);
+    }
+
+    /**
+     * Saves the list taking as little space as the store can, for example by compressing it.
+     * Later saves keep the space saving where possible.
+     *
+     * @param tasks Every task, in list order.
+     * @param nextId The id the next new task will get.
+     */
+    default void compact(ArrayList<Task> tasks, int nextId) {
+        write(tasks, nextId);
+    }
+
+    /**
+     * Returns the file the tasks are kept in.
+     *
+     * @return The file path, or null if the tasks are kept in memory only.
+     */
+    String getFilePath();
+
+    /**
+     * Returns the shared file other Kiko instances may save to at the same time.
+     * When there is one, saves must lock it and merge its external changes first.
+     *
+     * @return The shared file, or null if the store is not shared.
+     */
+    default SharedTaskFile getSharedFile() {
+        return null;
+    }
+
+    /**
+     * Releases any file the store holds open.
+     */
+    @Override
+    void close();
+}
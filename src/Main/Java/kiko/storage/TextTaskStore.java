@@ -0,0 +1,53 @@
+package kiko.storage;
+
+import java.util.ArrayList;
+
+import kiko.task.Task;
+
+/**
+ * Keeps a task list in a text or compressed file through the static methods of {@link Storage}.
+ * Every save rewrites the whole file, without coordinating with other Kiko instances.
+ */
+public class TextTaskStore implements TaskStore {
+    private final String filePath;
+
+    /**
+     * Constructs a TextTaskStore.
+     *
+     * @param filePath The task file.
+     */
+    public TextTaskStore(String filePath) {
+        assert filePath != null : "File path cannot be null";
+        this.filePath = filePath;
+    }
+
+    @Override
+    public ArrayList<Task> load() {
+        return Storage.loadTasks(filePath);
+    }
+
+    @Override
+    public int getNextId() {
+        return Storage.readNextId(filePath);
+    }
+
+    @Override
+    public void write(ArrayList<Task> tasks, int nextId) {
+        Storage.saveTasks(tasks, filePath, nextId);
+    }
+
+    @Override
+    public void compact(ArrayList<Task> tasks, int nextId) {
+        Storage.saveTasks(tasks, filePath, nextId, true);
+    }
+
+    @Override
+    public String getFilePath() {
+        return filePath;
+    }
+
+    @Override
+    public void close() {
+        // Nothing is held open between saves
+    }
+}
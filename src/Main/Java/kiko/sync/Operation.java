@@ -0,0 +1,81 @@
+package kiko.sync;
+
+/**
+ * One change to a synced task list, as recorded in a replica's operation log.
+ * Every operation carries a Lamport timestamp, so operations from different replicas can be put
+ * in an order every replica agrees on, and a sequence number counting the operations of its
+ * origin replica, so replicas can tell which operations the other side is missing.
+ */
+class Operation implements Comparable<Operation> {
+    /**
+     * The kinds of change a task can go through.
+     */
+    enum Kind {
+        ADD, MARK, UNMARK, DELETE
+    }
+
+    private static final String SEPARATOR = " | ";
+
+    final String origin;
+    final long sequence;
+    final long lamport;
+    final Kind kind;
+    final String key;
+    // The task's storage line for ADD, empty otherwise
+    final String line;
+
+    Operation(String origin, long sequence, long lamport, Kind kind, String key, String line) {
+        this.origin = origin;
+        this.sequence = sequence;
+        this.lamport = lamport;
+        this.kind = kind;
+        this.key = key;
+        this.line = line;
+    }
+
+    /**
+     * Returns the operation as a log line. The origin is given by the log file it is written to.
+     *
+     * @return The log line.
+     */
+    String toLogLine() {
+        return sequence + SEPARATOR + lamport + SEPARATOR + kind + SEPARATOR + key
+                + (line.isEmpty() ? "" : SEPARATOR + line);
+    }
+
+    /**
+     * Parses a line of an origin's operation log.
+     *
+     * @param origin The replica whose log the line is from.
+     * @param logLine The line.
+     * @return The operation.
+     * @throws IllegalArgumentException If the line is not a valid operation.
+     */
+    static Operation parse(String origin, String logLine) throws IllegalArgumentException {
+        String[] parts = logLine.split(" \\| ", 5);
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("Invalid operation: " + logLine);
+        }
+        return new Operation(origin, Long.parseLong(parts[0]), Long.parseLong(parts[1]), Kind.valueOf(parts[2]),
+                parts[3], parts.length > 4 ? parts[4] : "");
+    }
+
+    /**
+     * Checks if this operation happened after another, by Lamport time and then by origin.
+     *
+     * @param lamport The other operation's Lamport timestamp.
+     * @param origin The other operation's origin.
+     * @return true if this operation is the later one.
+     */
+    boolean isAfter(long lamport, String origin) {
+        return this.lamport != lamport ? this.lamport > lamport : this.origin.compareTo(origin) > 0;
+    }
+
+    @Override
+    public int compareTo(Operation other) {
+        if (lamport != other.lamport) {
+            return Long.compare(lamport, other.lamport);
+        }
+        return origin.compareTo(other.origin);
+    }
+}
@@ -0,0 +1,392 @@
+package kiko.sync;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import kiko.storage.Storage;
+import kiko.task.Task;
+
+/**
+ * The sync state of one task file: its replica id, Lamport clock, operation logs and what it
+ * knows about every task that has ever been synced.
+ * State is kept in a directory next to the task file, holding one append-only log per origin
+ * replica and a state file with the version vector (the highest sequence number held from each
+ * origin) and a record per task.
+ * Merging is conflict-free: each task is added once under a key unique to its origin, its done
+ * status is a last-writer-wins register ordered by Lamport time, and deletion is final.
+ * The clock never runs behind the wall clock in milliseconds, and marks and unmarks keep the time
+ * they were made at (see {@link SyncStamps}), so the later of two changes made on different
+ * replicas wins whichever order the replicas sync in.
+ */
+class Replica {
+    static final String DIRECTORY_SUFFIX = ".sync";
+    private static final String STATE_FILE = "state";
+    private static final String LOG_PREFIX = "log-";
+    static final String STAMPS_FILE = "stamps";
+
+    private final Path directory;
+    private String id;
+    private long clock;
+    private boolean isNew;
+    private final Map<String, Long> seen = new HashMap<>();
+    private final Map<String, TaskRecord> records = new LinkedHashMap<>();
+
+    /**
+     * What a replica knows about one synced task.
+     */
+    static class TaskRecord {
+        final String key;
+        // The task's id in this replica's task file, or 0 until the task has been added to it
+        int localId;
+        final String line;
+        boolean isDone;
+        long doneLamport;
+        String doneOrigin;
+        boolean isDeleted;
+
+        private TaskRecord(String key, int localId, String line, boolean isDone, long doneLamport, String doneOrigin) {
+            this.key = key;
+            this.localId = localId;
+            this.line = line;
+            this.isDone = isDone;
+            this.doneLamport = doneLamport;
+            this.doneOrigin = doneOrigin;
+        }
+    }
+
+    private Replica(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens the sync state of a task file, creating a new replica if it has never been synced.
+     *
+     * @param filePath The task file.
+     * @return The replica.
+     * @throws IOException If the state cannot be read.
+     */
+    static Replica open(String filePath) throws IOException {
+        Replica replica = new Replica(Paths.get(filePath + DIRECTORY_SUFFIX));
+        Path statePath = replica.directory.resolve(STATE_FILE);
+        if (!Files.exists(statePath)) {
+            replica.id = UUID.randomUUID().toString().substring(0, 8);
+            replica.isNew = true;
+            return replica;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(statePath, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                replica.readStateLine(line.split(" ", 3));
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Sync state is damaged: " + statePath);
+        }
+        if (replica.id == null) {
+            throw new IOException("Sync state has no replica id: " + statePath);
+        }
+        return replica;
+    }
+
+    private void readStateLine(String[] fields) {
+        switch (fields[0]) {
+        case "replica":
+            id = fields[1];
+            clock = Long.parseLong(fields[2]);
+            break;
+        case "seen":
+            seen.put(fields[1], Long.parseLong(fields[2]));
+            break;
+        case "task":
+            // The line may contain spaces, so it comes last
+            String[] values = fields[2].split(" ", 6);
+            TaskRecord record = new TaskRecord(fields[1], Integer.parseInt(values[0]), values[5],
+                    values[1].equals("1"), Long.parseLong(values[2]), values[3]);
+            record.isDeleted = values[4].equals("1");
+            records.put(record.key, record);
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Saves the clock, version vector and task records.
+     *
+     * @throws IOException If the state cannot be written.
+     */
+    void save() throws IOException {
+        Files.createDirectories(directory);
+        Path temporaryPath = directory.resolve(STATE_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+            writer.write("replica " + id + " " + clock + System.lineSeparator());
+            for (Map.Entry<String, Long> entry : seen.entrySet()) {
+                writer.write("seen " + entry.getKey() + " " + entry.getValue() + System.lineSeparator());
+            }
+            for (TaskRecord record : records.values()) {
+                writer.write("task " + record.key + " " + record.localId + " " + (record.isDone ? 1 : 0) + " "
+                        + record.doneLamport + " " + record.doneOrigin + " " + (record.isDeleted ? 1 : 0)
+                        + " " + record.line + System.lineSeparator());
+            }
+        }
+        Files.move(temporaryPath, directory.resolve(STATE_FILE), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns whether the task file has never been synced before.
+     *
+     * @return True if the replica was created by {@link #open}.
+     */
+    boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Returns the highest sequence number this replica holds from each origin.
+     *
+     * @return The version vector.
+     */
+    Map<String, Long> getSeen() {
+        return Collections.unmodifiableMap(seen);
+    }
+
+    /**
+     * Records the changes made to the task file since it was last synced as new operations,
+     * by comparing its tasks with the task records.
+     *
+     * @param tasks The tasks now in the file.
+     * @return The number of new operations.
+     * @throws IOException If the operations cannot be logged.
+     */
+    int recordLocalChanges(List<Task> tasks) throws IOException {
+        Map<Integer, long[]> stamps = readStamps();
+        HashMap<Integer, Task> tasksById = new HashMap<>(tasks.size() * 2);
+        for (Task task : tasks) {
+            tasksById.put(task.getId(), task);
+        }
+        ArrayList<Operation> operations = new ArrayList<>();
+        for (TaskRecord record : records.values()) {
+            if (record.isDeleted || record.localId == 0) {
+                continue;
+            }
+            Task task = tasksById.remove(record.localId);
+            if (task == null) {
+                record.isDeleted = true;
+                operations.add(newOperation(Operation.Kind.DELETE, record.key, ""));
+            } else if (task.isDone() != record.isDone) {
+                // A stamp made after the last change this replica knows of is when the user made this one
+                long[] stamp = stamps.get(record.localId);
+                long lamport = stamp != null && (stamp[0] == 1) == task.isDone()
+                        ? Math.max(stamp[1], record.doneLamport + 1)
+                        : tick();
+                Operation operation = newOperation(task.isDone() ? Operation.Kind.MARK : Operation.Kind.UNMARK,
+                        record.key, "", lamport);
+                record.isDone = task.isDone();
+                record.doneLamport = operation.lamport;
+                record.doneOrigin = id;
+                operations.add(operation);
+            }
+        }
+        // Whatever is left was added since the last sync; iterate in list order to keep it
+        for (Task task : tasks) {
+            if (tasksById.containsKey(task.getId())) {
+                Operation operation = newOperation(Operation.Kind.ADD, id + "." + task.getId(),
+                        Storage.taskToFileString(task));
+                records.put(operation.key, new TaskRecord(operation.key, task.getId(), operation.line,
+                        task.isDone(), operation.lamport, id));
+                operations.add(operation);
+            }
+        }
+        appendToLog(id, operations);
+        Files.deleteIfExists(directory.resolve(STAMPS_FILE));
+        return operations.size();
+    }
+
+    /**
+     * Reads when each task was last marked or unmarked, as noted by {@link SyncStamps}.
+     * Damaged lines are skipped, which only makes the sync order those changes by its own time.
+     *
+     * @return The done status (1 or 0) and time of the latest stamp of each task id.
+     */
+    private Map<Integer, long[]> readStamps() throws IOException {
+        HashMap<Integer, long[]> stamps = new HashMap<>();
+        Path stampsPath = directory.resolve(STAMPS_FILE);
+        if (!Files.exists(stampsPath)) {
+            return stamps;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(stampsPath, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] fields = line.split(" ");
+                try {
+                    stamps.put(Integer.parseInt(fields[0]),
+                            new long[] {Long.parseLong(fields[1]), Long.parseLong(fields[2])});
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    continue;
+                }
+            }
+        }
+        return stamps;
+    }
+
+    /**
+     * Matches the tasks of a file that has never been synced to the tasks another replica already
+     * knows, so two copies of the same file do not add each other's tasks again on their first sync.
+     * Tasks match when they are the same apart from their id and done status. A matched task takes
+     * over the other replica's record, so only a difference in its done status is synced.
+     *
+     * @param other The replica to match against, with its own local changes already recorded.
+     * @param tasks The tasks in this replica's file.
+     */
+    void matchExisting(Replica other, List<Task> tasks) {
+        assert isNew && records.isEmpty() : "Only a replica's first sync should match tasks by content";
+        HashMap<String, ArrayDeque<TaskRecord>> unmatched = new HashMap<>();
+        for (TaskRecord record : other.records.values()) {
+            if (!record.isDeleted) {
+                unmatched.computeIfAbsent(contentOf(record.line), content -> new ArrayDeque<>()).add(record);
+            }
+        }
+        for (Task task : tasks) {
+            ArrayDeque<TaskRecord> candidates = unmatched.get(contentOf(Storage.taskToFileString(task)));
+            if (candidates == null || candidates.isEmpty()) {
+                continue;
+            }
+            TaskRecord record = candidates.poll();
+            records.put(record.key, new TaskRecord(record.key, task.getId(), record.line, record.isDone,
+                    record.doneLamport, record.doneOrigin));
+        }
+    }
+
+    /**
+     * Returns a task line without its id and done status.
+     */
+    private static String contentOf(String line) {
+        String[] fields = line.split(" \\| ", 4);
+        return fields.length < 4 ? line : fields[1] + " | " + fields[3];
+    }
+
+    private long tick() {
+        return Math.max(clock + 1, System.currentTimeMillis());
+    }
+
+    private Operation newOperation(Operation.Kind kind, String key, String line) {
+        return newOperation(kind, key, line, tick());
+    }
+
+    private Operation newOperation(Operation.Kind kind, String key, String line, long lamport) {
+        long sequence = seen.getOrDefault(id, 0L) + 1;
+        seen.put(id, sequence);
+        clock = Math.max(clock, lamport);
+        return new Operation(id, sequence, lamport, kind, key, line);
+    }
+
+    /**
+     * Returns the operations this replica holds that another replica has not seen yet.
+     *
+     * @param otherSeen The other replica's version vector.
+     * @return The missing operations, oldest first by Lamport time.
+     * @throws IOException If a log cannot be read.
+     */
+    List<Operation> operationsSince(Map<String, Long> otherSeen) throws IOException {
+        ArrayList<Operation> operations = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : seen.entrySet()) {
+            String origin = entry.getKey();
+            long after = otherSeen.getOrDefault(origin, 0L);
+            if (entry.getValue() <= after) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(logPath(origin), StandardCharsets.UTF_8)) {
+                // Sequence numbers are dense, so the line number is the sequence number
+                for (long skipped = 0; skipped < after; skipped++) {
+                    reader.readLine();
+                }
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    operations.add(Operation.parse(origin, line));
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Operation log is damaged: " + logPath(origin));
+            }
+        }
+        Collections.sort(operations);
+        return operations;
+    }
+
+    /**
+     * Merges operations from another replica into the task records and logs them.
+     * Operations already held are skipped.
+     *
+     * @param operations The operations, oldest first by Lamport time.
+     * @return The records of the tasks the operations touched.
+     * @throws IOException If the operations cannot be logged.
+     */
+    List<TaskRecord> receive(List<Operation> operations) throws IOException {
+        LinkedHashMap<String, TaskRecord> touched = new LinkedHashMap<>();
+        HashMap<String, List<Operation>> newByOrigin = new HashMap<>();
+        // A stamped mark can come before an older operation of its origin, so compare with what was held before
+        HashMap<String, Long> seenBefore = new HashMap<>(seen);
+        for (Operation operation : operations) {
+            if (operation.sequence <= seenBefore.getOrDefault(operation.origin, 0L)) {
+                continue;
+            }
+            seen.merge(operation.origin, operation.sequence, Math::max);
+            clock = Math.max(clock, operation.lamport);
+            newByOrigin.computeIfAbsent(operation.origin, origin -> new ArrayList<>()).add(operation);
+
+            TaskRecord record = records.get(operation.key);
+            if (operation.kind == Operation.Kind.ADD) {
+                if (record == null) {
+                    Task task = Storage.parseTaskFromString(operation.line);
+                    record = new TaskRecord(operation.key, 0, operation.line, task != null && task.isDone(),
+                            operation.lamport, operation.origin);
+                    records.put(record.key, record);
+                }
+            } else if (record == null) {
+                // Causal order puts every task's ADD first, so this only happens with damaged logs
+                continue;
+            } else if (operation.kind == Operation.Kind.DELETE) {
+                record.isDeleted = true;
+            } else if (operation.isAfter(record.doneLamport, record.doneOrigin)) {
+                record.isDone = operation.kind == Operation.Kind.MARK;
+                record.doneLamport = operation.lamport;
+                record.doneOrigin = operation.origin;
+            }
+            touched.put(record.key, record);
+        }
+        for (Map.Entry<String, List<Operation>> entry : newByOrigin.entrySet()) {
+            // Logs are kept in sequence order, so line numbers stay sequence numbers
+            entry.getValue().sort(Comparator.comparingLong(operation -> operation.sequence));
+            appendToLog(entry.getKey(), entry.getValue());
+        }
+        return new ArrayList<>(touched.values());
+    }
+
+    private void appendToLog(String origin, List<Operation> operations) throws IOException {
+        if (operations.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (BufferedWriter writer = Files.newBufferedWriter(logPath(origin), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (Operation operation : operations) {
+                writer.write(operation.toLogLine() + System.lineSeparator());
+            }
+        }
+    }
+
+    private Path logPath(String origin) {
+        return directory.resolve(LOG_PREFIX + origin);
+    }
+}
@@ -0,0 +1,162 @@
+package kiko.sync;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import kiko.storage.Storage;
+import kiko.storage.TaskStore;
+import kiko.task.Task;
+import kiko.tasklist.TaskList;
+
+/**
+ * Synchronises two copies of a task list, such as the same list in two data directories.
+ * Each copy turns its changes since the last sync into operations, then each receives only the
+ * operations the other has and it lacks, as told by their version vectors, and applies them.
+ * Both copies end up with the same tasks, done statuses and deletions.
+ */
+public class SyncEngine {
+    /**
+     * The outcome of a sync.
+     */
+    public static class Result {
+        private final int sentCount;
+        private final int receivedCount;
+
+        private Result(int sentCount, int receivedCount) {
+            this.sentCount = sentCount;
+            this.receivedCount = receivedCount;
+        }
+
+        /**
+         * Returns the number of operations sent to the other copy.
+         *
+         * @return The sent operation count.
+         */
+        public int getSentCount() {
+            return sentCount;
+        }
+
+        /**
+         * Returns the number of operations received from the other copy.
+         *
+         * @return The received operation count.
+         */
+        public int getReceivedCount() {
+            return receivedCount;
+        }
+    }
+
+    /**
+     * Synchronises a task list with the copy in another task file, creating that file if needed.
+     * The other file is opened with the configured storage engine, so a Kiko running on it picks up the changes.
+     *
+     * @param local The task list to sync.
+     * @param otherFilePath The task file holding the other copy.
+     * @return How many operations went each way.
+     * @throws IOException If either copy's sync state cannot be read or written.
+     */
+    public static Result sync(TaskList local, String otherFilePath) throws IOException {
+        assert local.getFilePath() != null : "Lists kept in memory have no sync state";
+        try (TaskStore otherStore = TaskStore.open(otherFilePath)) {
+            return sync(local, new TaskList(otherStore), otherFilePath);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Result sync(TaskList local, TaskList other, String otherFilePath) throws IOException {
+        Replica localReplica = Replica.open(local.getFilePath());
+        Replica otherReplica = Replica.open(otherFilePath);
+
+        // A copy that has never been synced matches its tasks to the other copy's first, so two copies
+        // of the same file do not each add the other's tasks again
+        if (localReplica.isNew() && !otherReplica.isNew()) {
+            recordLocalChanges(otherReplica, other, localReplica, local);
+        } else {
+            recordLocalChanges(localReplica, local, otherReplica, other);
+        }
+        List<Operation> toOther = localReplica.operationsSince(otherReplica.getSeen());
+        List<Operation> toLocal = otherReplica.operationsSince(localReplica.getSeen());
+
+        apply(otherReplica.receive(toOther), other);
+        apply(localReplica.receive(toLocal), local);
+        localReplica.save();
+        otherReplica.save();
+        return new Result(toOther.size(), toLocal.size());
+    }
+
+    private static void recordLocalChanges(Replica first, TaskList firstList, Replica second, TaskList secondList)
+            throws IOException {
+        first.recordLocalChanges(firstList.getAllTasksArrayList());
+        ArrayList<Task> secondTasks = secondList.getAllTasksArrayList();
+        if (second.isNew()) {
+            second.matchExisting(first, secondTasks);
+        }
+        second.recordLocalChanges(secondTasks);
+    }
+
+    /**
+     * Brings a task list in line with the merged records of the tasks some operations touched.
+     * Each kind of change is applied as one bulk operation, so the list is saved at most four times.
+     */
+    private static void apply(List<Replica.TaskRecord> records, TaskList taskList) {
+        ArrayList<Integer> toMark = new ArrayList<>();
+        ArrayList<Integer> toUnmark = new ArrayList<>();
+        ArrayList<Integer> toDelete = new ArrayList<>();
+        ArrayList<Replica.TaskRecord> toAdd = new ArrayList<>();
+        for (Replica.TaskRecord record : records) {
+            int index = record.localId == 0 ? -1 : taskList.indexOfId(record.localId);
+            if (record.isDeleted) {
+                if (index != -1) {
+                    toDelete.add(index);
+                }
+            } else if (index == -1) {
+                if (record.localId == 0) {
+                    toAdd.add(record);
+                }
+            } else if (taskList.getTask(index).isDone() != record.isDone) {
+                (record.isDone ? toMark : toUnmark).add(index);
+            }
+        }
+
+        if (!toMark.isEmpty()) {
+            taskList.markTasks(sortedArray(toMark));
+        }
+        if (!toUnmark.isEmpty()) {
+            taskList.unmarkTasks(sortedArray(toUnmark));
+        }
+        if (!toDelete.isEmpty()) {
+            taskList.deleteTasks(sortedArray(toDelete));
+        }
+
+        ArrayList<Task> newTasks = new ArrayList<>(toAdd.size());
+        ArrayList<Replica.TaskRecord> addedRecords = new ArrayList<>(toAdd.size());
+        for (Replica.TaskRecord record : toAdd) {
+            Task task = Storage.parseTaskFromString(record.line);
+            if (task == null) {
+                continue;
+            }
+            if (record.isDone) {
+                task.markAsDone();
+            } else {
+                task.markAsNotDone();
+            }
+            newTasks.add(task);
+            addedRecords.add(record);
+        }
+        taskList.addAll(newTasks.iterator());
+        // Adding gave the tasks ids in this list; remember them so later local changes can be traced
+        for (int i = 0; i < newTasks.size(); i++) {
+            addedRecords.get(i).localId = newTasks.get(i).getId();
+        }
+    }
+
+    private static int[] sortedArray(List<Integer> indices) {
+        int[] array = indices.stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(array);
+        return array;
+    }
+}
@@ -0,0 +1,62 @@
+package kiko.sync;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+import kiko.history.HistoryListener;
+import kiko.task.Task;
+
+/**
+ * Notes when each task of a synced list is marked or unmarked, so the next sync orders the change
+ * by when it was made rather than by when the sync ran.
+ * Stamps are appended to a file in the list's sync directory and used up by the next sync.
+ * Lists that have never been synced are left alone, since their first sync adds every task as it is.
+ */
+public class SyncStamps implements HistoryListener {
+    private final Path syncDirectory;
+
+    /**
+     * Creates the stamps of a task file.
+     *
+     * @param filePath The task file.
+     */
+    public SyncStamps(String filePath) {
+        this.syncDirectory = Paths.get(filePath + Replica.DIRECTORY_SUFFIX);
+    }
+
+    @Override
+    public void onTasksChanged(Task[] removed, Task[] added) {
+        if (removed.length == 0 || added.length == 0 || !Files.isDirectory(syncDirectory)) {
+            return;
+        }
+        HashMap<Integer, Boolean> wasDone = new HashMap<>(removed.length * 2);
+        for (Task task : removed) {
+            wasDone.put(task.getId(), task.isDone());
+        }
+        long now = System.currentTimeMillis();
+        StringBuilder stamps = new StringBuilder();
+        for (Task task : added) {
+            Boolean before = wasDone.get(task.getId());
+            if (before != null && before != task.isDone()) {
+                stamps.append(task.getId()).append(' ').append(task.isDone() ? 1 : 0).append(' ').append(now)
+                        .append(System.lineSeparator());
+            }
+        }
+        if (stamps.length() == 0) {
+            return;
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(syncDirectory.resolve(Replica.STAMPS_FILE),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(stamps.toString());
+        } catch (IOException e) {
+            // The next sync then orders the change by when it ran
+            System.out.println(" Error noting status changes for sync: " + e.getMessage());
+        }
+    }
+}
@@ -71,4 +71,32 @@ public class Deadline extends Task {
     public String getByForStorage() {
         return by.format(INPUT_FORMATTER);
     }
+    
+    /**
+     * Returns a copy of this Deadline task.
+     *
+     * @return A new Deadline with the same id, description, deadline and status.
+     */
+    @Override
+    public Task copy() {
+        Deadline copy = new Deadline(description, by);
+        copy.id = id;
+        if (isDone()) {
+            copy.markAsDone();
+        }
+        return copy;
+    }
+    
+    /**
+     * Checks if another task is a Deadline with the same content and deadline.
+     *
+     * @param other The task to compare against.
+     * @return true if both tasks hold the same content, false otherwise.
+     */
+    @Override
+    public boolean hasSameContent(Task other) {
+        return other instanceof Deadline
+                && super.hasSameContent(other)
+                && by.equals(((Deadline) other).by);
+    }
 }
\ No newline at end of file
@@ -94,4 +94,33 @@ public class Event extends Task {
     public String getToForStorage() {
         return to.format(INPUT_FORMATTER);
     }
+    
+    /**
+     * Returns a copy of this Event task.
+     *
+     * @return A new Event with the same id, description, times and status.
+     */
+    @Override
+    public Task copy() {
+        Event copy = new Event(description, from, to);
+        copy.id = id;
+        if (isDone()) {
+            copy.markAsDone();
+        }
+        return copy;
+    }
+    
+    /**
+     * Checks if another task is an Event with the same content and times.
+     *
+     * @param other The task to compare against.
+     * @return true if both tasks hold the same content, false otherwise.
+     */
+    @Override
+    public boolean hasSameContent(Task other) {
+        return other instanceof Event
+                && super.hasSameContent(other)
+                && from.equals(((Event) other).from)
+                && to.equals(((Event) other).to);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,289 @@
+package kiko.task;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A rule describing when a recurring task happens, modelled on a subset of the iCalendar RRULE:
+ * a frequency, an interval, a start, and optionally a count or an end date.
+ * Occurrences are computed on demand from the rule and are never stored.
+ * The n-th occurrence is always derived from the start, so monthly rules starting on the 31st
+ * fall on the last day of shorter months without drifting afterwards.
+ */
+public class Recurrence {
+    private static final DateTimeFormatter UNTIL_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmm");
+    private static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a");
+
+    /**
+     * How often a rule repeats, before its interval is applied.
+     */
+    public enum Frequency {
+        DAILY(ChronoUnit.DAYS, "day"),
+        WEEKLY(ChronoUnit.WEEKS, "week"),
+        MONTHLY(ChronoUnit.MONTHS, "month"),
+        YEARLY(ChronoUnit.YEARS, "year");
+
+        private final ChronoUnit unit;
+        private final String unitName;
+
+        Frequency(ChronoUnit unit, String unitName) {
+            this.unit = unit;
+            this.unitName = unitName;
+        }
+
+        /**
+         * Returns the frequency for a unit word such as "week", "weeks" or "weekly".
+         *
+         * @param word The unit word.
+         * @return The matching frequency.
+         * @throws IllegalArgumentException If the word names no frequency.
+         */
+        public static Frequency fromUnit(String word) throws IllegalArgumentException {
+            String lowerWord = word.toLowerCase();
+            for (Frequency frequency : values()) {
+                if (lowerWord.equals(frequency.unitName) || lowerWord.equals(frequency.unitName + "s")
+                        || lowerWord.equals(frequency.name().toLowerCase())) {
+                    return frequency;
+                }
+            }
+            throw new IllegalArgumentException("Unknown repeat unit: " + word);
+        }
+    }
+
+    private final Frequency frequency;
+    private final int interval;
+    private final LocalDateTime start;
+    private final int count;
+    private final LocalDateTime until;
+
+    /**
+     * Constructs a Recurrence.
+     *
+     * @param frequency How often the rule repeats.
+     * @param interval The number of frequency units between occurrences.
+     * @param start The first occurrence.
+     * @param count The number of occurrences, or 0 for no limit.
+     * @param until The last time an occurrence may fall on, or null for no limit.
+     * @throws IllegalArgumentException If the interval or count is not valid.
+     */
+    public Recurrence(Frequency frequency, int interval, LocalDateTime start, int count, LocalDateTime until)
+            throws IllegalArgumentException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Repeat interval must be at least 1");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Repeat count cannot be negative");
+        }
+        assert frequency != null && start != null : "Frequency and start cannot be null";
+        this.frequency = frequency;
+        this.interval = interval;
+        this.start = start;
+        this.count = count;
+        this.until = until;
+    }
+
+    /**
+     * Parses a rule in the storage form, such as FREQ=WEEKLY;INTERVAL=2;COUNT=10 or
+     * FREQ=MONTHLY;UNTIL=20271231T2359.
+     *
+     * @param rule The rule text.
+     * @param start The first occurrence.
+     * @return The parsed Recurrence.
+     * @throws IllegalArgumentException If the rule is not understood.
+     */
+    public static Recurrence parse(String rule, LocalDateTime start) throws IllegalArgumentException {
+        Frequency frequency = null;
+        int interval = 1;
+        int count = 0;
+        LocalDateTime until = null;
+        try {
+            for (String part : rule.trim().split(";")) {
+                String[] keyValue = part.split("=", 2);
+                if (keyValue.length != 2) {
+                    throw new IllegalArgumentException("Invalid rule part: " + part);
+                }
+                String value = keyValue[1].trim();
+                switch (keyValue[0].trim().toUpperCase()) {
+                case "FREQ":
+                    frequency = Frequency.valueOf(value.toUpperCase());
+                    break;
+                case "INTERVAL":
+                    interval = Integer.parseInt(value);
+                    break;
+                case "COUNT":
+                    count = Integer.parseInt(value);
+                    break;
+                case "UNTIL":
+                    until = LocalDateTime.parse(value.toUpperCase(), UNTIL_FORMATTER);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown rule part: " + part);
+                }
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid rule: " + rule);
+        }
+        if (frequency == null) {
+            throw new IllegalArgumentException("Rule has no FREQ: " + rule);
+        }
+        return new Recurrence(frequency, interval, start, count, until);
+    }
+
+    /**
+     * Returns the rule in the storage form read by {@link #parse(String, LocalDateTime)}.
+     * The start is stored separately.
+     *
+     * @return The rule text.
+     */
+    public String toRule() {
+        StringBuilder rule = new StringBuilder("FREQ=").append(frequency.name()).append(";INTERVAL=").append(interval);
+        if (count > 0) {
+            rule.append(";COUNT=").append(count);
+        }
+        if (until != null) {
+            rule.append(";UNTIL=").append(until.format(UNTIL_FORMATTER));
+        }
+        return rule.toString();
+    }
+
+    /**
+     * Returns a readable description of the rule, such as "every 2 weeks, 10 times".
+     *
+     * @return The description.
+     */
+    public String describe() {
+        StringBuilder description = new StringBuilder("every ");
+        if (interval > 1) {
+            description.append(interval).append(" ").append(frequency.unitName).append("s");
+        } else {
+            description.append(frequency.unitName);
+        }
+        if (count > 0) {
+            description.append(", ").append(count).append(count == 1 ? " time" : " times");
+        }
+        if (until != null) {
+            description.append(", until ").append(until.format(DISPLAY_FORMATTER));
+        }
+        return description.toString();
+    }
+
+    /**
+     * Returns the first occurrence of the rule.
+     *
+     * @return The start.
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Returns how often the rule repeats.
+     *
+     * @return The frequency.
+     */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns the number of frequency units between occurrences.
+     *
+     * @return The interval.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the number of occurrences.
+     *
+     * @return The count, or 0 for no limit.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the last time an occurrence may fall on.
+     *
+     * @return The end, or null for no limit.
+     */
+    public LocalDateTime getUntil() {
+        return until;
+    }
+
+    /**
+     * Returns the first occurrence at or after the given time.
+     * Jumps straight to the right occurrence instead of stepping through earlier ones.
+     *
+     * @param from The earliest time to consider.
+     * @return The occurrence, or null if the rule has ended by then.
+     */
+    public LocalDateTime nextOccurrence(LocalDateTime from) {
+        long number = 0;
+        if (from.isAfter(start)) {
+            // between() rounds down, so this lands at most a couple of occurrences early
+            number = frequency.unit.between(start, from) / interval;
+        }
+        LocalDateTime occurrence = occurrence(number);
+        while (occurrence != null && occurrence.isBefore(from)) {
+            occurrence = occurrence(++number);
+        }
+        return occurrence;
+    }
+
+    /**
+     * Checks if any occurrence lies in the given range.
+     *
+     * @param lower The inclusive lower bound, or null for none.
+     * @param upper The exclusive upper bound, or null for none.
+     * @return true if an occurrence lies in the range, false otherwise.
+     */
+    public boolean hasOccurrenceBetween(LocalDateTime lower, LocalDateTime upper) {
+        LocalDateTime occurrence = nextOccurrence(lower == null ? start : lower);
+        return occurrence != null && (upper == null || occurrence.isBefore(upper));
+    }
+
+    /**
+     * Returns a lazy iterator over the occurrences at or after the given time, in order.
+     * Rules without a count or end date produce an endless iterator.
+     *
+     * @param from The earliest time to consider.
+     * @return The iterator.
+     */
+    public Iterator<LocalDateTime> occurrencesFrom(LocalDateTime from) {
+        return new Iterator<>() {
+            private LocalDateTime next = nextOccurrence(from);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public LocalDateTime next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                LocalDateTime current = next;
+                next = nextOccurrence(current.plusSeconds(1));
+                return current;
+            }
+        };
+    }
+
+    private LocalDateTime occurrence(long number) {
+        if (count > 0 && number >= count) {
+            return null;
+        }
+        LocalDateTime occurrence = start.plus(number * interval, frequency.unit);
+        if (until != null && occurrence.isAfter(until)) {
+            return null;
+        }
+        return occurrence;
+    }
+}
@@ -0,0 +1,138 @@
+package kiko.task;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+/**
+ * Represents a task that repeats according to a rule, such as a weekly meeting.
+ * Only the rule is stored; occurrences are generated from it when needed.
+ */
+public class Recurring extends Task {
+    private final Recurrence recurrence;
+    private final Clock clock;
+    private static final DateTimeFormatter INPUT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    private static final DateTimeFormatter DISPLAY_FORMATTER = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a");
+
+    /**
+     * Constructs a Recurring task with description and rule.
+     *
+     * @param description The description of the Recurring task.
+     * @param recurrence The rule the task repeats by.
+     */
+    public Recurring(String description, Recurrence recurrence) {
+        this(description, recurrence, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a Recurring task whose next occurrence is shown relative to the given clock.
+     *
+     * @param description The description of the Recurring task.
+     * @param recurrence The rule the task repeats by.
+     * @param clock The clock that decides which occurrence is next.
+     */
+    public Recurring(String description, Recurrence recurrence, Clock clock) {
+        super(description);
+        this.recurrence = recurrence;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the type icon for Recurring tasks.
+     *
+     * @return "R" representing Recurring.
+     */
+    @Override
+    public String getTypeIcon() {
+        return "R";
+    }
+
+    /**
+     * Returns additional information for Recurring tasks.
+     * Includes the rule and the next occurrence from the current time of the task's clock.
+     *
+     * @return String containing the recurrence information.
+     */
+    @Override
+    public String getAdditionalInfo() {
+        LocalDateTime next = getNextOccurrence(LocalDateTime.now(clock));
+        String nextInfo = next == null ? "no more occurrences" : "next: " + next.format(DISPLAY_FORMATTER);
+        return " (" + recurrence.describe() + ", " + nextInfo + ")";
+    }
+
+    /**
+     * Returns the rule this task repeats by.
+     *
+     * @return The recurrence rule.
+     */
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Returns the first occurrence at or after the given time.
+     *
+     * @param from The earliest time to consider.
+     * @return The occurrence, or null if the task no longer recurs by then.
+     */
+    public LocalDateTime getNextOccurrence(LocalDateTime from) {
+        return recurrence.nextOccurrence(from);
+    }
+
+    /**
+     * Returns a lazy iterator over the occurrences at or after the given time.
+     *
+     * @param from The earliest time to consider.
+     * @return The iterator, which may be endless.
+     */
+    public Iterator<LocalDateTime> occurrencesFrom(LocalDateTime from) {
+        return recurrence.occurrencesFrom(from);
+    }
+
+    /**
+     * Returns the first occurrence as a formatted string for storage.
+     *
+     * @return The start in yyyy-MM-dd HHmm format.
+     */
+    public String getStartForStorage() {
+        return recurrence.getStart().format(INPUT_FORMATTER);
+    }
+
+    /**
+     * Returns the rule as a string for storage.
+     *
+     * @return The rule, such as FREQ=WEEKLY;INTERVAL=1.
+     */
+    public String getRuleForStorage() {
+        return recurrence.toRule();
+    }
+
+    /**
+     * Returns a copy of this Recurring task.
+     *
+     * @return A new Recurring with the same id, description, rule, clock and status.
+     */
+    @Override
+    public Task copy() {
+        Recurring copy = new Recurring(description, recurrence, clock);
+        copy.id = id;
+        if (isDone()) {
+            copy.markAsDone();
+        }
+        return copy;
+    }
+
+    /**
+     * Checks if another task is a Recurring task with the same content and rule.
+     *
+     * @param other The task to compare against.
+     * @return true if both tasks hold the same content, false otherwise.
+     */
+    @Override
+    public boolean hasSameContent(Task other) {
+        return other instanceof Recurring
+                && super.hasSameContent(other)
+                && recurrence.getStart().equals(((Recurring) other).recurrence.getStart())
+                && getRuleForStorage().equals(((Recurring) other).getRuleForStorage());
+    }
+}
@@ -6,6 +6,7 @@ package kiko.task;
 public abstract class Task {
     protected final String description;
     protected boolean isDone;
+    protected int id;
     
     /**
      * Constructs a Task with the given description.
@@ -36,6 +37,25 @@ public abstract class Task {
         return isDone;
     }
     
+    /**
+     * Returns the stable id of the task, assigned when it joins a task list.
+     *
+     * @return The task id, or 0 if the task has not been given one yet.
+     */
+    public int getId() {
+        return id;
+    }
+    
+    /**
+     * Sets the stable id of the task.
+     *
+     * @param id The positive task id.
+     */
+    public void setId(int id) {
+        assert id > 0 : "Task id must be positive";
+        this.id = id;
+    }
+    
     /**
      * Marks the task as done.
      */
@@ -66,6 +86,29 @@ public abstract class Task {
      */
     public abstract String getAdditionalInfo();
     
+    /**
+     * Returns an independent copy of this task, including its id and done status.
+     * Must be implemented by subclasses.
+     *
+     * @return A copy of the task.
+     */
+    public abstract Task copy();
+    
+    /**
+     * Checks if another task has the same id, type, status, description and dates as this task.
+     * Subclasses with dates extend this check.
+     *
+     * @param other The task to compare against.
+     * @return true if both tasks hold the same content, false otherwise.
+     */
+    public boolean hasSameContent(Task other) {
+        return other != null
+                && getId() == other.getId()
+                && getTypeIcon().equals(other.getTypeIcon())
+                && isDone() == other.isDone()
+                && getDescription().equals(other.getDescription());
+    }
+    
     /**
      * Returns a string representation of the task.
      * Format: [TypeIcon][Status] Description AdditionalInfo
@@ -74,6 +117,6 @@ public abstract class Task {
      */
     @Override
     public String toString() {
-        return "[" + getTypeIcon() + "][" + (isDone ? "X" : " ") + "] " + description + getAdditionalInfo();
+        return "[" + getTypeIcon() + "][" + (isDone() ? "X" : " ") + "] " + getDescription() + getAdditionalInfo();
     }
 }
\ No newline at end of file
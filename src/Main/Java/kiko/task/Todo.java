@@ -33,4 +33,19 @@ public class Todo extends Task {
     public String getTypeIcon() {
         return "T";
     }
+    
+    /**
+     * Returns a copy of this Todo task.
+     *
+     * @return A new Todo with the same id, description and status.
+     */
+    @Override
+    public Task copy() {
+        Todo copy = new Todo(description);
+        copy.id = id;
+        if (isDone()) {
+            copy.markAsDone();
+        }
+        return copy;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package kiko.tasklist;
+
+import java.util.Arrays;
+
+/**
+ * Tracks which slots of a tombstoned list hold live tasks, using a Fenwick tree.
+ * Converts between 0-based slots and 1-based positions among live slots in O(log n),
+ * so deleting a task only clears its slot instead of shifting every later task.
+ */
+class LiveSlots {
+    private int[] tree = new int[16];
+    private int size;
+
+    /**
+     * Appends a slot at the end.
+     *
+     * @param isLive Whether the new slot holds a live task.
+     */
+    void append(boolean isLive) {
+        int index = ++size;
+        if (index >= tree.length) {
+            tree = Arrays.copyOf(tree, tree.length * 2);
+        }
+        // A Fenwick node covers (index - lowbit, index], so it starts as the sum of the covered slots before it
+        int lowBit = index & -index;
+        tree[index] = (isLive ? 1 : 0) + prefixCount(index - 1) - prefixCount(index - lowBit);
+    }
+
+    /**
+     * Marks a live slot as dead.
+     *
+     * @param slot The 0-based slot to clear.
+     */
+    void clear(int slot) {
+        for (int i = slot + 1; i <= size; i += i & -i) {
+            tree[i]--;
+        }
+    }
+
+    /**
+     * Returns the 1-based position of a live slot among all live slots.
+     *
+     * @param slot The 0-based slot.
+     * @return The number of live slots up to and including this one.
+     */
+    int positionOf(int slot) {
+        return prefixCount(slot + 1);
+    }
+
+    /**
+     * Returns the slot holding the live task at the given 1-based position.
+     *
+     * @param position The 1-based position among live slots.
+     * @return The 0-based slot.
+     */
+    int slotAt(int position) {
+        int index = 0;
+        int remaining = position;
+        for (int step = Integer.highestOneBit(Math.max(1, size)); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next <= size && tree[next] < remaining) {
+                index = next;
+                remaining -= tree[next];
+            }
+        }
+        return index;
+    }
+
+    private int prefixCount(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
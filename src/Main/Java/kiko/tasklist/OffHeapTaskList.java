@@ -0,0 +1,559 @@
+package kiko.tasklist;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * A task list that keeps its task records in off-heap memory.
+ * Records live in a direct ByteBuffer arena, so the heap only holds the arena handle
+ * and a primitive offset table no matter how many tasks are stored.
+ * Tasks are read back either as materialized copies or through a reusable flyweight view,
+ * keeping their ids and types. Deleting a task only tombstones its slot, like {@link TaskList} does,
+ * and the record stays in the arena until {@link #compact()} is called.
+ * Index is 1-based (first task is index 1), matching {@link TaskList}.
+ */
+public class OffHeapTaskList {
+    private static final int DEFAULT_CAPACITY = 64 * 1024;
+    private static final int INITIAL_SLOTS = 1024;
+
+    // Record layout: type | done | id | from/by/start | to | description length | rule length
+    //                | description bytes | rule bytes
+    private static final int TYPE_OFFSET = 0;
+    private static final int DONE_OFFSET = 1;
+    private static final int ID_OFFSET = 2;
+    private static final int FIRST_TIME_OFFSET = 6;
+    private static final int SECOND_TIME_OFFSET = 14;
+    private static final int LENGTH_OFFSET = 22;
+    private static final int RULE_LENGTH_OFFSET = 26;
+    private static final int HEADER_SIZE = 30;
+    private static final int DELETED = -1;
+
+    private static final byte TYPE_TODO = 'T';
+    private static final byte TYPE_DEADLINE = 'D';
+    private static final byte TYPE_EVENT = 'E';
+    private static final byte TYPE_RECURRING = 'R';
+    private static final byte[] NO_RULE = new byte[0];
+
+    private ByteBuffer arena;
+    // The record offset of every slot, DELETED for deleted tasks until the next compaction
+    private int[] offsets;
+    private LiveSlots liveSlots = new LiveSlots();
+    private int slotCount;
+    private int size;
+    private int garbageBytes;
+    // The slot of every task id, plus one so that 0 means the id is not in the list
+    private int[] slotById = new int[0];
+
+    /**
+     * Constructs an empty OffHeapTaskList with the default arena capacity.
+     */
+    public OffHeapTaskList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty OffHeapTaskList with the given initial arena capacity in bytes.
+     *
+     * @param capacity The initial arena capacity in bytes.
+     */
+    public OffHeapTaskList(int capacity) {
+        assert capacity > 0 : "Arena capacity must be positive";
+        this.arena = ByteBuffer.allocateDirect(capacity);
+        this.offsets = new int[INITIAL_SLOTS];
+    }
+
+    /**
+     * Constructs an OffHeapTaskList holding copies of the given tasks.
+     *
+     * @param tasks The tasks to copy into off-heap memory.
+     */
+    public OffHeapTaskList(List<Task> tasks) {
+        this();
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    /**
+     * Appends a copy of the given task to the list.
+     *
+     * @param task The task to add.
+     * @throws IllegalArgumentException If the task is of a type the arena cannot hold.
+     */
+    public void add(Task task) throws IllegalArgumentException {
+        assert task != null : "Task to add cannot be null";
+        int offset = encode(task);
+        ensureSlotCapacity();
+        int slot = slotCount++;
+        offsets[slot] = offset;
+        setSlotOfId(task.getId(), slot);
+        liveSlots.append(true);
+        size++;
+    }
+
+    /**
+     * Stores the given task in place of the task with the same id, keeping its position,
+     * or appends it if no task has that id. A task that only changed its done status
+     * has its status byte flipped without writing a new record.
+     *
+     * @param task The task to store.
+     * @throws IllegalArgumentException If the task is of a type the arena cannot hold.
+     */
+    public void put(Task task) throws IllegalArgumentException {
+        assert task != null : "Task to put cannot be null";
+        int slot = slotOf(task.getId());
+        if (slot < 0) {
+            add(task);
+            return;
+        }
+        int oldOffset = offsets[slot];
+        int newOffset = encode(task);
+        int oldSize = recordSize(oldOffset);
+        if (oldSize == recordSize(newOffset) && isSameExceptDone(oldOffset, newOffset, oldSize)) {
+            arena.put(oldOffset + DONE_OFFSET, arena.get(newOffset + DONE_OFFSET));
+            arena.position(newOffset);
+            return;
+        }
+        offsets[slot] = newOffset;
+        garbageBytes += oldSize;
+    }
+
+    /**
+     * Deletes the task with the given id, leaving a tombstone in its slot like {@link #deleteTask(int)}.
+     *
+     * @param id The id of the task to delete.
+     * @return true if a task was deleted, false if no task has that id.
+     */
+    public boolean deleteById(int id) {
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return false;
+        }
+        deleteSlot(slot);
+        return true;
+    }
+
+    /**
+     * Removes every task, keeping the arena's memory for the tasks added next.
+     */
+    public void clear() {
+        arena.clear();
+        slotById = new int[0];
+        liveSlots = new LiveSlots();
+        slotCount = 0;
+        size = 0;
+        garbageBytes = 0;
+    }
+
+    /**
+     * Returns the number of tasks in the list.
+     *
+     * @return The total count of tasks.
+     */
+    public int getTaskCount() {
+        return size;
+    }
+
+    /**
+     * Marks a task as done by flipping its status byte in place.
+     *
+     * @param index The 1-based index of the task to mark.
+     * @return true if the task was successfully marked, false if index is invalid.
+     */
+    public boolean markTask(int index) {
+        return setDone(index, true);
+    }
+
+    /**
+     * Marks a task as not done by flipping its status byte in place.
+     *
+     * @param index The 1-based index of the task to unmark.
+     * @return true if the task was successfully unmarked, false if index is invalid.
+     */
+    public boolean unmarkTask(int index) {
+        return setDone(index, false);
+    }
+
+    /**
+     * Retrieves a heap copy of the task at the given index.
+     *
+     * @param index The 1-based index of the task to retrieve.
+     * @return A materialized copy of the task, or null if index is invalid.
+     */
+    public Task getTask(int index) {
+        if (!isValidIndex(index)) {
+            return null;
+        }
+        return materialize(offsetAt(index));
+    }
+
+    /**
+     * Deletes a task from the list in O(log n), leaving a tombstone in its slot.
+     * The record stays in the arena as garbage until the next compaction.
+     *
+     * @param index The 1-based index of the task to delete.
+     * @return A materialized copy of the deleted task, or null if index is invalid.
+     */
+    public Task deleteTask(int index) {
+        if (!isValidIndex(index)) {
+            return null;
+        }
+        int slot = liveSlots.slotAt(index);
+        Task deletedTask = materialize(offsets[slot]);
+        deleteSlot(slot);
+        return deletedTask;
+    }
+
+    /**
+     * Points the given flyweight view at the task at the given index.
+     * The same view can be reused across calls to avoid allocating per task.
+     *
+     * @param index The 1-based index of the task to view.
+     * @param view The view to reposition.
+     * @return The repositioned view, or null if index is invalid.
+     */
+    public TaskView view(int index, TaskView view) {
+        if (!isValidIndex(index)) {
+            return null;
+        }
+        view.offset = offsetAt(index);
+        return view;
+    }
+
+    /**
+     * Creates a new flyweight view over this list.
+     * The view is unpositioned until passed to {@link #view(int, TaskView)}.
+     *
+     * @return A new unpositioned view.
+     */
+    public TaskView newView() {
+        return new TaskView();
+    }
+
+    /**
+     * Finds tasks that contain the given keyword in their description.
+     *
+     * @param keyword The keyword to search for.
+     * @return An array of materialized matching tasks, or empty array if none found.
+     */
+    public Task[] findTasks(String keyword) {
+        ArrayList<Task> matchingTasks = new ArrayList<>();
+        String lowerKeyword = keyword.toLowerCase();
+        for (int i = 0; i < slotCount; i++) {
+            if (offsets[i] != DELETED && readDescription(offsets[i]).toLowerCase().contains(lowerKeyword)) {
+                matchingTasks.add(materialize(offsets[i]));
+            }
+        }
+        return matchingTasks.toArray(new Task[0]);
+    }
+
+    /**
+     * Returns heap copies of all tasks in the list.
+     *
+     * @return An ArrayList containing materialized copies of all tasks.
+     */
+    public ArrayList<Task> toArrayList() {
+        ArrayList<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < slotCount; i++) {
+            if (offsets[i] != DELETED) {
+                tasks.add(materialize(offsets[i]));
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the number of arena bytes held by deleted records.
+     *
+     * @return The reclaimable byte count.
+     */
+    public int getGarbageBytes() {
+        return garbageBytes;
+    }
+
+    /**
+     * Returns the number of arena bytes in use, including garbage.
+     *
+     * @return The used byte count.
+     */
+    public int getUsedBytes() {
+        return arena.position();
+    }
+
+    /**
+     * Copies all live records into a fresh arena, dropping deleted records and their tombstones.
+     * Views obtained before compaction must be repositioned afterwards.
+     */
+    public void compact() {
+        if (garbageBytes == 0 && slotCount == size) {
+            return;
+        }
+        int liveBytes = arena.position() - garbageBytes;
+        ByteBuffer compacted = ByteBuffer.allocateDirect(Math.max(liveBytes, DEFAULT_CAPACITY));
+        int liveCount = 0;
+        for (int i = 0; i < slotCount; i++) {
+            int offset = offsets[i];
+            if (offset == DELETED) {
+                continue;
+            }
+            ByteBuffer record = arena.duplicate();
+            record.limit(offset + recordSize(offset)).position(offset);
+            setSlotOfId(arena.getInt(offset + ID_OFFSET), liveCount);
+            offsets[liveCount++] = compacted.position();
+            compacted.put(record);
+        }
+        arena = compacted;
+        slotCount = liveCount;
+        liveSlots = new LiveSlots();
+        for (int i = 0; i < liveCount; i++) {
+            liveSlots.append(true);
+        }
+        garbageBytes = 0;
+    }
+
+    private void deleteSlot(int slot) {
+        int offset = offsets[slot];
+        garbageBytes += recordSize(offset);
+        setSlotOfId(arena.getInt(offset + ID_OFFSET), DELETED);
+        offsets[slot] = DELETED;
+        liveSlots.clear(slot);
+        size--;
+    }
+
+    /**
+     * Writes the given task as a new record at the end of the arena.
+     *
+     * @return The record offset.
+     */
+    private int encode(Task task) throws IllegalArgumentException {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        byte[] rule = NO_RULE;
+        long first = 0;
+        long second = 0;
+        byte type;
+        if (task instanceof Todo) {
+            type = TYPE_TODO;
+        } else if (task instanceof Deadline) {
+            type = TYPE_DEADLINE;
+            first = toEpochSecond(((Deadline) task).getBy());
+        } else if (task instanceof Event) {
+            type = TYPE_EVENT;
+            first = toEpochSecond(((Event) task).getFrom());
+            second = toEpochSecond(((Event) task).getTo());
+        } else if (task instanceof Recurring) {
+            type = TYPE_RECURRING;
+            Recurrence recurrence = ((Recurring) task).getRecurrence();
+            first = toEpochSecond(recurrence.getStart());
+            rule = recurrence.toRule().getBytes(StandardCharsets.UTF_8);
+        } else {
+            throw new IllegalArgumentException("Cannot store a task of type " + task.getTypeIcon() + " off heap");
+        }
+
+        ensureArenaCapacity(HEADER_SIZE + description.length + rule.length);
+        int offset = arena.position();
+        arena.put(type);
+        arena.put(task.isDone() ? (byte) 1 : (byte) 0);
+        arena.putInt(task.getId());
+        arena.putLong(first);
+        arena.putLong(second);
+        arena.putInt(description.length);
+        arena.putInt(rule.length);
+        arena.put(description);
+        arena.put(rule);
+        return offset;
+    }
+
+    private boolean isSameExceptDone(int offset, int otherOffset, int recordSize) {
+        if (arena.get(offset + TYPE_OFFSET) != arena.get(otherOffset + TYPE_OFFSET)) {
+            return false;
+        }
+        int restSize = recordSize - ID_OFFSET;
+        return arena.slice(offset + ID_OFFSET, restSize).equals(arena.slice(otherOffset + ID_OFFSET, restSize));
+    }
+
+    private int slotOf(int id) {
+        return id > 0 && id < slotById.length ? slotById[id] - 1 : DELETED;
+    }
+
+    private void setSlotOfId(int id, int slot) {
+        if (id <= 0) {
+            return;
+        }
+        if (id >= slotById.length) {
+            slotById = Arrays.copyOf(slotById, Math.max(id + 1, slotById.length * 2));
+        }
+        // Stored one higher, so the zeroes of a new array mean no slot
+        slotById[id] = slot + 1;
+    }
+
+    private boolean setDone(int index, boolean isDone) {
+        if (!isValidIndex(index)) {
+            return false;
+        }
+        arena.put(offsetAt(index) + DONE_OFFSET, isDone ? (byte) 1 : (byte) 0);
+        return true;
+    }
+
+    private boolean isValidIndex(int index) {
+        return index >= 1 && index <= size;
+    }
+
+    private int offsetAt(int index) {
+        return offsets[slotCount == size ? index - 1 : liveSlots.slotAt(index)];
+    }
+
+    private int recordSize(int offset) {
+        return HEADER_SIZE + arena.getInt(offset + LENGTH_OFFSET) + arena.getInt(offset + RULE_LENGTH_OFFSET);
+    }
+
+    private String readDescription(int offset) {
+        int length = arena.getInt(offset + LENGTH_OFFSET);
+        byte[] bytes = new byte[length];
+        arena.get(offset + HEADER_SIZE, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String readRule(int offset) {
+        int length = arena.getInt(offset + RULE_LENGTH_OFFSET);
+        byte[] bytes = new byte[length];
+        arena.get(offset + HEADER_SIZE + arena.getInt(offset + LENGTH_OFFSET), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Task materialize(int offset) {
+        String description = readDescription(offset);
+        Task task;
+        switch (arena.get(offset + TYPE_OFFSET)) {
+        case TYPE_DEADLINE:
+            task = new Deadline(description, toDateTime(arena.getLong(offset + FIRST_TIME_OFFSET)));
+            break;
+        case TYPE_EVENT:
+            task = new Event(description, toDateTime(arena.getLong(offset + FIRST_TIME_OFFSET)),
+                    toDateTime(arena.getLong(offset + SECOND_TIME_OFFSET)));
+            break;
+        case TYPE_RECURRING:
+            task = new Recurring(description, Recurrence.parse(readRule(offset),
+                    toDateTime(arena.getLong(offset + FIRST_TIME_OFFSET))));
+            break;
+        case TYPE_TODO:
+        default:
+            task = new Todo(description);
+            break;
+        }
+        if (arena.get(offset + DONE_OFFSET) == 1) {
+            task.markAsDone();
+        }
+        int id = arena.getInt(offset + ID_OFFSET);
+        if (id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    private void ensureArenaCapacity(int recordSize) {
+        if (arena.remaining() >= recordSize) {
+            return;
+        }
+        int newCapacity = Math.max(arena.capacity() * 2, arena.position() + recordSize);
+        ByteBuffer grown = ByteBuffer.allocateDirect(newCapacity);
+        arena.flip();
+        grown.put(arena);
+        arena = grown;
+    }
+
+    private void ensureSlotCapacity() {
+        if (slotCount == offsets.length) {
+            int[] grown = new int[offsets.length * 2];
+            System.arraycopy(offsets, 0, grown, 0, slotCount);
+            offsets = grown;
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * A reusable flyweight view over one off-heap task record.
+     * Reads and status changes go straight to the arena without materializing a heap task.
+     */
+    public class TaskView extends Task {
+        private int offset = -1;
+
+        private TaskView() {
+            super("");
+        }
+
+        @Override
+        public String getDescription() {
+            return readDescription(offset);
+        }
+
+        @Override
+        public int getId() {
+            return arena.getInt(offset + ID_OFFSET);
+        }
+
+        @Override
+        public void setId(int id) {
+            assert id > 0 : "Task id must be positive";
+            int slot = slotOf(getId());
+            if (slot >= 0 && offsets[slot] == offset) {
+                setSlotOfId(getId(), DELETED);
+                setSlotOfId(id, slot);
+            }
+            arena.putInt(offset + ID_OFFSET, id);
+        }
+
+        @Override
+        public boolean isDone() {
+            return arena.get(offset + DONE_OFFSET) == 1;
+        }
+
+        @Override
+        public void markAsDone() {
+            arena.put(offset + DONE_OFFSET, (byte) 1);
+        }
+
+        @Override
+        public void markAsNotDone() {
+            arena.put(offset + DONE_OFFSET, (byte) 0);
+        }
+
+        @Override
+        public String getTypeIcon() {
+            return String.valueOf((char) arena.get(offset + TYPE_OFFSET));
+        }
+
+        @Override
+        public String getAdditionalInfo() {
+            return materialize(offset).getAdditionalInfo();
+        }
+
+        /**
+         * Returns a heap copy of the task this view currently points at.
+         *
+         * @return The materialized task.
+         */
+        @Override
+        public Task copy() {
+            return materialize(offset);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package kiko.tasklist;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import kiko.task.Task;
+
+/**
+ * Filters tasks or task positions with a predicate, splitting large inputs into chunks that are
+ * scanned in parallel on a fork-join pool. Results keep the order of the original list.
+ * Inputs smaller than the threshold are scanned sequentially, since forking costs more than it saves.
+ * The threshold can be set with the kiko.parallelThreshold system property.
+ */
+public class ParallelScan {
+    /**
+     * The smallest input scanned in parallel unless kiko.parallelThreshold says otherwise.
+     * A chunk has to hold a few thousand tasks before its scan outweighs forking and joining it,
+     * so below a few chunks per core a sequential scan wins. ParallelScanBenchmark prints the
+     * crossover for the machine it runs on, and the property can be set to match it.
+     */
+    public static final int DEFAULT_THRESHOLD = 20_000;
+    public static final String THRESHOLD_PROPERTY = "kiko.parallelThreshold";
+    private static final int MIN_CHUNK_SIZE = 4_096;
+    private static final int REJECTED = -1;
+
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a ParallelScan using the configured threshold and the common fork-join pool.
+     */
+    public ParallelScan() {
+        this(Integer.getInteger(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a ParallelScan with the given threshold and pool.
+     *
+     * @param threshold The smallest list size scanned in parallel.
+     * @param pool The pool to run chunks on.
+     */
+    public ParallelScan(int threshold, ForkJoinPool pool) {
+        assert threshold >= 0 : "Threshold cannot be negative";
+        this.threshold = threshold;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the tasks that satisfy the predicate, in list order.
+     *
+     * @param tasks The tasks to scan.
+     * @param predicate The condition to check. It may be called from several threads at once.
+     * @return The matching tasks.
+     */
+    public List<Task> filter(List<Task> tasks, Predicate<Task> predicate) {
+        if (tasks.size() < threshold || pool.getParallelism() < 2) {
+            return scanSequentially(tasks.spliterator(), predicate);
+        }
+        return pool.invoke(new ChunkScan(tasks.spliterator(), predicate));
+    }
+
+    /**
+     * Returns the candidate positions that satisfy the predicate.
+     * Used to check index candidates against the tasks they point at.
+     *
+     * @param candidates The positions to check. It is left unchanged.
+     * @param predicate The condition to check. It may be called from several threads at once.
+     * @return The matching positions.
+     */
+    public BitSet retain(BitSet candidates, IntPredicate predicate) {
+        int count = candidates.cardinality();
+        if (count < threshold || pool.getParallelism() < 2) {
+            BitSet matches = new BitSet(candidates.length());
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                if (predicate.test(i)) {
+                    matches.set(i);
+                }
+            }
+            return matches;
+        }
+        // Chunks overwrite rejected positions in their own part of the array, so they never share a write
+        int[] positions = candidates.stream().toArray();
+        pool.invoke(new PositionScan(positions, 0, positions.length, predicate));
+        BitSet matches = new BitSet(candidates.length());
+        for (int position : positions) {
+            if (position != REJECTED) {
+                matches.set(position);
+            }
+        }
+        return matches;
+    }
+
+    private static List<Task> scanSequentially(Spliterator<Task> chunk, Predicate<Task> predicate) {
+        List<Task> matches = new ArrayList<>();
+        chunk.forEachRemaining(task -> {
+            if (predicate.test(task)) {
+                matches.add(task);
+            }
+        });
+        return matches;
+    }
+
+    /**
+     * Scans one chunk, splitting it in two while it is large enough.
+     * The left half is forked and joined first, so results come back in encounter order.
+     */
+    private static class ChunkScan extends RecursiveTask<List<Task>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Spliterator<Task> chunk;
+        private final Predicate<Task> predicate;
+
+        private ChunkScan(Spliterator<Task> chunk, Predicate<Task> predicate) {
+            this.chunk = chunk;
+            this.predicate = predicate;
+        }
+
+        @Override
+        protected List<Task> compute() {
+            if (chunk.estimateSize() <= MIN_CHUNK_SIZE) {
+                return scanSequentially(chunk, predicate);
+            }
+            // trySplit hands back the prefix of the chunk and keeps the suffix
+            Spliterator<Task> prefix = chunk.trySplit();
+            if (prefix == null) {
+                return scanSequentially(chunk, predicate);
+            }
+            ChunkScan left = new ChunkScan(prefix, predicate);
+            left.fork();
+            List<Task> right = new ChunkScan(chunk, predicate).compute();
+            List<Task> result = left.join();
+            result.addAll(right);
+            return result;
+        }
+    }
+
+    /**
+     * Checks one range of candidate positions, splitting it in two while it is large enough.
+     */
+    private static class PositionScan extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] positions;
+        private final int from;
+        private final int to;
+        private final IntPredicate predicate;
+
+        private PositionScan(int[] positions, int from, int to, IntPredicate predicate) {
+            this.positions = positions;
+            this.from = from;
+            this.to = to;
+            this.predicate = predicate;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= MIN_CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    if (!predicate.test(positions[i])) {
+                        positions[i] = REJECTED;
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PositionScan(positions, from, middle, predicate),
+                    new PositionScan(positions, middle, to, predicate));
+        }
+    }
+}
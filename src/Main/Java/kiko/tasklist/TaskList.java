@@ -3,59 +3,150 @@ import java.util.ArrayList;
 
 import kiko.task.Deadline;
 import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
 import kiko.task.Task;
 import kiko.task.Todo;
-import kiko.storage.Storage;
+import kiko.query.Query;
+import kiko.query.TaskIndexes;
+import kiko.search.FuzzyIndex;
+import kiko.storage.InMemoryTaskStore;
+import kiko.storage.SharedTaskFile;
+import kiko.storage.TaskChanges;
+import kiko.storage.TaskStore;
 
 import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Represents a list of tasks with operations to manage them.
  * Provides methods to add, delete, mark, unmark, and retrieve tasks.
+ * Every task carries a stable id that never changes or gets reused, so it can be addressed
+ * as #id regardless of later deletions. Deleted tasks leave a tombstone in their slot, which
+ * keeps deletion cheap; tombstones are compacted away once they outnumber live tasks.
+ * Every change is saved to the list's {@link TaskStore}, which is told the ids that changed so it need not
+ * look at the rest of the list. When the store is shared with other Kiko instances, changes they saved
+ * to it are merged in instead of being overwritten.
  */
 public class TaskList {
-    private final ArrayList<Task> tasks;
+    private static final ParallelScan SCAN = new ParallelScan();
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+    
+    private ArrayList<Task> slots;
+    private HashMap<Integer, Integer> slotsById;
+    private LiveSlots liveSlots;
+    private int tombstoneCount;
+    private int nextId;
+    private final TaskStore store;
+    private FuzzyIndex fuzzyIndex;
+    private TaskIndexes queryIndexes;
+    // Ids added, changed or deleted since the last save
+    private final BitSet unsavedIds = new BitSet();
+    private final TaskChanges unsavedChanges = new UnsavedChanges();
+    // How many tasks at each end of the list are unchanged since the last markUnchanged
+    private int unchangedPrefix;
+    private int unchangedSuffix;
     
     /**
-     * Constructs an empty TaskList.
+     * Constructs an empty TaskList kept in memory only.
      */
     public TaskList() {
-        tasks = new ArrayList<>();
+        this(new ArrayList<>());
     }
     
     /**
-     * Constructs a TaskList with existing tasks.
+     * Constructs a TaskList with existing tasks, kept in memory only.
      *
      * @param tasks The initial list of tasks.
      */
     public TaskList(ArrayList<Task> tasks) {
-        this.tasks = tasks;
+        this(tasks, new InMemoryTaskStore(), 1);
+    }
+    
+    /**
+     * Constructs a TaskList holding the tasks in the given store.
+     *
+     * @param store The store to load from and save to.
+     */
+    public TaskList(TaskStore store) {
+        this(store.load(), store, store.getNextId());
+    }
+    
+    /**
+     * Constructs a TaskList with existing tasks, saved to the given file.
+     *
+     * @param tasks The initial list of tasks.
+     * @param filePath The file the list is saved to after every change.
+     */
+    public TaskList(ArrayList<Task> tasks, String filePath) {
+        this(tasks, filePath, 1);
+    }
+    
+    /**
+     * Constructs a TaskList with existing tasks, saved to the given file with the configured engine.
+     * Tasks without an id, or with an id already taken, are given fresh ones.
+     *
+     * @param tasks The initial list of tasks.
+     * @param filePath The file the list is saved to after every change.
+     * @param nextId The smallest id that may be given to a new task.
+     */
+    public TaskList(ArrayList<Task> tasks, String filePath, int nextId) {
+        this(tasks, TaskStore.open(filePath), nextId);
+    }
+    
+    /**
+     * Constructs a TaskList with existing tasks, saved to the given store.
+     * Tasks without an id, or with an id already taken, are given fresh ones.
+     *
+     * @param tasks The initial list of tasks.
+     * @param store The store the list is saved to after every change.
+     * @param nextId The smallest id that may be given to a new task.
+     */
+    public TaskList(ArrayList<Task> tasks, TaskStore store, int nextId) {
+        assert store != null : "Store cannot be null";
+        this.store = store;
+        this.nextId = nextId;
+        for (Task task : tasks) {
+            this.nextId = Math.max(this.nextId, task.getId() + 1);
+        }
+        rebuildSlots(tasks);
     }
 
     /**
-     * Copy constructor for deep copying.
+     * Copy constructor for deep copying. Copies keep their ids and save to the same store.
      * 
      * @param other The TaskList to copy.
      */
     public TaskList(TaskList other) {
-        this.tasks = new ArrayList<>();
-        for (Task task : other.tasks) {
-            if (task instanceof Todo) {
-                Todo newTodo = new Todo(task.getDescription());
-                if (task.isDone()) newTodo.markAsDone();
-                this.tasks.add(newTodo);
-            } else if (task instanceof Deadline) {
-                Deadline d = (Deadline) task;
-                Deadline newDeadline = new Deadline(d.getDescription(), d.getBy());
-                if (task.isDone()) newDeadline.markAsDone();
-                this.tasks.add(newDeadline);
-            } else if (task instanceof Event) {
-                Event e = (Event) task;
-                Event newEvent = new Event(e.getDescription(), e.getFrom(), e.getTo());
-                if (task.isDone()) newEvent.markAsDone();
-                this.tasks.add(newEvent);
+        this.store = other.store;
+        this.nextId = other.nextId;
+        ArrayList<Task> tasks = new ArrayList<>(other.getTaskCount());
+        for (Task task : other.slots) {
+            if (task != null) {
+                tasks.add(task.copy());
             }
         }
+        rebuildSlots(tasks);
+    }
+    
+    private void rebuildSlots(ArrayList<Task> tasks) {
+        slots = new ArrayList<>(tasks.size());
+        slotsById = new HashMap<>(tasks.size() * 2);
+        liveSlots = new LiveSlots();
+        tombstoneCount = 0;
+        for (Task task : tasks) {
+            if (task.getId() <= 0 || slotsById.containsKey(task.getId())) {
+                task.setId(nextId++);
+            }
+            slotsById.put(task.getId(), slots.size());
+            slots.add(task);
+            liveSlots.append(true);
+        }
     }
     
     /**
@@ -67,8 +158,7 @@ public class TaskList {
     public void addTask(String taskDescription) {
         // Default behavior - create a Todo task
         assert taskDescription != null : "Task description should not be null";
-        tasks.add(new Todo(taskDescription));
-        saveTasks();
+        addAndSave(new Todo(taskDescription));
     }
     
     /**
@@ -78,8 +168,7 @@ public class TaskList {
      */
     public void addTodo(String description) {
         assert description != null && !description.isEmpty() : "Todo description cannot be empty";
-        tasks.add(new Todo(description));
-        saveTasks();
+        addAndSave(new Todo(description));
     }
     
     /**
@@ -91,8 +180,7 @@ public class TaskList {
     public void addDeadline(String description, LocalDateTime by) {
         assert description != null && !description.isEmpty() : "Deadline description cannot be empty";
         assert by != null : "Deadline date cannot be null";
-        tasks.add(new Deadline(description, by));
-        saveTasks();
+        addAndSave(new Deadline(description, by));
     }
     
     /**
@@ -106,16 +194,140 @@ public class TaskList {
         assert description != null && !description.isEmpty() : "Event description cannot be empty";
         assert from != null : "Event start time cannot be null";
         assert to != null : "Event end time cannot be null";
-        tasks.add(new Event(description, from, to));
-        saveTasks();
+        addAndSave(new Event(description, from, to));
+    }
+    
+    /**
+     * Adds a Recurring task with the given description and rule.
+     *
+     * @param description The description of the Recurring task.
+     * @param recurrence The rule the task repeats by.
+     */
+    public void addRecurring(String description, Recurrence recurrence) {
+        assert description != null && !description.isEmpty() : "Recurring description cannot be empty";
+        assert recurrence != null : "Recurrence rule cannot be null";
+        addAndSave(new Recurring(description, recurrence));
+    }
+    
+    /**
+     * Appends every task from the iterator as one operation, saving the list once at the end.
+     * Each task gets a fresh id. If the iterator fails part way, the tasks read so far are kept and saved.
+     *
+     * @param newTasks The tasks to append, consumed one at a time.
+     * @return The number of tasks appended.
+     */
+    public int addAll(Iterator<Task> newTasks) {
+        int count = 0;
+        try {
+            while (newTasks.hasNext()) {
+                append(newTasks.next());
+                count++;
+            }
+        } finally {
+            if (count > 0) {
+                save();
+            }
+        }
+        return count;
+    }
+    
+    private void addAndSave(Task task) {
+        append(task);
+        save();
+    }
+    
+    private void append(Task task) {
+        task.setId(nextId++);
+        insert(task);
+    }
+    
+    private void insert(Task task) {
+        recordChange(task.getId(), getTaskCount() + 1);
+        nextId = Math.max(nextId, task.getId() + 1);
+        slotsById.put(task.getId(), slots.size());
+        slots.add(task);
+        liveSlots.append(true);
+        if (fuzzyIndex != null) {
+            fuzzyIndex.add(task);
+        }
+        if (queryIndexes != null) {
+            queryIndexes.onTaskAdded(task);
+        }
+    }
+    
+    /**
+     * Records that the task with the given id, at the given 1-based position, is about to change.
+     */
+    private void recordChange(int id, int position) {
+        unsavedIds.set(id);
+        unchangedPrefix = Math.min(unchangedPrefix, position - 1);
+        // Tasks after the position are unchanged; ones added at the end leave none
+        unchangedSuffix = Math.min(unchangedSuffix, Math.max(getTaskCount() - position, 0));
+    }
+    
+    /**
+     * Returns how many tasks at the start of the list are unchanged since {@link #markUnchanged()} was last called.
+     * Later changes and deletions never move these tasks.
+     *
+     * @return The number of leading tasks known to be unchanged, or 0 if nothing is known.
+     */
+    public int getUnchangedPrefix() {
+        return unchangedPrefix;
     }
     
     /**
-     * Returns the internal ArrayList of tasks.
+     * Returns how many tasks at the end of the list are unchanged since {@link #markUnchanged()} was last called.
+     *
+     * @return The number of trailing tasks known to be unchanged, or 0 if nothing is known.
+     */
+    public int getUnchangedSuffix() {
+        return unchangedSuffix;
+    }
+    
+    /**
+     * Starts tracking which tasks change from the current state, as History does after recording it.
+     */
+    public void markUnchanged() {
+        unchangedPrefix = getTaskCount();
+        unchangedSuffix = getTaskCount();
+    }
+    
+    /**
+     * Returns a read-only view of the tasks in list order, without copying them.
+     * The view follows later changes to the list.
+     *
+     * @return The view.
+     */
+    public List<Task> asList() {
+        return new AbstractList<Task>() {
+            @Override
+            public Task get(int i) {
+                Task task = getTask(i + 1);
+                if (task == null) {
+                    throw new IndexOutOfBoundsException("No task at position " + i);
+                }
+                return task;
+            }
+    
+            @Override
+            public int size() {
+                return getTaskCount();
+            }
+        };
+    }
+    
+    /**
+     * Returns the tasks in list order as a new ArrayList.
      * 
-     * @return The ArrayList containing all tasks.
+     * @return An ArrayList containing all tasks.
      */
     public ArrayList<Task> getAllTasksArrayList() {
+        ArrayList<Task> tasks = new ArrayList<>(getTaskCount());
+        for (Task task : slots) {
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
         return tasks;
     }
 
@@ -125,7 +337,7 @@ public class TaskList {
      * @return An array containing all tasks in the list.
      */
     public Task[] getAllTasks() {
-        return tasks.toArray(new Task[0]);
+        return getAllTasksArrayList().toArray(new Task[0]);
     }
     
     /**
@@ -136,10 +348,15 @@ public class TaskList {
      * @return true if the task was successfully marked, false if index is invalid.
      */
     public boolean markTask(int index) {
-        if (index >= 1 && index <= tasks.size()) {
-            assert tasks.get(index - 1) != null : "Task at valid index should not be null";
-            tasks.get(index - 1).markAsDone();
-            saveTasks();
+        if (index >= 1 && index <= getTaskCount()) {
+            int slot = slotOf(index);
+            assert slots.get(slot) != null : "Task at valid index should not be null";
+            recordChange(slots.get(slot).getId(), index);
+            slots.get(slot).markAsDone();
+            if (queryIndexes != null) {
+                queryIndexes.onStatusChanged(slot, true);
+            }
+            save();
             return true;
         }
         return false;
@@ -153,10 +370,15 @@ public class TaskList {
      * @return true if the task was successfully unmarked, false if index is invalid.
      */
     public boolean unmarkTask(int index) {
-        if (index >= 1 && index <= tasks.size()) {
-            assert tasks.get(index - 1) != null : "Task at valid index should not be null";
-            tasks.get(index - 1).markAsNotDone();
-            saveTasks();
+        if (index >= 1 && index <= getTaskCount()) {
+            int slot = slotOf(index);
+            assert slots.get(slot) != null : "Task at valid index should not be null";
+            recordChange(slots.get(slot).getId(), index);
+            slots.get(slot).markAsNotDone();
+            if (queryIndexes != null) {
+                queryIndexes.onStatusChanged(slot, false);
+            }
+            save();
             return true;
         }
         return false;
@@ -168,7 +390,7 @@ public class TaskList {
      * @return The total count of tasks.
      */
     public int getTaskCount() {
-        return tasks.size();
+        return slots.size() - tombstoneCount;
     }
     
     /**
@@ -179,12 +401,43 @@ public class TaskList {
      * @return The task at the specified index, or null if index is invalid.
      */
     public Task getTask(int index) {
-        if (index >= 1 && index <= tasks.size()) {
-            return tasks.get(index - 1);
+        if (index >= 1 && index <= getTaskCount()) {
+            return slots.get(slotOf(index));
         }
         return null;
     }
     
+    /**
+     * Retrieves a task by its stable id.
+     *
+     * @param id The id of the task.
+     * @return The task with that id, or null if no such task exists.
+     */
+    public Task getTaskById(int id) {
+        Integer slot = slotsById.get(id);
+        return slot == null ? null : slots.get(slot);
+    }
+    
+    /**
+     * Returns the current 1-based index of the task with the given id.
+     *
+     * @param id The id of the task.
+     * @return The index of the task, or -1 if no such task exists.
+     */
+    public int indexOfId(int id) {
+        Integer slot = slotsById.get(id);
+        return slot == null ? -1 : positionOf(slot);
+    }
+    
+    /**
+     * Returns the id the next added task will get.
+     *
+     * @return The next task id.
+     */
+    public int getNextId() {
+        return nextId;
+    }
+    
     /**
      * Deletes a task from the list based on its index.
      * Index is 1-based (first task is index 1).
@@ -193,21 +446,254 @@ public class TaskList {
      * @return The deleted task, or null if index is invalid.
      */
     public Task deleteTask(int index) {
-        if (index >= 1 && index <= tasks.size()) {
-            Task deletedTask = tasks.remove(index - 1);
-            saveTasks();
+        if (index >= 1 && index <= getTaskCount()) {
+            Task deletedTask = removeSlot(slotOf(index));
+            compactIfSparse();
+            save();
             return deletedTask;
         }
         return null;
     }
     
     /**
-     * Saves the current task list to file.
+     * Marks several tasks as done as one operation, saving the list once.
+     *
+     * @param indices The 1-based indices of the tasks, in increasing order.
+     * @return true if the tasks were marked, false if any index is invalid, in which case nothing changes.
+     */
+    public boolean markTasks(int[] indices) {
+        return setStatus(indices, true);
+    }
+    
+    /**
+     * Marks several tasks as not done as one operation, saving the list once.
+     *
+     * @param indices The 1-based indices of the tasks, in increasing order.
+     * @return true if the tasks were unmarked, false if any index is invalid, in which case nothing changes.
+     */
+    public boolean unmarkTasks(int[] indices) {
+        return setStatus(indices, false);
+    }
+    
+    /**
+     * Deletes several tasks as one operation. Each task only leaves a tombstone, the list
+     * is compacted at most once, and it is saved once.
+     *
+     * @param indices The 1-based indices of the tasks, in increasing order.
+     * @return The deleted tasks in list order, or null if any index is invalid, in which case nothing changes.
+     */
+    public Task[] deleteTasks(int[] indices) {
+        if (!areValidIndices(indices)) {
+            return null;
+        }
+        // Resolve every slot first, since tombstoning shifts the indices of later tasks
+        int[] targetSlots = new int[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            targetSlots[i] = slotOf(indices[i]);
+        }
+        Task[] deletedTasks = new Task[indices.length];
+        for (int i = 0; i < targetSlots.length; i++) {
+            deletedTasks[i] = removeSlot(targetSlots[i]);
+        }
+        compactIfSparse();
+        save();
+        return deletedTasks;
+    }
+    
+    private boolean setStatus(int[] indices, boolean isDone) {
+        if (!areValidIndices(indices)) {
+            return false;
+        }
+        for (int index : indices) {
+            int slot = slotOf(index);
+            recordChange(slots.get(slot).getId(), index);
+            if (isDone) {
+                slots.get(slot).markAsDone();
+            } else {
+                slots.get(slot).markAsNotDone();
+            }
+            if (queryIndexes != null) {
+                queryIndexes.onStatusChanged(slot, isDone);
+            }
+        }
+        save();
+        return true;
+    }
+    
+    private boolean areValidIndices(int[] indices) {
+        int previous = 0;
+        for (int index : indices) {
+            if (index <= previous || index > getTaskCount()) {
+                return false;
+            }
+            previous = index;
+        }
+        return true;
+    }
+    
+    private Task removeSlot(int slot) {
+        assert slots.get(slot) != null : "Slot to remove should hold a task";
+        recordChange(slots.get(slot).getId(), positionOf(slot));
+        Task deletedTask = slots.set(slot, null);
+        slotsById.remove(deletedTask.getId());
+        liveSlots.clear(slot);
+        tombstoneCount++;
+        if (fuzzyIndex != null) {
+            fuzzyIndex.remove(deletedTask);
+        }
+        if (queryIndexes != null) {
+            queryIndexes.onTaskRemoved(slot);
+        }
+        return deletedTask;
+    }
+    
+    private void compactIfSparse() {
+        if (tombstoneCount < MIN_TOMBSTONES_TO_COMPACT || tombstoneCount < getTaskCount()) {
+            return;
+        }
+        rebuildSlots(getAllTasksArrayList());
+        // Slots are renumbered, so the query indexes are rebuilt on next use
+        queryIndexes = null;
+    }
+    
+    private int slotOf(int index) {
+        return tombstoneCount == 0 ? index - 1 : liveSlots.slotAt(index);
+    }
+    
+    private int positionOf(int slot) {
+        return tombstoneCount == 0 ? slot + 1 : liveSlots.positionOf(slot);
+    }
+    
+    /**
+     * Returns the store this list is saved to.
+     *
+     * @return The store.
+     */
+    public TaskStore getStore() {
+        return store;
+    }
+    
+    /**
+     * Returns the file this list is saved to.
+     *
+     * @return The file path, or null if the list is kept in memory only.
+     */
+    public String getFilePath() {
+        return store.getFilePath();
+    }
+    
+    /**
+     * Saves the current task list to its store.
+     */
+    public void save() {
+        save(false);
+    }
+    
+    /**
+     * Drops every tombstone left by deleted tasks and has the store save the list as compactly as it can.
+     * Text files are rewritten in the compressed format, and later saves keep them compressed.
+     */
+    public void compact() {
+        if (tombstoneCount > 0) {
+            rebuildSlots(getAllTasksArrayList());
+            queryIndexes = null;
+        }
+        save(true);
+    }
+    
+    private void save(boolean isCompacting) {
+        SharedTaskFile file = store.getSharedFile();
+        if (file == null) {
+            write(isCompacting);
+            return;
+        }
+        file.withLock(() -> {
+            // Another instance may have saved since this list last did; keep its changes
+            mergeExternalChanges(file);
+            write(isCompacting);
+        });
+    }
+    
+    private void write(boolean isCompacting) {
+        if (isCompacting) {
+            store.compact(getAllTasksArrayList(), nextId);
+        } else {
+            store.write(unsavedChanges, nextId);
+        }
+        unsavedIds.clear();
+    }
+    
+    /**
+     * Applies the changes other Kiko instances have saved to this list's store since it last saved or loaded.
+     * Only the changed tasks are read, from the file's journal, unless this list has fallen too far behind.
+     *
+     * @return The number of tasks added, changed or deleted, or 0 if the store is not shared.
      */
-    private void saveTasks() {
-        Storage.saveTasks(tasks);
+    public int syncExternalChanges() {
+        SharedTaskFile file = store.getSharedFile();
+        if (file == null || !file.mayHaveExternalChanges()) {
+            return 0;
+        }
+        return file.withLock(() -> mergeExternalChanges(file));
+    }
+    
+    private int mergeExternalChanges(SharedTaskFile file) {
+        List<SharedTaskFile.Change> changes = file.readExternalChanges();
+        nextId = Math.max(nextId, file.getNextId());
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        // Tasks added here but not saved yet go after the other instance's new tasks, as they will in the file
+        ArrayList<Task> unsavedTasks = new ArrayList<>();
+        for (int slot = 0; slot < slots.size(); slot++) {
+            Task task = slots.get(slot);
+            if (task != null && !file.isKnown(task.getId())) {
+                unsavedTasks.add(removeSlot(slot));
+            }
+        }
+        int applied = 0;
+        for (SharedTaskFile.Change change : changes) {
+            Integer slot = slotsById.get(change.getId());
+            if (slot != null && file.isChangedLocally(slots.get(slot))) {
+                // This list saves next, so its own edit wins
+                continue;
+            }
+            applied++;
+            if (change.isDeletion()) {
+                if (slot != null) {
+                    removeSlot(slot);
+                }
+            } else if (slot != null) {
+                replaceSlot(slot, change.getTask());
+            } else {
+                insert(change.getTask());
+            }
+        }
+        for (Task task : unsavedTasks) {
+            if (slotsById.containsKey(task.getId())) {
+                // Both instances gave out the same id; the task saved first keeps it
+                task.setId(nextId++);
+            }
+            insert(task);
+        }
+        file.acceptExternalChanges(changes);
+        compactIfSparse();
+        return applied;
     }
     
+    private void replaceSlot(int slot, Task task) {
+        recordChange(slots.get(slot).getId(), positionOf(slot));
+        unsavedIds.set(task.getId());
+        Task oldTask = slots.set(slot, task);
+        if (fuzzyIndex != null) {
+            fuzzyIndex.remove(oldTask);
+            fuzzyIndex.add(task);
+        }
+        // The query indexes cannot move a task between dates, so they are rebuilt on next use
+        queryIndexes = null;
+    }
+
+    
     /**
      * Finds tasks that contain the given keyword in their description.
      *
@@ -215,15 +701,85 @@ public class TaskList {
      * @return An array of tasks that match the keyword, or empty array if none found.
      */
     public Task[] findTasks(String keyword) {
-        ArrayList<Task> matchingTasks = new ArrayList<>();
         String lowerKeyword = keyword.toLowerCase();
-        
-        for (Task task : tasks) {
-            if (task.getDescription().toLowerCase().contains(lowerKeyword)) {
-                matchingTasks.add(task);
-            }
+        return filterTasks(task -> task.getDescription().toLowerCase().contains(lowerKeyword));
+    }
+    
+    /**
+     * Finds tasks that satisfy the given condition, keeping list order.
+     * Large lists are scanned in parallel.
+     *
+     * @param predicate The condition to check. It may be called from several threads at once.
+     * @return An array of matching tasks, or empty array if none found.
+     */
+    public Task[] filterTasks(Predicate<Task> predicate) {
+        return SCAN.filter(slots, task -> task != null && predicate.test(task)).toArray(new Task[0]);
+    }
+    
+    /**
+     * Runs a compiled query against this list's indexes.
+     * Candidates the indexes cannot decide exactly are checked in parallel when there are many.
+     * The indexes are built on first use and kept up to date as tasks are added, marked, unmarked and deleted.
+     *
+     * @param query The query to run.
+     * @return The 1-based indices of matching tasks, in list order.
+     */
+    public int[] query(Query query) {
+        if (queryIndexes == null) {
+            queryIndexes = new TaskIndexes(slots);
+        }
+        int[] positions = query.execute(queryIndexes, slots, SCAN);
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = positionOf(positions[i]);
+        }
+        return positions;
+    }
+    
+    /**
+     * Finds tasks whose description words match the query, tolerating typos.
+     * The search index is built on first use and then kept up to date as tasks are added and deleted.
+     *
+     * @param query The words to search for.
+     * @return An array of matching tasks, best match first, or empty array if none found.
+     */
+    public Task[] findTasksFuzzy(String query) {
+        if (fuzzyIndex == null) {
+            fuzzyIndex = new FuzzyIndex(getAllTasksArrayList());
+        }
+        return fuzzyIndex.search(query);
+    }
+    
+    /**
+     * Returns the number of distinct words in the fuzzy search index.
+     *
+     * @return The index vocabulary size, or 0 if the index has not been built.
+     */
+    public int getFuzzyIndexSize() {
+        return fuzzyIndex == null ? 0 : fuzzyIndex.getWordCount();
+    }
+    
+    /**
+     * The changes since the last save, read from this list when the store asks for them.
+     */
+    private class UnsavedChanges implements TaskChanges {
+        @Override
+        public BitSet getChangedIds() {
+            return unsavedIds;
+        }
+    
+        @Override
+        public Task getTask(int id) {
+            return getTaskById(id);
+        }
+    
+        @Override
+        public ArrayList<Task> getAllTasks() {
+            return getAllTasksArrayList();
+        }
+    
+        @Override
+        public Object getSource() {
+            return TaskList.this;
         }
-        
-        return matchingTasks.toArray(new Task[0]);
     }
-}
\ No newline at end of file
+}
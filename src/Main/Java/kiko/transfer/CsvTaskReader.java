@@ -0,0 +1,166 @@
+package kiko.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * Reads tasks from CSV (RFC 4180) one record at a time.
+ * The first record names the columns, in any order: description is required, and
+ * type, done, by, from, to and repeat are optional. Without a type column the type
+ * follows from the dates given. Dates use yyyy-MM-dd HHmm.
+ */
+public class CsvTaskReader extends TaskReader {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+
+    private Map<String, Integer> columns;
+
+    /**
+     * Constructs a CsvTaskReader.
+     *
+     * @param reader The CSV source.
+     */
+    public CsvTaskReader(BufferedReader reader) {
+        super(reader);
+    }
+
+    @Override
+    protected Task readNext() throws IOException {
+        if (columns == null) {
+            readHeader();
+        }
+        for (List<String> record = readRecord(); record != null; record = readRecord()) {
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            Task task = toTask(record);
+            if (task != null) {
+                return task;
+            }
+            skip();
+        }
+        return null;
+    }
+
+    private void readHeader() throws IOException {
+        columns = new HashMap<>();
+        List<String> header = readRecord();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(), i);
+            }
+        }
+        if (header != null && !columns.containsKey("description")) {
+            throw new IOException("CSV header needs a description column");
+        }
+    }
+
+    private Task toTask(List<String> record) {
+        String description = cleanDescription(field(record, "description"));
+        if (description.isEmpty()) {
+            return null;
+        }
+        try {
+            String by = field(record, "by");
+            String from = field(record, "from");
+            String to = field(record, "to");
+            String repeat = field(record, "repeat");
+            String type = field(record, "type").toUpperCase();
+            if (type.isEmpty()) {
+                type = !repeat.isEmpty() ? "R" : !by.isEmpty() ? "D" : !from.isEmpty() ? "E" : "T";
+            }
+
+            Task task;
+            switch (type) {
+            case "T":
+                task = new Todo(description);
+                break;
+            case "D":
+                task = new Deadline(description, parseDate(by));
+                break;
+            case "E":
+                task = new Event(description, parseDate(from), parseDate(to));
+                break;
+            case "R":
+                task = new Recurring(description, Recurrence.parse(repeat, parseDate(from)));
+                break;
+            default:
+                return null;
+            }
+            String done = field(record, "done").toLowerCase();
+            if (done.equals("1") || done.equals("true") || done.equals("yes") || done.equals("x")) {
+                task.markAsDone();
+            }
+            return task;
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String field(List<String> record, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= record.size() ? "" : record.get(index).trim();
+    }
+
+    private static LocalDateTime parseDate(String value) throws DateTimeParseException {
+        return LocalDateTime.parse(value, DATE_FORMATTER);
+    }
+
+    /**
+     * Reads one record, following quoted fields across line breaks.
+     *
+     * @return The fields of the record, or null at the end of the source.
+     */
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean isQuoted = false;
+        while (true) {
+            if (isQuoted) {
+                if (c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c == '"') {
+                    int following = reader.read();
+                    if (following != '"') {
+                        // The closing quote; handle the character after it as unquoted text
+                        isQuoted = false;
+                        c = following;
+                        continue;
+                    }
+                    field.append('"');
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c == '"' && field.length() == 0) {
+                isQuoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package kiko.transfer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurring;
+import kiko.task.Task;
+
+/**
+ * Writes tasks as CSV (RFC 4180) with the columns read by {@link CsvTaskReader}.
+ */
+public class CsvTaskWriter implements TaskWriter {
+    private static final String HEADER = "type,done,description,by,from,to,repeat";
+
+    private final BufferedWriter writer;
+
+    /**
+     * Constructs a CsvTaskWriter and writes the header.
+     *
+     * @param writer The destination.
+     * @throws IOException If the header cannot be written.
+     */
+    public CsvTaskWriter(BufferedWriter writer) throws IOException {
+        this.writer = writer;
+        writer.write(HEADER);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void write(Task task) throws IOException {
+        String by = "";
+        String from = "";
+        String to = "";
+        String repeat = "";
+        if (task instanceof Deadline) {
+            by = ((Deadline) task).getByForStorage();
+        } else if (task instanceof Event) {
+            from = ((Event) task).getFromForStorage();
+            to = ((Event) task).getToForStorage();
+        } else if (task instanceof Recurring) {
+            from = ((Recurring) task).getStartForStorage();
+            repeat = ((Recurring) task).getRuleForStorage();
+        }
+        writer.write(task.getTypeIcon() + "," + (task.isDone() ? "1" : "0") + "," + quote(task.getDescription())
+                + "," + by + "," + from + "," + to + "," + repeat);
+        writer.write("\r\n");
+    }
+
+    private static String quote(String field) {
+        if (field.contains(",") || field.contains("\"") || field.contains("\n") || field.contains("\r")) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+        return field;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
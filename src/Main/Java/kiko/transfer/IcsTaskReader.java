@@ -0,0 +1,269 @@
+package kiko.transfer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * Reads tasks from an iCalendar (RFC 5545) file one component at a time.
+ * A VTODO becomes a Deadline if it has a DUE date and a Todo otherwise. A VEVENT becomes an Event,
+ * or a Recurring task if it has an RRULE that Kiko's rules can express.
+ * Only the properties of the component being read are held in memory.
+ */
+public class IcsTaskReader extends TaskReader {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private String pendingLine;
+
+    /**
+     * Constructs an IcsTaskReader.
+     *
+     * @param reader The iCalendar source.
+     */
+    public IcsTaskReader(BufferedReader reader) {
+        super(reader);
+    }
+
+    @Override
+    protected Task readNext() throws IOException {
+        String component = null;
+        int nestedDepth = 0;
+        Map<String, Property> properties = new HashMap<>();
+        for (String line = readUnfoldedLine(); line != null; line = readUnfoldedLine()) {
+            Property property = Property.parse(line);
+            if (property == null) {
+                continue;
+            }
+            if (component == null) {
+                if (property.name.equals("BEGIN")
+                        && (property.value.equalsIgnoreCase("VTODO") || property.value.equalsIgnoreCase("VEVENT"))) {
+                    component = property.value.toUpperCase();
+                    properties.clear();
+                }
+            } else if (property.name.equals("BEGIN")) {
+                // Alarms and other nested components carry properties of their own
+                nestedDepth++;
+            } else if (property.name.equals("END") && nestedDepth > 0) {
+                nestedDepth--;
+            } else if (property.name.equals("END")) {
+                Task task = toTask(component, properties);
+                if (task != null) {
+                    return task;
+                }
+                skip();
+                component = null;
+            } else if (nestedDepth == 0) {
+                properties.putIfAbsent(property.name, property);
+            }
+        }
+        return null;
+    }
+
+    private Task toTask(String component, Map<String, Property> properties) {
+        Property summary = properties.get("SUMMARY");
+        String description = summary == null ? "" : cleanDescription(unescape(summary.value));
+        if (description.isEmpty()) {
+            return null;
+        }
+        try {
+            Task task = component.equals("VTODO") ? toTodo(description, properties) : toEvent(description, properties);
+            if (task != null && isDone(component, properties)) {
+                task.markAsDone();
+            }
+            return task;
+        } catch (DateTimeException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Task toTodo(String description, Map<String, Property> properties) {
+        Property due = properties.get("DUE");
+        return due == null ? new Todo(description) : new Deadline(description, due.toDateTime());
+    }
+
+    private static Task toEvent(String description, Map<String, Property> properties) {
+        Property start = properties.get("DTSTART");
+        if (start == null) {
+            return null;
+        }
+        LocalDateTime from = start.toDateTime();
+        Property rule = properties.get("RRULE");
+        if (rule != null) {
+            Recurrence recurrence = toRecurrence(rule.value, from);
+            if (recurrence != null) {
+                return new Recurring(description, recurrence);
+            }
+        }
+
+        Property end = properties.get("DTEND");
+        Property duration = properties.get("DURATION");
+        LocalDateTime to;
+        if (end != null) {
+            to = end.toDateTime();
+        } else if (duration != null) {
+            to = from.plus(Duration.parse(duration.value));
+        } else {
+            // An all-day event without an end lasts the day; a timed one is an instant
+            to = start.isDate() ? from.plusDays(1) : from;
+        }
+        return new Event(description, from, to);
+    }
+
+    /**
+     * Converts an RRULE to a Recurrence, or returns null if it uses parts Kiko's rules cannot
+     * express, such as BYDAY. Such events are imported as their first occurrence only.
+     */
+    private static Recurrence toRecurrence(String rule, LocalDateTime start) {
+        Recurrence.Frequency frequency = null;
+        int interval = 1;
+        int count = 0;
+        LocalDateTime until = null;
+        for (String part : rule.split(";")) {
+            String[] keyValue = part.split("=", 2);
+            if (keyValue.length != 2) {
+                return null;
+            }
+            switch (keyValue[0].toUpperCase()) {
+            case "FREQ":
+                frequency = Recurrence.Frequency.valueOf(keyValue[1].toUpperCase());
+                break;
+            case "INTERVAL":
+                interval = Integer.parseInt(keyValue[1]);
+                break;
+            case "COUNT":
+                count = Integer.parseInt(keyValue[1]);
+                break;
+            case "UNTIL":
+                until = parseDateTime(keyValue[1], null);
+                break;
+            case "WKST":
+                break;
+            default:
+                return null;
+            }
+        }
+        return frequency == null ? null : new Recurrence(frequency, interval, start, count, until);
+    }
+
+    private static boolean isDone(String component, Map<String, Property> properties) {
+        Property status = properties.get("STATUS");
+        Property doneFlag = properties.get("X-KIKO-DONE");
+        return (status != null && status.value.equalsIgnoreCase("COMPLETED"))
+                || (component.equals("VTODO") && properties.containsKey("COMPLETED"))
+                || (doneFlag != null && doneFlag.value.equalsIgnoreCase("TRUE"));
+    }
+
+    /**
+     * Reads one logical line, joining the continuation lines that start with a space or tab.
+     */
+    private String readUnfoldedLine() throws IOException {
+        String line = pendingLine != null ? pendingLine : reader.readLine();
+        pendingLine = null;
+        if (line == null) {
+            return null;
+        }
+        StringBuilder unfolded = new StringBuilder(line);
+        for (String next = reader.readLine(); next != null; next = reader.readLine()) {
+            if (next.isEmpty() || (next.charAt(0) != ' ' && next.charAt(0) != '\t')) {
+                pendingLine = next;
+                break;
+            }
+            unfolded.append(next, 1, next.length());
+        }
+        return unfolded.toString();
+    }
+
+    private static String unescape(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char escaped = text.charAt(++i);
+                result.append(escaped == 'n' || escaped == 'N' ? '\n' : escaped);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static LocalDateTime parseDateTime(String value, String timeZone) throws DateTimeException {
+        if (value.length() == 8) {
+            return LocalDate.parse(value, DATE_FORMATTER).atStartOfDay();
+        }
+        if (value.endsWith("Z")) {
+            LocalDateTime utc = LocalDateTime.parse(value.substring(0, value.length() - 1), DATE_TIME_FORMATTER);
+            return utc.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        }
+        LocalDateTime local = LocalDateTime.parse(value, DATE_TIME_FORMATTER);
+        if (timeZone == null) {
+            return local;
+        }
+        return local.atZone(ZoneId.of(timeZone)).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+
+    /**
+     * One content line: a name, its parameters and a value.
+     */
+    private static class Property {
+        private final String name;
+        private final Map<String, String> parameters;
+        private final String value;
+
+        private Property(String name, Map<String, String> parameters, String value) {
+            this.name = name;
+            this.parameters = parameters;
+            this.value = value;
+        }
+
+        private static Property parse(String line) {
+            // The value starts at the first colon outside a quoted parameter value
+            boolean isQuoted = false;
+            int colon = -1;
+            for (int i = 0; i < line.length() && colon == -1; i++) {
+                char c = line.charAt(i);
+                if (c == '"') {
+                    isQuoted = !isQuoted;
+                } else if (c == ':' && !isQuoted) {
+                    colon = i;
+                }
+            }
+            if (colon == -1) {
+                return null;
+            }
+            String[] nameAndParameters = line.substring(0, colon).split(";");
+            Map<String, String> parameters = new HashMap<>();
+            for (int i = 1; i < nameAndParameters.length; i++) {
+                String[] keyValue = nameAndParameters[i].split("=", 2);
+                if (keyValue.length == 2) {
+                    parameters.put(keyValue[0].toUpperCase(), keyValue[1].replace("\"", ""));
+                }
+            }
+            return new Property(nameAndParameters[0].trim().toUpperCase(), parameters, line.substring(colon + 1).trim());
+        }
+
+        private boolean isDate() {
+            return "DATE".equalsIgnoreCase(parameters.get("VALUE")) || value.length() == 8;
+        }
+
+        private LocalDateTime toDateTime() throws DateTimeException {
+            return parseDateTime(value, parameters.get("TZID"));
+        }
+    }
+}
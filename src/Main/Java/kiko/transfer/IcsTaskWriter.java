@@ -0,0 +1,108 @@
+package kiko.transfer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
+import kiko.task.Task;
+
+/**
+ * Writes tasks as an iCalendar (RFC 5545) file in the shape read by {@link IcsTaskReader}.
+ * Todos and Deadlines become VTODOs, Events become VEVENTs and Recurring tasks become VEVENTs with an RRULE.
+ * Times are written as floating local times.
+ */
+public class IcsTaskWriter implements TaskWriter {
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final int MAX_LINE_LENGTH = 75;
+
+    private final BufferedWriter writer;
+    private int uidCounter;
+
+    /**
+     * Constructs an IcsTaskWriter and opens the calendar.
+     *
+     * @param writer The destination.
+     * @throws IOException If the calendar header cannot be written.
+     */
+    public IcsTaskWriter(BufferedWriter writer) throws IOException {
+        this.writer = writer;
+        writeLine("BEGIN:VCALENDAR");
+        writeLine("VERSION:2.0");
+        writeLine("PRODID:-//Kiko//Kiko Task List//EN");
+    }
+
+    @Override
+    public void write(Task task) throws IOException {
+        boolean isTodo = !(task instanceof Event) && !(task instanceof Recurring);
+        String component = isTodo ? "VTODO" : "VEVENT";
+        writeLine("BEGIN:" + component);
+        int uid = task.getId() > 0 ? task.getId() : --uidCounter;
+        writeLine("UID:kiko-" + uid + "@kiko");
+        writeLine("SUMMARY:" + escape(task.getDescription()));
+        if (task instanceof Deadline) {
+            writeLine("DUE:" + format(((Deadline) task).getBy()));
+        } else if (task instanceof Event) {
+            writeLine("DTSTART:" + format(((Event) task).getFrom()));
+            writeLine("DTEND:" + format(((Event) task).getTo()));
+        } else if (task instanceof Recurring) {
+            Recurrence recurrence = ((Recurring) task).getRecurrence();
+            writeLine("DTSTART:" + format(recurrence.getStart()));
+            writeLine("RRULE:" + toRule(recurrence));
+        }
+        if (task.isDone()) {
+            writeLine(isTodo ? "STATUS:COMPLETED" : "X-KIKO-DONE:TRUE");
+        }
+        writeLine("END:" + component);
+    }
+
+    private static String toRule(Recurrence recurrence) {
+        StringBuilder rule = new StringBuilder("FREQ=").append(recurrence.getFrequency().name())
+                .append(";INTERVAL=").append(recurrence.getInterval());
+        if (recurrence.getCount() > 0) {
+            rule.append(";COUNT=").append(recurrence.getCount());
+        }
+        if (recurrence.getUntil() != null) {
+            rule.append(";UNTIL=").append(format(recurrence.getUntil()));
+        }
+        return rule.toString();
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return dateTime.format(DATE_TIME_FORMATTER);
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,").replace("\n", "\\n");
+    }
+
+    /**
+     * Writes a content line, folding it onto continuation lines of at most 75 characters.
+     */
+    private void writeLine(String line) throws IOException {
+        int start = 0;
+        int limit = MAX_LINE_LENGTH;
+        while (line.length() - start > limit) {
+            writer.write(line, start, limit);
+            writer.write("\r\n ");
+            start += limit;
+            // Continuation lines lose one character to the leading space
+            limit = MAX_LINE_LENGTH - 1;
+        }
+        writer.write(line, start, line.length() - start);
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            writeLine("END:VCALENDAR");
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package kiko.transfer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The external file formats tasks can be imported from and exported to, chosen by file extension.
+ */
+public enum TaskFormat {
+    CSV(".csv"),
+    ICS(".ics");
+
+    private final String extension;
+
+    TaskFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the format for a file name.
+     *
+     * @param fileName The file name or path.
+     * @return The matching format, or null if the extension is not supported.
+     */
+    public static TaskFormat forFile(String fileName) {
+        String lowerName = fileName.toLowerCase();
+        for (TaskFormat format : values()) {
+            if (lowerName.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Opens a streaming reader over a file in this format.
+     *
+     * @param path The file to read.
+     * @return The reader, which must be closed.
+     * @throws IOException If the file cannot be opened.
+     */
+    public TaskReader openReader(Path path) throws IOException {
+        switch (this) {
+        case ICS:
+            return new IcsTaskReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+        default:
+            return new CsvTaskReader(Files.newBufferedReader(path, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Opens a streaming writer to a file in this format, replacing any existing file.
+     *
+     * @param path The file to write.
+     * @return The writer, which must be closed to finish the file.
+     * @throws IOException If the file cannot be created.
+     */
+    public TaskWriter openWriter(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        switch (this) {
+        case ICS:
+            return new IcsTaskWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+        default:
+            return new CsvTaskWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package kiko.transfer;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import kiko.task.Task;
+
+/**
+ * Reads tasks from an external file one at a time, holding only the entry being read in memory.
+ * Entries that cannot be turned into a task are skipped and counted.
+ * Read errors surface from the iterator methods as UncheckedIOException.
+ */
+public abstract class TaskReader implements Iterator<Task>, Closeable {
+    protected final BufferedReader reader;
+    private Task next;
+    private int skippedCount;
+
+    /**
+     * Constructs a TaskReader over the given reader.
+     *
+     * @param reader The source to read from.
+     */
+    protected TaskReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next task from the source.
+     * Implementations call {@link #skip()} for entries they cannot use and move on.
+     *
+     * @return The next task, or null at the end of the source.
+     * @throws IOException If the source cannot be read.
+     */
+    protected abstract Task readNext() throws IOException;
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            try {
+                next = readNext();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Task next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Task task = next;
+        next = null;
+        return task;
+    }
+
+    /**
+     * Returns the number of entries that could not be read as tasks.
+     *
+     * @return The skipped entry count.
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * Records an entry that could not be read as a task.
+     */
+    protected void skip() {
+        skippedCount++;
+    }
+
+    /**
+     * Turns external text into a description the task file can hold on one line.
+     *
+     * @param text The text to clean.
+     * @return The cleaned description.
+     */
+    protected static String cleanDescription(String text) {
+        // The task file separates fields with " | " and tasks with line breaks
+        return text.replaceAll("\\s*[\\r\\n]+\\s*", " ").replace(" | ", " / ").trim();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
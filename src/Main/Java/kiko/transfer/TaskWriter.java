@@ -0,0 +1,20 @@
+package kiko.transfer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import kiko.task.Task;
+
+/**
+ * Writes tasks to an external file one at a time.
+ * Closing the writer finishes the file.
+ */
+public interface TaskWriter extends Closeable {
+    /**
+     * Writes one task.
+     *
+     * @param task The task to write.
+     * @throws IOException If the file cannot be written.
+     */
+    void write(Task task) throws IOException;
+}
@@ -0,0 +1,133 @@
+package kiko.workspace;
+
+import java.util.function.Function;
+
+import kiko.history.History;
+import kiko.storage.TaskStore;
+import kiko.tasklist.TaskList;
+
+/**
+ * Represents a named task list backed by its own file.
+ * The tasks and undo history are only loaded from disk the first time they are needed.
+ * The undo history is kept in a log file next to the task file, so it survives restarts,
+ * unless the list is kept in memory only.
+ */
+public class Workspace {
+    private final String name;
+    private final String filePath;
+    private final Function<String, TaskStore> storeFactory;
+    private TaskStore store;
+    private TaskList taskList;
+    private History history;
+
+    /**
+     * Constructs an unloaded Workspace.
+     *
+     * @param name The name of the workspace.
+     * @param filePath The file the workspace's tasks are stored in.
+     */
+    public Workspace(String name, String filePath) {
+        this(name, filePath, TaskStore::open);
+    }
+
+    /**
+     * Constructs an unloaded Workspace whose store is made by the given factory when first needed.
+     *
+     * @param name The name of the workspace.
+     * @param filePath The file the workspace's tasks are stored in.
+     * @param storeFactory Opens the store for a task file.
+     */
+    public Workspace(String name, String filePath, Function<String, TaskStore> storeFactory) {
+        this.name = name;
+        this.filePath = filePath;
+        this.storeFactory = storeFactory;
+    }
+
+    /**
+     * Returns the name of the workspace.
+     *
+     * @return The workspace name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the file the workspace's tasks are stored in.
+     *
+     * @return The file path.
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Returns the workspace's task list, loading it from disk on first use.
+     *
+     * @return The task list.
+     */
+    public TaskList getTaskList() {
+        load();
+        return taskList;
+    }
+
+    /**
+     * Replaces the workspace's task list, for example after an undo.
+     *
+     * @param taskList The new task list.
+     */
+    public void setTaskList(TaskList taskList) {
+        if (store == null) {
+            // Closed since; every change was saved already
+            return;
+        }
+        assert taskList.getStore() == store : "Task list must save to the workspace store";
+        this.taskList = taskList;
+    }
+
+    /**
+     * Returns the workspace's undo history, loading the task list on first use.
+     *
+     * @return The history.
+     */
+    public History getHistory() {
+        load();
+        return history;
+    }
+
+    /**
+     * Checks if the workspace's tasks are currently held in memory.
+     *
+     * @return true if loaded, false otherwise.
+     */
+    public boolean isLoaded() {
+        return taskList != null;
+    }
+
+    private void load() {
+        if (taskList != null) {
+            return;
+        }
+        store = storeFactory.apply(filePath);
+        try {
+            taskList = new TaskList(store);
+            // The loaded tasks become the first version
+            history = new History(taskList, store.getFilePath() == null ? null : History.logPathFor(filePath));
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Drops the in-memory tasks and history and closes the store. The workspace loads again when next used.
+     */
+    public void close() {
+        if (store != null) {
+            store.close();
+        }
+        store = null;
+        taskList = null;
+        history = null;
+    }
+}
@@ -0,0 +1,152 @@
+package kiko.workspace;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+import kiko.storage.Storage;
+import kiko.storage.TaskStore;
+
+/**
+ * Manages named workspaces, each stored in its own file in the data directory.
+ * Workspaces are loaded when first opened and at most a fixed number stay in memory; the least
+ * recently used workspace is evicted when the limit is exceeded. Every change is already
+ * saved to disk, so eviction only drops the in-memory copy and its undo history.
+ */
+public class WorkspaceManager {
+    public static final String DEFAULT_WORKSPACE = "kiko";
+    private static final int DEFAULT_MAX_OPEN = 8;
+    private static final String FILE_EXTENSION = ".txt";
+    private static final String NAME_PATTERN = "[a-z0-9_-]+";
+
+    private final String directoryPath;
+    private final Function<String, TaskStore> storeFactory;
+    private final LinkedHashMap<String, Workspace> openWorkspaces;
+
+    /**
+     * Constructs a WorkspaceManager over the default data directory.
+     * The number of open workspaces can be set with the kiko.workspaces.maxOpen system property.
+     */
+    public WorkspaceManager() {
+        this(Storage.DIRECTORY_PATH, Integer.getInteger("kiko.workspaces.maxOpen", DEFAULT_MAX_OPEN));
+    }
+
+    /**
+     * Constructs a WorkspaceManager over the given directory.
+     *
+     * @param directoryPath The directory holding the workspace files.
+     * @param maxOpen The maximum number of workspaces kept in memory.
+     */
+    public WorkspaceManager(String directoryPath, int maxOpen) {
+        this(directoryPath, maxOpen, TaskStore::open);
+    }
+
+    /**
+     * Constructs a WorkspaceManager over the given directory whose workspaces keep their tasks in
+     * stores made by the given factory, for example in memory for benchmarks.
+     *
+     * @param directoryPath The directory holding the workspace files.
+     * @param maxOpen The maximum number of workspaces kept in memory.
+     * @param storeFactory Opens the store for a workspace file.
+     */
+    public WorkspaceManager(String directoryPath, int maxOpen, Function<String, TaskStore> storeFactory) {
+        assert maxOpen > 0 : "At least one workspace must be allowed in memory";
+        this.directoryPath = directoryPath;
+        this.storeFactory = storeFactory;
+        // Access order makes the map iterate from least to most recently used
+        this.openWorkspaces = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Workspace> eldest) {
+                if (size() <= maxOpen) {
+                    return false;
+                }
+                eldest.getValue().close();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Checks if a name can be used as a workspace name.
+     * Names may only contain lowercase letters, digits, dashes and underscores.
+     *
+     * @param name The name to check.
+     * @return true if the name is valid, false otherwise.
+     */
+    public static boolean isValidName(String name) {
+        return name != null && name.matches(NAME_PATTERN);
+    }
+
+    /**
+     * Returns the named workspace, loading it if it is not in memory.
+     * A workspace is only kept, and the least recently used one evicted to make room, once it has loaded.
+     *
+     * @param name The workspace name.
+     * @return The workspace.
+     * @throws UncheckedIOException If the workspace's file cannot be opened. The workspaces in memory,
+     *     including the one in use, are left as they were.
+     */
+    public Workspace open(String name) {
+        assert isValidName(name) : "Workspace name should be validated before opening";
+        Workspace workspace = openWorkspaces.get(name);
+        if (workspace != null) {
+            return workspace;
+        }
+        workspace = new Workspace(name, directoryPath + name + FILE_EXTENSION, storeFactory);
+        // Inserting first would evict, and close, the list in use even if this one then fails to load
+        workspace.getTaskList();
+        openWorkspaces.put(name, workspace);
+        return workspace;
+    }
+
+    /**
+     * Returns the names of all workspaces, both on disk and in memory, in alphabetical order.
+     * Only the directory listing is read; no workspace is loaded.
+     *
+     * @return The workspace names.
+     */
+    public TreeSet<String> getNames() {
+        TreeSet<String> names = new TreeSet<>(openWorkspaces.keySet());
+        File[] files = new File(directoryPath).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String fileName = file.getName();
+                if (fileName.endsWith(FILE_EXTENSION)) {
+                    String name = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+                    if (isValidName(name)) {
+                        names.add(name);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Checks if the named workspace is currently held in memory.
+     *
+     * @param name The workspace name.
+     * @return true if the workspace is open and loaded, false otherwise.
+     */
+    public boolean isLoaded(String name) {
+        // Looking up with get() would count as an access and reorder the LRU
+        for (Workspace workspace : openWorkspaces.values()) {
+            if (workspace.getName().equals(name)) {
+                return workspace.isLoaded();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of workspaces held in memory.
+     *
+     * @return The open workspace count.
+     */
+    public int getOpenCount() {
+        return openWorkspaces.size();
+    }
+}
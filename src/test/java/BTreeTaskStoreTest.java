@@ -0,0 +1,155 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.metrics.Metrics;
+import kiko.storage.BTreeTaskStore;
+import kiko.storage.TaskStore;
+import kiko.task.Task;
+import kiko.tasklist.TaskList;
+
+/**
+ * JUnit tests for BTreeTaskStore.
+ */
+public class BTreeTaskStoreTest {
+    private Path directory;
+    private String filePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("kiko-btree");
+        filePath = directory.resolve("tasks.kdb").toString();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        StoreTestSupport.deleteDirectory(directory);
+    }
+
+    @Test
+    void testRoundTripAndPointUpdate() throws IOException {
+        ArrayList<Task> tasks = StoreTestSupport.manyTasks(20000);
+        tasks.get(7).setId(20001);
+        tasks.add(tasks.remove(7));
+        tasks.get(0).markAsDone();
+        try (BTreeTaskStore store = new BTreeTaskStore(filePath)) {
+            store.write(tasks, 20002);
+        }
+        assertTrue(BTreeTaskStore.isBTreeFile(filePath));
+
+        int removedId;
+        try (BTreeTaskStore store = new BTreeTaskStore(filePath)) {
+            ArrayList<Task> loaded = store.load();
+            assertEquals(StoreTestSupport.lines(tasks), StoreTestSupport.lines(loaded),
+                    "Tasks should come back in id order");
+            assertEquals(20002, store.getNextId());
+
+            loaded.get(5000).markAsDone();
+            removedId = loaded.remove(100).getId();
+            long pagesBefore = Metrics.getCount("storage.btree.pages_written");
+            store.write(loaded, 20002);
+            long pagesWritten = Metrics.getCount("storage.btree.pages_written") - pagesBefore;
+            assertTrue(pagesWritten < 30, "A point update should write a few pages, not " + pagesWritten);
+            tasks = loaded;
+        }
+
+        try (BTreeTaskStore store = new BTreeTaskStore(filePath)) {
+            assertEquals(StoreTestSupport.lines(tasks), StoreTestSupport.lines(store.load()));
+            assertNull(store.get(removedId));
+        }
+    }
+
+    @Test
+    void testSecondaryIndexes() throws IOException {
+        ArrayList<Task> tasks = StoreTestSupport.manyTasks(1000);
+        tasks.get(9).markAsDone();
+        tasks.get(10).markAsDone();
+        try (BTreeTaskStore store = new BTreeTaskStore(filePath)) {
+            store.write(tasks, 1001);
+
+            ArrayList<Task> due = store.findDueBetween(StoreTestSupport.START.plusHours(10),
+                    StoreTestSupport.START.plusHours(16));
+            assertEquals(3, due.size(), "Deadlines 10, 12 and 14 are due in the range");
+            assertEquals(10, due.get(0).getId());
+            assertEquals(14, due.get(2).getId());
+
+            ArrayList<Task> done = store.findByStatus(true);
+            assertEquals(2, done.size());
+            assertEquals(10, done.get(0).getId());
+
+            tasks.get(9).markAsNotDone();
+            store.write(tasks, 1001);
+            assertEquals(1, store.findByStatus(true).size(), "Indexes should follow updates");
+            assertEquals(999, store.findByStatus(false).size());
+        }
+    }
+
+    @Test
+    void testEngineConvertsTextFileAndServesTaskList() {
+        TaskList textList = new TaskList(new ArrayList<>(), filePath);
+        textList.addTodo("Written as text");
+        textList.addTodo("Also text");
+        System.setProperty(TaskStore.ENGINE_PROPERTY, "btree");
+        try (TaskStore store = TaskStore.open(filePath)) {
+            assertTrue(BTreeTaskStore.isBTreeFile(filePath), "The text file should be converted");
+            TaskList list = new TaskList(store);
+            assertEquals(2, list.getTaskCount());
+            list.markTask(2);
+            list.deleteTask(1);
+            list.addTodo("Added to the tree");
+        } finally {
+            System.clearProperty(TaskStore.ENGINE_PROPERTY);
+        }
+
+        // A B+tree file stays one whatever the configured engine
+        try (TaskStore store = TaskStore.open(filePath)) {
+            TaskList reloaded = new TaskList(store);
+            assertEquals(2, reloaded.getTaskCount());
+            assertTrue(reloaded.getTask(1).isDone());
+            assertEquals(4, reloaded.getNextId(), "Ids should keep counting after the conversion");
+        }
+    }
+
+    @Test
+    void testFileThatCannotBeOpenedIsReported() throws IOException {
+        // A file in place of the directory means the B+tree file cannot be created
+        String blockedPath = Files.createFile(directory.resolve("blocker")).resolve("tasks.kdb").toString();
+        System.setProperty(TaskStore.ENGINE_PROPERTY, "btree");
+        try {
+            assertThrows(UncheckedIOException.class, () -> TaskStore.open(blockedPath),
+                    "The list should not quietly be kept in memory");
+        } finally {
+            System.clearProperty(TaskStore.ENGINE_PROPERTY);
+        }
+    }
+
+    @Test
+    void testTornHeaderFallsBackToLastCommit() throws IOException {
+        ArrayList<Task> tasks = StoreTestSupport.manyTasks(500);
+        try (BTreeTaskStore store = new BTreeTaskStore(filePath)) {
+            store.write(tasks, 501);
+            tasks.get(0).markAsDone();
+            store.write(tasks, 501);
+        }
+        // Creating the file and two commits leave the newest header in the first page
+        try (RandomAccessFile raw = new RandomAccessFile(filePath, "rw")) {
+            raw.seek(20);
+            raw.writeLong(-1);
+        }
+
+        try (BTreeTaskStore store = new BTreeTaskStore(filePath)) {
+            ArrayList<Task> loaded = store.load();
+            assertEquals(500, loaded.size(), "The earlier commit should be intact");
+            assertEquals(false, loaded.get(0).isDone());
+        }
+    }
+}
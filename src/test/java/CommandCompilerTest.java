@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.Kiko;
+import kiko.command.Command;
+import kiko.command.CommandCompiler;
+import kiko.command.CommandResult;
+import kiko.command.ParsedCommand;
+import kiko.command.Response;
+import kiko.command.TaskSelection;
+import kiko.command.TaskView;
+import kiko.storage.InMemoryTaskStore;
+import kiko.workspace.WorkspaceManager;
+
+/**
+ * JUnit tests for CommandCompiler and the structured responses Kiko returns.
+ */
+public class CommandCompilerTest {
+    private final CommandCompiler compiler = new CommandCompiler();
+
+    @Test
+    void testCompilesTypedArguments() {
+        ParsedCommand command = compiler.compile("deadline Return book /by 02/01/2026 1800");
+        assertTrue(command instanceof ParsedCommand.AddDeadline, "Dates should be parsed at compile time");
+        ParsedCommand.AddDeadline deadline = (ParsedCommand.AddDeadline) command;
+        assertEquals("return book", deadline.getDescription());
+        assertEquals(LocalDateTime.of(2026, 1, 2, 18, 0), deadline.getBy());
+
+        ParsedCommand.Select mark = (ParsedCommand.Select) compiler.compile("mark where done");
+        assertEquals(TaskSelection.Kind.WHERE, mark.getSelection().getKind());
+        ParsedCommand.Select delete = (ParsedCommand.Select) compiler.compile("delete #12");
+        assertEquals(TaskSelection.Kind.ID, delete.getSelection().getKind());
+        assertEquals(12, delete.getSelection().getNumber());
+    }
+
+    @Test
+    void testInvalidArgumentsCompileToMessages() {
+        ParsedCommand command = compiler.compile("deadline Return book /by someday");
+        assertTrue(command instanceof ParsedCommand.Invalid);
+        assertEquals(Command.DEADLINE, command.getCommand());
+        assertEquals("OIII!!! Invalid date format! Please use: dd/MM/yyyy HHmm",
+                ((ParsedCommand.Invalid) command).getMessage());
+        assertTrue(compiler.compile("undo 0") instanceof ParsedCommand.Invalid);
+        assertTrue(compiler.compile("mark where") instanceof ParsedCommand.Invalid);
+        assertEquals("OI!! Please provide a valid task number to mark!",
+                ((ParsedCommand.Invalid) compiler.compile("mark -1")).getMessage(), "A negative number is no range");
+        ParsedCommand.Select ranges = (ParsedCommand.Select) compiler.compile("delete 3, 7, 9 - 20");
+        assertEquals(TaskSelection.Kind.RANGES, ranges.getSelection().getKind());
+    }
+
+    @Test
+    void testExecuteReturnsStructuredResults() throws IOException {
+        Path directory = Files.createTempDirectory("kiko-commands");
+        Kiko kiko = new Kiko(new WorkspaceManager(directory.toString(), 2, path -> new InMemoryTaskStore()));
+
+        Response added = kiko.execute("todo read book");
+        assertEquals(Response.Status.OK, added.getStatus());
+        assertEquals(CommandResult.Kind.ADDED, added.getResult().getKind());
+        assertEquals("read book", added.getTasks()[0].getDescription());
+        assertEquals(1, added.getTaskCount());
+        kiko.execute("todo return book");
+
+        Response found = kiko.execute("find book");
+        assertEquals(CommandResult.Kind.FOUND, found.getResult().getKind());
+        assertEquals(2, found.getAffectedCount());
+
+        Response missing = kiko.execute("mark 5");
+        assertEquals(Response.Status.INVALID, missing.getStatus());
+        assertEquals("Task number 5 does not exist. You have 2 tasks.", missing.getText());
+
+        // The GUI's text is the rendering of the same result
+        assertEquals("Nicee! I've marked 2 tasks as done.", kiko.getResponse("mark 1-2"));
+        Files.delete(directory);
+    }
+
+    @Test
+    void testResponseViewsAndCloseSignal() throws IOException {
+        Path directory = Files.createTempDirectory("kiko-responses");
+        Kiko kiko = new Kiko(new WorkspaceManager(directory.toString(), 2, path -> new InMemoryTaskStore()));
+        kiko.execute("todo read book");
+        kiko.execute("deadline return book /by 02/01/2026 1800");
+        kiko.execute("mark 2");
+
+        Response query = kiko.execute("query done:yes");
+        TaskView view = query.getTasks()[0];
+        assertEquals(2, view.getPosition());
+        assertEquals("D", view.getTypeIcon());
+        assertTrue(view.isDone());
+        assertEquals("[D][X] return book" + view.getDetails(), view.toString());
+
+        Response list = kiko.execute("list");
+        assertEquals(1, list.getTasks()[0].getPosition());
+        assertEquals(2, list.getTasks()[1].getPosition());
+        Response nothing = kiko.execute("query text:zzz");
+        assertEquals(Response.Status.OK, nothing.getStatus());
+        assertEquals(0, nothing.getAffectedCount());
+
+        Response bye = kiko.execute("bye");
+        assertTrue(bye.isClosing());
+        assertEquals("Goodbye! Hope to see you again soon!", bye.getText());
+        assertFalse(list.isClosing());
+        Files.delete(directory);
+    }
+
+    @Test
+    void testNothingToDoIsNotInvalid() throws IOException {
+        Path directory = Files.createTempDirectory("kiko-statuses");
+        Kiko kiko = new Kiko(new WorkspaceManager(directory.toString(), 2, path -> new InMemoryTaskStore()));
+        for (String input : new String[] {"mark where done", "undo", "redo", "compact", "sync " + directory}) {
+            Response response = kiko.execute(input);
+            assertEquals(CommandResult.Kind.INFO, response.getResult().getKind(), input);
+            assertEquals(Response.Status.OK, response.getStatus(), input);
+        }
+        assertEquals("Walao!! No tasks match that!", kiko.getResponse("delete where done"));
+        assertEquals(Response.Status.INVALID, kiko.execute("mark where").getStatus());
+        assertEquals(Response.Status.INVALID, kiko.execute("").getStatus());
+        Files.delete(directory);
+    }
+
+    @Test
+    void testListThatCannotBeOpenedIsReported() throws IOException {
+        Path directory = Files.createTempDirectory("kiko-broken");
+        Kiko kiko = new Kiko(new WorkspaceManager(directory.toString(), 2, path -> {
+            if (path.endsWith("broken.txt")) {
+                throw new UncheckedIOException(new IOException("Disk on fire"));
+            }
+            return new InMemoryTaskStore();
+        }));
+        kiko.execute("todo read book");
+
+        Response broken = kiko.execute("use broken");
+        assertEquals(Response.Status.FAILED, broken.getStatus());
+        assertEquals(CommandResult.Kind.USE_FAILED, broken.getResult().getKind());
+        assertEquals(1, kiko.execute("list").getAffectedCount(), "The current list should stay in use");
+        Files.delete(directory);
+    }
+}
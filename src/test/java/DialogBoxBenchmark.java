@@ -0,0 +1,89 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.shape.Circle;
+import kiko.DialogBox;
+
+/**
+ * Benchmark of creating one dialog box, comparing the code-built DialogBox with loading the same
+ * layout from FXML as DialogBox used to. Prints the median time per box. Needs a display, since
+ * it starts the JavaFX toolkit. Run with: java -cp build/classes/... DialogBoxBenchmark
+ */
+public class DialogBoxBenchmark {
+    private static final int RUNS = 2_001;
+    private static final String FXML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<?import javafx.geometry.Insets?>\n"
+            + "<?import javafx.scene.control.Label?>\n"
+            + "<?import javafx.scene.image.ImageView?>\n"
+            + "<?import javafx.scene.layout.HBox?>\n"
+            + "<HBox alignment=\"TOP_RIGHT\" maxHeight=\"1.7976931348623157E308\""
+            + " maxWidth=\"1.7976931348623157E308\" prefWidth=\"400.0\" xmlns:fx=\"http://javafx.com/fxml/1\">\n"
+            + "  <children>\n"
+            + "    <Label fx:id=\"dialog\" text=\"Label\" wrapText=\"true\" minHeight=\"-Infinity\""
+            + " HBox.hgrow=\"ALWAYS\"/>\n"
+            + "    <ImageView fx:id=\"displayPicture\" fitHeight=\"99.0\" fitWidth=\"99.0\" pickOnBounds=\"true\""
+            + " preserveRatio=\"true\"/>\n"
+            + "  </children>\n"
+            + "  <padding><Insets bottom=\"15.0\" left=\"5.0\" right=\"5.0\" top=\"15.0\"/></padding>\n"
+            + "</HBox>\n";
+
+    /**
+     * A way of creating a dialog box to time.
+     */
+    private interface Creation {
+        void create(int index) throws IOException;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.startup(() -> {
+            try {
+                Image image = new Image(DialogBoxBenchmark.class.getResourceAsStream("/images/kiko.png"));
+                System.out.printf("%-10s %12s%n", "dialog box", "median us");
+                System.out.printf("%-10s %12.1f%n", "code", medianMicros(index ->
+                        DialogBox.getKikoDialog("Message " + index, image)));
+                System.out.printf("%-10s %12.1f%n", "fxml", medianMicros(index -> {
+                    FXMLLoader loader = new FXMLLoader();
+                    HBox box = loader.load(new ByteArrayInputStream(FXML.getBytes(StandardCharsets.UTF_8)));
+                    Label dialog = (Label) loader.getNamespace().get("dialog");
+                    ImageView picture = (ImageView) loader.getNamespace().get("displayPicture");
+                    dialog.setText("Message " + index);
+                    picture.setImage(image);
+                    picture.setClip(new Circle(49.5, 49.5, 49.5));
+                    dialog.setStyle("-fx-background-color: #555555; -fx-text-fill: white; -fx-padding: 10;"
+                            + " -fx-background-radius: 10;");
+                    box.getChildren().setAll(picture, dialog);
+                }));
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+        Platform.exit();
+    }
+
+    private static double medianMicros(Creation creation) throws IOException {
+        // Warm up so the JIT has compiled both paths before timing
+        for (int i = 0; i < RUNS; i++) {
+            creation.create(i);
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            creation.create(i);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2] / 1_000.0;
+    }
+}
@@ -0,0 +1,175 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.metrics.Metrics;
+import kiko.storage.EventLogTaskStore;
+import kiko.storage.Storage;
+import kiko.storage.TaskStore;
+import kiko.task.Task;
+import kiko.task.Todo;
+import kiko.tasklist.TaskList;
+
+/**
+ * JUnit tests for EventLogTaskStore.
+ */
+public class EventLogTaskStoreTest {
+    private Path directory;
+    private String filePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("kiko-events");
+        filePath = directory.resolve("tasks.txt").toString();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        StoreTestSupport.deleteDirectory(directory);
+    }
+
+    @Test
+    void testSavesAppendOnlyTheChanges() {
+        ArrayList<Task> tasks = StoreTestSupport.manyTasks(1000);
+        try (EventLogTaskStore store = new EventLogTaskStore(filePath)) {
+            store.load();
+            store.write(tasks, 1001);
+            assertEquals(1001, store.getLogEventCount(), "Every task is added, then the next id set");
+
+            long eventsBefore = Metrics.getCount("storage.events_written");
+            tasks.get(10).markAsDone();
+            tasks.remove(500);
+            Task added = new Todo("Added later");
+            added.setId(1001);
+            tasks.add(added);
+            store.write(tasks, 1002);
+            assertEquals(4, Metrics.getCount("storage.events_written") - eventsBefore,
+                    "A mark, a delete, an add and the next id");
+        }
+
+        try (EventLogTaskStore store = new EventLogTaskStore(filePath)) {
+            assertEquals(StoreTestSupport.lines(tasks), StoreTestSupport.lines(store.load()));
+            assertEquals(1002, store.getNextId());
+        }
+    }
+
+    @Test
+    void testSnapshotsKeepReplayShort() throws IOException {
+        ArrayList<Task> tasks = StoreTestSupport.manyTasks(50);
+        try (EventLogTaskStore store = new EventLogTaskStore(filePath, 60)) {
+            store.load();
+            store.write(tasks, 51);
+            for (int i = 0; i < 9; i++) {
+                tasks.get(i).markAsDone();
+                store.write(tasks, 51);
+            }
+            assertEquals(0, store.getLogEventCount(), "The 60th event should have taken a snapshot");
+            assertEquals(60, Storage.readGeneration(filePath));
+            assertEquals(50, Storage.loadTasks(filePath).size(), "The snapshot is a plain task file");
+            Path segment = Path.of(filePath + EventLogTaskStore.LOG_SUFFIX + ".0");
+            assertTrue(Files.size(segment) > 60 * 5, "The events before the snapshot should be kept");
+
+            tasks.get(20).markAsDone();
+            store.write(tasks, 51);
+            assertEquals(1, store.getLogEventCount());
+        }
+
+        try (EventLogTaskStore store = new EventLogTaskStore(filePath, 60)) {
+            long replayedBefore = Metrics.getCount("storage.events_replayed");
+            assertEquals(StoreTestSupport.lines(tasks), StoreTestSupport.lines(store.load()));
+            assertEquals(1, Metrics.getCount("storage.events_replayed") - replayedBefore,
+                    "Only the event after the snapshot should be replayed");
+        }
+    }
+
+    @Test
+    void testUndoAppendsCompensatingEvents() {
+        System.setProperty(TaskStore.ENGINE_PROPERTY, "events");
+        try {
+            TaskList list = new TaskList(new ArrayList<>(), filePath);
+            list.addTodo("read book");
+            list.addDeadline("return book", StoreTestSupport.START);
+            TaskList before = new TaskList(list);
+            list.markTask(1);
+            list.deleteTask(2);
+
+            // Undo hands back a copy of the earlier list, which is saved like any other
+            before.save();
+        } finally {
+            System.clearProperty(TaskStore.ENGINE_PROPERTY);
+        }
+
+        // A file with an event log stays one whatever the configured engine
+        try (TaskStore store = TaskStore.open(filePath)) {
+            assertTrue(store instanceof EventLogTaskStore);
+            TaskList reloaded = new TaskList(store);
+            assertEquals(2, reloaded.getTaskCount());
+            assertEquals(false, reloaded.getTask(1).isDone());
+            assertEquals("return book", reloaded.getTask(2).getDescription());
+            assertEquals(3, reloaded.getNextId());
+        }
+    }
+
+    @Test
+    void testListSavesOnlyWhatItChanged() {
+        System.setProperty(TaskStore.ENGINE_PROPERTY, "events");
+        TaskList list;
+        try {
+            list = new TaskList(StoreTestSupport.manyTasks(1000), filePath, 1001);
+        } finally {
+            System.clearProperty(TaskStore.ENGINE_PROPERTY);
+        }
+        list.save();
+        long eventsBefore = Metrics.getCount("storage.events_written");
+        list.deleteTask(500);
+        list.markTask(1);
+        list.addTodo("read book");
+        assertEquals(4, Metrics.getCount("storage.events_written") - eventsBefore,
+                "A delete, a mark, an add and the next id");
+
+        // A second list saving to the same store reports changes against its own state, so it is saved in full
+        TaskList other = new TaskList(list);
+        other.deleteTask(1);
+        list.getStore().close();
+
+        try (EventLogTaskStore store = new EventLogTaskStore(filePath)) {
+            ArrayList<Task> loaded = store.load();
+            assertEquals(StoreTestSupport.lines(other.getAllTasksArrayList()), StoreTestSupport.lines(loaded));
+            assertEquals(1002, store.getNextId());
+        }
+    }
+
+    @Test
+    void testTornEventIsDropped() throws IOException {
+        ArrayList<Task> tasks = StoreTestSupport.manyTasks(10);
+        try (EventLogTaskStore store = new EventLogTaskStore(filePath)) {
+            store.load();
+            store.write(tasks, 11);
+            tasks.get(0).markAsDone();
+            store.write(tasks, 11);
+        }
+        // A crash in the middle of the last append leaves only part of the mark
+        Path logPath = Path.of(filePath + EventLogTaskStore.LOG_SUFFIX);
+        try (RandomAccessFile raw = new RandomAccessFile(logPath.toFile(), "rw")) {
+            raw.setLength(raw.length() - 2);
+        }
+
+        try (EventLogTaskStore store = new EventLogTaskStore(filePath)) {
+            ArrayList<Task> loaded = store.load();
+            assertEquals(10, loaded.size());
+            assertEquals(false, loaded.get(0).isDone(), "The torn mark should not be applied");
+            loaded.get(1).markAsDone();
+            store.write(loaded, 11);
+        }
+
+        try (EventLogTaskStore store = new EventLogTaskStore(filePath)) {
+            assertTrue(store.load().get(1).isDone(), "Events after the torn one should replay");
+        }
+    }
+}
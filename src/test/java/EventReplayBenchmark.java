@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import kiko.storage.EventLogTaskStore;
+import kiko.task.Deadline;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * Benchmark of loading an event-logged task list: replaying millions of marks and unmarks on top of a
+ * snapshot, and loading the same list once a snapshot has folded them in.
+ * Prints the median load time and the events replayed per second.
+ * Run with: java -cp build/classes/... EventReplayBenchmark
+ */
+public class EventReplayBenchmark {
+    private static final int SIZE = 100_000;
+    private static final int ROUNDS = 40;
+    private static final int RUNS = 7;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("kiko-replay-benchmark");
+        String filePath = directory.resolve("tasks.txt").toString();
+        try {
+            ArrayList<Task> tasks = new ArrayList<>(SIZE);
+            LocalDateTime base = LocalDateTime.of(2026, 1, 1, 9, 0);
+            for (int i = 1; i <= SIZE; i++) {
+                Task task = i % 2 == 0 ? new Todo("Read chapter " + i) : new Deadline("Submit report " + i,
+                        base.plusMinutes(i));
+                task.setId(i);
+                tasks.add(task);
+            }
+            long eventCount;
+            // Every round marks or unmarks every task, so each save appends one event per task
+            try (EventLogTaskStore store = new EventLogTaskStore(filePath, Integer.MAX_VALUE)) {
+                store.load();
+                store.write(tasks, SIZE + 1);
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (Task task : tasks) {
+                        if (round % 2 == 0) {
+                            task.markAsDone();
+                        } else {
+                            task.markAsNotDone();
+                        }
+                    }
+                    store.write(tasks, SIZE + 1);
+                }
+                eventCount = store.getLogEventCount();
+            }
+
+            System.out.printf("%-20s %12s %10s %16s%n", "load", "events", "ms", "events/s");
+            measure("replay log", filePath, eventCount);
+            try (EventLogTaskStore store = new EventLogTaskStore(filePath, Integer.MAX_VALUE)) {
+                store.compact(store.load(), SIZE + 1);
+            }
+            measure("snapshot only", filePath, 0);
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void measure(String name, String filePath, long eventCount) {
+        long[] times = new long[RUNS];
+        // The first load warms up the JIT and is not counted
+        load(filePath);
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            load(filePath);
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        double millis = times[RUNS / 2] / 1e6;
+        System.out.printf("%-20s %12d %10.1f %16.0f%n", name, eventCount, millis, eventCount / (millis / 1e3));
+    }
+
+    private static void load(String filePath) {
+        try (EventLogTaskStore store = new EventLogTaskStore(filePath, Integer.MAX_VALUE)) {
+            if (store.load().size() != SIZE) {
+                throw new IllegalStateException("Replay lost tasks");
+            }
+        }
+    }
+}
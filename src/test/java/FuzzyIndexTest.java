@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import kiko.search.FuzzyIndex;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * JUnit tests for the FuzzyIndex class.
+ * Tests typo tolerance, ranking and incremental maintenance.
+ */
+public class FuzzyIndexTest {
+
+    private static FuzzyIndex indexOf(String... descriptions) {
+        List<Task> tasks = new ArrayList<>();
+        for (String description : descriptions) {
+            tasks.add(new Todo(description));
+        }
+        return new FuzzyIndex(tasks);
+    }
+
+    @Test
+    void testToleratesTypos() {
+        FuzzyIndex index = indexOf("Submit assignment", "Read book", "Buy groceries");
+
+        Task[] results = index.search("asignmant");
+
+        assertEquals(1, results.length, "Two typos in a long word should still match");
+        assertEquals("Submit assignment", results[0].getDescription());
+    }
+
+    @Test
+    void testRanksExactBeforeTypos() {
+        FuzzyIndex index = indexOf("Read books", "Read book", "Cook dinner");
+
+        Task[] results = index.search("book");
+
+        assertEquals(3, results.length, "Prefix and one-typo matches should be included");
+        assertEquals("Read book", results[0].getDescription(), "Exact match should rank first");
+        assertEquals("Read books", results[1].getDescription(), "Earlier task should win ties");
+        assertEquals("Cook dinner", results[2].getDescription());
+    }
+
+    @Test
+    void testAllQueryWordsMustMatch() {
+        FuzzyIndex index = indexOf("Return library book", "Read book");
+
+        assertEquals(1, index.search("libary book").length, "Every query word should match");
+        assertEquals(0, index.search("xyzzy").length, "Unrelated words should not match");
+    }
+
+    @Test
+    void testIncrementalAddAndRemove() {
+        Task meeting = new Todo("Project meeting");
+        FuzzyIndex index = indexOf("Read book");
+        index.add(meeting);
+
+        assertEquals(1, index.search("meetnig").length, "Added task should be searchable");
+        index.remove(meeting);
+        assertEquals(0, index.search("meeting").length, "Removed task should not be found");
+        assertEquals(2, index.getWordCount(), "Removed words should leave the vocabulary");
+    }
+}
@@ -0,0 +1,46 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.metrics.Histogram;
+
+/**
+ * JUnit tests for the Histogram class.
+ * Tests that quantiles stay within the bucket precision of the true values.
+ */
+public class HistogramTest {
+
+    @Test
+    void testEmptyHistogram() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtQuantile(0.99), "Empty histogram should report 0");
+    }
+
+    @Test
+    void testSmallValuesAreExact() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getValueAtQuantile(0.5), "Values below 16 are recorded exactly");
+        assertEquals(10, histogram.getMax());
+        assertEquals(55, histogram.getSum());
+    }
+
+    @Test
+    void testQuantilesWithinPrecision() {
+        Histogram histogram = new Histogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        long p50 = histogram.getValueAtQuantile(0.5);
+        long p99 = histogram.getValueAtQuantile(0.99);
+        assertTrue(Math.abs(p50 - 50_000_000L) <= 50_000_000L * 0.07, "p50 should be within 7%: " + p50);
+        assertTrue(Math.abs(p99 - 99_000_000L) <= 99_000_000L * 0.07, "p99 should be within 7%: " + p99);
+        assertEquals(100_000_000L, histogram.getValueAtQuantile(1.0), "p100 should be capped at the max");
+    }
+}
@@ -0,0 +1,159 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.history.History;
+import kiko.storage.Storage;
+import kiko.task.Task;
+import kiko.tasklist.TaskList;
+
+/**
+ * JUnit tests for the History class.
+ * Tests multi-level undo, redo and read-only queries of past versions.
+ */
+public class HistoryTest {
+
+    private TaskList taskList;
+    private History history;
+
+    @BeforeEach
+    void setUp() {
+        taskList = new TaskList();
+        history = new History(taskList);
+    }
+
+    @Test
+    void testUnchangedStateCreatesNoVersion() {
+        assertNull(history.commit(taskList, "list"), "No version should be created without changes");
+        assertEquals(1, history.getDepth(), "Only the initial version should exist");
+        assertFalse(history.canUndo(), "Nothing should be undoable");
+    }
+
+    @Test
+    void testUndoMultipleStepsAndRedo() {
+        taskList.addTodo("First task");
+        history.commit(taskList, "todo first task");
+        taskList.addTodo("Second task");
+        history.commit(taskList, "todo second task");
+        taskList.markTask(1);
+        history.commit(taskList, "mark 1");
+
+        TaskList restored = history.undo(2);
+        assertEquals(1, restored.getTaskCount(), "Undo 2 should go back to one task");
+        assertFalse(restored.getTask(1).isDone(), "Restored task should not be done");
+        assertTrue(history.canRedo(), "Undone versions should be redoable");
+
+        TaskList redone = history.redo(2);
+        assertEquals(2, redone.getTaskCount(), "Redo 2 should restore both tasks");
+        assertTrue(redone.getTask(1).isDone(), "Redo should restore the mark");
+        assertFalse(history.canRedo(), "Nothing should be left to redo");
+    }
+
+    @Test
+    void testNewCommitDiscardsRedo() {
+        taskList.addTodo("First task");
+        history.commit(taskList, "todo first task");
+        taskList = history.undo(1);
+        taskList.addTodo("Other task");
+        history.commit(taskList, "todo other task");
+
+        assertFalse(history.canRedo(), "A new commit should discard undone versions");
+        assertEquals(2, history.getCurrentVersion().getNumber(), "Version numbers should never be reused");
+    }
+
+    @Test
+    void testStateAtPastVersion() {
+        taskList.addTodo("First task");
+        history.commit(taskList, "todo first task");
+        taskList.addTodo("Second task");
+        history.commit(taskList, "todo second task");
+        taskList.deleteTask(1);
+        history.commit(taskList, "delete 1");
+
+        Task[] versionOne = history.getStateAt(1);
+        assertEquals(1, versionOne.length, "Version 1 should hold one task");
+        assertEquals("First task", versionOne[0].getDescription());
+        assertEquals(1, taskList.getTaskCount(), "Querying a past version should not change the list");
+        assertEquals(3, history.getCurrentVersion().getNumber(), "Querying should not move the current version");
+        assertNull(history.getStateAt(42), "Unknown versions should return null");
+    }
+
+    @Test
+    void testCommitsOnlyCompareChangedTasks() {
+        for (int i = 1; i <= 20; i++) {
+            taskList.addTodo("Task " + i);
+        }
+        history.commit(taskList, "todos");
+        taskList.markTask(5);
+        taskList.unmarkTask(5);
+        assertNull(history.commit(taskList, "mark and unmark"), "Changes that cancel out make no version");
+
+        taskList.markTask(3);
+        taskList.deleteTask(10);
+        taskList.addTodo("Task 21");
+        taskList.markTask(19);
+        History.Version version = history.commit(taskList, "mixed");
+
+        Task[] state = history.getStateAt(version.getNumber());
+        assertEquals(20, state.length);
+        for (int i = 0; i < state.length; i++) {
+            assertTrue(state[i].hasSameContent(taskList.getTask(i + 1)), "Version should match the list at " + i);
+        }
+        TaskList restored = history.undo(1);
+        assertEquals("Task 10", restored.getTask(10).getDescription(), "Undo should bring the deleted task back");
+        assertFalse(restored.getTask(3).isDone());
+        assertFalse(restored.getTask(19).isDone());
+    }
+
+    @Test
+    void testHistorySurvivesRestart() throws IOException {
+        Path directory = Files.createTempDirectory("kiko-history");
+        String filePath = directory.resolve("tasks.txt").toString();
+        TaskList tasks = new TaskList(Storage.loadTasks(filePath), filePath, Storage.readNextId(filePath));
+        History logged = new History(tasks, History.logPathFor(filePath));
+        tasks.addTodo("First task");
+        logged.commit(tasks, "todo first task");
+        tasks.addTodo("Undone task");
+        logged.commit(tasks, "todo undone task");
+        tasks = logged.undo(1);
+        tasks.save();
+        tasks.addTodo("Second task");
+        logged.commit(tasks, "todo second task");
+        tasks.markTask(1);
+        logged.commit(tasks, "mark 1");
+        tasks = logged.undo(1);
+        tasks.save();
+
+        // Restart: reload the task file and reopen the log
+        TaskList reloaded = new TaskList(Storage.loadTasks(filePath), filePath, Storage.readNextId(filePath));
+        History reopened = new History(reloaded, History.logPathFor(filePath));
+        assertEquals(3, reopened.getCurrentVersion().getNumber(), "Current version should survive a restart");
+        assertEquals(4, reopened.getDepth(), "The undone branch replaced by a commit should not come back");
+        assertTrue(reopened.canRedo(), "Undone versions should still be redoable");
+
+        TaskList redone = reopened.redo(1);
+        assertTrue(redone.getTask(1).isDone(), "Redo after a restart should restore the mark");
+        TaskList undone = reopened.undo(3);
+        assertEquals(0, undone.getTaskCount(), "Undo after a restart should reach the initial state");
+        assertEquals("todo second task", reopened.getVersions().get(2).getLabel());
+
+        // A task file changed behind the log's back starts a fresh history
+        Files.writeString(Path.of(filePath), "T | 0 | Edited by hand" + System.lineSeparator());
+        TaskList edited = new TaskList(Storage.loadTasks(filePath), filePath, Storage.readNextId(filePath));
+        History fresh = new History(edited, History.logPathFor(filePath));
+        assertFalse(fresh.canUndo(), "A log that does not match the task file should be dropped");
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,188 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.storage.InMemoryTaskStore;
+import kiko.tasklist.OffHeapTaskList;
+import kiko.tasklist.TaskList;
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * JUnit tests for the OffHeapTaskList class.
+ * Tests round-tripping, in-place status changes, flyweight views, deletion and compaction.
+ */
+public class OffHeapTaskListTest {
+
+    private OffHeapTaskList taskList;
+
+    @BeforeEach
+    void setUp() {
+        // Use a tiny arena so growth is exercised
+        taskList = new OffHeapTaskList(32);
+    }
+
+    @Test
+    void testRoundTripAllTaskTypes() {
+        LocalDateTime by = LocalDateTime.of(2024, 12, 31, 23, 59);
+        LocalDateTime from = LocalDateTime.of(2024, 12, 25, 14, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 12, 25, 16, 0);
+        taskList.add(new Todo("Read book"));
+        taskList.add(new Deadline("Submit assignment", by));
+        taskList.add(new Event("Team meeting", from, to));
+        Recurring standup = new Recurring("Standup", Recurrence.parse("FREQ=WEEKLY;INTERVAL=2;COUNT=5", from));
+        standup.setId(42);
+        standup.markAsDone();
+        taskList.add(standup);
+
+        assertEquals(4, taskList.getTaskCount());
+        assertTrue(taskList.getTask(1) instanceof Todo, "First task should be a Todo");
+        assertEquals(by, ((Deadline) taskList.getTask(2)).getBy(), "Deadline should survive round trip");
+        Event event = (Event) taskList.getTask(3);
+        assertEquals(from, event.getFrom(), "Event start should survive round trip");
+        assertEquals(to, event.getTo(), "Event end should survive round trip");
+        Task recurring = taskList.getTask(4);
+        assertTrue(recurring instanceof Recurring, "Recurring tasks should not turn into todos");
+        assertEquals(42, recurring.getId(), "Ids should survive round trip");
+        assertTrue(recurring.hasSameContent(standup), "The rule and start should survive round trip");
+        assertTrue(recurring.isDone());
+        assertEquals(42, taskList.view(4, taskList.newView()).getId(), "Views should read the id in place");
+    }
+
+    @Test
+    void testMarkAndUnmarkInPlace() {
+        taskList.add(new Todo("Read book"));
+
+        assertTrue(taskList.markTask(1), "markTask should succeed for valid index");
+        assertTrue(taskList.getTask(1).isDone(), "Task should be done");
+        assertTrue(taskList.unmarkTask(1), "unmarkTask should succeed for valid index");
+        assertFalse(taskList.getTask(1).isDone(), "Task should not be done");
+        assertFalse(taskList.markTask(2), "markTask should fail for invalid index");
+    }
+
+    @Test
+    void testViewWritesThrough() {
+        taskList.add(new Todo("Unicode ✓ description"));
+        OffHeapTaskList.TaskView view = taskList.view(1, taskList.newView());
+
+        assertEquals("Unicode ✓ description", view.getDescription(), "View should decode description");
+        view.markAsDone();
+        assertTrue(taskList.getTask(1).isDone(), "View updates should reach the arena");
+        assertEquals("[T][X] Unicode ✓ description", view.toString(), "View should render like a Task");
+        assertNull(taskList.view(2, view), "Invalid index should return null");
+    }
+
+    @Test
+    void testDeleteAndCompact() {
+        for (int i = 1; i <= 100; i++) {
+            taskList.add(new Todo("Task " + i));
+        }
+        for (int i = 0; i < 50; i++) {
+            taskList.deleteTask(1);
+        }
+        int usedBeforeCompaction = taskList.getUsedBytes();
+
+        assertTrue(taskList.getGarbageBytes() > 0, "Deleted records should count as garbage");
+        taskList.compact();
+
+        assertEquals(0, taskList.getGarbageBytes(), "Compaction should drop garbage");
+        assertTrue(taskList.getUsedBytes() < usedBeforeCompaction, "Compaction should shrink the arena usage");
+        assertEquals(50, taskList.getTaskCount());
+        assertEquals("Task 51", taskList.getTask(1).getDescription(), "Order should be preserved");
+        assertEquals(1, taskList.findTasks("task 100").length, "Find should still work after compaction");
+    }
+
+    @Test
+    void testDeleteFromTheMiddleKeepsOrder() {
+        for (int i = 1; i <= 10; i++) {
+            taskList.add(new Todo("Task " + i));
+        }
+        assertEquals("Task 5", taskList.deleteTask(5).getDescription());
+        assertEquals("Task 2", taskList.deleteTask(2).getDescription());
+
+        assertEquals(8, taskList.getTaskCount());
+        assertEquals("Task 6", taskList.getTask(4).getDescription(), "Positions should skip deleted tasks");
+        assertTrue(taskList.markTask(8));
+        assertTrue(taskList.getTask(8).isDone() && taskList.getTask(8).getDescription().equals("Task 10"));
+        assertEquals(8, taskList.toArrayList().size());
+        assertNull(taskList.getTask(9), "Positions past the end should stay invalid");
+    }
+
+    @Test
+    void testMemoryStoreKeepsIdsAndTypes() {
+        InMemoryTaskStore store = new InMemoryTaskStore();
+        Recurring recurring = new Recurring("Pay rent",
+                Recurrence.parse("FREQ=MONTHLY", LocalDateTime.of(2026, 1, 31, 9, 0)));
+        recurring.setId(7);
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(recurring);
+        store.write(tasks, 8);
+        recurring.markAsDone();
+
+        Task loaded = store.load().get(0);
+        assertTrue(loaded instanceof Recurring);
+        assertEquals(7, loaded.getId());
+        assertFalse(loaded.isDone(), "Changes after a save should not leak into the store");
+    }
+
+    @Test
+    void testPutReplacesByIdInPlace() {
+        for (int i = 1; i <= 3; i++) {
+            Todo todo = new Todo("Task " + i);
+            todo.setId(i);
+            taskList.add(todo);
+        }
+        int usedBytes = taskList.getUsedBytes();
+        Todo marked = new Todo("Task 2");
+        marked.setId(2);
+        marked.markAsDone();
+        taskList.put(marked);
+        assertEquals(usedBytes, taskList.getUsedBytes(), "A status change should not write a new record");
+        assertTrue(taskList.getTask(2).isDone());
+
+        Todo renamed = new Todo("Task 2, renamed");
+        renamed.setId(2);
+        taskList.put(renamed);
+        assertEquals("Task 2, renamed", taskList.getTask(2).getDescription(), "Replaced tasks should keep their place");
+        assertTrue(taskList.getGarbageBytes() > 0, "The old record should be counted as garbage");
+
+        assertTrue(taskList.deleteById(1));
+        assertFalse(taskList.deleteById(1), "Deleted ids should be forgotten");
+        taskList.compact();
+        Todo added = new Todo("Task 4");
+        added.setId(4);
+        taskList.put(added);
+        taskList.put(renamed);
+        assertEquals(3, taskList.getTaskCount(), "Ids should still be found after compaction");
+        assertEquals("Task 4", taskList.getTask(3).getDescription(), "Unknown ids should be appended");
+    }
+
+    @Test
+    void testMemoryStoreSavesOnlyChangedTasks() {
+        InMemoryTaskStore store = new InMemoryTaskStore();
+        TaskList list = new TaskList(store);
+        list.addTodo("First");
+        list.addTodo("Second");
+        list.addTodo("Third");
+        list.markTask(2);
+        list.deleteTask(1);
+        list.addTodo("Fourth");
+
+        ArrayList<Task> loaded = store.load();
+        assertEquals(3, loaded.size());
+        assertEquals("Second", loaded.get(0).getDescription(), "Saved tasks should keep list order");
+        assertTrue(loaded.get(0).isDone(), "Marks should be saved");
+        assertEquals(2, loaded.get(0).getId());
+        assertEquals("Fourth", loaded.get(2).getDescription());
+        assertEquals(4, loaded.get(2).getId());
+        assertEquals(5, store.getNextId());
+    }
+}
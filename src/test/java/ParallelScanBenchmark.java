@@ -0,0 +1,61 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import kiko.tasklist.ParallelScan;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * Benchmark comparing sequential and parallel scans of the find predicate.
+ * Prints the median time per scan for growing list sizes, to locate the crossover point
+ * used as ParallelScan.DEFAULT_THRESHOLD. Run with: java -cp build/classes/... ParallelScanBenchmark
+ */
+public class ParallelScanBenchmark {
+    private static final int[] SIZES = {1_000, 5_000, 10_000, 20_000, 50_000, 100_000, 1_000_000};
+    private static final int RUNS = 31;
+
+    public static void main(String[] args) {
+        ParallelScan sequential = new ParallelScan(Integer.MAX_VALUE, ForkJoinPool.commonPool());
+        ParallelScan parallel = new ParallelScan(0, ForkJoinPool.commonPool());
+        Predicate<Task> predicate = task -> task.getDescription().toLowerCase().contains("report");
+
+        System.out.printf("parallelism=%d%n", ForkJoinPool.commonPool().getParallelism());
+        System.out.printf("%10s %14s %14s %8s%n", "tasks", "sequential us", "parallel us", "speedup");
+        for (int size : SIZES) {
+            List<Task> tasks = randomTasks(size);
+            double sequentialMicros = medianMicros(() -> sequential.filter(tasks, predicate));
+            double parallelMicros = medianMicros(() -> parallel.filter(tasks, predicate));
+            System.out.printf("%10d %14.1f %14.1f %8.2f%n", size, sequentialMicros, parallelMicros,
+                    sequentialMicros / parallelMicros);
+        }
+    }
+
+    private static List<Task> randomTasks(int size) {
+        String[] words = {"weekly", "report", "book", "meeting", "groceries", "review", "project", "call"};
+        Random random = new Random(7);
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(new Todo(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " " + i));
+        }
+        return tasks;
+    }
+
+    private static double medianMicros(Runnable scan) {
+        // Warm up so the JIT has compiled both paths before timing
+        for (int i = 0; i < RUNS; i++) {
+            scan.run();
+        }
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            scan.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2] / 1_000.0;
+    }
+}
@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import kiko.tasklist.ParallelScan;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * JUnit tests for the ParallelScan class.
+ * Tests that parallel scans return the same tasks and positions as sequential scans.
+ */
+public class ParallelScanTest {
+
+    @Test
+    void testParallelScanKeepsListOrder() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            tasks.add(new Todo((i % 7 == 0 ? "report " : "other ") + i));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        List<Task> sequential = new ParallelScan(Integer.MAX_VALUE, pool).filter(tasks,
+                task -> task.getDescription().startsWith("report"));
+        List<Task> parallel = new ParallelScan(0, pool).filter(tasks,
+                task -> task.getDescription().startsWith("report"));
+        pool.shutdown();
+
+        assertEquals(14_286, parallel.size(), "Every seventh task should match");
+        assertEquals(sequential, parallel, "Parallel results should match sequential results in order");
+    }
+
+    @Test
+    void testSmallListBelowThreshold() {
+        List<Task> tasks = List.of(new Todo("report a"), new Todo("other"), new Todo("report b"));
+
+        List<Task> matches = new ParallelScan().filter(tasks, task -> task.getDescription().startsWith("report"));
+
+        assertEquals(2, matches.size());
+        assertEquals("report b", matches.get(1).getDescription());
+    }
+
+    @Test
+    void testParallelRetainMatchesSequential() {
+        BitSet candidates = new BitSet();
+        for (int i = 0; i < 200_000; i += 3) {
+            candidates.set(i);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        BitSet sequential = new ParallelScan(Integer.MAX_VALUE, pool).retain(candidates, i -> i % 5 == 0);
+        BitSet parallel = new ParallelScan(0, pool).retain(candidates, i -> i % 5 == 0);
+        pool.shutdown();
+
+        assertEquals(13_334, parallel.cardinality(), "Every fifteenth position should be kept");
+        assertEquals(sequential, parallel, "Parallel positions should match sequential positions");
+        assertEquals(66_667, candidates.cardinality(), "The candidates should be left unchanged");
+    }
+}
@@ -0,0 +1,29 @@
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import kiko.parser.Parser;
+
+/**
+ * JUnit tests for the Parser class.
+ * Tests parsing of task number lists and ranges.
+ */
+public class ParserTest {
+    private final Parser parser = new Parser();
+    
+    @Test
+    void testParseTaskNumbersWithRanges() {
+        assertArrayEquals(new int[]{3, 7, 9, 10, 11}, parser.parseTaskNumbers("3,7,9-11", 20),
+                "Should expand ranges");
+        assertArrayEquals(new int[]{1, 2, 3}, parser.parseTaskNumbers("3, 1-3", 20),
+                "Should sort and drop repeated numbers");
+    }
+    
+    @Test
+    void testParseTaskNumbersInvalid() {
+        assertNull(parser.parseTaskNumbers("1-21", 20), "Should reject numbers past the maximum");
+        assertNull(parser.parseTaskNumbers("5-3", 20), "Should reject backwards ranges");
+        assertNull(parser.parseTaskNumbers("0,2", 20), "Should reject zero");
+        assertNull(parser.parseTaskNumbers("1-2-3", 20), "Should reject malformed ranges");
+        assertNull(parser.parseTaskNumbers("a,b", 20), "Should reject words");
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import kiko.query.Query;
+import kiko.query.TaskIndexes;
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * JUnit tests for the Query class.
+ * Tests that index-based execution agrees with checking every task directly.
+ */
+public class QueryTest {
+
+    private static final String[] WORDS = {"report", "review", "book", "meeting", "repo", "groceries"};
+
+    private static List<Task> randomTasks(int count) {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2026, 10, 1, 0, 0);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            LocalDateTime date = base.plusHours(random.nextInt(24 * 60));
+            Task task;
+            switch (random.nextInt(3)) {
+            case 0:
+                task = new Todo(description);
+                break;
+            case 1:
+                task = new Deadline(description, date);
+                break;
+            default:
+                task = new Event(description, date, date.plusHours(2));
+                break;
+            }
+            if (random.nextBoolean()) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static int[] bruteForce(Query query, List<Task> tasks) {
+        return IntStream.range(0, tasks.size()).filter(i -> query.matches(tasks.get(i))).toArray();
+    }
+
+    @Test
+    void testIndexedExecutionMatchesBruteForce() {
+        List<Task> tasks = randomTasks(2000);
+        TaskIndexes indexes = new TaskIndexes(tasks);
+        String[] queries = {
+            "type:D done:no text:report by<2026-10-23",
+            "type:E from>=2026-10-15 to<=2026-11-01",
+            "done:yes repo",
+            "by:2026-10-05",
+            "type:todo ok",
+            "xyz",
+            ""
+        };
+
+        for (String text : queries) {
+            Query query = Query.parse(text);
+            assertArrayEquals(bruteForce(query, tasks), query.execute(indexes, tasks), "Mismatch for: " + text);
+        }
+    }
+
+    @Test
+    void testIncrementalUpdatesMatchRebuild() {
+        List<Task> tasks = randomTasks(500);
+        TaskIndexes indexes = new TaskIndexes(tasks.subList(0, 250));
+        for (Task task : tasks.subList(250, 500)) {
+            indexes.onTaskAdded(task);
+        }
+        tasks.get(10).markAsDone();
+        indexes.onStatusChanged(10, true);
+        tasks.get(300).markAsNotDone();
+        indexes.onStatusChanged(300, false);
+
+        Query query = Query.parse("done:no text:review");
+        assertArrayEquals(bruteForce(query, tasks), query.execute(indexes, tasks), "Incremental indexes should match");
+    }
+
+    @Test
+    void testLargeUnsortedDateIndexesMatchBruteForce() {
+        // Random dates come in no order, which made building the sorted date indexes quadratic
+        List<Task> tasks = randomTasks(100_000);
+        TaskIndexes indexes = new TaskIndexes(tasks.subList(0, 90_000));
+        for (Task task : tasks.subList(90_000, 100_000)) {
+            indexes.onTaskAdded(task);
+        }
+        for (String text : new String[] {"by<2026-10-23", "by:2026-10-05", "from>=2026-11-15", "to<=2026-10-02"}) {
+            Query query = Query.parse(text);
+            assertArrayEquals(bruteForce(query, tasks), query.execute(indexes, tasks), "Mismatch for: " + text);
+        }
+    }
+
+    @Test
+    void testInvalidTerms() {
+        assertThrows(IllegalArgumentException.class, () -> Query.parse("type:X"));
+        assertThrows(IllegalArgumentException.class, () -> Query.parse("done:maybe"));
+        assertThrows(IllegalArgumentException.class, () -> Query.parse("by<tomorrow"));
+    }
+}
@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.query.Query;
+import kiko.storage.Storage;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
+import kiko.task.Task;
+import kiko.tasklist.TaskList;
+
+/**
+ * JUnit tests for recurrence rules and Recurring tasks.
+ */
+public class RecurrenceTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 31, 9, 30);
+    
+    @Test
+    void testNextOccurrenceJumpsToTheRightInterval() {
+        Recurrence weekly = new Recurrence(Recurrence.Frequency.WEEKLY, 2, START, 0, null);
+        
+        assertEquals(START, weekly.nextOccurrence(START.minusYears(1)), "First occurrence should be the start");
+        assertEquals(START.plusWeeks(2), weekly.nextOccurrence(START.plusMinutes(1)), "Should skip to the next interval");
+        assertEquals(START.plusWeeks(2 * 5200), weekly.nextOccurrence(START.plusWeeks(2 * 5200)),
+                "Should reach far occurrences directly");
+    }
+    
+    @Test
+    void testMonthlyRuleDoesNotDrift() {
+        Recurrence monthly = new Recurrence(Recurrence.Frequency.MONTHLY, 1, START, 0, null);
+        Iterator<LocalDateTime> occurrences = monthly.occurrencesFrom(START);
+        
+        assertEquals(START, occurrences.next(), "Should start on the 31st");
+        assertEquals(LocalDateTime.of(2026, 2, 28, 9, 30), occurrences.next(), "Should clamp to the end of February");
+        assertEquals(LocalDateTime.of(2026, 3, 31, 9, 30), occurrences.next(), "Should return to the 31st");
+    }
+    
+    @Test
+    void testCountAndUntilEndTheRule() {
+        Recurrence counted = Recurrence.parse("FREQ=DAILY;COUNT=3", START);
+        Recurrence bounded = Recurrence.parse("FREQ=DAILY;INTERVAL=1;UNTIL=20260202T0930", START);
+        
+        assertEquals(START.plusDays(2), counted.nextOccurrence(START.plusDays(1).plusHours(1)), "Third day should count");
+        assertNull(counted.nextOccurrence(START.plusDays(2).plusHours(1)), "Fourth day should not exist");
+        assertTrue(bounded.hasOccurrenceBetween(START.plusDays(2), null), "Until should be inclusive");
+        assertFalse(bounded.hasOccurrenceBetween(START.plusDays(2).plusMinutes(1), null), "Nothing should follow until");
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("INTERVAL=2", START),
+                "Rule without FREQ should be rejected");
+    }
+    
+    @Test
+    void testRecurringTaskRoundTripsThroughStorage() {
+        Recurring task = new Recurring("Team standup",
+                new Recurrence(Recurrence.Frequency.WEEKLY, 1, START, 10, null));
+        task.setId(4);
+        
+        Task parsed = Storage.parseTaskFromString("4 | R | 0 | Team standup | 2026-01-31 0930 | "
+                + task.getRuleForStorage());
+        
+        assertTrue(task.hasSameContent(parsed), "Parsed task should match the original");
+    }
+    
+    @Test
+    void testNextOccurrenceFollowsTheClock() {
+        Recurrence weekly = new Recurrence(Recurrence.Frequency.WEEKLY, 1, START, 2, null);
+        Clock beforeStart = Clock.fixed(START.minusDays(1).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        Clock afterFirst = Clock.fixed(START.plusDays(1).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        Clock afterLast = Clock.fixed(START.plusWeeks(2).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+        assertEquals("[R][ ] standup (every week, 2 times, next: Jan 31 2026, 9:30 AM)",
+                new Recurring("standup", weekly, beforeStart).toString());
+        assertEquals("[R][ ] standup (every week, 2 times, next: Feb 07 2026, 9:30 AM)",
+                new Recurring("standup", weekly, afterFirst).copy().toString(), "Copies should keep the clock");
+        assertEquals("[R][ ] standup (every week, 2 times, no more occurrences)",
+                new Recurring("standup", weekly, afterLast).toString());
+    }
+    
+    @Test
+    void testDateQueriesMatchOccurrences() {
+        TaskList list = new TaskList(new ArrayList<>(), "./data/test_recurrence.txt");
+        list.addTodo("unrelated");
+        list.addRecurring("standup", new Recurrence(Recurrence.Frequency.WEEKLY, 1, START, 0, null));
+        list.addDeadline("report", START.plusDays(3));
+        
+        // 2026-03-07 is a Saturday, like the start
+        assertArrayEquals(new int[]{2}, list.query(Query.parse("by:2026-03-07")), "Occurrence day should match");
+        assertArrayEquals(new int[0], list.query(Query.parse("by:2026-03-08")), "Other days should not match");
+        assertArrayEquals(new int[]{2, 3}, list.query(Query.parse("by<2026-02-04")), "Both should be due early");
+        new java.io.File("./data/test_recurrence.txt").delete();
+    }
+}
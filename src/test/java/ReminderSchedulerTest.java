@@ -0,0 +1,149 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.history.History;
+import kiko.reminder.ReminderScheduler;
+import kiko.task.Deadline;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
+import kiko.task.Task;
+import kiko.tasklist.TaskList;
+
+/**
+ * JUnit tests for the ReminderScheduler class.
+ * Uses a manually advanced clock and fires due reminders without the background thread.
+ */
+public class ReminderSchedulerTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 9, 0);
+    
+    private ManualClock clock;
+    private List<String> messages;
+    private ReminderScheduler scheduler;
+    
+    @BeforeEach
+    void setUp() {
+        clock = new ManualClock(NOW.toInstant(ZoneOffset.UTC));
+        messages = new ArrayList<>();
+        scheduler = new ReminderScheduler(Duration.ofMinutes(15), clock, messages::add);
+    }
+    
+    @Test
+    void testReminderFiresLeadTimeBeforeDeadline() {
+        Deadline deadline = new Deadline("submit report", NOW.plusHours(1));
+        deadline.setId(1);
+        scheduler.schedule(deadline);
+        
+        clock.advance(Duration.ofMinutes(44));
+        assertEquals(0, scheduler.fireDue(), "Reminder should wait for the lead time");
+        clock.advance(Duration.ofMinutes(1));
+        assertEquals(1, scheduler.fireDue(), "Reminder should fire 15 minutes before");
+        assertTrue(messages.get(0).contains("submit report"), "Message should name the task");
+        assertEquals(0, scheduler.getPendingCount(), "Nothing should remain pending");
+    }
+    
+    @Test
+    void testRemovedAndDoneTasksAreCancelled() {
+        Deadline removed = new Deadline("removed", NOW.plusMinutes(5));
+        removed.setId(1);
+        Deadline done = new Deadline("done", NOW.plusMinutes(5));
+        done.setId(2);
+        scheduler.schedule(removed);
+        scheduler.schedule(done);
+        Task doneCopy = done.copy();
+        doneCopy.markAsDone();
+        
+        scheduler.onTasksChanged(new Task[]{removed, done}, new Task[]{doneCopy});
+        
+        assertEquals(0, scheduler.fireDue(), "Cancelled reminders should not fire");
+        assertTrue(messages.isEmpty(), "No message should be sent");
+    }
+    
+    @Test
+    void testRecurringTaskIsRescheduledAfterFiring() {
+        Recurring standup = new Recurring("standup",
+                new Recurrence(Recurrence.Frequency.DAILY, 1, NOW.plusMinutes(10), 0, null));
+        standup.setId(1);
+        scheduler.schedule(standup);
+        
+        assertEquals(1, scheduler.fireDue(), "First occurrence is within the lead time");
+        assertEquals(1, scheduler.getPendingCount(), "Next occurrence should be pending");
+        clock.advance(Duration.ofDays(1));
+        assertEquals(1, scheduler.fireDue(), "Next day's reminder should fire");
+    }
+    
+    @Test
+    void testUndoCancelsReminderThroughHistory() {
+        TaskList list = new TaskList(new ArrayList<>(), "./data/test_reminders.txt");
+        History history = new History(list);
+        history.setListener(scheduler);
+        
+        list.addDeadline("pay bill", NOW.plusMinutes(30));
+        history.commit(list, "deadline pay bill");
+        assertEquals(1, scheduler.getPendingCount(), "Commit should schedule the new deadline");
+        history.undo(1);
+        assertEquals(0, scheduler.getPendingCount(), "Undo should cancel it");
+        history.redo(1);
+        assertEquals(1, scheduler.getPendingCount(), "Redo should schedule it again");
+        new java.io.File("./data/test_reminders.txt").delete();
+    }
+    
+    @Test
+    void testRepeatedMarkingKeepsQueueBounded() {
+        Deadline deadline = new Deadline("far off", NOW.plusYears(5));
+        deadline.setId(1);
+        Deadline other = new Deadline("also far off", NOW.plusYears(5));
+        other.setId(2);
+        scheduler.schedule(other);
+        for (int i = 0; i < 10_000; i++) {
+            deadline.markAsDone();
+            scheduler.schedule(deadline);
+            deadline.markAsNotDone();
+            scheduler.schedule(deadline);
+        }
+        
+        assertEquals(2, scheduler.getPendingCount());
+        assertTrue(scheduler.getQueuedCount() <= 100, "Cancelled reminders should not pile up in the queue, but "
+                + scheduler.getQueuedCount() + " are queued");
+        clock.advance(Duration.ofDays(5 * 366));
+        assertEquals(2, scheduler.fireDue(), "Each pending reminder should still fire once");
+    }
+    
+    /**
+     * A clock that only moves when told to.
+     */
+    private static class ManualClock extends Clock {
+        private Instant instant;
+        
+        private ManualClock(Instant instant) {
+            this.instant = instant;
+        }
+        
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+        
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Function;
+import kiko.Kiko;
+import kiko.storage.InMemoryTaskStore;
+import kiko.workspace.WorkspaceManager;
+
+/**
+ * Benchmark of command throughput over a large in-memory list, comparing Kiko.execute, which returns
+ * a structured response, with Kiko.getResponse, which also builds the text shown in the chat window.
+ * Prints the median commands per second and the bytes allocated per command.
+ * Run with: java -cp build/classes/... ResponseBenchmark
+ */
+public class ResponseBenchmark {
+    private static final int SIZE = 10_000;
+    private static final int COMMANDS = 500;
+    private static final int RUNS = 7;
+    private static final String[] INPUTS = {"list", "find book", "query done:no"};
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("kiko-response-benchmark");
+        Kiko kiko = new Kiko(new WorkspaceManager(directory.toString(), 2, path -> new InMemoryTaskStore()));
+        for (int i = 1; i <= SIZE; i++) {
+            kiko.execute(i % 2 == 0 ? "todo read book " + i : "todo write notes " + i);
+        }
+        try {
+            System.out.printf("%-16s %-14s %12s %14s%n", "command", "entry point", "commands/s", "allocated KB");
+            for (String input : INPUTS) {
+                measure(input, "execute", kiko::execute);
+                measure(input, "getResponse", kiko::getResponse);
+            }
+        } finally {
+            Files.delete(directory);
+        }
+    }
+
+    private static void measure(String input, String name, Function<String, Object> entryPoint) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] times = new long[RUNS];
+        long[] allocated = new long[RUNS];
+        // The first run warms up the JIT and is not counted
+        runCommands(input, entryPoint);
+        for (int i = 0; i < RUNS; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            runCommands(input, entryPoint);
+            times[i] = System.nanoTime() - start;
+            allocated[i] = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        }
+        Arrays.sort(times);
+        Arrays.sort(allocated);
+        System.out.printf("%-16s %-14s %12.0f %14d%n", input, name, COMMANDS / (times[RUNS / 2] / 1e9),
+                allocated[RUNS / 2] / COMMANDS / 1024);
+    }
+
+    private static void runCommands(String input, Function<String, Object> entryPoint) {
+        for (int i = 0; i < COMMANDS; i++) {
+            entryPoint.apply(input);
+        }
+    }
+}
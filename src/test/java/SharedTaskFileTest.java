@@ -0,0 +1,137 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.storage.SharedTaskFile;
+import kiko.storage.Storage;
+import kiko.task.Task;
+import kiko.tasklist.TaskList;
+
+/**
+ * JUnit tests for SharedTaskFile.
+ * Another Kiko instance is simulated by writing the task file and its journal the way a save would.
+ */
+public class SharedTaskFileTest {
+
+    private Path directory;
+    private String filePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("kiko-shared");
+        filePath = directory.resolve("tasks.txt").toString();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    void testSyncAppliesJournalEntries() throws IOException {
+        SharedTaskFile file = SharedTaskFile.of(filePath);
+        TaskList taskList = new TaskList(file.load(), filePath, file.getNextId());
+        taskList.addTodo("Mine");
+        assertEquals(1, Storage.readGeneration(filePath), "Every save should bump the generation");
+
+        saveElsewhere(2, List.of("1 | T | 1 | Mine", "2 | T | 0 | Theirs"));
+
+        assertEquals(2, taskList.syncExternalChanges(), "Both journal entries should be applied");
+        assertEquals(2, taskList.getTaskCount());
+        assertTrue(taskList.getTask(1).isDone(), "The other instance's mark should be applied");
+        assertEquals("Theirs", taskList.getTask(2).getDescription());
+        assertEquals(0, taskList.syncExternalChanges(), "Nothing should be applied twice");
+    }
+
+    @Test
+    void testSaveKeepsConcurrentChanges() throws IOException {
+        SharedTaskFile file = SharedTaskFile.of(filePath);
+        TaskList taskList = new TaskList(file.load(), filePath, file.getNextId());
+        taskList.addTodo("First");
+
+        // The other instance adds a task with the id this list will also give out next
+        saveElsewhere(2, List.of("1 | T | 0 | First", "2 | T | 0 | Theirs"));
+        taskList.addTodo("Mine");
+
+        ArrayList<Task> saved = Storage.loadTasks(filePath);
+        assertEquals(3, saved.size(), "Neither instance's new task should be lost");
+        assertEquals("Theirs", saved.get(1).getDescription(), "The task saved first should come first");
+        assertEquals(2, saved.get(1).getId(), "The task saved first should keep its id");
+        assertEquals("Mine", saved.get(2).getDescription());
+        assertEquals(3, saved.get(2).getId(), "The later task should get a fresh id");
+        assertEquals("Mine", taskList.getTask(3).getDescription(), "The list should match the file");
+        assertEquals(3, Storage.readGeneration(filePath));
+    }
+
+    @Test
+    void testSaveJournalsOnlyTheChangedTasks() throws IOException {
+        SharedTaskFile file = SharedTaskFile.of(filePath);
+        TaskList taskList = new TaskList(file.load(), filePath, file.getNextId());
+        taskList.addTodo("One");
+        taskList.addTodo("Two");
+        taskList.addTodo("Three");
+        taskList.markTask(2);
+        taskList.deleteTask(3);
+
+        List<String> journal = Files.readAllLines(Path.of(filePath + SharedTaskFile.JOURNAL_SUFFIX));
+        assertEquals(List.of("4 | + | 2 | T | 1 | Two"), journal.subList(journal.size() - 2, journal.size() - 1));
+        assertEquals(List.of("5 | - | 3"), journal.subList(journal.size() - 1, journal.size()));
+        ArrayList<Task> saved = Storage.loadTasks(filePath);
+        assertEquals(2, saved.size());
+        assertTrue(saved.get(1).isDone(), "The whole file should still be written");
+    }
+
+    @Test
+    void testReplacedFileIsReloadedNotOverwritten() throws IOException {
+        SharedTaskFile file = SharedTaskFile.of(filePath);
+        TaskList taskList = new TaskList(file.load(), filePath, file.getNextId());
+        taskList.addTodo("First");
+        taskList.addTodo("Second");
+        taskList.addTodo("Third");
+        assertEquals(3, Storage.readGeneration(filePath));
+
+        // A backup from an older generation is copied over the file
+        Storage.saveTasks(new ArrayList<>(List.of(Storage.parseTaskFromString("1 | T | 1 | First"),
+                Storage.parseTaskFromString("4 | T | 0 | Restored"))), filePath, 5, false, 1);
+
+        assertEquals(4, taskList.syncExternalChanges(), "A mark, an add and two deletes");
+        assertEquals(2, taskList.getTaskCount());
+        assertTrue(taskList.getTask(1).isDone(), "The backup's mark should be read");
+        assertEquals("Restored", taskList.getTask(2).getDescription());
+
+        taskList.addTodo("Later");
+        ArrayList<Task> saved = Storage.loadTasks(filePath);
+        assertEquals(3, saved.size(), "The backup's tasks should survive the next save");
+        assertEquals("Restored", saved.get(1).getDescription());
+    }
+
+    /**
+     * Saves the given task lines as another instance would: journal entries first, then the file.
+     */
+    private void saveElsewhere(long generation, List<String> lines) throws IOException {
+        StringBuilder journal = new StringBuilder();
+        ArrayList<Task> tasks = new ArrayList<>();
+        int nextId = 1;
+        for (String line : lines) {
+            journal.append(generation).append(" | + | ").append(line).append(System.lineSeparator());
+            Task task = Storage.parseTaskFromString(line);
+            tasks.add(task);
+            nextId = Math.max(nextId, task.getId() + 1);
+        }
+        Files.writeString(Path.of(filePath + SharedTaskFile.JOURNAL_SUFFIX), journal, StandardOpenOption.APPEND);
+        Storage.saveTasks(tasks, filePath, nextId, false, generation);
+    }
+}
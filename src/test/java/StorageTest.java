@@ -1,5 +1,9 @@
 import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -10,6 +14,8 @@ import kiko.task.Task;
 import kiko.task.Todo;
 import kiko.task.Deadline;
 import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
 
 /**
  * JUnit tests for the Storage class.
@@ -179,4 +185,117 @@ public class StorageTest {
         // Let's test with a more realistic empty description scenario
         assertNull(task, "Should return null for malformed line with trailing space");
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testParseTaskWithId() {
+        Task task = Storage.parseTaskFromString("42 | D | 1 | Submit assignment | 2024-12-31 2359");
+        
+        assertNotNull(task, "Should parse task with a leading id");
+        assertEquals(42, task.getId(), "Id should match");
+        assertEquals("Submit assignment", task.getDescription(), "Description should match");
+        assertTrue(task.isDone(), "Task should be marked as done");
+    }
+    
+    @Test
+    void testCompressedRoundTrip() throws IOException {
+        Path directory = Files.createTempDirectory("kiko-storage");
+        String textPath = directory.resolve("plain.txt").toString();
+        String compressedPath = directory.resolve("compressed.txt").toString();
+        LocalDateTime base = LocalDateTime.of(2026, 1, 5, 9, 0);
+        ArrayList<Task> tasks = new ArrayList<>();
+        // More than one block, with repeated descriptions and ids that skip deleted tasks
+        for (int i = 0; i < 10000; i++) {
+            Task task;
+            switch (i % 4) {
+            case 0:
+                task = new Todo("Water plants");
+                break;
+            case 1:
+                task = new Deadline("Submit report " + (i % 50), base.plusHours(i));
+                break;
+            case 2:
+                task = new Event("Standup", base.plusDays(i % 30), base.plusDays(i % 30).plusMinutes(15));
+                break;
+            default:
+                task = new Recurring("Gym", Recurrence.parse("FREQ=WEEKLY;INTERVAL=2;COUNT=10", base.minusDays(i)));
+                break;
+            }
+            task.setId(i * 2 + 1);
+            if (i % 3 == 0) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+        
+        Storage.saveTasks(tasks, textPath, 30000, false);
+        Storage.saveTasks(tasks, compressedPath, 30000, true);
+        ArrayList<Task> loaded = Storage.loadTasks(compressedPath);
+        
+        assertTrue(Storage.isCompressed(compressedPath), "File should be in the compressed format");
+        assertFalse(Storage.isCompressed(textPath), "Text file should not be detected as compressed");
+        assertTrue(Files.size(Path.of(compressedPath)) * 10 < Files.size(Path.of(textPath)),
+                "Repetitive tasks should compress to under a tenth of the text size");
+        assertEquals(30000, Storage.readNextId(compressedPath), "Next id should survive compression");
+        assertEquals(tasks.size(), loaded.size(), "Every task should load back");
+        for (int i = 0; i < tasks.size(); i++) {
+            assertTrue(tasks.get(i).hasSameContent(loaded.get(i)), "Task " + i + " should load back unchanged");
+        }
+        
+        // Later saves keep the format the file already has
+        Storage.saveTasks(loaded, compressedPath, 30000);
+        assertTrue(Storage.isCompressed(compressedPath), "File should stay compressed after a normal save");
+        
+        Files.delete(Path.of(textPath));
+        Files.delete(Path.of(compressedPath));
+        Files.delete(directory);
+    }
+    
+    @Test
+    void testSavedTextMatchesTaskStrings() throws IOException {
+        Path directory = Files.createTempDirectory("kiko-encoder");
+        String filePath = directory.resolve("tasks.txt").toString();
+        LocalDateTime base = LocalDateTime.of(2024, 3, 9, 7, 5);
+        ArrayList<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("Café crème \u2615 and \uD83D\uDE80 launch"));
+        tasks.add(new Todo("x".repeat(200_000)));
+        for (int i = 0; i < 20000; i++) {
+            Task task;
+            switch (i % 4) {
+            case 0:
+                task = new Todo("Read book " + i);
+                break;
+            case 1:
+                task = new Deadline("Return book", base.plusMinutes(i * 37L));
+                break;
+            case 2:
+                task = new Event("Meeting", base.plusDays(i), base.plusDays(i).plusHours(1));
+                break;
+            default:
+                task = new Recurring("Standup", Recurrence.parse("FREQ=DAILY;INTERVAL=1", base));
+                break;
+            }
+            if (i % 2 == 0) {
+                task.setId(i + 1);
+            }
+            if (i % 3 == 0) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+        
+        Storage.saveTasks(tasks, filePath, 20001, false, 7);
+        
+        StringBuilder expected = new StringBuilder();
+        expected.append("# next-id 20001").append(System.lineSeparator());
+        expected.append("# generation 7").append(System.lineSeparator());
+        for (Task task : tasks) {
+            expected.append(Storage.taskToFileString(task)).append(System.lineSeparator());
+        }
+        assertEquals(expected.toString(), Files.readString(Path.of(filePath)),
+                "The file should hold exactly the tasks' storage strings");
+        assertEquals(tasks.size(), Storage.loadTasks(filePath).size());
+        
+        Files.delete(Path.of(filePath));
+        Files.delete(directory);
+    }
+}
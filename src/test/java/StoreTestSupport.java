@@ -0,0 +1,56 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.stream.Stream;
+import kiko.storage.Storage;
+import kiko.task.Deadline;
+import kiko.task.Task;
+import kiko.task.Todo;
+
+/**
+ * Task lists and file helpers shared by the storage engine tests.
+ */
+final class StoreTestSupport {
+    static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 9, 0);
+
+    private StoreTestSupport() {
+    }
+
+    /**
+     * Returns tasks with ids 1 to count, alternating todos and deadlines an hour apart from START.
+     */
+    static ArrayList<Task> manyTasks(int count) {
+        ArrayList<Task> tasks = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            Task task = id % 2 == 0 ? new Deadline("Deadline " + id, START.plusHours(id)) : new Todo("Todo " + id);
+            task.setId(id);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the task file lines of the tasks, for comparing lists by content.
+     */
+    static ArrayList<String> lines(ArrayList<Task> tasks) {
+        ArrayList<String> lines = new ArrayList<>();
+        for (Task task : tasks) {
+            lines.add(Storage.taskToFileString(task));
+        }
+        return lines;
+    }
+
+    /**
+     * Deletes a temporary directory and the files in it.
+     */
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
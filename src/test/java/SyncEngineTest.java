@@ -0,0 +1,149 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import kiko.history.History;
+import kiko.storage.SharedTaskFile;
+import kiko.sync.SyncEngine;
+import kiko.sync.SyncStamps;
+import kiko.tasklist.TaskList;
+
+/**
+ * JUnit tests for SyncEngine.
+ * Each test syncs the same task list between two temporary data directories.
+ */
+public class SyncEngineTest {
+
+    private Path directory;
+    private String firstPath;
+    private String secondPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("kiko-sync");
+        firstPath = Files.createDirectory(directory.resolve("first")).resolve("tasks.txt").toString();
+        secondPath = Files.createDirectory(directory.resolve("second")).resolve("tasks.txt").toString();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static TaskList open(String filePath) {
+        SharedTaskFile file = SharedTaskFile.of(filePath);
+        return new TaskList(file.load(), filePath, file.getNextId());
+    }
+
+    private static List<String> contents(TaskList taskList) {
+        return taskList.getAllTasksArrayList().stream()
+                .map(task -> task.getDescription() + (task.isDone() ? " [X]" : " [ ]"))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void testConcurrentChangesConverge() throws IOException {
+        TaskList first = open(firstPath);
+        first.addTodo("One");
+        first.addTodo("Two");
+        SyncEngine.Result result = SyncEngine.sync(first, secondPath);
+        assertEquals(2, result.getSentCount());
+        assertEquals(0, result.getReceivedCount());
+
+        TaskList second = open(secondPath);
+        assertEquals(List.of("One [ ]", "Two [ ]"), contents(second));
+
+        first.markTask(1);
+        first.deleteTask(2);
+        first.addTodo("From first");
+        second.markTask(2);
+        second.addTodo("From second");
+
+        result = SyncEngine.sync(first, secondPath);
+        assertEquals(3, result.getSentCount());
+        assertEquals(2, result.getReceivedCount());
+        second = open(secondPath);
+        List<String> expected = List.of("From first [ ]", "From second [ ]", "One [X]");
+        assertEquals(expected, contents(first), "Deletion should win over a concurrent mark");
+        assertEquals(expected, contents(second));
+
+        result = SyncEngine.sync(first, secondPath);
+        assertEquals(0, result.getSentCount(), "Only changes since the last sync should be sent");
+        assertEquals(0, result.getReceivedCount());
+    }
+
+    @Test
+    void testLaterStatusChangeWins() throws IOException {
+        TaskList first = open(firstPath);
+        first.addTodo("Flip");
+        SyncEngine.sync(first, secondPath);
+
+        first.markTask(1);
+        SyncEngine.sync(first, secondPath);
+        TaskList second = open(secondPath);
+        assertEquals(List.of("Flip [X]"), contents(second));
+
+        second.unmarkTask(1);
+        SyncEngine.Result result = SyncEngine.sync(first, secondPath);
+        assertEquals(1, result.getReceivedCount());
+        assertEquals(List.of("Flip [ ]"), contents(first), "The newer unmark should replace the older mark");
+    }
+
+    @Test
+    void testStatusChangeIsOrderedByWhenItWasMade() throws IOException, InterruptedException {
+        String thirdPath = Files.createDirectory(directory.resolve("third")).resolve("tasks.txt").toString();
+        TaskList first = open(firstPath);
+        first.addTodo("Flip");
+        SyncEngine.sync(first, secondPath);
+        SyncEngine.sync(first, thirdPath);
+        first.markTask(1);
+        SyncEngine.sync(first, secondPath);
+
+        // The second copy unmarks first, but syncs last
+        TaskList second = open(secondPath);
+        History secondHistory = new History(second);
+        secondHistory.setListener(new SyncStamps(secondPath));
+        second.unmarkTask(1);
+        secondHistory.commit(second, "unmark 1");
+        Thread.sleep(5);
+        TaskList third = open(thirdPath);
+        History thirdHistory = new History(third);
+        thirdHistory.setListener(new SyncStamps(thirdPath));
+        third.markTask(1);
+        thirdHistory.commit(third, "mark 1");
+
+        SyncEngine.sync(first, thirdPath);
+        SyncEngine.sync(first, secondPath);
+        assertEquals(List.of("Flip [X]"), contents(first), "The later mark should win over the earlier unmark");
+        assertEquals(List.of("Flip [X]"), contents(open(secondPath)));
+    }
+
+    @Test
+    void testFirstSyncOfCopiesAddsNothingTwice() throws IOException {
+        TaskList first = open(firstPath);
+        first.addTodo("One");
+        first.addTodo("Two");
+        first.markTask(1);
+        Files.copy(Path.of(firstPath), Path.of(secondPath));
+        TaskList second = open(secondPath);
+        second.addTodo("Three");
+
+        SyncEngine.Result result = SyncEngine.sync(first, secondPath);
+        assertEquals(1, result.getReceivedCount(), "Only the task added to the copy should be sent back");
+        List<String> expected = List.of("One [X]", "Three [ ]", "Two [ ]");
+        assertEquals(expected, contents(first));
+        assertEquals(expected, contents(open(secondPath)));
+    }
+}
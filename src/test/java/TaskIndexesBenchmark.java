@@ -0,0 +1,45 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import kiko.query.TaskIndexes;
+import kiko.task.Deadline;
+import kiko.task.Task;
+
+/**
+ * Benchmark of building the query indexes over deadlines whose dates come in random order, as the first
+ * query on a list, and every query after a compaction or a replaced task, does.
+ * Prints the median build time for growing list sizes. Run with: java -cp build/classes/... TaskIndexesBenchmark
+ */
+public class TaskIndexesBenchmark {
+    private static final int[] SIZES = {100_000, 200_000, 400_000, 1_000_000};
+    private static final int RUNS = 5;
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %12s%n", "tasks", "build ms");
+        for (int size : SIZES) {
+            List<Task> tasks = randomDeadlines(size);
+            long[] times = new long[RUNS];
+            // The first build warms up the JIT and is not counted
+            new TaskIndexes(tasks);
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                new TaskIndexes(tasks);
+                times[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(times);
+            System.out.printf("%10d %12.1f%n", size, times[RUNS / 2] / 1e6);
+        }
+    }
+
+    private static List<Task> randomDeadlines(int size) {
+        Random random = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(new Deadline("Deadline " + i, base.plusMinutes(random.nextInt(5 * 365 * 24 * 60))));
+        }
+        return tasks;
+    }
+}
@@ -6,9 +6,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.query.Query;
+import kiko.storage.Storage;
 import kiko.tasklist.TaskList;
 import kiko.task.Task;
 
@@ -155,4 +161,88 @@ public class TaskListTest {
         assertTrue(taskList.getTask(2).isDone(), "Deadline task should be marked");
         assertTrue(taskList.getTask(3).isDone(), "Event task should be marked");
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testIdsStayStableAcrossDeletes() {
+        TaskList list = new TaskList(new ArrayList<>(), TEST_FILE_PATH);
+        list.addTodo("first");
+        list.addTodo("second");
+        list.addTodo("third");
+        int thirdId = list.getTask(3).getId();
+        
+        list.deleteTask(1);
+        
+        assertEquals("third", list.getTaskById(thirdId).getDescription(), "Id should still find the task");
+        assertEquals(2, list.indexOfId(thirdId), "Index of the task should shift after a delete");
+        assertEquals(-1, list.indexOfId(thirdId - 2), "Deleted id should not be found");
+        list.addTodo("fourth");
+        assertEquals(thirdId + 1, list.getTask(3).getId(), "Ids should never be reused");
+    }
+    
+    @Test
+    void testManyDeletesKeepIndicesAndQueriesConsistent() {
+        TaskList list = new TaskList(new ArrayList<>(), TEST_FILE_PATH);
+        for (int i = 0; i < 300; i++) {
+            list.addTodo("task " + i);
+        }
+        list.query(Query.parse("done:no"));
+        // Delete every other task, enough to trigger compaction part way through
+        for (int i = 1; i <= 150; i++) {
+            assertNotNull(list.deleteTask(i), "Task " + i + " should exist");
+        }
+        
+        assertEquals(150, list.getTaskCount(), "Half the tasks should remain");
+        for (int i = 1; i <= 150; i++) {
+            assertEquals("task " + (2 * i - 1), list.getTask(i).getDescription(), "Remaining tasks should keep order");
+        }
+        assertTrue(list.markTask(2), "Should mark a remaining task");
+        assertArrayEquals(new int[]{2}, list.query(Query.parse("done:yes")), "Query should see the mark");
+        assertEquals(1, list.findTasks("task 299").length, "Find should see remaining tasks");
+        assertEquals(0, list.findTasks("task 298").length, "Find should skip deleted tasks");
+    }
+    
+    @Test
+    void testIdsPersistAcrossReload() {
+        TaskList list = new TaskList(new ArrayList<>(), TEST_FILE_PATH);
+        list.addTodo("keep");
+        list.addTodo("drop");
+        list.deleteTask(2);
+        
+        TaskList reloaded = new TaskList(Storage.loadTasks(TEST_FILE_PATH), TEST_FILE_PATH,
+                Storage.readNextId(TEST_FILE_PATH));
+        
+        assertEquals(list.getTask(1).getId(), reloaded.getTask(1).getId(), "Id should survive a reload");
+        assertEquals(3, reloaded.getNextId(), "Id of the deleted task should not be reused");
+        assertNull(reloaded.getTaskById(2), "Deleted task should not come back");
+    }
+    
+    @Test
+    void testBulkOperationsApplyToEveryIndex() {
+        TaskList list = new TaskList(new ArrayList<>(), TEST_FILE_PATH);
+        for (int i = 1; i <= 10; i++) {
+            list.addTodo("task " + i);
+        }
+        
+        assertTrue(list.markTasks(new int[]{2, 3, 4, 9}), "Should mark valid indices");
+        assertArrayEquals(new int[]{2, 3, 4, 9}, list.query(Query.parse("done:yes")), "Marked tasks should be done");
+        
+        Task[] deleted = list.deleteTasks(new int[]{1, 3, 10});
+        
+        assertEquals(3, deleted.length, "Should delete every index");
+        assertEquals("task 3", deleted[1].getDescription(), "Indices should refer to positions before the delete");
+        assertEquals(7, list.getTaskCount(), "Seven tasks should remain");
+        assertEquals("task 2", list.getTask(1).getDescription(), "Remaining tasks should keep order");
+        assertEquals("task 4", list.getTask(2).getDescription(), "Remaining tasks should keep order");
+    }
+    
+    @Test
+    void testBulkOperationsRejectInvalidIndicesWithoutChanges() {
+        TaskList list = new TaskList(new ArrayList<>(), TEST_FILE_PATH);
+        list.addTodo("only");
+        
+        assertFalse(list.markTasks(new int[]{1, 2}), "Should reject an index past the end");
+        assertNull(list.deleteTasks(new int[]{1, 1}), "Should reject repeated indices");
+        assertFalse(list.getTask(1).isDone(), "Rejected bulk mark should change nothing");
+        assertEquals(1, list.getTaskCount(), "Rejected bulk delete should change nothing");
+    }
+}
@@ -0,0 +1,78 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import kiko.storage.BTreeTaskStore;
+import kiko.storage.EventLogTaskStore;
+import kiko.storage.InMemoryTaskStore;
+import kiko.storage.JournalTaskStore;
+import kiko.storage.TaskStore;
+import kiko.storage.TextTaskStore;
+import kiko.task.Task;
+import kiko.task.Todo;
+import kiko.tasklist.TaskList;
+
+/**
+ * Benchmark of a single mark, including its save, with each storage engine.
+ * The in-memory store shows the CPU cost of the list itself; the gap to the other engines is their I/O.
+ * Run with: java -cp build/classes/... TaskStoreBenchmark
+ */
+public class TaskStoreBenchmark {
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+    private static final int RUNS = 21;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("kiko-store-benchmark");
+        System.out.printf("%10s %12s %12s %12s %12s %12s%n", "tasks", "memory us", "file us", "journal us",
+                "btree us", "events us");
+        try {
+            for (int size : SIZES) {
+                System.out.printf("%10d %12.1f %12.1f %12.1f %12.1f %12.1f%n", size,
+                        medianMarkMicros(size, path -> new InMemoryTaskStore(), directory),
+                        medianMarkMicros(size, TextTaskStore::new, directory),
+                        medianMarkMicros(size, JournalTaskStore::new, directory),
+                        medianMarkMicros(size, TaskStoreBenchmark::openBTree, directory),
+                        medianMarkMicros(size, EventLogTaskStore::new, directory));
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static TaskStore openBTree(String filePath) {
+        try {
+            return new BTreeTaskStore(filePath);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static double medianMarkMicros(int size, Function<String, TaskStore> factory, Path directory) {
+        String filePath = directory.resolve("tasks-" + size + "-" + System.nanoTime()).toString();
+        try (TaskStore store = factory.apply(filePath)) {
+            ArrayList<Task> tasks = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                tasks.add(new Todo("task " + i));
+            }
+            TaskList list = new TaskList(tasks, store, 1);
+            list.save();
+            long[] times = new long[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                int index = 1 + i * (size / RUNS);
+                long start = System.nanoTime();
+                list.markTask(index);
+                times[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(times);
+            return times[RUNS / 2] / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.Test;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Recurrence;
+import kiko.task.Recurring;
+import kiko.task.Task;
+import kiko.task.Todo;
+import kiko.transfer.CsvTaskReader;
+import kiko.transfer.CsvTaskWriter;
+import kiko.transfer.IcsTaskReader;
+import kiko.transfer.IcsTaskWriter;
+import kiko.transfer.TaskReader;
+import kiko.transfer.TaskWriter;
+
+/**
+ * JUnit tests for the CSV and iCalendar readers and writers.
+ */
+public class TaskTransferTest {
+    private static final LocalDateTime TIME = LocalDateTime.of(2026, 10, 20, 9, 30);
+    
+    @Test
+    void testCsvRoundTrip() throws IOException {
+        List<Task> tasks = sampleTasks();
+        StringWriter output = new StringWriter();
+        try (TaskWriter writer = new CsvTaskWriter(new BufferedWriter(output))) {
+            for (Task task : tasks) {
+                writer.write(task);
+            }
+        }
+        
+        List<Task> read = readAll(new CsvTaskReader(new BufferedReader(new StringReader(output.toString()))));
+        
+        assertSameTasks(tasks, read);
+    }
+    
+    @Test
+    void testIcsRoundTrip() throws IOException {
+        List<Task> tasks = sampleTasks();
+        StringWriter output = new StringWriter();
+        try (TaskWriter writer = new IcsTaskWriter(new BufferedWriter(output))) {
+            for (Task task : tasks) {
+                writer.write(task);
+            }
+        }
+        
+        List<Task> read = readAll(new IcsTaskReader(new BufferedReader(new StringReader(output.toString()))));
+        
+        assertSameTasks(tasks, read);
+    }
+    
+    @Test
+    void testCsvQuotedFieldsAndInferredTypes() throws IOException {
+        String csv = "description,by,done\r\n"
+                + "\"pay \"\"rent\"\",\nnow\",2026-10-20 0930,yes\n"
+                + "plain todo,,\n"
+                + "bad date,tomorrow,\n";
+        TaskReader reader = new CsvTaskReader(new BufferedReader(new StringReader(csv)));
+        
+        List<Task> read = readAll(reader);
+        
+        assertEquals(2, read.size(), "Two records should be read");
+        assertTrue(read.get(0) instanceof Deadline, "A by column should make a Deadline");
+        assertEquals("pay \"rent\", now", read.get(0).getDescription(), "Quotes and line breaks should be handled");
+        assertTrue(read.get(0).isDone(), "Done column should be read");
+        assertTrue(read.get(1) instanceof Todo, "No dates should make a Todo");
+        assertEquals(1, reader.getSkippedCount(), "Bad record should be skipped");
+    }
+    
+    @Test
+    void testIcsFoldingAlarmsAndUnsupportedRules() throws IOException {
+        String ics = "BEGIN:VCALENDAR\r\n"
+                + "BEGIN:VEVENT\r\n"
+                + "SUMMARY:Long meeting name that is\r\n"
+                + "  folded\r\n"
+                + "DTSTART;TZID=UTC:20261020T093000\r\n"
+                + "RRULE:FREQ=WEEKLY;BYDAY=MO,WE\r\n"
+                + "BEGIN:VALARM\r\n"
+                + "SUMMARY:alarm text\r\n"
+                + "END:VALARM\r\n"
+                + "END:VEVENT\r\n"
+                + "BEGIN:VTODO\r\n"
+                + "DUE;VALUE=DATE:20261031\r\n"
+                + "END:VTODO\r\n"
+                + "END:VCALENDAR\r\n";
+        TaskReader reader = new IcsTaskReader(new BufferedReader(new StringReader(ics)));
+        
+        List<Task> read = readAll(reader);
+        
+        assertEquals(1, read.size(), "Only the event should be read");
+        assertEquals("Long meeting name that is folded", read.get(0).getDescription(), "Lines should unfold");
+        assertTrue(read.get(0) instanceof Event, "Unsupported rule should import the first occurrence");
+        assertEquals(1, reader.getSkippedCount(), "Todo without a summary should be skipped");
+    }
+    
+    private static List<Task> sampleTasks() {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(new Todo("read, book; twice"));
+        Deadline deadline = new Deadline("return book", TIME);
+        deadline.markAsDone();
+        tasks.add(deadline);
+        tasks.add(new Event("project meeting", TIME, TIME.plusHours(2)));
+        tasks.add(new Recurring("standup", new Recurrence(Recurrence.Frequency.WEEKLY, 2, TIME, 0, TIME.plusMonths(3))));
+        return tasks;
+    }
+    
+    private static List<Task> readAll(TaskReader reader) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        try (reader) {
+            reader.forEachRemaining(tasks::add);
+        }
+        return tasks;
+    }
+    
+    private static void assertSameTasks(List<Task> expected, List<Task> actual) {
+        assertEquals(expected.size(), actual.size(), "Every task should be read back");
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(expected.get(i).hasSameContent(actual.get(i)), "Task " + i + " should match: " + actual.get(i));
+        }
+    }
+}
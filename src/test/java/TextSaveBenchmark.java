@@ -0,0 +1,118 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import kiko.storage.SharedTaskFile;
+import kiko.storage.Storage;
+import kiko.task.Deadline;
+import kiko.task.Event;
+import kiko.task.Task;
+import kiko.task.Todo;
+import kiko.tasklist.TaskList;
+
+/**
+ * Benchmark of saving a large list as text, comparing Storage.saveTasks with writing each task's
+ * storage string through a BufferedWriter. Also times the default journal engine saving one mark,
+ * both from the list's changes and by comparing the whole list as earlier saves did.
+ * Prints the median time, the throughput and the bytes allocated per save.
+ * Run with: java -cp build/classes/... TextSaveBenchmark
+ */
+public class TextSaveBenchmark {
+    private static final int SIZE = 1_000_000;
+    private static final int RUNS = 7;
+
+    /**
+     * A save to time.
+     */
+    private interface Save {
+        void run(ArrayList<Task> tasks, Path file) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        ArrayList<Task> tasks = createTasks();
+        Path directory = Files.createTempDirectory("kiko-save-benchmark");
+        Path file = directory.resolve("tasks.txt");
+        try {
+            System.out.printf("%-16s %10s %10s %14s%n", "writer", "ms", "MB/s", "allocated KB");
+            measure("encoder", tasks, file, (list, path) -> Storage.saveTasks(list, path.toString(), SIZE + 1, false));
+            measure("string lines", tasks, file, TextSaveBenchmark::saveWithStrings);
+
+            // Each save below marks or unmarks the first task, then saves through the journal
+            Path journaledFile = directory.resolve("journaled.txt");
+            TaskList taskList = new TaskList(createTasks(), journaledFile.toString(), SIZE + 1);
+            measure("journal changes", tasks, journaledFile, (list, path) -> {
+                if (taskList.getTask(1).isDone()) {
+                    taskList.unmarkTask(1);
+                } else {
+                    taskList.markTask(1);
+                }
+            });
+            SharedTaskFile sharedFile = SharedTaskFile.of(journaledFile.toString());
+            measure("journal full", tasks, journaledFile, (list, path) -> {
+                Task first = list.get(0);
+                if (first.isDone()) {
+                    first.markAsNotDone();
+                } else {
+                    first.markAsDone();
+                }
+                sharedFile.withLock(() -> sharedFile.write(list, SIZE + 1, false));
+            });
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path path : files.toList()) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static ArrayList<Task> createTasks() {
+        ArrayList<Task> tasks = new ArrayList<>(SIZE);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 9, 0);
+        for (int i = 1; i <= SIZE; i++) {
+            Task task = i % 3 == 0 ? new Todo("Read chapter " + i)
+                    : i % 3 == 1 ? new Deadline("Submit report " + i, base.plusMinutes(i))
+                    : new Event("Meeting " + i, base.plusHours(i), base.plusHours(i + 1));
+            task.setId(i);
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static void saveWithStrings(ArrayList<Task> tasks, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("# next-id " + (SIZE + 1) + System.lineSeparator());
+            writer.write("# generation 1" + System.lineSeparator());
+            for (Task task : tasks) {
+                writer.write(Storage.taskToFileString(task) + System.lineSeparator());
+            }
+        }
+    }
+
+    private static void measure(String name, ArrayList<Task> tasks, Path file, Save save) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] times = new long[RUNS];
+        long[] allocated = new long[RUNS];
+        // The first save warms up the JIT and is not counted
+        save.run(tasks, file);
+        for (int i = 0; i < RUNS; i++) {
+            long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            save.run(tasks, file);
+            times[i] = System.nanoTime() - start;
+            allocated[i] = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        }
+        Arrays.sort(times);
+        Arrays.sort(allocated);
+        double millis = times[RUNS / 2] / 1e6;
+        System.out.printf("%-16s %10.1f %10.1f %14d%n", name, millis, Files.size(file) / 1e6 / (millis / 1e3),
+                allocated[RUNS / 2] / 1024);
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import kiko.storage.InMemoryTaskStore;
+import kiko.workspace.Workspace;
+import kiko.workspace.WorkspaceManager;
+
+/**
+ * JUnit tests for the WorkspaceManager class.
+ * Tests lazy loading, LRU eviction and per-workspace files.
+ */
+public class WorkspaceManagerTest {
+
+    private String directoryPath;
+    private WorkspaceManager workspaces;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path directory = Files.createTempDirectory("kiko-workspaces");
+        directoryPath = directory.toString() + "/";
+        workspaces = new WorkspaceManager(directoryPath, 2);
+    }
+
+    @Test
+    void testWorkspaceLoadsLazily() {
+        Workspace workspace = new Workspace("work", directoryPath + "work.txt");
+
+        assertFalse(workspace.isLoaded(), "Creating a workspace should not read the file");
+        assertEquals(0, workspace.getTaskList().getTaskCount());
+        assertTrue(workspace.isLoaded(), "Accessing the tasks should load them");
+        workspace.close();
+        assertFalse(workspace.isLoaded(), "Closing should drop the tasks");
+    }
+
+    @Test
+    void testFailedOpenKeepsCurrentWorkspace() {
+        WorkspaceManager single = new WorkspaceManager(directoryPath, 1, path -> {
+            if (path.endsWith("bad.txt")) {
+                throw new UncheckedIOException(new IOException("Cannot open " + path));
+            }
+            return InMemoryTaskStore.of(path);
+        });
+        Workspace current = single.open("a");
+        current.getTaskList().addTodo("Task in a");
+
+        assertThrows(UncheckedIOException.class, () -> single.open("bad"));
+        assertTrue(single.isLoaded("a"), "A list that fails to load should not evict the one in use");
+        assertEquals(1, current.getTaskList().getTaskCount());
+        assertEquals(1, single.getOpenCount(), "The failed list should not be kept");
+        assertFalse(single.getNames().contains("bad"));
+    }
+
+    @Test
+    void testWorkspacesUseSeparateFiles() {
+        workspaces.open("work").getTaskList().addTodo("Work task");
+        workspaces.open("home").getTaskList().addTodo("Home task");
+
+        assertTrue(Files.exists(Path.of(directoryPath, "work.txt")), "Work list should have its own file");
+        assertTrue(Files.exists(Path.of(directoryPath, "home.txt")), "Home list should have its own file");
+        assertEquals("Work task", workspaces.open("work").getTaskList().getTask(1).getDescription());
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        workspaces.open("a").getTaskList().addTodo("Task in a");
+        workspaces.open("b").getTaskList().addTodo("Task in b");
+        workspaces.open("a");
+        workspaces.open("c").getTaskList();
+
+        assertEquals(2, workspaces.getOpenCount(), "Only two workspaces should stay open");
+        assertTrue(workspaces.isLoaded("a"), "Recently used workspace should stay open");
+        assertFalse(workspaces.isLoaded("b"), "Least recently used workspace should be evicted");
+        assertTrue(workspaces.getNames().contains("b"), "Evicted workspaces should still be listed");
+        assertEquals(1, workspaces.open("a").getTaskList().getTaskCount(), "Tasks should survive in memory");
+    }
+
+    @Test
+    void testStoreFactoryKeepsListsOffDisk() {
+        WorkspaceManager inMemory = new WorkspaceManager(directoryPath, 1, InMemoryTaskStore::of);
+        inMemory.open("scratch").getTaskList().addTodo("Scratch task");
+        inMemory.open("other");
+
+        assertFalse(Files.exists(Path.of(directoryPath, "scratch.txt")), "Nothing should be written to disk");
+        assertFalse(inMemory.isLoaded("scratch"), "The workspace should be evicted");
+        assertEquals("Scratch task", inMemory.open("scratch").getTaskList().getTask(1).getDescription(),
+                "Reopening should find the tasks in the same store");
+    }
+
+    @Test
+    void testInvalidNames() {
+        assertFalse(WorkspaceManager.isValidName("../etc"), "Paths should be rejected");
+        assertFalse(WorkspaceManager.isValidName(""), "Empty names should be rejected");
+        assertTrue(WorkspaceManager.isValidName("project-2"), "Simple names should be accepted");
+    }
+}